@@ -21,6 +21,7 @@ package com.torodb.backend;
 import com.google.common.base.Preconditions;
 import com.torodb.backend.ErrorHandler.Context;
 import com.torodb.core.annotations.TorodbIdleService;
+import com.torodb.core.backend.ConnectionPoolStats;
 import com.torodb.core.services.IdleTorodbService;
 import com.vladmihalcea.flexypool.FlexyPoolDataSource;
 import com.vladmihalcea.flexypool.adaptor.HikariCPPoolAdapter;
@@ -28,12 +29,15 @@ import com.vladmihalcea.flexypool.config.Configuration;
 import com.vladmihalcea.flexypool.strategy.RetryConnectionAcquiringStrategy;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadFactory;
 
@@ -52,6 +56,9 @@ public abstract class AbstractDbBackendService<ConfigurationT extends BackendCon
       + MIN_READ_CONNECTIONS_DATABASE
       + MIN_SESSION_CONNECTIONS_DATABASE;
   public static final int MAX_RETRY_ATTEMPS = 5;
+  public static final String SESSION_POOL_NAME = "session";
+  public static final String SYSTEM_POOL_NAME = "system";
+  public static final String READ_ONLY_POOL_NAME = "cursors";
   
   private final ConfigurationT configuration;
   private final ErrorHandler errorHandler;
@@ -109,18 +116,18 @@ public abstract class AbstractDbBackendService<ConfigurationT extends BackendCon
     int reservedReadPoolSize = configuration.getReservedReadPoolSize();
 
     embeddableWriteDataSource = createPooledDataSource(
-        configuration, "session",
+        configuration, SESSION_POOL_NAME,
         configuration.getConnectionPoolSize() - reservedReadPoolSize - SYSTEM_DATABASE_CONNECTIONS,
         getCommonTransactionIsolation(),
         false
     );
     embeddableSystemDataSource = createPooledDataSource(
-        configuration, "system",
+        configuration, SYSTEM_POOL_NAME,
         SYSTEM_DATABASE_CONNECTIONS,
         getSystemTransactionIsolation(),
         false);
     embeddableReadOnlyDataSource = createPooledDataSource(
-        configuration, "cursors",
+        configuration, READ_ONLY_POOL_NAME,
         reservedReadPoolSize,
         getGlobalCursorTransactionIsolation(),
         true);
@@ -294,4 +301,26 @@ public abstract class AbstractDbBackendService<ConfigurationT extends BackendCon
 
     return consumeConnection(writeDataSource, false);
   }
+
+  @Override
+  public List<ConnectionPoolStats> getConnectionPoolStats() {
+    List<ConnectionPoolStats> result = new ArrayList<>(3);
+    if (!isRunning()) {
+      return result;
+    }
+    addConnectionPoolStats(embeddableWriteDataSource, result);
+    addConnectionPoolStats(embeddableSystemDataSource, result);
+    addConnectionPoolStats(embeddableReadOnlyDataSource, result);
+    return result;
+  }
+
+  private void addConnectionPoolStats(HikariDataSource dataSource,
+      List<ConnectionPoolStats> result) {
+    HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+    if (pool == null) {
+      return;
+    }
+    result.add(new ConnectionPoolStats(dataSource.getPoolName(), pool.getActiveConnections(),
+        pool.getIdleConnections(), pool.getTotalConnections(), dataSource.getMaximumPoolSize()));
+  }
 }
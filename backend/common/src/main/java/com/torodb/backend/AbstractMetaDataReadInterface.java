@@ -139,6 +139,9 @@ public abstract class AbstractMetaDataReadInterface implements MetaDataReadInter
     while (tableRefIterator.hasNext()) {
       TableRef tableRef = tableRefIterator.next();
       MetaDocPart docPart = collection.getMetaDocPartByTableRef(tableRef);
+      if (docPart == null) {
+        continue;
+      }
       Iterator<? extends MetaIdentifiedDocPartIndex> docPartIndexIterator = docPart.streamIndexes()
           .iterator();
       while (docPartIndexIterator.hasNext()) {
@@ -29,6 +29,7 @@ import com.torodb.core.cursors.Cursor;
 import com.torodb.core.cursors.EmptyCursor;
 import com.torodb.core.cursors.IteratorCursor;
 import com.torodb.core.d2r.DocPartResult;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 import com.torodb.core.transaction.metainf.MetaDocPart;
@@ -44,12 +45,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -69,6 +73,7 @@ public abstract class AbstractReadInterface implements ReadInterface {
   private final ErrorHandler errorHandler;
   private final SqlHelper sqlHelper;
   private final TableRefFactory tableRefFactory;
+  private final QueryCriteriaSqlTranslator queryCriteriaSqlTranslator;
 
   public AbstractReadInterface(MetaDataReadInterface metaDataReadInterface,
       DataTypeProvider dataTypeProvider,
@@ -78,6 +83,7 @@ public abstract class AbstractReadInterface implements ReadInterface {
     this.errorHandler = errorHandler;
     this.sqlHelper = sqlHelper;
     this.tableRefFactory = tableRefFactory;
+    this.queryCriteriaSqlTranslator = new QueryCriteriaSqlTranslator(tableRefFactory, sqlHelper);
   }
 
   @Override
@@ -121,6 +127,13 @@ public abstract class AbstractReadInterface implements ReadInterface {
     assert valuesMultimap.keySet().stream().allMatch(metafield -> metaDocPart
         .getMetaFieldByIdentifier(metafield.getIdentifier()) != null);
 
+    Optional<ArrayParameterStatements> arrayParameterStatements = getArrayParameterStatements(
+        valuesMultimap.keySet());
+    if (arrayParameterStatements.isPresent()) {
+      return getCollectionDidsWithFieldsInArray(dsl, metaDatabase, metaDocPart, valuesMultimap,
+          arrayParameterStatements.get());
+    }
+
     if (valuesMultimap.size() > 500) {
       @SuppressWarnings("checkstyle:LineLength")
       Stream<Entry<Long, List<Tuple2<Entry<MetaField, KvValue<?>>, Long>>>> valuesEntriesBatchStream =
@@ -156,6 +169,33 @@ public abstract class AbstractReadInterface implements ReadInterface {
         valuesMultimap);
   }
 
+  @SuppressFBWarnings(value = {"OBL_UNSATISFIED_OBLIGATION", "ODR_OPEN_DATABASE_RESOURCE"},
+      justification =
+      "ResultSet is wrapped in a Cursor<Integer>. It's iterated and closed in caller code")
+  private Cursor<Integer> getCollectionDidsWithFieldsInArray(DSLContext dsl,
+      MetaDatabase metaDatabase, MetaDocPart metaDocPart,
+      Multimap<MetaField, KvValue<?>> valuesMultimap,
+      ArrayParameterStatements arrayParameterStatements) throws SQLException {
+    List<MetaField> metaFields = valuesMultimap.keySet().stream()
+        .sorted((f1, f2) -> f1.getIdentifier().compareTo(f2.getIdentifier()))
+        .collect(Collectors.toList());
+    String statement = arrayParameterStatements.getReadCollectionDidsWithFieldInArrayStatement(
+        metaDatabase.getIdentifier(), metaDocPart.getIdentifier(), metaFields);
+    Connection connection = dsl.configuration().connectionProvider().acquire();
+    try {
+      PreparedStatement preparedStatement = connection.prepareStatement(statement);
+      int parameterIndex = 1;
+      for (MetaField metaField : metaFields) {
+        arrayParameterStatements.setArrayParameter(connection, preparedStatement, parameterIndex,
+            metaField, valuesMultimap.get(metaField));
+        parameterIndex++;
+      }
+      return new DefaultDidCursor(errorHandler, preparedStatement.executeQuery());
+    } finally {
+      dsl.configuration().connectionProvider().release(connection);
+    }
+  }
+
   private Multimap<MetaField, KvValue<?>> toValuesMultimap(
       Stream<Entry<MetaField, KvValue<?>>> valueEntryStream) {
     Multimap<MetaField, KvValue<?>> valuesMultimap = ArrayListMultimap.create();
@@ -205,6 +245,18 @@ public abstract class AbstractReadInterface implements ReadInterface {
       String rootTableName,
       Stream<Tuple2<String, Integer>> valuesCountList);
 
+  /**
+   * Returns the {@link ArrayParameterStatements} that bind the values of each of the given fields
+   * as one array parameter, if the backend supports it for all of them.
+   *
+   * <p>This implementation returns an empty optional, so values are bound one by one on chunked IN
+   * lists.
+   */
+  protected Optional<ArrayParameterStatements> getArrayParameterStatements(
+      Collection<MetaField> metaFields) {
+    return Optional.empty();
+  }
+
   @Override
   @SuppressFBWarnings(value = {"OBL_UNSATISFIED_OBLIGATION", "ODR_OPEN_DATABASE_RESOURCE"},
       justification = "ResultSet is wrapped in a Cursor<Tuple2<Integer, KVValue<?>>>. It's "
@@ -219,6 +271,24 @@ public abstract class AbstractReadInterface implements ReadInterface {
     assert valuesMultimap.keySet().stream().allMatch(metafield -> metaDocPart
         .getMetaFieldByIdentifier(metafield.getIdentifier()) != null);
 
+    Optional<ArrayParameterStatements> arrayParameterStatements = getArrayParameterStatements(
+        valuesMultimap.keySet());
+    if (arrayParameterStatements.isPresent()) {
+      ArrayParameterStatements statements = arrayParameterStatements.get();
+      if (valuesMultimap.keySet().size() == 1) {
+        Entry<MetaField, Collection<KvValue<?>>> entry = valuesMultimap.asMap().entrySet()
+            .iterator().next();
+        return getCollectionDidsAndProjectionWithFieldInArray(dsl, metaDatabase, metaDocPart,
+            entry.getKey(), entry.getValue(), statements);
+      }
+      Stream<Tuple2<Integer, KvValue<?>>> didProjectionStream = valuesMultimap.asMap()
+          .entrySet().stream()
+          .map(Unchecked.function(entry -> getCollectionDidsAndProjectionWithFieldInArray(dsl,
+              metaDatabase, metaDocPart, entry.getKey(), entry.getValue(), statements)))
+          .flatMap(cursor -> cursor.getRemaining().stream());
+      return new IteratorCursor<>(didProjectionStream.iterator());
+    }
+
     Stream<Tuple2<MetaField, Collection<KvValue<?>>>> valuesBatchStream =
         valuesMultimap.asMap().entrySet().stream()
             .map(e -> new Tuple2<MetaField, Collection<KvValue<?>>>(e.getKey(), e.getValue()));
@@ -280,24 +350,49 @@ public abstract class AbstractReadInterface implements ReadInterface {
             value);
         parameterIndex++;
       }
-      return new AbstractCursor<Tuple2<Integer, KvValue<?>>>(errorHandler, preparedStatement
-          .executeQuery()) {
-        @Override
-        protected Tuple2<Integer, KvValue<?>> read(ResultSet resultSet) throws SQLException {
-          return new Tuple2<>(
-              resultSet.getInt(1),
-              sqlHelper.getResultSetKvValue(
-                metaField.getType(),
-                dataTypeProvider.getDataType(metaField.getType()), resultSet, 2
-              )
-          );
-        }
-      };
+      return createDidAndProjectionCursor(metaField, preparedStatement.executeQuery());
     } finally {
       dsl.configuration().connectionProvider().release(connection);
     }
   }
 
+  @SuppressFBWarnings(value = {"OBL_UNSATISFIED_OBLIGATION", "ODR_OPEN_DATABASE_RESOURCE"},
+      justification = "ResultSet is wrapped in a Cursor<Tuple2<Integer, KVValue<?>>>. "
+          + "It's iterated and closed in caller code")
+  private Cursor<Tuple2<Integer, KvValue<?>>> getCollectionDidsAndProjectionWithFieldInArray(
+      DSLContext dsl, MetaDatabase metaDatabase, MetaDocPart metaDocPart, MetaField metaField,
+      Collection<KvValue<?>> values, ArrayParameterStatements arrayParameterStatements)
+      throws SQLException {
+    String statement = arrayParameterStatements
+        .getReadCollectionDidsAndProjectionWithFieldInArrayStatement(
+            metaDatabase.getIdentifier(), metaDocPart.getIdentifier(), metaField);
+    Connection connection = dsl.configuration().connectionProvider().acquire();
+    try {
+      PreparedStatement preparedStatement = connection.prepareStatement(statement);
+      arrayParameterStatements.setArrayParameter(connection, preparedStatement, 1, metaField,
+          values);
+      return createDidAndProjectionCursor(metaField, preparedStatement.executeQuery());
+    } finally {
+      dsl.configuration().connectionProvider().release(connection);
+    }
+  }
+
+  private Cursor<Tuple2<Integer, KvValue<?>>> createDidAndProjectionCursor(MetaField metaField,
+      ResultSet resultSet) {
+    return new AbstractCursor<Tuple2<Integer, KvValue<?>>>(errorHandler, resultSet) {
+      @Override
+      protected Tuple2<Integer, KvValue<?>> read(ResultSet resultSet) throws SQLException {
+        return new Tuple2<>(
+            resultSet.getInt(1),
+            sqlHelper.getResultSetKvValue(
+              metaField.getType(),
+              dataTypeProvider.getDataType(metaField.getType()), resultSet, 2
+            )
+        );
+      }
+    };
+  }
+
   protected abstract String getReadCollectionDidsAndProjectionWithFieldInStatement(
       String schemaName,
       String rootTableName,
@@ -330,6 +425,30 @@ public abstract class AbstractReadInterface implements ReadInterface {
   protected abstract String getReadAllCollectionDidsStatement(String schemaName,
       String rootTableName);
 
+  @Override
+  @SuppressFBWarnings(value = {"OBL_UNSATISFIED_OBLIGATION", "ODR_OPEN_DATABASE_RESOURCE"},
+      justification =
+      "ResultSet is wrapped in a Cursor<Integer>. It's iterated and closed in caller code")
+  public Cursor<Integer> getCollectionDidsWithCriteria(DSLContext dsl, MetaDatabase metaDatabase,
+      MetaCollection metaCol, QueryCriteria criteria) throws SQLException {
+    assert metaDatabase.getMetaCollectionByIdentifier(metaCol.getIdentifier()) != null;
+
+    QueryCriteriaSqlTranslator.SqlQuery query = queryCriteriaSqlTranslator.translate(
+        metaDatabase.getIdentifier(), metaCol, criteria);
+    if (query == null) {
+      return new EmptyCursor<>();
+    }
+
+    Connection connection = dsl.configuration().connectionProvider().acquire();
+    try {
+      PreparedStatement preparedStatement = connection.prepareStatement(query.getStatement());
+      query.setParameters(sqlHelper, preparedStatement);
+      return new DefaultDidCursor(errorHandler, preparedStatement.executeQuery());
+    } finally {
+      dsl.configuration().connectionProvider().release(connection);
+    }
+  }
+
   @Override
   public long countAll(
       @Nonnull DSLContext dsl,
@@ -363,20 +482,52 @@ public abstract class AbstractReadInterface implements ReadInterface {
       "ResultSet is wrapped in a DocPartResult. It's iterated and closed in caller code")
   public List<DocPartResult> getCollectionResultSets(DSLContext dsl, MetaDatabase metaDatabase,
       MetaCollection metaCollection, Collection<Integer> dids) throws SQLException {
-    ArrayList<DocPartResult> result = new ArrayList<>();
+    List<MetaDocPart> metaDocParts = metaCollection
+        .streamContainedMetaDocParts()
+        .sorted(TableRefComparator.MetaDocPart.DESC)
+        .collect(Collectors.toList());
+    if (metaDocParts.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    ArrayList<DocPartResult> result = new ArrayList<>(metaDocParts.size());
     Connection connection = dsl.configuration().connectionProvider().acquire();
     try {
-      Iterator<? extends MetaDocPart> metaDocPartIterator = metaCollection
-          .streamContainedMetaDocParts()
-          .sorted(TableRefComparator.MetaDocPart.DESC)
-          .iterator();
-      while (metaDocPartIterator.hasNext()) {
-        MetaDocPart metaDocPart = metaDocPartIterator.next();
-        String statament = getDocPartStatament(metaDatabase, metaDocPart, dids);
-
-        PreparedStatement preparedStatement = connection.prepareStatement(statament);
-        result.add(new ResultSetDocPartResult(metaDataReadInterface, dataTypeProvider, errorHandler,
-            metaDocPart, preparedStatement.executeQuery(), sqlHelper));
+      if (isMultiStatementFetchSupported()) {
+        String statement = metaDocParts.stream()
+            .map(metaDocPart -> getDocPartStatament(metaDatabase, metaDocPart, dids))
+            .collect(Collectors.joining(";"));
+
+        Statement jdbcStatement = connection.createStatement();
+        try {
+          jdbcStatement.closeOnCompletion();
+          boolean isResultSet = jdbcStatement.execute(statement);
+          for (MetaDocPart metaDocPart : metaDocParts) {
+            if (!isResultSet) {
+              throw new SQLException("Expected a result set for " + metaDocPart.getTableRef());
+            }
+            result.add(new ResultSetDocPartResult(metaDataReadInterface, dataTypeProvider,
+                errorHandler, metaDocPart, jdbcStatement.getResultSet(), sqlHelper));
+            isResultSet = jdbcStatement.getMoreResults(Statement.KEEP_CURRENT_RESULT);
+          }
+        } catch (Throwable throwable) {
+          closeOnError(throwable, result, jdbcStatement);
+          throw throwable;
+        }
+      } else {
+        for (MetaDocPart metaDocPart : metaDocParts) {
+          String statament = getDocPartStatament(metaDatabase, metaDocPart, dids);
+
+          PreparedStatement preparedStatement = connection.prepareStatement(statament);
+          try {
+            preparedStatement.closeOnCompletion();
+            result.add(new ResultSetDocPartResult(metaDataReadInterface, dataTypeProvider,
+                errorHandler, metaDocPart, preparedStatement.executeQuery(), sqlHelper));
+          } catch (Throwable throwable) {
+            closeOnError(throwable, result, preparedStatement);
+            throw throwable;
+          }
+        }
       }
     } finally {
       dsl.configuration().connectionProvider().release(connection);
@@ -384,6 +535,36 @@ public abstract class AbstractReadInterface implements ReadInterface {
     return result;
   }
 
+  /**
+   * Closes the results already created and the statement that could not create the rest of them,
+   * as the caller will not receive them. Errors found while closing are added as suppressed
+   * exceptions of the one that caused the failure.
+   */
+  private void closeOnError(Throwable cause, List<DocPartResult> results, Statement statement) {
+    for (DocPartResult docPartResult : results) {
+      try {
+        docPartResult.close();
+      } catch (RuntimeException ex) {
+        cause.addSuppressed(ex);
+      }
+    }
+    results.clear();
+    try {
+      statement.close();
+    } catch (SQLException ex) {
+      cause.addSuppressed(ex);
+    }
+  }
+
+  /**
+   * Returns true iff several queries separated by semicolons can be sent in a single
+   * {@link Statement#execute(java.lang.String) execution}, so the doc parts of a batch of
+   * documents are read in one round trip.
+   */
+  protected boolean isMultiStatementFetchSupported() {
+    return false;
+  }
+
   protected abstract String getDocPartStatament(MetaDatabase metaDatabase, MetaDocPart metaDocPart,
       Collection<Integer> dids);
 
@@ -263,22 +263,42 @@ public abstract class AbstractStructureInterface implements StructureInterface {
   @Override
   public void createRootDocPartTable(DSLContext dsl, String schemaName, String tableName,
       TableRef tableRef) {
-    String statement = getCreateDocPartTableStatement(schemaName, tableName, metaDataReadInterface
-        .getInternalFields(tableRef));
-    sqlHelper.executeStatement(dsl, statement, Context.CREATE_TABLE);
+    createDocPartTable(dsl, schemaName, tableName, tableRef);
   }
 
   @Override
   public void createDocPartTable(DSLContext dsl, String schemaName, String tableName,
       TableRef tableRef, String foreignTableName) {
-    String statement = getCreateDocPartTableStatement(schemaName, tableName, metaDataReadInterface
-        .getInternalFields(tableRef));
+    createDocPartTable(dsl, schemaName, tableName, tableRef);
+  }
+
+  private void createDocPartTable(DSLContext dsl, String schemaName, String tableName,
+      TableRef tableRef) {
+    Collection<InternalField<?>> fields = metaDataReadInterface.getInternalFields(tableRef);
+    String statement;
+    if (dbBackend.isOnDataInsertMode(schemaName)) {
+      statement = getCreateDocPartTableOnDataInsertModeStatement(schemaName, tableName, fields);
+    } else {
+      statement = getCreateDocPartTableStatement(schemaName, tableName, fields);
+    }
     sqlHelper.executeStatement(dsl, statement, Context.CREATE_TABLE);
   }
 
   protected abstract String getCreateDocPartTableStatement(String schemaName, String tableName,
       Collection<InternalField<?>> fields);
 
+  /**
+   * Returns the statement used to create a doc part table while its schema is on data insert mode.
+   *
+   * <p>By default it is the same statement used when the schema is not on that mode, but backends
+   * can use it to create tables that are cheaper to load. Any change made here must be undone by
+   * the tasks returned by {@link #streamDataInsertFinishTableTasks(MetaDatabase)}.
+   */
+  protected String getCreateDocPartTableOnDataInsertModeStatement(String schemaName,
+      String tableName, Collection<InternalField<?>> fields) {
+    return getCreateDocPartTableStatement(schemaName, tableName, fields);
+  }
+
   @Override
   public Stream<Function<DSLContext, String>> streamRootDocPartTableIndexesCreation(
       String schemaName, String tableName, TableRef tableRef) {
@@ -297,9 +317,9 @@ public abstract class AbstractStructureInterface implements StructureInterface {
   }
 
   @Override
-  public Stream<Function<DSLContext, String>> streamDocPartTableIndexesCreation(String schemaName,
-      String tableName, TableRef tableRef, String foreignTableName) {
-    List<Function<DSLContext, String>> result = new ArrayList<>(4);
+  public Stream<Function<DSLContext, String>> streamDocPartTableInternalIndexesCreation(
+      String schemaName, String tableName, TableRef tableRef) {
+    List<Function<DSLContext, String>> result = new ArrayList<>(3);
     if (!dbBackend.isOnDataInsertMode(schemaName)) {
       String primaryKeyStatement = getAddDocPartTablePrimaryKeyStatement(schemaName, tableName,
           metaDataReadInterface.getPrimaryKeyInternalFields(tableRef));
@@ -319,33 +339,44 @@ public abstract class AbstractStructureInterface implements StructureInterface {
       });
     }
 
-    if (!dbBackend.isOnDataInsertMode(schemaName)) {
-      if (dbBackend.includeForeignKeys()) {
-        String foreignKeyStatement = getAddDocPartTableForeignKeyStatement(schemaName, tableName,
-            metaDataReadInterface.getReferenceInternalFields(tableRef),
-            foreignTableName, metaDataReadInterface.getForeignInternalFields(tableRef));
+    if (!dbBackend.isOnDataInsertMode(schemaName) && !dbBackend.includeForeignKeys()) {
+      if (!tableRef.isRoot() && !tableRef.getParent().get().isRoot()) {
+        String foreignKeyIndexStatement = getCreateDocPartTableIndexStatement(
+            schemaName, tableName,
+            metaDataReadInterface.getReferenceInternalFields(tableRef));
         result.add((dsl) -> {
-          sqlHelper.executeStatement(dsl, foreignKeyStatement, Context.ADD_FOREIGN_KEY);
+          sqlHelper.executeStatement(dsl, foreignKeyIndexStatement, Context.CREATE_INDEX);
           return metaDataReadInterface.getReferenceInternalFields(tableRef).stream().map(f -> f
-              .getName()).collect(Collectors.joining("_")) + "_fkey";
+              .getName()).collect(Collectors.joining("_")) + "_idx";
         });
-      } else {
-        if (!tableRef.isRoot() && !tableRef.getParent().get().isRoot()) {
-          String foreignKeyIndexStatement = getCreateDocPartTableIndexStatement(
-              schemaName, tableName,
-              metaDataReadInterface.getReferenceInternalFields(tableRef));
-          result.add((dsl) -> {
-            sqlHelper.executeStatement(dsl, foreignKeyIndexStatement, Context.CREATE_INDEX);
-            return metaDataReadInterface.getReferenceInternalFields(tableRef).stream().map(f -> f
-                .getName()).collect(Collectors.joining("_")) + "_idx";
-          });
-        }
       }
     }
 
     return result.stream();
   }
 
+  @Override
+  public Stream<Function<DSLContext, String>> streamDocPartTableForeignKeysCreation(
+      String schemaName, String tableName, TableRef tableRef, String foreignTableName) {
+    List<Function<DSLContext, String>> result = new ArrayList<>(1);
+    if (!dbBackend.isOnDataInsertMode(schemaName) && dbBackend.includeForeignKeys()) {
+      String foreignKeyStatement = getAddDocPartTableForeignKeyStatement(schemaName, tableName,
+          metaDataReadInterface.getReferenceInternalFields(tableRef),
+          foreignTableName, metaDataReadInterface.getForeignInternalFields(tableRef));
+      result.add((dsl) -> {
+        sqlHelper.executeStatement(dsl, foreignKeyStatement, Context.ADD_FOREIGN_KEY);
+        return metaDataReadInterface.getReferenceInternalFields(tableRef).stream().map(f -> f
+            .getName()).collect(Collectors.joining("_")) + "_fkey";
+      });
+    }
+    return result.stream();
+  }
+
+  @Override
+  public Stream<Function<DSLContext, String>> streamDataInsertFinishTableTasks(MetaDatabase db) {
+    return Collections.<Function<DSLContext, String>>emptySet().stream();
+  }
+
   @Override
   public Stream<Function<DSLContext, String>> streamDataInsertFinishTasks(MetaDatabase db) {
     return Collections.<Function<DSLContext, String>>emptySet().stream();
@@ -19,10 +19,13 @@
 package com.torodb.backend;
 
 import com.torodb.backend.ErrorHandler.Context;
+import com.torodb.backend.tables.MetaDocPartTable.DocPartTableFields;
+import com.torodb.core.TableRefFactory;
 import com.torodb.core.cursors.Cursor;
 import com.torodb.core.d2r.DocPartData;
 import com.torodb.core.d2r.DocPartRow;
 import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.FieldType;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDocPart;
@@ -36,11 +39,15 @@ import org.jooq.exception.DataAccessException;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 import javax.inject.Singleton;
@@ -57,14 +64,121 @@ public abstract class AbstractWriteInterface implements WriteInterface {
   private final MetaDataReadInterface metaDataReadInterface;
   private final ErrorHandler errorHandler;
   private final SqlHelper sqlHelper;
+  private final TableRefFactory tableRefFactory;
+  private final QueryCriteriaSqlTranslator queryCriteriaSqlTranslator;
 
   public AbstractWriteInterface(MetaDataReadInterface metaDataReadInterface,
       ErrorHandler errorHandler,
-      SqlHelper sqlHelper) {
+      SqlHelper sqlHelper,
+      TableRefFactory tableRefFactory) {
     super();
     this.metaDataReadInterface = metaDataReadInterface;
     this.errorHandler = errorHandler;
     this.sqlHelper = sqlHelper;
+    this.tableRefFactory = tableRefFactory;
+    this.queryCriteriaSqlTranslator = new QueryCriteriaSqlTranslator(tableRefFactory, sqlHelper);
+  }
+
+  protected QueryCriteriaSqlTranslator getQueryCriteriaSqlTranslator() {
+    return queryCriteriaSqlTranslator;
+  }
+
+  protected MetaDocPart getRootDocPart(MetaCollection metaCollection) {
+    return metaCollection.getMetaDocPartByTableRef(tableRefFactory.createRoot());
+  }
+
+  @Override
+  public long deleteAllCollectionDocParts(@Nonnull DSLContext dsl,
+      @Nonnull String schemaName, @Nonnull MetaCollection metaCollection) {
+    MetaDocPart rootDocPart = getRootDocPart(metaCollection);
+    if (rootDocPart == null) {
+      return 0;
+    }
+    String countStatement = new SqlBuilder("SELECT COUNT(*) FROM ")
+        .table(schemaName, rootDocPart.getIdentifier())
+        .toString();
+    long deleted = sqlHelper.executeStatementWithResult(dsl, countStatement, Context.FETCH)
+        .get(0).into(Long.class);
+
+    List<String> tableNames = metaCollection.streamContainedMetaDocParts()
+        .sorted(TableRefComparator.MetaDocPart.DESC)
+        .map(MetaDocPart::getIdentifier)
+        .collect(Collectors.toList());
+    Connection c = dsl.configuration().connectionProvider().acquire();
+    try {
+      deleteAllDocParts(c, schemaName, tableNames);
+    } finally {
+      dsl.configuration().connectionProvider().release(c);
+    }
+
+    return deleted;
+  }
+
+  /**
+   * Removes all rows of the given tables, which are sorted so children come before their parents.
+   */
+  protected void deleteAllDocParts(Connection c, String schemaName, List<String> tableNames) {
+    for (String statement : getDeleteAllDocPartsStatements(schemaName, tableNames)) {
+      sqlHelper.executeUpdate(c, statement, Context.DELETE);
+
+      LOGGER.trace("Executed {}", statement);
+    }
+  }
+
+  /**
+   * Returns the statements that remove all rows of the given tables, which are sorted so children
+   * come before their parents.
+   */
+  protected List<String> getDeleteAllDocPartsStatements(String schemaName,
+      List<String> tableNames) {
+    return tableNames.stream()
+        .map(tableName -> new SqlBuilder("DELETE FROM ")
+            .table(schemaName, tableName)
+            .toString())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This implementation reads the dids that fulfill the criteria before deleting any row, as
+   * the criteria can reference the doc parts that are going to be deleted, and then deletes them
+   * in batches.
+   */
+  @Override
+  public long deleteCollectionDocParts(@Nonnull DSLContext dsl,
+      @Nonnull String schemaName, @Nonnull MetaCollection metaCollection,
+      @Nonnull QueryCriteria criteria) {
+    QueryCriteriaSqlTranslator.SqlQuery query = queryCriteriaSqlTranslator.translate(
+        schemaName, metaCollection, criteria, false);
+    if (query == null) {
+      return 0;
+    }
+
+    Connection c = dsl.configuration().connectionProvider().acquire();
+    try {
+      List<Integer> dids = new ArrayList<>();
+      try (PreparedStatement ps = c.prepareStatement(query.getStatement())) {
+        query.setParameters(sqlHelper, ps);
+        try (ResultSet rs = ps.executeQuery()) {
+          while (rs.next()) {
+            dids.add(rs.getInt(1));
+          }
+        }
+      } catch (SQLException ex) {
+        throw errorHandler.handleException(Context.DELETE, ex);
+      }
+
+      int maxBatchSize = 100;
+      for (int from = 0; from < dids.size(); from += maxBatchSize) {
+        deleteCollectionDocParts(c, schemaName, metaCollection,
+            dids.subList(from, Math.min(dids.size(), from + maxBatchSize)));
+      }
+
+      return dids.size();
+    } finally {
+      dsl.configuration().connectionProvider().release(c);
+    }
   }
 
   @Override
@@ -108,13 +222,20 @@ public abstract class AbstractWriteInterface implements WriteInterface {
     Iterator<? extends MetaDocPart> iterator = metaCollection.streamContainedMetaDocParts()
         .sorted(TableRefComparator.MetaDocPart.DESC).iterator();
     while (iterator.hasNext()) {
-      MetaDocPart metaDocPart = iterator.next();
-      String statement = getDeleteDocPartsStatement(schemaName, metaDocPart.getIdentifier(), dids);
+      deleteDocPartRows(c, schemaName, metaDocPart, dids);
+    }
+  }
 
-      sqlHelper.executeUpdate(c, statement, Context.DELETE);
+  /**
+   * Deletes the rows of the given doc part that belong to any of the given dids.
+   */
+  protected void deleteDocPartRows(Connection c, String schemaName, MetaDocPart metaDocPart,
+      Collection<Integer> dids) {
+    String statement = getDeleteDocPartsStatement(schemaName, metaDocPart.getIdentifier(), dids);
 
-      LOGGER.trace("Executed {}", statement);
-    }
+    sqlHelper.executeUpdate(c, statement, Context.DELETE);
+
+    LOGGER.trace("Executed {}", statement);
   }
 
   protected abstract String getDeleteDocPartsStatement(String schemaName, String tableName,
@@ -139,10 +260,94 @@ public abstract class AbstractWriteInterface implements WriteInterface {
     }
   }
 
+  @Override
+  public int updateDocPartRow(@Nonnull DSLContext dsl, @Nonnull String schemaName,
+      @Nonnull MetaDocPart metaDocPart, int did, @Nonnull Map<MetaField, KvValue<?>> newValues)
+      throws UserException {
+    if (newValues.isEmpty()) {
+      return 0;
+    }
+    List<MetaField> metaFields = new ArrayList<>(newValues.keySet());
+    DocPartStatementKey key = new DocPartStatementKey(DocPartStatementKey.Kind.UPDATE,
+        schemaName, metaDocPart.getIdentifier(), metaFields.stream()
+            .map(MetaField::getIdentifier)
+            .collect(Collectors.toList()));
+
+    Connection connection = dsl.configuration().connectionProvider().acquire();
+    try {
+      PreparedStatement preparedStatement = prepareStatement(connection, key,
+          () -> getUpdateDocPartRowStatement(schemaName, metaDocPart, metaFields));
+      try {
+        int parameterIndex = 1;
+        for (MetaField metaField : metaFields) {
+          sqlHelper.setPreparedStatementNullableValue(
+              preparedStatement, parameterIndex++,
+              metaField.getType(),
+              newValues.get(metaField));
+        }
+        preparedStatement.setInt(parameterIndex, did);
+
+        int updated = preparedStatement.executeUpdate();
+
+        LOGGER.trace("Executed update of {}", key);
+
+        return updated;
+      } finally {
+        releaseStatement(preparedStatement);
+      }
+    } catch (SQLException ex) {
+      throw errorHandler.handleUserException(Context.UPDATE, ex);
+    } finally {
+      dsl.configuration().connectionProvider().release(connection);
+    }
+  }
+
+  /**
+   * Returns the statement that sets the given fields on the rows of a document, whose parameters
+   * are the values of the fields in the same order followed by the did.
+   */
+  protected String getUpdateDocPartRowStatement(String schemaName, MetaDocPart metaDocPart,
+      List<MetaField> metaFields) {
+    SqlBuilder sb = new SqlBuilder("UPDATE ")
+        .table(schemaName, metaDocPart.getIdentifier())
+        .append(" SET ");
+    for (MetaField metaField : metaFields) {
+      sb.quote(metaField.getIdentifier())
+          .append(" = ?,");
+    }
+    return sb.setLastChar(' ')
+        .append("WHERE ")
+        .quote(DocPartTableFields.DID.fieldName)
+        .append(" = ?")
+        .toString();
+  }
+
   protected int getMaxBatchSize() {
     return 30;
   }
 
+  /**
+   * Returns a statement prepared on the given connection whose text is the one supplied for the
+   * given key. It must be {@link #releaseStatement(PreparedStatement) released} once it has been
+   * executed.
+   *
+   * <p>This implementation prepares a new statement each time it is called.
+   */
+  protected PreparedStatement prepareStatement(Connection connection, DocPartStatementKey key,
+      Supplier<String> statementSupplier) throws SQLException {
+    return connection.prepareStatement(statementSupplier.get());
+  }
+
+  /**
+   * Releases a statement returned by
+   * {@link #prepareStatement(Connection, DocPartStatementKey, Supplier)}.
+   *
+   * <p>This implementation closes it.
+   */
+  protected void releaseStatement(PreparedStatement preparedStatement) throws SQLException {
+    preparedStatement.close();
+  }
+
   protected void standardInsertDocPartData(DSLContext dsl, String schemaName,
       DocPartData docPartData, MetaDocPart metaDocPart,
       Iterator<MetaScalar> metaScalarIterator, Iterator<MetaField> metaFieldIterator,
@@ -151,17 +356,31 @@ public abstract class AbstractWriteInterface implements WriteInterface {
     Collection<InternalField<?>> internalFields = metaDataReadInterface.getInternalFields(
         metaDocPart);
     List<FieldType> fieldTypeList = new ArrayList<>();
-    String statement = getInsertDocPartDataStatement(schemaName, metaDocPart, metaFieldIterator,
-        metaScalarIterator,
-        internalFields, fieldTypeList);
-    assert assertFieldTypeListIsConsistent(docPartData, fieldTypeList) :
-        "fieldTypeList should be an ordered list of FieldType"
-        + " from MetaScalar and MetaField following the the ordering of "
-        + "DocPartData.orderedMetaScalarIterator and DocPartData.orderedMetaFieldIterator";
+    List<String> columnNames = new ArrayList<>();
+    docPartData.orderedMetaScalarIterator().forEachRemaining(metaScalar -> {
+      fieldTypeList.add(metaScalar.getType());
+      columnNames.add(metaScalar.getIdentifier());
+    });
+    docPartData.orderedMetaFieldIterator().forEachRemaining(metaField -> {
+      fieldTypeList.add(metaField.getType());
+      columnNames.add(metaField.getIdentifier());
+    });
+    DocPartStatementKey key = new DocPartStatementKey(DocPartStatementKey.Kind.INSERT,
+        schemaName, metaDocPart.getIdentifier(), columnNames);
 
     Connection connection = dsl.configuration().connectionProvider().acquire();
     try {
-      try (PreparedStatement preparedStatement = connection.prepareStatement(statement)) {
+      PreparedStatement preparedStatement = prepareStatement(connection, key, () -> {
+        List<FieldType> statementFieldTypeList = new ArrayList<>(fieldTypeList.size());
+        String statement = getInsertDocPartDataStatement(schemaName, metaDocPart,
+            metaFieldIterator, metaScalarIterator, internalFields, statementFieldTypeList);
+        assert statementFieldTypeList.equals(fieldTypeList) :
+            "fieldTypeList should be an ordered list of FieldType"
+            + " from MetaScalar and MetaField following the the ordering of "
+            + "DocPartData.orderedMetaScalarIterator and DocPartData.orderedMetaFieldIterator";
+        return statement;
+      });
+      try {
         int docCounter = 0;
         while (docPartRowIterator.hasNext()) {
           DocPartRow docPartRow = docPartRowIterator.next();
@@ -196,6 +415,8 @@ public abstract class AbstractWriteInterface implements WriteInterface {
             LOGGER.trace("Insertion batch executed");
           }
         }
+      } finally {
+        releaseStatement(preparedStatement);
       }
     } catch (SQLException ex) {
       throw errorHandler.handleUserException(Context.INSERT, ex);
@@ -212,23 +433,4 @@ public abstract class AbstractWriteInterface implements WriteInterface {
       Collection<InternalField<?>> internalFields,
       List<FieldType> fieldTypeList);
 
-  private boolean assertFieldTypeListIsConsistent(DocPartData docPartData,
-      List<FieldType> fieldTypeList) {
-    Iterator<MetaScalar> metaScalarIterator = docPartData.orderedMetaScalarIterator();
-    Iterator<MetaField> metaFieldIterator = docPartData.orderedMetaFieldIterator();
-    Iterator<FieldType> fieldTypeIterator = fieldTypeList.iterator();
-    while (metaScalarIterator.hasNext()) {
-      if (!fieldTypeIterator.hasNext() || !metaScalarIterator.next().getType().equals(
-          fieldTypeIterator.next())) {
-        return false;
-      }
-    }
-    while (metaFieldIterator.hasNext()) {
-      if (!fieldTypeIterator.hasNext() || !metaFieldIterator.next().getType().equals(
-          fieldTypeIterator.next())) {
-        return false;
-      }
-    }
-    return true;
-  }
 }
@@ -0,0 +1,60 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import com.torodb.core.transaction.metainf.MetaField;
+import com.torodb.kvdocument.values.KvValue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The statements used by backends that can bind a set of values as a single array parameter, which
+ * lets lookups on a set of values use the same statement whatever the size of the set is.
+ *
+ * @see AbstractReadInterface#getArrayParameterStatements(Collection)
+ */
+public interface ArrayParameterStatements {
+
+  /**
+   * Returns the statement that reads, ordered by did, the dids of the rows whose value on any of
+   * the given fields is contained on the array bound to the parameter of that field, in the same
+   * order.
+   */
+  String getReadCollectionDidsWithFieldInArrayStatement(String schemaName, String rootTableName,
+      List<MetaField> metaFields);
+
+  /**
+   * Returns the statement that reads the did and the value of the given field of the rows whose
+   * value is contained on the array bound to its only parameter.
+   */
+  String getReadCollectionDidsAndProjectionWithFieldInArrayStatement(String schemaName,
+      String rootTableName, MetaField metaField);
+
+  /**
+   * Binds the given values of the given field as a single array parameter.
+   */
+  void setArrayParameter(Connection connection, PreparedStatement preparedStatement,
+      int parameterIndex, MetaField metaField, Collection<KvValue<?>> values)
+      throws SQLException;
+
+}
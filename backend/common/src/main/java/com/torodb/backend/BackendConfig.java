@@ -43,4 +43,35 @@ public interface BackendConfig extends BundleConfig {
   public int getDbPort();
 
   public boolean includeForeignKeys();
+
+  /**
+   * Returns true if bulk inserts should use the binary COPY format instead of the text one on
+   * backends that support it. It is disabled by default.
+   */
+  public default boolean getBinaryCopyEnabled() {
+    return false;
+  }
+
+  /**
+   * Returns the number of read connections used to preload the row id counters of the existing
+   * collections when the backend starts.
+   *
+   * <p>Counters are always loaded lazily the first time a collection is written, so a value of
+   * zero (the default) disables the warm up. The value is capped so at least one connection of the
+   * {@link #getReservedReadPoolSize() read pool} is left free.
+   */
+  public default int getRidWarmUpParallelism() {
+    return 0;
+  }
+
+  /**
+   * Returns true if the tables created while a database is on data import mode should not be
+   * written to the write ahead log on backends that support it.
+   *
+   * <p>These tables are emptied if the backend crashes before the import mode finishes. It is
+   * disabled by default.
+   */
+  public default boolean getUnloggedImportEnabled() {
+    return false;
+  }
 }
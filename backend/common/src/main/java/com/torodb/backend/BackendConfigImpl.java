@@ -42,10 +42,14 @@ public class BackendConfigImpl implements BackendConfig {
   private final boolean includeForeignKeys;
   private final BundleConfig delegate;
   private final boolean sslEnabled;
+  private final boolean binaryCopyEnabled;
+  private final int ridWarmUpParallelism;
+  private final boolean unloggedImportEnabled;
 
   protected BackendConfigImpl(long connectionPoolTimeout, int connectionPoolSize,
       int reservedReadPoolSize, String username, String password, String dbHost, String dbName,
-      int dbPort, boolean includeForeignKeys, BundleConfig delegate, boolean sslEnabled) {
+      int dbPort, boolean includeForeignKeys, BundleConfig delegate, boolean sslEnabled,
+      boolean binaryCopyEnabled, int ridWarmUpParallelism, boolean unloggedImportEnabled) {
     this.connectionPoolTimeout = connectionPoolTimeout;
     this.connectionPoolSize = connectionPoolSize;
     this.reservedReadPoolSize = reservedReadPoolSize;
@@ -57,6 +61,9 @@ public class BackendConfigImpl implements BackendConfig {
     this.includeForeignKeys = includeForeignKeys;
     this.delegate = delegate;
     this.sslEnabled = sslEnabled;
+    this.binaryCopyEnabled = binaryCopyEnabled;
+    this.ridWarmUpParallelism = ridWarmUpParallelism;
+    this.unloggedImportEnabled = unloggedImportEnabled;
   }
 
   @Override
@@ -122,4 +129,19 @@ public class BackendConfigImpl implements BackendConfig {
   public boolean getSslEnabled() {
     return sslEnabled;
   }
+
+  @Override
+  public boolean getBinaryCopyEnabled() {
+    return binaryCopyEnabled;
+  }
+
+  @Override
+  public int getRidWarmUpParallelism() {
+    return ridWarmUpParallelism;
+  }
+
+  @Override
+  public boolean getUnloggedImportEnabled() {
+    return unloggedImportEnabled;
+  }
 }
@@ -33,6 +33,9 @@ public class BackendConfigImplBuilder implements BackendConfigBuilder {
   private boolean includeForeignKeys = true;
   private final BundleConfig generalConfig;
   private boolean sslEnabled = false;
+  private boolean binaryCopyEnabled = false;
+  private int ridWarmUpParallelism = 0;
+  private boolean unloggedImportEnabled = false;
 
   public BackendConfigImplBuilder(BundleConfig generalConfig) {
     this.generalConfig = generalConfig;
@@ -97,10 +100,26 @@ public class BackendConfigImplBuilder implements BackendConfigBuilder {
     return this;
   }
 
+  public BackendConfigImplBuilder setBinaryCopyEnabled(boolean binaryCopyEnabled) {
+    this.binaryCopyEnabled = binaryCopyEnabled;
+    return this;
+  }
+
+  public BackendConfigImplBuilder setRidWarmUpParallelism(int ridWarmUpParallelism) {
+    this.ridWarmUpParallelism = ridWarmUpParallelism;
+    return this;
+  }
+
+  public BackendConfigImplBuilder setUnloggedImportEnabled(boolean unloggedImportEnabled) {
+    this.unloggedImportEnabled = unloggedImportEnabled;
+    return this;
+  }
+
   @Override
   public BackendConfig build() {
     return new BackendConfigImpl(connectionPoolTimeout, connectionPoolSize, reservedReadPoolSize,
-        username, password, dbHost, dbName, dbPort, includeForeignKeys, generalConfig, sslEnabled);
+        username, password, dbHost, dbName, dbPort, includeForeignKeys, generalConfig, sslEnabled,
+        binaryCopyEnabled, ridWarmUpParallelism, unloggedImportEnabled);
   }
 
 }
@@ -54,6 +54,10 @@ public class BackendConnectionImpl implements BackendConnection {
     this.ridGenerator = ridGenerator;
   }
 
+  BackendServiceImpl getBackendService() {
+    return backend;
+  }
+
   @Override
   public ReadOnlyBackendTransaction openReadOnlyTransaction() {
     Preconditions.checkState(!closed, "This connection is closed");
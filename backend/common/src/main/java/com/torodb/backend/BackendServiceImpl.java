@@ -18,6 +18,7 @@
 
 package com.torodb.backend;
 
+import com.codahale.metrics.Timer;
 import com.torodb.backend.ErrorHandler.Context;
 import com.torodb.backend.meta.SchemaUpdater;
 import com.torodb.common.util.Empty;
@@ -25,6 +26,7 @@ import com.torodb.core.TableRefFactory;
 import com.torodb.core.annotations.TorodbIdleService;
 import com.torodb.core.backend.BackendConnection;
 import com.torodb.core.backend.BackendService;
+import com.torodb.core.backend.ConnectionPoolStats;
 import com.torodb.core.concurrent.ConcurrentToolsFactory;
 import com.torodb.core.concurrent.StreamExecutor;
 import com.torodb.core.d2r.IdentifierFactory;
@@ -51,10 +53,15 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -68,10 +75,13 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
   private final ReservedIdGenerator ridGenerator;
   private final Retrier retrier;
   private final StreamExecutor streamExecutor;
+  private final ExecutorService fetchExecutor;
   private final KvMetainfoHandler metainfoHandler;
   private final TableRefFactory tableRefFactory;
   private final IdentifierFactory identifierFactory;
   private final SchemaUpdater schemaUpdater;
+  private final DataImportModeMetrics dataImportModeMetrics;
+  private final BackendConfig backendConfig;
 
   /**
    * @param threadFactory the thread factory that will be used to create the startup and shutdown
@@ -83,7 +93,8 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
       SqlInterface sqlInterface, TableRefFactory tableRefFactory,
       IdentifierFactory identifierFactory, Retrier retrier,
       ConcurrentToolsFactory concurrentToolsFactory,
-      KvMetainfoHandler metainfoHandler, SchemaUpdater schemaUpdater) {
+      KvMetainfoHandler metainfoHandler, SchemaUpdater schemaUpdater,
+      DataImportModeMetrics dataImportModeMetrics, BackendConfig backendConfig) {
     super(threadFactory);
 
     this.dbBackendService = dbBackendService;
@@ -92,10 +103,13 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
     this.retrier = retrier;
     this.streamExecutor = concurrentToolsFactory.createStreamExecutor(
         LOGGER, "backend-inner-jobs", true);
+    this.fetchExecutor = concurrentToolsFactory.createExecutorService("backend-fetch", true);
     this.metainfoHandler = metainfoHandler;
     this.tableRefFactory = tableRefFactory;
     this.identifierFactory = identifierFactory;
     this.schemaUpdater = schemaUpdater;
+    this.dataImportModeMetrics = dataImportModeMetrics;
+    this.backendConfig = backendConfig;
   }
 
   @Override
@@ -122,35 +136,82 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
       return CompletableFuture.completedFuture(Empty.getInstance());
     }
     sqlInterface.getDbBackend().disableDataInsertMode(db);
+    StructureInterface structureInterface = sqlInterface.getStructureInterface();
+
+    //backend specific jobs that must be done before keys and indexes are created
+    List<Consumer<DSLContext>> tableJobs = structureInterface.streamDataInsertFinishTableTasks(db)
+        .map(this::backendSpecificJob)
+        .collect(Collectors.toList());
 
-    //create internal indexes
+    //create primary keys, internal indexes and indexes
     Stream<Consumer<DSLContext>> createInternalIndexesJobs = db.streamMetaCollections().flatMap(
         col -> col.streamContainedMetaDocParts().flatMap(
             docPart -> enableInternalIndexJobs(db, col, docPart)
         )
     );
-
-    //create indexes
     Stream<Consumer<DSLContext>> createIndexesJobs = db.streamMetaCollections().flatMap(
         col -> enableIndexJobs(db, col)
     );
+    List<Consumer<DSLContext>> indexJobs = Stream
+        .concat(createInternalIndexesJobs, createIndexesJobs)
+        .collect(Collectors.toList());
 
-    //backend specific jobs
-    Stream<Consumer<DSLContext>> backendSpecificJobs = sqlInterface.getStructureInterface()
-        .streamDataInsertFinishTasks(db).map(job -> {
-          return (Consumer<DSLContext>) dsl -> {
-            String index = job.apply(dsl);
-            LOGGER.info("Task {} completed", index);
-          };
-        });
-    Stream<Consumer<DSLContext>> jobs = Stream
-        .concat(createInternalIndexesJobs, createIndexesJobs);
-    jobs = Stream.concat(jobs, backendSpecificJobs);
-    Stream<Runnable> runnables = jobs.map(this::dslConsumerToRunnable);
+    //foreign keys need the primary key of the referenced table, so they are created at the end
+    //with the backend specific jobs
+    Stream<Consumer<DSLContext>> createForeignKeysJobs = db.streamMetaCollections().flatMap(
+        col -> col.streamContainedMetaDocParts().flatMap(
+            docPart -> enableForeignKeyJobs(db, col, docPart)
+        )
+    );
+    Stream<Consumer<DSLContext>> backendSpecificJobs = structureInterface
+        .streamDataInsertFinishTasks(db)
+        .map(this::backendSpecificJob);
+    List<Consumer<DSLContext>> lastJobs = Stream
+        .concat(createForeignKeysJobs, backendSpecificJobs)
+        .collect(Collectors.toList());
+
+    return executeDataImportPhase(db, "table", tableJobs)
+        .thenCompose(ignored -> executeDataImportPhase(db, "index", indexJobs))
+        .thenCompose(ignored -> executeDataImportPhase(db, "final", lastJobs))
+        .whenComplete((ignored, error) ->
+            dataImportModeMetrics.onDataImportModeDisabled(db.getIdentifier()));
+  }
 
+  /**
+   * Executes the given jobs in parallel, updating the {@link DataImportModeMetrics} and logging the
+   * progress.
+   */
+  private CompletableFuture<Empty> executeDataImportPhase(MetaDatabase db, String phase,
+      List<Consumer<DSLContext>> jobs) {
+    int totalJobs = jobs.size();
+    LOGGER.info("Executing {} {} tasks to finish the data import mode on {}", totalJobs, phase,
+        db.getIdentifier());
+    dataImportModeMetrics.setCurrentPhase(db.getIdentifier(), phase);
+    dataImportModeMetrics.getPendingTasks().inc(totalJobs);
+
+    AtomicInteger finishedJobs = new AtomicInteger();
+    Stream<Runnable> runnables = jobs.stream()
+        .map(this::dslConsumerToRunnable)
+        .map(runnable -> (Runnable) () -> {
+          try (Timer.Context timerContext = dataImportModeMetrics.getTaskTimer().time()) {
+            runnable.run();
+          } finally {
+            dataImportModeMetrics.getPendingTasks().dec();
+          }
+          dataImportModeMetrics.getFinishedTasks().mark();
+          LOGGER.info("{} of {} {} tasks finished on {}", finishedJobs.incrementAndGet(),
+              totalJobs, phase, db.getIdentifier());
+        });
     return streamExecutor.executeRunnables(runnables);
   }
 
+  private Consumer<DSLContext> backendSpecificJob(Function<DSLContext, String> job) {
+    return dsl -> {
+      String index = job.apply(dsl);
+      LOGGER.info("Task {} completed", index);
+    };
+  }
+
   private Stream<Consumer<DSLContext>> enableInternalIndexJobs(MetaDatabase db, MetaCollection col,
       MetaDocPart docPart) {
     StructureInterface structureInterface = sqlInterface.getStructureInterface();
@@ -164,15 +225,10 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
           docPart.getTableRef()
       );
     } else {
-      MetaDocPart parentDocPart = col.getMetaDocPartByTableRef(
-          docPart.getTableRef().getParent().get()
-      );
-      assert parentDocPart != null;
-      consumerStream = structureInterface.streamDocPartTableIndexesCreation(
+      consumerStream = structureInterface.streamDocPartTableInternalIndexesCreation(
           db.getIdentifier(),
           docPart.getIdentifier(),
-          docPart.getTableRef(),
-          parentDocPart.getIdentifier()
+          docPart.getTableRef()
       );
     }
 
@@ -184,6 +240,28 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
     });
   }
 
+  private Stream<Consumer<DSLContext>> enableForeignKeyJobs(MetaDatabase db, MetaCollection col,
+      MetaDocPart docPart) {
+    if (docPart.getTableRef().isRoot()) {
+      return Stream.empty();
+    }
+    MetaDocPart parentDocPart = col.getMetaDocPartByTableRef(
+        docPart.getTableRef().getParent().get()
+    );
+    assert parentDocPart != null;
+    return sqlInterface.getStructureInterface().streamDocPartTableForeignKeysCreation(
+        db.getIdentifier(),
+        docPart.getIdentifier(),
+        docPart.getTableRef(),
+        parentDocPart.getIdentifier()
+    ).map(job -> {
+      return (Consumer<DSLContext>) dsl -> {
+        String key = job.apply(dsl);
+        LOGGER.info("Created foreign key {} for table {}", key, docPart.getIdentifier());
+      };
+    });
+  }
+
   private Stream<Consumer<DSLContext>> enableIndexJobs(MetaDatabase db, MetaCollection col) {
     List<Consumer<DSLContext>> consumerList = new ArrayList<>();
 
@@ -227,6 +305,37 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
     };
   }
 
+  @Override
+  public boolean isImportedDataLossPossible() {
+    try {
+      return retrier.retry(() -> {
+        try (Connection connection = sqlInterface.getDbBackend().createSystemConnection()) {
+          DSLContext dsl = sqlInterface.getDslContextFactory().createDslContext(connection);
+          return sqlInterface.getStructureInterface().existsNonDurableDocPartTables(dsl);
+        } catch (SQLException ex) {
+          throw sqlInterface.getErrorHandler().handleException(Context.FETCH, ex);
+        }
+      }, Hint.INFREQUENT_ROLLBACK);
+    } catch (RetrierGiveUpException ex) {
+      throw new ToroRuntimeException(ex);
+    }
+  }
+
+  @Override
+  public boolean isDataImportModeDurable() {
+    return sqlInterface.getStructureInterface().isDataInsertModeDurable();
+  }
+
+  @Override
+  public OptionalInt getMaxReadOnlyConnections() {
+    return OptionalInt.of(backendConfig.getReservedReadPoolSize());
+  }
+
+  @Override
+  public List<ConnectionPoolStats> getConnectionPoolStats() {
+    return dbBackendService.getConnectionPoolStats();
+  }
+
   private Runnable dslConsumerToRunnable(Consumer<DSLContext> consumer) {
     return () -> {
       try {
@@ -263,6 +372,7 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
 
   @Override
   protected void shutDown() throws Exception {
+    fetchExecutor.shutdown();
     streamExecutor.stopAsync();
     streamExecutor.awaitTerminated();
   }
@@ -270,6 +380,13 @@ public class BackendServiceImpl extends IdleTorodbService implements BackendServ
   void onConnectionClosed(BackendConnectionImpl connection) {
   }
 
+  /**
+   * The executor used to prefetch the doc parts of read only cursors.
+   */
+  Executor getFetchExecutor() {
+    return fetchExecutor;
+  }
+
   KvMetainfoHandler getMetaInfoHandler() {
     return metainfoHandler;
   }
@@ -27,6 +27,7 @@ import com.torodb.core.backend.MetaInfoKey;
 import com.torodb.core.cursors.Cursor;
 import com.torodb.core.cursors.EmptyCursor;
 import com.torodb.core.exceptions.InvalidDatabaseException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 import com.torodb.core.transaction.metainf.MetaDocPart;
@@ -38,6 +39,9 @@ import org.jooq.lambda.tuple.Tuple2;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nullable;
 
 /**
  *
@@ -78,6 +82,20 @@ public abstract class BackendTransactionImpl implements BackendTransaction {
     return backendConnection;
   }
 
+  /**
+   * Returns the executor used to read the doc parts of the next batch of a cursor while the
+   * current one is consumed or null if batches must not be prefetched on this transaction.
+   */
+  @Nullable
+  protected Executor getPrefetchExecutor() {
+    return null;
+  }
+
+  private BackendCursor createCursor(Cursor<Integer> didCursor, MetaDatabase db,
+      MetaCollection col) {
+    return new LazyBackendCursor(sqlInterface, didCursor, dsl, db, col, getPrefetchExecutor());
+  }
+
   @Override
   public long getDatabaseSize(MetaDatabase db) {
     return sqlInterface.getMetaDataReadInterface().getDatabaseSize(getDsl(), db);
@@ -102,7 +120,19 @@ public abstract class BackendTransactionImpl implements BackendTransaction {
   public BackendCursor findAll(MetaDatabase db, MetaCollection col) {
     try {
       Cursor<Integer> allDids = sqlInterface.getReadInterface().getAllCollectionDids(dsl, db, col);
-      return new LazyBackendCursor(sqlInterface, allDids, dsl, db, col);
+      return createCursor(allDids, db, col);
+    } catch (SQLException ex) {
+      throw sqlInterface.getErrorHandler().handleException(Context.FETCH, ex);
+    }
+  }
+
+  @Override
+  public BackendCursor findByCriteria(MetaDatabase db, MetaCollection col,
+      QueryCriteria criteria) {
+    try {
+      Cursor<Integer> dids = sqlInterface.getReadInterface()
+          .getCollectionDidsWithCriteria(dsl, db, col, criteria);
+      return createCursor(dids, db, col);
     } catch (SQLException ex) {
       throw sqlInterface.getErrorHandler().handleException(Context.FETCH, ex);
     }
@@ -114,7 +144,7 @@ public abstract class BackendTransactionImpl implements BackendTransaction {
     try {
       Cursor<Integer> allDids = sqlInterface.getReadInterface().getCollectionDidsWithFieldEqualsTo(
           dsl, db, col, docPart, field, value);
-      return new LazyBackendCursor(sqlInterface, allDids, dsl, db, col);
+      return createCursor(allDids, db, col);
     } catch (SQLException ex) {
       throw sqlInterface.getErrorHandler().handleException(Context.FETCH, ex);
     }
@@ -129,7 +159,7 @@ public abstract class BackendTransactionImpl implements BackendTransaction {
       }
       Cursor<Integer> allDids = sqlInterface.getReadInterface().getCollectionDidsWithFieldsIn(dsl,
           db, col, docPart, valuesMultimap);
-      return new LazyBackendCursor(sqlInterface, allDids, dsl, db, col);
+      return createCursor(allDids, db, col);
     } catch (SQLException ex) {
       throw sqlInterface.getErrorHandler().handleException(Context.FETCH, ex);
     }
@@ -152,7 +182,7 @@ public abstract class BackendTransactionImpl implements BackendTransaction {
 
   @Override
   public BackendCursor fetch(MetaDatabase db, MetaCollection col, Cursor<Integer> didCursor) {
-    return new LazyBackendCursor(sqlInterface, didCursor, dsl, db, col);
+    return createCursor(didCursor, db, col);
   }
 
   @Override
@@ -0,0 +1,73 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import com.codahale.metrics.Gauge;
+import com.torodb.core.backend.ConnectionPoolStats;
+import com.torodb.core.metrics.ToroMetricRegistry;
+
+import java.util.function.ToIntFunction;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Gauges with the number of active, idle and total connections of each connection pool of the
+ * {@link DbBackendService}.
+ *
+ * <p>The values are read from the pools each time a gauge is read, so they are always up to date
+ * and nothing has to be updated when connections are obtained or released.
+ */
+@ThreadSafe
+@Singleton
+public class ConnectionPoolMetrics {
+
+  private final DbBackendService dbBackendService;
+
+  @Inject
+  public ConnectionPoolMetrics(ToroMetricRegistry parentRegistry,
+      DbBackendService dbBackendService) {
+    this.dbBackendService = dbBackendService;
+    ToroMetricRegistry registry = parentRegistry.createSubRegistry("ConnectionPool");
+    for (String poolName : new String[] {AbstractDbBackendService.SESSION_POOL_NAME,
+        AbstractDbBackendService.SYSTEM_POOL_NAME, AbstractDbBackendService.READ_ONLY_POOL_NAME}) {
+      registerGauge(registry, poolName, "ActiveConnections",
+          ConnectionPoolStats::getActiveConnections);
+      registerGauge(registry, poolName, "IdleConnections",
+          ConnectionPoolStats::getIdleConnections);
+      registerGauge(registry, poolName, "TotalConnections",
+          ConnectionPoolStats::getTotalConnections);
+    }
+  }
+
+  private void registerGauge(ToroMetricRegistry registry, String poolName, String name,
+      ToIntFunction<ConnectionPoolStats> value) {
+    registry.register(poolName + name, (Gauge<Integer>) () -> getValue(poolName, value));
+  }
+
+  private int getValue(String poolName, ToIntFunction<ConnectionPoolStats> value) {
+    return dbBackendService.getConnectionPoolStats().stream()
+        .filter(stats -> stats.getPoolName().equals(poolName))
+        .mapToInt(value)
+        .findAny()
+        .orElse(0);
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.torodb.core.metrics.SettableGauge;
+import com.torodb.core.metrics.ToroMetricRegistry;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Metrics about the tasks executed when the data import mode of a database is disabled.
+ */
+@ThreadSafe
+@Singleton
+public class DataImportModeMetrics {
+
+  private final SettableGauge<String> currentPhase;
+  @GuardedBy("phases")
+  private final SortedMap<String, String> phases = new TreeMap<>();
+  private final Counter pendingTasks;
+  private final Meter finishedTasks;
+  private final Timer taskTimer;
+
+  @Inject
+  public DataImportModeMetrics(ToroMetricRegistry parentRegistry) {
+    ToroMetricRegistry registry = parentRegistry.createSubRegistry("DataImportMode");
+    currentPhase = registry.gauge("currentPhase");
+    pendingTasks = registry.counter("pendingTasks");
+    finishedTasks = registry.meter("finishedTasks");
+    taskTimer = registry.timer("taskTimer");
+  }
+
+  /**
+   * Sets the phase that is being executed on the given database.
+   *
+   * <p>Several databases can disable their data import mode at the same time, so the current phase
+   * gauge shows the phase of each one of them.
+   */
+  public void setCurrentPhase(String dbIdentifier, String phase) {
+    synchronized (phases) {
+      phases.put(dbIdentifier, phase);
+      updateCurrentPhase();
+    }
+  }
+
+  /**
+   * Removes the given database from the current phase gauge once its data import mode has been
+   * disabled.
+   */
+  public void onDataImportModeDisabled(String dbIdentifier) {
+    synchronized (phases) {
+      phases.remove(dbIdentifier);
+      updateCurrentPhase();
+    }
+  }
+
+  @GuardedBy("phases")
+  private void updateCurrentPhase() {
+    if (phases.isEmpty()) {
+      currentPhase.setValue(null);
+    } else {
+      currentPhase.setValue(phases.entrySet().stream()
+          .map(entry -> entry.getKey() + ": " + entry.getValue())
+          .collect(Collectors.joining(", ")));
+    }
+  }
+
+  public SettableGauge<String> getCurrentPhase() {
+    return currentPhase;
+  }
+
+  public Counter getPendingTasks() {
+    return pendingTasks;
+  }
+
+  public Meter getFinishedTasks() {
+    return finishedTasks;
+  }
+
+  public Timer getTaskTimer() {
+    return taskTimer;
+  }
+}
@@ -23,6 +23,7 @@ import com.torodb.core.transaction.metainf.FieldType;
 import org.jooq.SQLDialect;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public interface DataTypeProvider {
 
@@ -31,4 +32,13 @@ public interface DataTypeProvider {
 
   @Nonnull
   SQLDialect getDialect();
+
+  /**
+   * Returns the collation that sorts strings by code point, as MongoDB does, or null if the
+   * default collation already sorts them that way.
+   */
+  @Nullable
+  default String getCodePointCollation() {
+    return null;
+  }
 }
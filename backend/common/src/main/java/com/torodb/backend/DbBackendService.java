@@ -18,10 +18,12 @@
 
 package com.torodb.backend;
 
+import com.torodb.core.backend.ConnectionPoolStats;
 import com.torodb.core.services.TorodbService;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 
 import java.sql.Connection;
+import java.util.List;
 
 import javax.sql.DataSource;
 
@@ -58,4 +60,10 @@ public interface DbBackendService extends TorodbService {
   public Connection createReadOnlyConnection();
 
   public Connection createWriteConnection();
+
+  /**
+   * Returns the state of the session, system and read only connection pools, which is empty if
+   * this service is not running.
+   */
+  public List<ConnectionPoolStats> getConnectionPoolStats();
 }
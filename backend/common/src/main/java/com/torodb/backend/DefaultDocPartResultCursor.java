@@ -24,22 +24,37 @@ import com.torodb.core.cursors.Cursor;
 import com.torodb.core.d2r.DocPartResult;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
+import org.apache.logging.log4j.Logger;
 import org.jooq.DSLContext;
 
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
+ * A cursor that reads the doc parts of the documents whose dids are iterated by a did cursor.
  *
+ * <p>If a prefetch executor is given, the doc parts of the next batch of dids are read on that
+ * executor as soon as a batch is returned, so the database round trip overlaps with the
+ * translation of the returned batch. The next batch has the same size as the last requested one.
+ * It must only be used when the returned {@link DocPartResult doc part results} do not need the
+ * connection to be iterated and no other statement is executed on the connection while the
+ * cursor is open.
  */
 public class DefaultDocPartResultCursor implements Cursor<DocPartResult> {
 
+  private static final Logger LOGGER = BackendLoggerFactory.get(DefaultDocPartResultCursor.class);
   private static final int BATCH_SIZE = 1000;
 
   private final SqlInterface sqlInterface;
@@ -47,6 +62,14 @@ public class DefaultDocPartResultCursor implements Cursor<DocPartResult> {
   private final DSLContext dsl;
   private final MetaDatabase metaDatabase;
   private final MetaCollection metaCollection;
+  @Nullable
+  private final Executor prefetchExecutor;
+  /**
+   * Dids that have been read from the did cursor but whose doc parts have not been returned.
+   */
+  private final Deque<Integer> pendingDids = new ArrayDeque<>();
+  @Nullable
+  private Prefetch prefetch;
 
   public DefaultDocPartResultCursor(
       @Nonnull SqlInterface sqlInterface,
@@ -54,16 +77,27 @@ public class DefaultDocPartResultCursor implements Cursor<DocPartResult> {
       @Nonnull DSLContext dsl,
       @Nonnull MetaDatabase metaDatabase,
       @Nonnull MetaCollection metaCollection) {
+    this(sqlInterface, didCursor, dsl, metaDatabase, metaCollection, null);
+  }
+
+  public DefaultDocPartResultCursor(
+      @Nonnull SqlInterface sqlInterface,
+      @Nonnull Cursor<Integer> didCursor,
+      @Nonnull DSLContext dsl,
+      @Nonnull MetaDatabase metaDatabase,
+      @Nonnull MetaCollection metaCollection,
+      @Nullable Executor prefetchExecutor) {
     this.sqlInterface = sqlInterface;
     this.didCursor = didCursor;
     this.dsl = dsl;
     this.metaDatabase = metaDatabase;
     this.metaCollection = metaCollection;
+    this.prefetchExecutor = prefetchExecutor;
   }
 
   @Override
   public boolean hasNext() {
-    return didCursor.hasNext();
+    return prefetch != null || !pendingDids.isEmpty() || didCursor.hasNext();
   }
 
   @Override
@@ -79,7 +113,7 @@ public class DefaultDocPartResultCursor implements Cursor<DocPartResult> {
     List<DocPartResult> allDocuments = new ArrayList<>();
 
     List<DocPartResult> readedDocuments;
-    while (didCursor.hasNext()) {
+    while (hasNext()) {
       readedDocuments = getNextBatch(BATCH_SIZE);
       allDocuments.addAll(readedDocuments);
     }
@@ -92,13 +126,53 @@ public class DefaultDocPartResultCursor implements Cursor<DocPartResult> {
     Preconditions.checkArgument(maxResults > 0, "max results must be at least 1, but " + maxResults
         + " was recived");
 
-    if (!didCursor.hasNext()) {
+    if (!hasNext()) {
       return Collections.emptyList();
     }
 
+    List<DocPartResult> result;
+    Prefetch current = prefetch;
+    prefetch = null;
+    if (current != null && current.dids.size() <= maxResults) {
+      result = current.join();
+    } else {
+      if (current != null) {
+        //the prefetched batch is bigger than requested, so it is read again
+        current.join().forEach(DocPartResult::close);
+        for (int i = current.dids.size() - 1; i >= 0; i--) {
+          pendingDids.addFirst(current.dids.get(i));
+        }
+      }
+      result = fetch(nextDids(maxResults));
+    }
+
+    if (prefetchExecutor != null && hasNext()) {
+      List<Integer> nextDids = nextDids(maxResults);
+      prefetch = new Prefetch(nextDids, CompletableFuture.supplyAsync(
+          () -> fetch(nextDids), prefetchExecutor));
+    }
+
+    return result;
+  }
+
+  private List<Integer> nextDids(int maxResults) {
+    List<Integer> dids = new ArrayList<>(Math.min(maxResults, BATCH_SIZE));
+    while (dids.size() < maxResults && !pendingDids.isEmpty()) {
+      dids.add(pendingDids.removeFirst());
+    }
+    if (dids.size() < maxResults) {
+      dids.addAll(didCursor.getNextBatch(maxResults - dids.size()));
+    }
+    return dids;
+  }
+
+  private List<DocPartResult> fetch(List<Integer> dids) {
+    if (dids.isEmpty()) {
+      return Collections.emptyList();
+    }
     try {
       return sqlInterface.getReadInterface().getCollectionResultSets(
-          dsl, metaDatabase, metaCollection, didCursor, maxResults
+          dsl, metaDatabase, metaCollection, dids
       );
     } catch (SQLException ex) {
       throw sqlInterface.getErrorHandler().handleException(Context.FETCH, ex);
@@ -112,6 +186,53 @@ public class DefaultDocPartResultCursor implements Cursor<DocPartResult> {
 
   @Override
   public void close() {
-    didCursor.close();
+    Prefetch current = prefetch;
+    prefetch = null;
+    try {
+      if (current != null) {
+        closePrefetched(current);
+      }
+    } finally {
+      didCursor.close();
+    }
+  }
+
+  /**
+   * Waits until the given prefetch finishes, as it may be using the connection, and closes its
+   * results.
+   *
+   * <p>Errors are ignored, as the prefetched results have never been requested.
+   */
+  private void closePrefetched(Prefetch current) {
+    List<DocPartResult> results;
+    try {
+      results = current.join();
+    } catch (RuntimeException ex) {
+      LOGGER.debug("Ignoring the error of a prefetch that was not requested", ex);
+      return;
+    }
+    results.forEach(DocPartResult::close);
+  }
+
+  private static class Prefetch {
+
+    private final List<Integer> dids;
+    private final CompletableFuture<List<DocPartResult>> results;
+
+    public Prefetch(List<Integer> dids, CompletableFuture<List<DocPartResult>> results) {
+      this.dids = dids;
+      this.results = results;
+    }
+
+    private List<DocPartResult> join() {
+      try {
+        return results.join();
+      } catch (CompletionException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        throw ex;
+      }
+    }
   }
 }
@@ -0,0 +1,103 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Identifies the text of a statement that works on the rows of a doc part table, so backends can
+ * reuse the statements they have already prepared without building their text again.
+ *
+ * <p>Two keys are equal iff the statements they identify have the same text.
+ */
+@Immutable
+public final class DocPartStatementKey {
+
+  private final Kind kind;
+  private final String schemaName;
+  private final String tableName;
+  private final ImmutableList<String> columnNames;
+
+  public DocPartStatementKey(Kind kind, String schemaName, String tableName,
+      List<String> columnNames) {
+    this.kind = kind;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.columnNames = ImmutableList.copyOf(columnNames);
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public String getSchemaName() {
+    return schemaName;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  /**
+   * The columns used by the statement, in the order their parameters are set.
+   */
+  public ImmutableList<String> getColumnNames() {
+    return columnNames;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 7;
+    hash = 31 * hash + kind.hashCode();
+    hash = 31 * hash + schemaName.hashCode();
+    hash = 31 * hash + tableName.hashCode();
+    hash = 31 * hash + columnNames.hashCode();
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    DocPartStatementKey other = (DocPartStatementKey) obj;
+    return kind == other.kind
+        && schemaName.equals(other.schemaName)
+        && tableName.equals(other.tableName)
+        && columnNames.equals(other.columnNames);
+  }
+
+  @Override
+  public String toString() {
+    return kind + " " + schemaName + "." + tableName + " " + columnNames;
+  }
+
+  public static enum Kind {
+    INSERT,
+    UPDATE,
+    DELETE
+  }
+}
@@ -45,6 +45,7 @@ public interface ErrorHandler {
     RENAME_TABLE,
     RENAME_INDEX,
     SET_TABLE_SCHEMA,
+    SET_TABLE_LOGGED,
     DROP_INDEX,
     DROP_UNIQUE_INDEX,
     DROP_FOREIGN_KEY,
@@ -26,7 +26,10 @@ import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 import org.jooq.DSLContext;
 
+import java.util.concurrent.Executor;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  *
@@ -44,8 +47,23 @@ public class LazyBackendCursor implements BackendCursor {
       @Nonnull DSLContext dsl,
       @Nonnull MetaDatabase metaDatabase,
       @Nonnull MetaCollection metaCollection) {
+    this(sqlInterface, didCursor, dsl, metaDatabase, metaCollection, null);
+  }
+
+  /**
+   * @param prefetchExecutor if not null, the executor where the doc parts of the next batch are
+   *                         read while the current one is consumed. See
+   *                         {@link DefaultDocPartResultCursor}
+   */
+  public LazyBackendCursor(
+      @Nonnull SqlInterface sqlInterface,
+      final @Nonnull Cursor<Integer> didCursor,
+      @Nonnull DSLContext dsl,
+      @Nonnull MetaDatabase metaDatabase,
+      @Nonnull MetaCollection metaCollection,
+      @Nullable Executor prefetchExecutor) {
     docCursor = new DefaultDocPartResultCursor(sqlInterface, didCursor, dsl, metaDatabase,
-        metaCollection);
+        metaCollection, prefetchExecutor);
     this.didCursor = didCursor;
   }
 
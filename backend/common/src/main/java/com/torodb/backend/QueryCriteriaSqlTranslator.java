@@ -0,0 +1,356 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend;
+
+import com.google.common.collect.ImmutableSet;
+import com.torodb.backend.tables.MetaDocPartTable.DocPartTableFields;
+import com.torodb.core.TableRef;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.language.AttributeReference.Key;
+import com.torodb.core.language.AttributeReference.ObjectKey;
+import com.torodb.core.language.querycriteria.AndQueryCriteria;
+import com.torodb.core.language.querycriteria.AttributeQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria.Operator;
+import com.torodb.core.language.querycriteria.ExistsQueryCriteria;
+import com.torodb.core.language.querycriteria.InQueryCriteria;
+import com.torodb.core.language.querycriteria.OrQueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteriaVisitor;
+import com.torodb.core.language.querycriteria.TrueQueryCriteria;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.core.transaction.metainf.MetaCollection;
+import com.torodb.core.transaction.metainf.MetaDocPart;
+import com.torodb.core.transaction.metainf.MetaField;
+import com.torodb.kvdocument.values.KvValue;
+import org.jooq.lambda.tuple.Tuple2;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Translates a {@link QueryCriteria} into a single SQL statement that returns the dids of the
+ * documents that fulfill it.
+ *
+ * <p>Predicates on the root doc part are evaluated directly on the root table. Predicates on
+ * other doc parts are evaluated as {@code did IN (SELECT did FROM subtable WHERE ...)}, so the
+ * whole logical plan is executed by the database in one round trip. As a single attribute can
+ * be stored on several columns (one per type), each predicate is evaluated on all columns whose
+ * type is compatible with the given value. Numeric values are compatible with all numeric
+ * columns.
+ *
+ * <p>Strings are compared with {@code <}, {@code <=}, {@code >} and {@code >=} using the
+ * {@link SqlHelper#getCodePointCollation() code point collation} of the backend, if any, so they
+ * are sorted as MongoDB does. Equality and {@code IN} keep the default collation, which is also
+ * an exact match, so the indexes of the columns can still be used.
+ */
+public class QueryCriteriaSqlTranslator {
+
+  private static final ImmutableSet<FieldType> NUMERIC_TYPES = ImmutableSet.of(
+      FieldType.INTEGER, FieldType.LONG, FieldType.DOUBLE);
+  private static final String FALSE_CONDITION = "1 = 0";
+  private static final String TRUE_CONDITION = "1 = 1";
+
+  private final TableRefFactory tableRefFactory;
+  private final SqlHelper sqlHelper;
+
+  public QueryCriteriaSqlTranslator(TableRefFactory tableRefFactory, SqlHelper sqlHelper) {
+    this.tableRefFactory = tableRefFactory;
+    this.sqlHelper = sqlHelper;
+  }
+
+  /**
+   * Returns the statement that reads the ordered dids of the documents stored on the given
+   * collection that fulfill the given criteria or null if the collection has no root doc part.
+   */
+  public SqlQuery translate(String schemaName, MetaCollection metaCol, QueryCriteria criteria) {
+    return translate(schemaName, metaCol, criteria, true);
+  }
+
+  /**
+   * Like {@link #translate(String, MetaCollection, QueryCriteria)}, but the returned statement
+   * only sorts the dids if {@code ordered} is true. Unordered statements are meant to be used as
+   * subqueries, where the order is meaningless.
+   */
+  public SqlQuery translate(String schemaName, MetaCollection metaCol, QueryCriteria criteria,
+      boolean ordered) {
+    MetaDocPart rootDocPart = metaCol.getMetaDocPartByTableRef(tableRefFactory.createRoot());
+    if (rootDocPart == null) {
+      return null;
+    }
+    SqlQuery.Builder builder = new SqlQuery.Builder();
+    String condition = criteria.accept(
+        new ConditionVisitor(schemaName, metaCol, rootDocPart), builder);
+
+    SqlBuilder sb = new SqlBuilder("SELECT ")
+        .quote(DocPartTableFields.DID)
+        .append(" FROM ")
+        .table(schemaName, rootDocPart.getIdentifier())
+        .append(" WHERE ")
+        .append(condition);
+    if (ordered) {
+      sb.append(" ORDER BY ")
+          .quote(DocPartTableFields.DID);
+    }
+
+    return builder.build(sb.toString());
+  }
+
+  private class ConditionVisitor implements QueryCriteriaVisitor<String, SqlQuery.Builder> {
+
+    private final String schemaName;
+    private final MetaCollection metaCol;
+    private final MetaDocPart rootDocPart;
+
+    public ConditionVisitor(String schemaName, MetaCollection metaCol, MetaDocPart rootDocPart) {
+      this.schemaName = schemaName;
+      this.metaCol = metaCol;
+      this.rootDocPart = rootDocPart;
+    }
+
+    @Override
+    public String visit(TrueQueryCriteria criteria, SqlQuery.Builder arg) {
+      return TRUE_CONDITION;
+    }
+
+    @Override
+    public String visit(AndQueryCriteria criteria, SqlQuery.Builder arg) {
+      return join(criteria.getSubCriteria(), " AND ", arg);
+    }
+
+    @Override
+    public String visit(OrQueryCriteria criteria, SqlQuery.Builder arg) {
+      return join(criteria.getSubCriteria(), " OR ", arg);
+    }
+
+    private String join(List<QueryCriteria> subCriteria, String separator,
+        SqlQuery.Builder arg) {
+      return subCriteria.stream()
+          .map(sub -> sub.accept(this, arg))
+          .collect(Collectors.joining(separator, "(", ")"));
+    }
+
+    @Override
+    public String visit(ComparisonQueryCriteria criteria, SqlQuery.Builder arg) {
+      MetaDocPart docPart = getDocPart(criteria);
+      if (docPart == null) {
+        return FALSE_CONDITION;
+      }
+      KvValue<?> value = criteria.getValue();
+      FieldType valueType = FieldType.from(value.getType());
+      List<MetaField> fields = getCompatibleFields(docPart, getKeyName(criteria), valueType);
+      if (fields.isEmpty()) {
+        return FALSE_CONDITION;
+      }
+
+      String collation = null;
+      if (valueType == FieldType.STRING && criteria.getOperator() != Operator.EQ) {
+        collation = sqlHelper.getCodePointCollation();
+      }
+
+      List<String> conditions = new ArrayList<>(fields.size());
+      for (MetaField field : fields) {
+        SqlBuilder sb = new SqlBuilder("")
+            .quote(field.getIdentifier());
+        if (collation != null) {
+          sb.append(" COLLATE ").append(collation);
+        }
+        conditions.add(sb
+            .append(' ')
+            .append(criteria.getOperator().getSymbol())
+            .append(' ')
+            .append(sqlHelper.getPlaceholder(valueType))
+            .toString());
+        arg.addParameter(valueType, value);
+      }
+      String condition = conditions.stream()
+          .collect(Collectors.joining(" OR ", "(", ")"));
+
+      return onDocPart(docPart, condition);
+    }
+
+    @Override
+    public String visit(InQueryCriteria criteria, SqlQuery.Builder arg) {
+      MetaDocPart docPart = getDocPart(criteria);
+      if (docPart == null) {
+        return FALSE_CONDITION;
+      }
+      String keyName = getKeyName(criteria);
+
+      List<String> conditions = new ArrayList<>();
+      for (MetaField field : docPart.streamMetaFieldByName(keyName)
+          .collect(Collectors.toList())) {
+        List<KvValue<?>> compatibleValues = criteria.getValues().stream()
+            .filter(value -> isCompatible(field.getType(), FieldType.from(value.getType())))
+            .collect(Collectors.toList());
+        if (compatibleValues.isEmpty()) {
+          continue;
+        }
+        SqlBuilder sb = new SqlBuilder("")
+            .quote(field.getIdentifier())
+            .append(" IN (");
+        for (KvValue<?> value : compatibleValues) {
+          FieldType valueType = FieldType.from(value.getType());
+          sb.append(sqlHelper.getPlaceholder(valueType)).append(',');
+          arg.addParameter(valueType, value);
+        }
+        sb.setLastChar(')');
+        conditions.add(sb.toString());
+      }
+      if (conditions.isEmpty()) {
+        return FALSE_CONDITION;
+      }
+
+      return onDocPart(docPart, conditions.stream()
+          .collect(Collectors.joining(" OR ", "(", ")")));
+    }
+
+    @Override
+    public String visit(ExistsQueryCriteria criteria, SqlQuery.Builder arg) {
+      String existsCondition = existsCondition(criteria);
+      if (criteria.isExists()) {
+        return existsCondition;
+      }
+      if (existsCondition.equals(FALSE_CONDITION)) {
+        return TRUE_CONDITION;
+      }
+      return "NOT " + existsCondition;
+    }
+
+    private String existsCondition(ExistsQueryCriteria criteria) {
+      MetaDocPart docPart = getDocPart(criteria);
+      if (docPart == null) {
+        return FALSE_CONDITION;
+      }
+      List<MetaField> fields = docPart.streamMetaFieldByName(getKeyName(criteria))
+          .collect(Collectors.toList());
+      if (fields.isEmpty()) {
+        return FALSE_CONDITION;
+      }
+
+      return onDocPart(docPart, fields.stream()
+          .map(field -> new SqlBuilder("").quote(field.getIdentifier())
+              .append(" IS NOT NULL").toString())
+          .collect(Collectors.joining(" OR ", "(", ")")));
+    }
+
+    private String onDocPart(MetaDocPart docPart, String condition) {
+      if (docPart == rootDocPart) {
+        return condition;
+      }
+      return new SqlBuilder("(")
+          .quote(DocPartTableFields.DID)
+          .append(" IN (SELECT ")
+          .quote(DocPartTableFields.DID)
+          .append(" FROM ")
+          .table(schemaName, docPart.getIdentifier())
+          .append(" WHERE ")
+          .append(condition)
+          .append("))")
+          .toString();
+    }
+
+    private MetaDocPart getDocPart(AttributeQueryCriteria criteria) {
+      TableRef tableRef = tableRefFactory.createRoot();
+      List<Key<?>> keys = criteria.getAttributeReference().getKeys();
+      for (Key<?> key : keys.subList(0, keys.size() - 1)) {
+        tableRef = tableRefFactory.createChild(tableRef, getObjectKeyName(key));
+      }
+      if (tableRef.isRoot()) {
+        return rootDocPart;
+      }
+      return metaCol.getMetaDocPartByTableRef(tableRef);
+    }
+
+    private String getKeyName(AttributeQueryCriteria criteria) {
+      List<Key<?>> keys = criteria.getAttributeReference().getKeys();
+      return getObjectKeyName(keys.get(keys.size() - 1));
+    }
+
+    private String getObjectKeyName(Key<?> key) {
+      if (!(key instanceof ObjectKey)) {
+        throw new IllegalArgumentException("Only object keys are supported on query criteria, "
+            + "but " + key + " was found");
+      }
+      return ((ObjectKey) key).getKey();
+    }
+  }
+
+  private static List<MetaField> getCompatibleFields(MetaDocPart docPart, String fieldName,
+      FieldType valueType) {
+    return docPart.streamMetaFieldByName(fieldName)
+        .filter(field -> isCompatible(field.getType(), valueType))
+        .collect(Collectors.toList());
+  }
+
+  private static boolean isCompatible(FieldType fieldType, FieldType valueType) {
+    if (fieldType == valueType) {
+      return true;
+    }
+    return NUMERIC_TYPES.contains(fieldType) && NUMERIC_TYPES.contains(valueType);
+  }
+
+  public static class SqlQuery {
+
+    private final String statement;
+    private final List<Tuple2<FieldType, KvValue<?>>> parameters;
+
+    private SqlQuery(String statement, List<Tuple2<FieldType, KvValue<?>>> parameters) {
+      this.statement = statement;
+      this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    public String getStatement() {
+      return statement;
+    }
+
+    public List<Tuple2<FieldType, KvValue<?>>> getParameters() {
+      return parameters;
+    }
+
+    public void setParameters(SqlHelper sqlHelper, PreparedStatement ps) throws SQLException {
+      int index = 1;
+      Iterator<Tuple2<FieldType, KvValue<?>>> it = parameters.iterator();
+      while (it.hasNext()) {
+        Tuple2<FieldType, KvValue<?>> parameter = it.next();
+        sqlHelper.setPreparedStatementValue(ps, index, parameter.v1, parameter.v2);
+        index++;
+      }
+    }
+
+    private static class Builder {
+
+      private final List<Tuple2<FieldType, KvValue<?>>> parameters = new ArrayList<>();
+
+      private void addParameter(FieldType type, KvValue<?> value) {
+        parameters.add(new Tuple2<>(type, value));
+      }
+
+      private SqlQuery build(String statement) {
+        return new SqlQuery(statement, parameters);
+      }
+    }
+  }
+}
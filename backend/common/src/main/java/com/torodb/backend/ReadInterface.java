@@ -21,6 +21,7 @@ package com.torodb.backend;
 import com.google.common.collect.Multimap;
 import com.torodb.core.cursors.Cursor;
 import com.torodb.core.d2r.DocPartResult;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 import com.torodb.core.transaction.metainf.MetaDocPart;
@@ -56,6 +57,17 @@ public interface ReadInterface {
       Multimap<MetaField, KvValue<?>> valuesMultimap)
       throws SQLException;
 
+  /**
+   * Returns a cursor that iterates, in ascending order, over the dids of the documents on the
+   * given collection that fulfill the given criteria.
+   *
+   * <p>The whole criteria is evaluated by the database with a single statement.
+   */
+  @Nonnull
+  public Cursor<Integer> getCollectionDidsWithCriteria(@Nonnull DSLContext dsl,
+      @Nonnull MetaDatabase metaDatabase, @Nonnull MetaCollection metaCol,
+      @Nonnull QueryCriteria criteria) throws SQLException;
+
   long countAll(@Nonnull DSLContext dsl, @Nonnull MetaDatabase database,
       @Nonnull MetaCollection collection);
 
@@ -69,6 +81,13 @@ public interface ReadInterface {
       @Nonnull MetaDatabase metaDatabase, @Nonnull MetaCollection metaCollection,
       @Nonnull Cursor<Integer> didCursor, int maxSize) throws SQLException;
 
+  /**
+   * Returns true iff the {@link DocPartResult doc part results} returned by this interface can be
+   * iterated while another statement is executed on the same connection, which is the case when
+   * their rows are completely read when they are created.
+   */
+  boolean isPrefetchSupported();
+
   @Nonnull
   List<DocPartResult> getCollectionResultSets(@Nonnull DSLContext dsl,
       @Nonnull MetaDatabase metaDatabase, @Nonnull MetaCollection metaCollection,
@@ -20,6 +20,8 @@ package com.torodb.backend;
 
 import com.torodb.core.backend.ReadOnlyBackendTransaction;
 
+import java.util.concurrent.Executor;
+
 /**
  *
  */
@@ -32,4 +34,12 @@ public class ReadOnlyBackendTransactionImpl extends BackendTransactionImpl imple
         sqlInterface, backendConnection);
   }
 
+  @Override
+  protected Executor getPrefetchExecutor() {
+    if (!getSqlInterface().getReadInterface().isPrefetchSupported()) {
+      return null;
+    }
+    return getBackendConnection().getBackendService().getFetchExecutor();
+  }
+
 }
@@ -27,6 +27,7 @@ import com.torodb.core.backend.SharedWriteBackendTransaction;
 import com.torodb.core.d2r.DocPartData;
 import com.torodb.core.d2r.IdentifierFactory;
 import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.RollbackException;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
@@ -49,6 +50,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class SharedWriteBackendTransactionImpl extends BackendTransactionImpl implements
     SharedWriteBackendTransaction {
@@ -253,6 +255,35 @@ public class SharedWriteBackendTransactionImpl extends BackendTransactionImpl im
         .deleteCollectionDocParts(getDsl(), db.getIdentifier(), col, dids);
   }
 
+  @Override
+  public int updateDocPartRow(MetaDatabase db, MetaCollection col, MetaDocPart docPart, int did,
+      Map<MetaField, KvValue<?>> newValues) throws UserException {
+    Preconditions.checkState(!isClosed(), "This transaction is closed");
+
+    if (newValues.isEmpty()) {
+      return 0;
+    }
+
+    return getSqlInterface().getWriteInterface()
+        .updateDocPartRow(getDsl(), db.getIdentifier(), docPart, did, newValues);
+  }
+
+  @Override
+  public long deleteAll(MetaDatabase db, MetaCollection col) {
+    Preconditions.checkState(!isClosed(), "This transaction is closed");
+
+    return getSqlInterface().getWriteInterface()
+        .deleteAllCollectionDocParts(getDsl(), db.getIdentifier(), col);
+  }
+
+  @Override
+  public long deleteByCriteria(MetaDatabase db, MetaCollection col, QueryCriteria criteria) {
+    Preconditions.checkState(!isClosed(), "This transaction is closed");
+
+    return getSqlInterface().getWriteInterface()
+        .deleteCollectionDocParts(getDsl(), db.getIdentifier(), col, criteria);
+  }
+
   @Override
   public void createIndex(MetaDatabase db, MutableMetaCollection col, MetaIndex index) throws
       UserException {
@@ -37,6 +37,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -195,6 +196,14 @@ public class SqlHelper {
     return sqlBinding.getPlaceholder();
   }
 
+  /**
+   * @see DataTypeProvider#getCodePointCollation()
+   */
+  @Nullable
+  public String getCodePointCollation() {
+    return dataTypeProvider.getCodePointCollation();
+  }
+
   @SuppressWarnings("rawtypes")
   public String getSqlTypeName(FieldType fieldType) {
     DataTypeForKv dataType = dataTypeProvider.getDataType(fieldType);
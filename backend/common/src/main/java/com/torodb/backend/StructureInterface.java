@@ -85,7 +85,34 @@ public interface StructureInterface {
    * @return
    * @see DbBackend#includeInternalIndexes()
    */
-  Stream<Function<DSLContext, String>> streamDocPartTableIndexesCreation(String schemaName,
+  default Stream<Function<DSLContext, String>> streamDocPartTableIndexesCreation(String schemaName,
+      String tableName, TableRef tableRef, String foreignTableName) {
+    return Stream.concat(
+        streamDocPartTableInternalIndexesCreation(schemaName, tableName, tableRef),
+        streamDocPartTableForeignKeysCreation(schemaName, tableName, tableRef, foreignTableName)
+    );
+  }
+
+  /**
+   * Returns a stream of functions that, when executed, creates the primary key and the internal
+   * indexes of a doc part table and return a label that indicate the type of index created.
+   *
+   * <p>Unlike {@link #streamDocPartTableIndexesCreation(String, String, TableRef, String)}, the
+   * returned stream does not contain the foreign keys, which require the primary key of the
+   * referenced table to exist.
+   *
+   * @see #streamDocPartTableForeignKeysCreation(String, String, TableRef, String)
+   */
+  Stream<Function<DSLContext, String>> streamDocPartTableInternalIndexesCreation(
+      String schemaName, String tableName, TableRef tableRef);
+
+  /**
+   * Returns a stream of functions that, when executed, creates the foreign keys of a doc part table
+   * and return a label that indicate the type of key created.
+   *
+   * <p>The returned stream is empty if the backend is not including foreign keys.
+   */
+  Stream<Function<DSLContext, String>> streamDocPartTableForeignKeysCreation(String schemaName,
       String tableName, TableRef tableRef, String foreignTableName);
 
   void addColumnToDocPartTable(@Nonnull DSLContext dsl, @Nonnull String schemaName,
@@ -101,6 +128,34 @@ public interface StructureInterface {
    */
   public Stream<Function<DSLContext, String>> streamDataInsertFinishTasks(MetaDatabase db);
 
+  /**
+   * Returns a stream of functions that, when executed, executes backend specific tasks on the doc
+   * part tables that must be done once the data insert mode finishes but before their keys and
+   * indexes are created.
+   *
+   * <p>For example, PostgreSQL backend can create tables as unlogged while the data is inserted and
+   * make them logged once the data insert mode finishes.
+   */
+  public Stream<Function<DSLContext, String>> streamDataInsertFinishTableTasks(MetaDatabase db);
+
+  /**
+   * Returns true if there are doc part tables that were created on data insert mode whose data
+   * could have been lost because that mode did not finish.
+   *
+   * <p>For example, PostgreSQL unlogged tables are emptied after a crash.
+   */
+  default boolean existsNonDurableDocPartTables(@Nonnull DSLContext dsl) {
+    return false;
+  }
+
+  /**
+   * Returns true if the doc part tables created on data insert mode store their data as durably
+   * as the ones created on the normal mode, even before that mode finishes.
+   */
+  default boolean isDataInsertModeDurable() {
+    return true;
+  }
+
   void createIndex(@Nonnull DSLContext dsl, @Nonnull String indexName, @Nonnull String tableSchema,
       @Nonnull String tableName, @Nonnull List<Tuple2<String, Boolean>> columnList, boolean unique)
       throws UserException;
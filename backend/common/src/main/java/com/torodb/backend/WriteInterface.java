@@ -21,10 +21,15 @@ package com.torodb.backend;
 import com.torodb.core.cursors.Cursor;
 import com.torodb.core.d2r.DocPartData;
 import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.MetaCollection;
+import com.torodb.core.transaction.metainf.MetaDocPart;
+import com.torodb.core.transaction.metainf.MetaField;
+import com.torodb.kvdocument.values.KvValue;
 import org.jooq.DSLContext;
 
 import java.util.Collection;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
@@ -33,10 +38,38 @@ public interface WriteInterface {
   void insertDocPartData(@Nonnull DSLContext dsl, @Nonnull String schemaName,
       @Nonnull DocPartData docPartData) throws UserException;
 
+  /**
+   * Sets the given values on the row of the given doc part that belongs to the given document.
+   *
+   * <p>This method must only be used on doc parts that contain at most one row per document.
+   * Fields whose value is null are set to SQL NULL.
+   *
+   * @return the number of updated rows
+   */
+  int updateDocPartRow(@Nonnull DSLContext dsl, @Nonnull String schemaName,
+      @Nonnull MetaDocPart metaDocPart, int did, @Nonnull Map<MetaField, KvValue<?>> newValues)
+      throws UserException;
+
   long deleteCollectionDocParts(@Nonnull DSLContext dsl, @Nonnull String schemaName,
       @Nonnull MetaCollection metaCollection, @Nonnull Cursor<Integer> didCursor);
 
   void deleteCollectionDocParts(@Nonnull DSLContext dsl, @Nonnull String schemaName,
       @Nonnull MetaCollection metaCollection, @Nonnull Collection<Integer> dids);
 
+  /**
+   * Deletes all documents stored on the given collection.
+   *
+   * @return the number of deleted documents
+   */
+  long deleteAllCollectionDocParts(@Nonnull DSLContext dsl, @Nonnull String schemaName,
+      @Nonnull MetaCollection metaCollection);
+
+  /**
+   * Deletes the documents stored on the given collection that fulfill the given criteria.
+   *
+   * @return the number of deleted documents
+   */
+  long deleteCollectionDocParts(@Nonnull DSLContext dsl, @Nonnull String schemaName,
+      @Nonnull MetaCollection metaCollection, @Nonnull QueryCriteria criteria);
+
 }
@@ -21,6 +21,7 @@ package com.torodb.backend.guice;
 import com.google.inject.PrivateModule;
 import com.google.inject.Singleton;
 import com.torodb.backend.BackendServiceImpl;
+import com.torodb.backend.ConnectionPoolMetrics;
 import com.torodb.backend.DslContextFactory;
 import com.torodb.backend.DslContextFactoryImpl;
 import com.torodb.backend.KvMetainfoHandler;
@@ -83,6 +84,9 @@ public class BackendModule extends PrivateModule {
         .to(BackendServiceImpl.class);
     expose(BackendService.class);
 
+    bind(ConnectionPoolMetrics.class)
+        .asEagerSingleton();
+
     bind(KvMetainfoHandler.class);
   }
 
@@ -19,81 +19,131 @@
 package com.torodb.backend.rid;
 
 import com.google.common.base.Preconditions;
+import com.torodb.backend.BackendConfig;
+import com.torodb.backend.BackendLoggerFactory;
+import com.torodb.backend.ErrorHandler.Context;
 import com.torodb.backend.SqlInterface;
 import com.torodb.core.TableRef;
 import com.torodb.core.annotations.TorodbIdleService;
+import com.torodb.core.concurrent.ConcurrentToolsFactory;
 import com.torodb.core.services.IdleTorodbService;
 import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
-import com.torodb.core.transaction.metainf.MetaSnapshot;
+import com.torodb.core.transaction.metainf.MetaCollection;
+import com.torodb.core.transaction.metainf.MetaDatabase;
 import com.torodb.core.transaction.metainf.MetainfoRepository;
 import com.torodb.core.transaction.metainf.MetainfoRepository.SnapshotStage;
+import org.apache.logging.log4j.Logger;
 import org.jooq.DSLContext;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+/**
+ * A {@link ReservedIdInfoFactory} that reads the last used row id of each doc part from the
+ * backend.
+ *
+ * <p>Counters are loaded per collection the first time one of its doc parts is requested, so the
+ * startup time does not depend on the number of tables stored on the backend. Optionally, the
+ * counters of the existing collections can be preloaded in background using up to
+ * {@link BackendConfig#getRidWarmUpParallelism()} threads, each one loading all the collections of
+ * a database on a single connection.
+ *
+ * <p>Counters are read using read only connections, as the system pool only contains one
+ * connection and it would serialize the warm up. The warm up never uses all the connections of the
+ * read pool, so reads can be executed while it is running.
+ */
 @Singleton
 public class ReservedIdInfoFactoryImpl extends IdleTorodbService implements ReservedIdInfoFactory {
 
+  private static final Logger LOGGER = BackendLoggerFactory.get(ReservedIdInfoFactoryImpl.class);
+
   private final MetainfoRepository metainfoRepository;
   private final SqlInterface sqlInterface;
-  @SuppressWarnings("checkstyle:LineLength")
-  private ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<TableRef, ReservedIdInfo>>> megaMap;
+  private final ConcurrentToolsFactory concurrentToolsFactory;
+  private final int warmUpParallelism;
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, CollectionReservedIds>>
+      megaMap = new ConcurrentHashMap<>();
+  @Nullable
+  private ExecutorService warmUpExecutor;
 
   @Inject
   public ReservedIdInfoFactoryImpl(@TorodbIdleService ThreadFactory threadFactory,
-      MetainfoRepository metainfoRepository, SqlInterface sqlInterface) {
+      MetainfoRepository metainfoRepository, SqlInterface sqlInterface,
+      ConcurrentToolsFactory concurrentToolsFactory, BackendConfig backendConfig) {
     super(threadFactory);
     this.metainfoRepository = metainfoRepository;
     this.sqlInterface = sqlInterface;
+    this.concurrentToolsFactory = concurrentToolsFactory;
+    this.warmUpParallelism = Math.min(backendConfig.getRidWarmUpParallelism(),
+        backendConfig.getReservedReadPoolSize() - 1);
   }
 
   @Override
   protected void startUp() throws Exception {
+    if (warmUpParallelism > 0) {
+      startWarmUp();
+    }
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    if (warmUpExecutor != null) {
+      warmUpExecutor.shutdownNow();
+      warmUpExecutor = null;
+    }
+    megaMap.clear();
+  }
+
+  private void startWarmUp() {
     ImmutableMetaSnapshot snapshot;
     try (SnapshotStage snapshotStage = metainfoRepository.startSnapshotStage()) {
       snapshot = snapshotStage.createImmutableSnapshot();
     }
 
-    try (Connection connection = sqlInterface.getDbBackend().createSystemConnection()) {
+    warmUpExecutor = concurrentToolsFactory.createExecutorServiceWithMaxThreads(
+        "rid-warmup", warmUpParallelism);
+    snapshot.streamMetaDatabases().forEach(db ->
+        warmUpExecutor.execute(() -> warmUp(db))
+    );
+    //already submitted tasks are executed, but no new ones are accepted
+    warmUpExecutor.shutdown();
+  }
+
+  private void warmUp(MetaDatabase db) {
+    try (Connection connection = sqlInterface.getDbBackend().createReadOnlyConnection()) {
       DSLContext dsl = sqlInterface.getDslContextFactory().createDslContext(connection);
 
-      megaMap = loadRowIds(dsl, snapshot);
+      db.streamMetaCollections().forEach(col -> {
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        try {
+          getCollectionReservedIds(db.getName(), col.getName())
+              .getOrLoad(() -> loadRowIds(dsl, db, col));
+        } catch (RuntimeException ex) {
+          LOGGER.warn("Error while preloading the row ids of " + db.getName() + "."
+              + col.getName() + ". They will be loaded on first use", ex);
+        }
+      });
+    } catch (SQLException | RuntimeException ex) {
+      LOGGER.warn("Error while preloading the row ids of " + db.getName() + ". They will be "
+          + "loaded on first use", ex);
     }
-
   }
 
-  @Override
-  protected void shutDown() throws Exception {
-    megaMap.clear();
-  }
-
-  @SuppressWarnings("checkstyle:LineLength")
-  private ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<TableRef, ReservedIdInfo>>> loadRowIds(
-      DSLContext dsl, MetaSnapshot snapshot) {
-    ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<TableRef, ReservedIdInfo>>> rowsIdMap =
-        new ConcurrentHashMap<>();
-
-    snapshot.streamMetaDatabases().forEach(db -> {
-      ConcurrentHashMap<String, ConcurrentHashMap<TableRef, ReservedIdInfo>> collMap =
-          new ConcurrentHashMap<>();
-      rowsIdMap.put(db.getName(), collMap);
-      db.streamMetaCollections().forEach(collection -> {
-        ConcurrentHashMap<TableRef, ReservedIdInfo> tableRefMap = new ConcurrentHashMap<>();
-        collMap.put(collection.getName(), tableRefMap);
-        collection.streamContainedMetaDocParts().forEach(metaDocPart -> {
-          TableRef tableRef = metaDocPart.getTableRef();
-          Integer lastRowIUsed = sqlInterface.getReadInterface().getLastRowIdUsed(dsl, db,
-              collection, metaDocPart);
-          tableRefMap.put(tableRef, new ReservedIdInfo(lastRowIUsed, lastRowIUsed));
-        });
-      });
-    });
-    return rowsIdMap;
+  private CollectionReservedIds getCollectionReservedIds(String dbName, String collectionName) {
+    return megaMap
+        .computeIfAbsent(dbName, name -> new ConcurrentHashMap<>())
+        .computeIfAbsent(collectionName,
+            name -> new CollectionReservedIds());
   }
 
   @Override
@@ -101,15 +151,69 @@ public class ReservedIdInfoFactoryImpl extends IdleTorodbService implements Rese
     Preconditions.checkState(isRunning(), "This " + ReservedIdInfoFactory.class
         + " is also a service and it is not running");
 
-    assert megaMap != null;
+    return getCollectionReservedIds(dbName, collectionName)
+        .getOrLoad(() -> loadRowIds(dbName, collectionName))
+        .computeIfAbsent(tableRef, tr -> new ReservedIdInfo(-1, -1));
+  }
+
+  private ConcurrentHashMap<TableRef, ReservedIdInfo> loadRowIds(String dbName,
+      String collectionName) {
+    ConcurrentHashMap<TableRef, ReservedIdInfo> tableRefMap = new ConcurrentHashMap<>();
+
+    ImmutableMetaSnapshot snapshot;
+    try (SnapshotStage snapshotStage = metainfoRepository.startSnapshotStage()) {
+      snapshot = snapshotStage.createImmutableSnapshot();
+    }
+    MetaDatabase db = snapshot.getMetaDatabaseByName(dbName);
+    if (db == null) {
+      return tableRefMap;
+    }
+    MetaCollection collection = db.getMetaCollectionByName(collectionName);
+    if (collection == null) {
+      return tableRefMap;
+    }
+
+    try (Connection connection = sqlInterface.getDbBackend().createReadOnlyConnection()) {
+      DSLContext dsl = sqlInterface.getDslContextFactory().createDslContext(connection);
+      return loadRowIds(dsl, db, collection);
+    } catch (SQLException ex) {
+      throw sqlInterface.getErrorHandler().handleException(Context.FETCH, ex);
+    }
+  }
+
+  private ConcurrentHashMap<TableRef, ReservedIdInfo> loadRowIds(DSLContext dsl,
+      MetaDatabase db, MetaCollection collection) {
+    ConcurrentHashMap<TableRef, ReservedIdInfo> tableRefMap = new ConcurrentHashMap<>();
+    collection.streamContainedMetaDocParts().forEach(metaDocPart -> {
+      Integer lastRowIUsed = sqlInterface.getReadInterface().getLastRowIdUsed(dsl, db,
+          collection, metaDocPart);
+      tableRefMap.put(metaDocPart.getTableRef(),
+          new ReservedIdInfo(lastRowIUsed, lastRowIUsed));
+    });
+    return tableRefMap;
+  }
 
-    ConcurrentHashMap<String, ConcurrentHashMap<TableRef, ReservedIdInfo>> collectionsMap =
-        this.megaMap.computeIfAbsent(dbName,
-            name -> new ConcurrentHashMap<>());
-    ConcurrentHashMap<TableRef, ReservedIdInfo> docPartsMap = collectionsMap.computeIfAbsent(
-        collectionName,
-        name -> new ConcurrentHashMap<>());
-    return docPartsMap.computeIfAbsent(tableRef, tr -> new ReservedIdInfo(-1, -1));
+  /**
+   * The row id counters of a collection, which are loaded from the backend at most once.
+   */
+  private static class CollectionReservedIds {
+
+    private volatile ConcurrentHashMap<TableRef, ReservedIdInfo> tableRefMap;
+
+    private ConcurrentHashMap<TableRef, ReservedIdInfo> getOrLoad(
+        Supplier<ConcurrentHashMap<TableRef, ReservedIdInfo>> loader) {
+      ConcurrentHashMap<TableRef, ReservedIdInfo> result = tableRefMap;
+      if (result == null) {
+        synchronized (this) {
+          result = tableRefMap;
+          if (result == null) {
+            result = loader.get();
+            tableRefMap = result;
+          }
+        }
+      }
+      return result;
+    }
   }
 
 }
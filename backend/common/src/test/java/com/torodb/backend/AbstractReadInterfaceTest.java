@@ -0,0 +1,232 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.torodb.core.TableRef;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.d2r.DocPartResult;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.core.transaction.metainf.ImmutableMetaCollection;
+import com.torodb.core.transaction.metainf.ImmutableMetaDocPart;
+import com.torodb.core.transaction.metainf.MetaDatabase;
+import com.torodb.core.transaction.metainf.MetaDocPart;
+import org.jooq.Configuration;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class AbstractReadInterfaceTest {
+
+  private final TableRefFactory tableRefFactory = new TableRefFactoryImpl();
+  private ImmutableMetaCollection metaCol;
+  private DSLContext dsl;
+  private ConnectionProvider connectionProvider;
+  private Connection connection;
+
+  @Before
+  public void setUp() {
+    TableRef root = tableRefFactory.createRoot();
+    TableRef child = tableRefFactory.createChild(root, "c");
+    metaCol = new ImmutableMetaCollection.Builder("col", "col")
+        .put(new ImmutableMetaDocPart.Builder(root, "col")
+            .putField("n", "n_i", FieldType.INTEGER))
+        .put(new ImmutableMetaDocPart.Builder(child, "col_c")
+            .putField("n", "n_i", FieldType.INTEGER))
+        .build();
+
+    connection = mock(Connection.class);
+    connectionProvider = mock(ConnectionProvider.class);
+    when(connectionProvider.acquire()).thenReturn(connection);
+    Configuration configuration = mock(Configuration.class);
+    when(configuration.connectionProvider()).thenReturn(connectionProvider);
+    dsl = mock(DSLContext.class);
+    when(dsl.configuration()).thenReturn(configuration);
+  }
+
+  @Test
+  public void testMultiStatementFetch() throws SQLException {
+    Statement statement = mock(Statement.class);
+    ResultSet firstResultSet = mock(ResultSet.class);
+    ResultSet secondResultSet = mock(ResultSet.class);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.execute(anyString())).thenReturn(true);
+    when(statement.getResultSet()).thenReturn(firstResultSet, secondResultSet);
+    when(statement.getMoreResults(anyInt())).thenReturn(true, false);
+
+    List<DocPartResult> results = getCollectionResultSets(true);
+
+    assertEquals(2, results.size());
+    verify(statement).closeOnCompletion();
+    verify(connectionProvider).release(connection);
+  }
+
+  @Test
+  public void testMultiStatementFetchClosesResultsOnError() throws SQLException {
+    Statement statement = mock(Statement.class);
+    ResultSet firstResultSet = mock(ResultSet.class);
+    SQLException error = new SQLException("error fetching the second doc part");
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.execute(anyString())).thenReturn(true);
+    when(statement.getResultSet()).thenReturn(firstResultSet);
+    when(statement.getMoreResults(anyInt())).thenThrow(error);
+
+    try {
+      getCollectionResultSets(true);
+      fail("An exception was expected");
+    } catch (SQLException ex) {
+      assertSame(error, ex);
+    }
+
+    verify(firstResultSet).close();
+    verify(statement).close();
+    verify(connectionProvider).release(connection);
+  }
+
+  @Test
+  public void testMultiStatementFetchClosesTheStatementWhenResultsAreMissing()
+      throws SQLException {
+    Statement statement = mock(Statement.class);
+    ResultSet firstResultSet = mock(ResultSet.class);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.execute(anyString())).thenReturn(true);
+    when(statement.getResultSet()).thenReturn(firstResultSet);
+    when(statement.getMoreResults(anyInt())).thenReturn(false);
+
+    try {
+      getCollectionResultSets(true);
+      fail("An exception was expected");
+    } catch (SQLException ex) {
+      //expected
+    }
+
+    verify(firstResultSet).close();
+    verify(statement).close();
+    verify(connectionProvider).release(connection);
+  }
+
+  @Test
+  public void testSingleStatementFetchClosesResultsOnError() throws SQLException {
+    PreparedStatement firstStatement = mock(PreparedStatement.class);
+    PreparedStatement secondStatement = mock(PreparedStatement.class);
+    ResultSet firstResultSet = mock(ResultSet.class);
+    SQLException error = new SQLException("error fetching the second doc part");
+    when(connection.prepareStatement(anyString())).thenReturn(firstStatement, secondStatement);
+    when(firstStatement.executeQuery()).thenReturn(firstResultSet);
+    when(secondStatement.executeQuery()).thenThrow(error);
+
+    try {
+      getCollectionResultSets(false);
+      fail("An exception was expected");
+    } catch (SQLException ex) {
+      assertSame(error, ex);
+    }
+
+    verify(firstResultSet).close();
+    verify(secondStatement).close();
+    verify(connectionProvider).release(connection);
+  }
+
+  private List<DocPartResult> getCollectionResultSets(boolean multiStatement)
+      throws SQLException {
+    AbstractReadInterface readInterface = new TestReadInterface(tableRefFactory,
+        multiStatement);
+    return readInterface.getCollectionResultSets(dsl, mock(MetaDatabase.class), metaCol,
+        Arrays.asList(1, 2));
+  }
+
+  private static class TestReadInterface extends AbstractReadInterface {
+
+    private final boolean multiStatement;
+
+    public TestReadInterface(TableRefFactory tableRefFactory, boolean multiStatement) {
+      super(mock(MetaDataReadInterface.class), mock(DataTypeProvider.class),
+          mock(ErrorHandler.class), mock(SqlHelper.class), tableRefFactory);
+      this.multiStatement = multiStatement;
+    }
+
+    @Override
+    protected boolean isMultiStatementFetchSupported() {
+      return multiStatement;
+    }
+
+    @Override
+    protected String getDocPartStatament(MetaDatabase metaDatabase, MetaDocPart metaDocPart,
+        Collection<Integer> dids) {
+      return "SELECT * FROM " + metaDocPart.getIdentifier();
+    }
+
+    @Override
+    protected String getReadCollectionDidsWithFieldEqualsToStatement(String schemaName,
+        String rootTableName, String columnName) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String getReadCollectionDidsWithFieldInStatement(String schemaName,
+        String rootTableName, Stream<Tuple2<String, Integer>> valuesCountList) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String getReadCollectionDidsAndProjectionWithFieldInStatement(String schemaName,
+        String rootTableName, String columnName, int valuesCount) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String getReadAllCollectionDidsStatement(String schemaName,
+        String rootTableName) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String getReadCountAllStatement(String schema, String rootTableName) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String getLastRowIdUsedStatement(MetaDatabase metaDatabase,
+        MetaDocPart metaDocPart) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
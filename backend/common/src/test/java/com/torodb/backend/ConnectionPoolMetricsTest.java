@@ -0,0 +1,83 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.google.common.collect.Lists;
+import com.torodb.core.backend.ConnectionPoolStats;
+import com.torodb.core.metrics.ToroMetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ConnectionPoolMetricsTest {
+
+  private final Map<String, Metric> registered = new HashMap<>();
+  private DbBackendService dbBackendService;
+
+  @Before
+  public void setUp() {
+    ToroMetricRegistry registry = mock(ToroMetricRegistry.class);
+    when(registry.createSubRegistry(anyString())).thenReturn(registry);
+    when(registry.register(anyString(), any(Metric.class))).thenAnswer(invocation -> {
+      registered.put(invocation.getArgument(0), invocation.getArgument(1));
+      return invocation.getArgument(1);
+    });
+    dbBackendService = mock(DbBackendService.class);
+
+    new ConnectionPoolMetrics(registry, dbBackendService);
+  }
+
+  @Test
+  public void gaugesReadTheCurrentPoolState() {
+    when(dbBackendService.getConnectionPoolStats()).thenReturn(Lists.newArrayList(
+        new ConnectionPoolStats(AbstractDbBackendService.SESSION_POOL_NAME, 3, 2, 5, 10),
+        new ConnectionPoolStats(AbstractDbBackendService.READ_ONLY_POOL_NAME, 1, 0, 1, 4)));
+
+    assertEquals(3, getValue("sessionActiveConnections"));
+    assertEquals(2, getValue("sessionIdleConnections"));
+    assertEquals(5, getValue("sessionTotalConnections"));
+    assertEquals(1, getValue("cursorsActiveConnections"));
+    assertEquals(0, getValue("cursorsIdleConnections"));
+    assertEquals(1, getValue("cursorsTotalConnections"));
+  }
+
+  @Test
+  public void gaugesOfPoolsThatAreNotRunning() {
+    when(dbBackendService.getConnectionPoolStats()).thenReturn(Collections.emptyList());
+
+    assertEquals(0, getValue("sessionActiveConnections"));
+    assertEquals(0, getValue("systemTotalConnections"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private int getValue(String gaugeName) {
+    return ((Gauge<Integer>) registered.get(gaugeName)).getValue();
+  }
+}
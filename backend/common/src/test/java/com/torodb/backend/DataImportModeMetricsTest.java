@@ -0,0 +1,76 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.torodb.core.metrics.DisabledMetricRegistry;
+import com.torodb.core.metrics.SettableGauge;
+import com.torodb.core.metrics.ToroMetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DataImportModeMetricsTest {
+
+  private SettableGauge<String> currentPhase;
+  private DataImportModeMetrics metrics;
+
+  @Before
+  public void setUp() {
+    currentPhase = new SettableGauge<>();
+    DisabledMetricRegistry disabledRegistry = new DisabledMetricRegistry();
+    ToroMetricRegistry registry = mock(ToroMetricRegistry.class);
+    when(registry.createSubRegistry(anyString())).thenReturn(registry);
+    when(registry.<String>gauge("currentPhase")).thenReturn(currentPhase);
+    when(registry.counter(anyString())).thenReturn(disabledRegistry.counter("pendingTasks"));
+    when(registry.meter(anyString())).thenReturn(disabledRegistry.meter("finishedTasks"));
+    when(registry.timer(anyString())).thenReturn(disabledRegistry.timer("taskTimer"));
+
+    metrics = new DataImportModeMetrics(registry);
+  }
+
+  @Test
+  public void phaseOfASingleDatabase() {
+    metrics.setCurrentPhase("db1", "table");
+    assertEquals("db1: table", currentPhase.getValue());
+
+    metrics.setCurrentPhase("db1", "index");
+    assertEquals("db1: index", currentPhase.getValue());
+
+    metrics.onDataImportModeDisabled("db1");
+    assertNull(currentPhase.getValue());
+  }
+
+  @Test
+  public void phasesOfConcurrentDatabasesAreNotOverwritten() {
+    metrics.setCurrentPhase("db2", "table");
+    metrics.setCurrentPhase("db1", "index");
+    assertEquals("db1: index, db2: table", currentPhase.getValue());
+
+    metrics.onDataImportModeDisabled("db1");
+    assertEquals("db2: table", currentPhase.getValue());
+
+    metrics.setCurrentPhase("db2", "final");
+    assertEquals("db2: final", currentPhase.getValue());
+  }
+}
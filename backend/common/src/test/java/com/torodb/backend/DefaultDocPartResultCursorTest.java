@@ -0,0 +1,239 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.torodb.backend.ErrorHandler.Context;
+import com.torodb.core.d2r.DocPartResult;
+import com.torodb.core.exceptions.SystemException;
+import com.torodb.core.transaction.metainf.MetaCollection;
+import com.torodb.core.transaction.metainf.MetaDatabase;
+import org.jooq.DSLContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class DefaultDocPartResultCursorTest {
+
+  private final DSLContext dsl = mock(DSLContext.class);
+  private final MetaDatabase metaDatabase = mock(MetaDatabase.class);
+  private final MetaCollection metaCollection = mock(MetaCollection.class);
+  private SqlInterface sqlInterface;
+  private ReadInterface readInterface;
+  private ErrorHandler errorHandler;
+  private MockDidCursor didCursor;
+  private ExecutorService executor;
+  /**
+   * The dids requested on each call to the read interface and the results it returned.
+   */
+  private final List<List<Integer>> fetchedDids = Collections.synchronizedList(new ArrayList<>());
+  private final List<DocPartResult> fetchedResults =
+      Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void setUp() throws SQLException {
+    sqlInterface = mock(SqlInterface.class);
+    readInterface = mock(ReadInterface.class);
+    errorHandler = mock(ErrorHandler.class);
+    when(sqlInterface.getReadInterface()).thenReturn(readInterface);
+    when(sqlInterface.getErrorHandler()).thenReturn(errorHandler);
+    when(readInterface.getCollectionResultSets(eq(dsl), eq(metaDatabase), eq(metaCollection),
+        anyCollection())).thenAnswer(invocation -> {
+          Collection<Integer> dids = invocation.getArgument(3);
+          return fetched(dids);
+        });
+
+    didCursor = spy(new MockDidCursor(IntStream.range(0, 10).iterator()));
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void withoutExecutorNothingIsPrefetched() {
+    DefaultDocPartResultCursor cursor = new DefaultDocPartResultCursor(sqlInterface, didCursor,
+        dsl, metaDatabase, metaCollection);
+
+    cursor.getNextBatch(4);
+
+    assertEquals(Collections.singletonList(dids(0, 4)), fetchedDids);
+  }
+
+  @Test
+  public void nextBatchIsPrefetched() {
+    DefaultDocPartResultCursor cursor = createPrefetchCursor();
+
+    List<DocPartResult> first = cursor.getNextBatch(4);
+    assertSame(fetchedResults.get(0), first.get(0));
+
+    List<DocPartResult> second = cursor.getNextBatch(4);
+    assertSame("The prefetched batch must be returned", fetchedResults.get(1), second.get(0));
+
+    List<DocPartResult> third = cursor.getNextBatch(4);
+    assertSame(fetchedResults.get(2), third.get(0));
+    assertFalse(cursor.hasNext());
+
+    assertEquals(Arrays.asList(dids(0, 4), dids(4, 8), dids(8, 10)), fetchedDids);
+  }
+
+  @Test
+  public void smallerRequestsReadThePrefetchedDidsAgain() {
+    DefaultDocPartResultCursor cursor = createPrefetchCursor();
+
+    cursor.getNextBatch(4);
+    List<DocPartResult> second = cursor.getNextBatch(2);
+
+    DocPartResult discarded = fetchedResults.get(1);
+    verify(discarded).close();
+    assertSame(fetchedResults.get(2), second.get(0));
+    assertEquals(Arrays.asList(dids(0, 4), dids(4, 8), dids(4, 6), dids(6, 8)), fetchedDids);
+
+    assertEquals(2, cursor.getRemaining().size());
+    assertEquals(dids(8, 10), fetchedDids.get(fetchedDids.size() - 1));
+  }
+
+  @Test
+  public void biggerRequestsReturnThePrefetchedBatch() {
+    DefaultDocPartResultCursor cursor = createPrefetchCursor();
+
+    cursor.getNextBatch(2);
+    List<DocPartResult> second = cursor.getNextBatch(5);
+
+    assertSame(fetchedResults.get(1), second.get(0));
+    assertEquals(Arrays.asList(dids(0, 2), dids(2, 4), dids(4, 9)), fetchedDids);
+  }
+
+  @Test
+  public void closeWaitsForThePendingPrefetch() throws Exception {
+    CountDownLatch prefetchLatch = new CountDownLatch(1);
+    when(readInterface.getCollectionResultSets(eq(dsl), eq(metaDatabase), eq(metaCollection),
+        anyCollection())).thenAnswer(invocation -> {
+          List<DocPartResult> result = fetched(invocation.getArgument(3));
+          if (fetchedDids.size() > 1) {
+            assertTrue(prefetchLatch.await(10, TimeUnit.SECONDS));
+          }
+          return result;
+        });
+    DefaultDocPartResultCursor cursor = new DefaultDocPartResultCursor(sqlInterface, didCursor,
+        dsl, metaDatabase, metaCollection, executor);
+    cursor.getNextBatch(4);
+
+    Thread closer = new Thread(cursor::close);
+    closer.start();
+    closer.join(100);
+    assertTrue("Close must wait until the prefetch finishes", closer.isAlive());
+    verify(didCursor, never()).close();
+
+    prefetchLatch.countDown();
+    closer.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(closer.isAlive());
+    verify(fetchedResults.get(1)).close();
+    verify(didCursor).close();
+  }
+
+  @Test
+  public void prefetchErrorsAreThrownWhenTheBatchIsRequested() throws SQLException {
+    SQLException sqlException = new SQLException("prefetch error");
+    SystemException translated = new SystemException("translated", sqlException);
+    when(errorHandler.handleException(Context.FETCH, sqlException)).thenReturn(translated);
+    failOnPrefetch(sqlException);
+    DefaultDocPartResultCursor cursor = createPrefetchCursor();
+
+    cursor.getNextBatch(4);
+    try {
+      cursor.getNextBatch(4);
+      fail("The prefetch error was expected");
+    } catch (SystemException ex) {
+      assertSame(translated, ex);
+    }
+  }
+
+  @Test
+  public void closeIgnoresPrefetchErrors() throws SQLException {
+    SQLException sqlException = new SQLException("prefetch error");
+    when(errorHandler.handleException(Context.FETCH, sqlException))
+        .thenReturn(new SystemException("translated", sqlException));
+    failOnPrefetch(sqlException);
+    DefaultDocPartResultCursor cursor = createPrefetchCursor();
+
+    cursor.getNextBatch(4);
+    cursor.close();
+
+    verify(didCursor).close();
+  }
+
+  /**
+   * Creates a cursor whose prefetches are executed on the calling thread, so they are finished
+   * when the batch is returned.
+   */
+  private DefaultDocPartResultCursor createPrefetchCursor() {
+    return new DefaultDocPartResultCursor(sqlInterface, didCursor, dsl, metaDatabase,
+        metaCollection, Runnable::run);
+  }
+
+  private void failOnPrefetch(SQLException sqlException) throws SQLException {
+    when(readInterface.getCollectionResultSets(eq(dsl), eq(metaDatabase), eq(metaCollection),
+        anyCollection())).thenAnswer(invocation -> {
+          List<DocPartResult> result = fetched(invocation.getArgument(3));
+          if (fetchedDids.size() > 1) {
+            throw sqlException;
+          }
+          return result;
+        });
+  }
+
+  private List<DocPartResult> fetched(Collection<Integer> dids) {
+    DocPartResult result = mock(DocPartResult.class);
+    fetchedDids.add(new ArrayList<>(dids));
+    fetchedResults.add(result);
+    return Collections.singletonList(result);
+  }
+
+  private static List<Integer> dids(int from, int to) {
+    return IntStream.range(from, to).boxed().collect(Collectors.toList());
+  }
+}
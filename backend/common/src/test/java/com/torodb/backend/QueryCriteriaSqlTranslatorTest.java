@@ -0,0 +1,246 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.torodb.backend.QueryCriteriaSqlTranslator.SqlQuery;
+import com.torodb.core.TableRef;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.AndQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria.Operator;
+import com.torodb.core.language.querycriteria.ExistsQueryCriteria;
+import com.torodb.core.language.querycriteria.InQueryCriteria;
+import com.torodb.core.language.querycriteria.OrQueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteria;
+import com.torodb.core.language.querycriteria.TrueQueryCriteria;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.core.transaction.metainf.ImmutableMetaCollection;
+import com.torodb.core.transaction.metainf.ImmutableMetaDocPart;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvDouble;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvLong;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class QueryCriteriaSqlTranslatorTest {
+
+  private static final String SCHEMA = "db";
+  private static final String ROOT = "\"db\".\"col\"";
+  private static final String SUBTABLE = "\"db\".\"col_c\"";
+
+  private final TableRefFactory tableRefFactory = new TableRefFactoryImpl();
+  private SqlHelper sqlHelper;
+  private ImmutableMetaCollection metaCol;
+
+  @Before
+  public void setUp() {
+    sqlHelper = mock(SqlHelper.class);
+    when(sqlHelper.getPlaceholder(any())).thenReturn("?");
+
+    TableRef root = tableRefFactory.createRoot();
+    TableRef child = tableRefFactory.createChild(root, "c");
+    metaCol = new ImmutableMetaCollection.Builder("col", "col")
+        .put(new ImmutableMetaDocPart.Builder(root, "col")
+            .putField("n", "n_i", FieldType.INTEGER)
+            .putField("n", "n_d", FieldType.DOUBLE)
+            .putField("i", "i_i", FieldType.INTEGER)
+            .putField("m", "m_l", FieldType.LONG)
+            .putField("m", "m_s", FieldType.STRING)
+            .putField("s", "s_s", FieldType.STRING)
+            .putField("c", "c_e", FieldType.CHILD))
+        .put(new ImmutableMetaDocPart.Builder(child, "col_c")
+            .putField("d", "d_l", FieldType.LONG))
+        .build();
+  }
+
+  @Test
+  public void trueCriteriaReadsAllDids() {
+    SqlQuery query = translate(TrueQueryCriteria.getInstance());
+
+    assertEquals(where("1 = 1"), query.getStatement());
+    assertEquals(0, query.getParameters().size());
+  }
+
+  @Test
+  public void numbersAreComparedWithAllNumericColumns() {
+    SqlQuery query = translate(comparison("n", Operator.EQ, KvInteger.of(1)));
+
+    String statement = query.getStatement();
+    assertTrue(statement, statement.contains("\"n_i\" = ?"));
+    assertTrue(statement, statement.contains("\"n_d\" = ?"));
+    assertTrue(statement, statement.contains(" OR "));
+    assertEquals(Arrays.asList(FieldType.INTEGER, FieldType.INTEGER), parameterTypes(query));
+  }
+
+  @Test
+  public void rangesAreCombinedWithAnd() {
+    SqlQuery query = translate(new AndQueryCriteria(ImmutableList.of(
+        comparison("i", Operator.GTE, KvDouble.of(1.5)),
+        comparison("i", Operator.LT, KvLong.of(10)))));
+
+    assertEquals(where("((\"i_i\" >= ?) AND (\"i_i\" < ?))"), query.getStatement());
+    assertEquals(Arrays.asList(FieldType.DOUBLE, FieldType.LONG), parameterTypes(query));
+  }
+
+  @Test
+  public void orIsEvaluatedOnASingleStatement() {
+    SqlQuery query = translate(new OrQueryCriteria(ImmutableList.of(
+        comparison("s", Operator.EQ, new StringKvString("x")),
+        comparison("c.d", Operator.GT, KvInteger.of(3)))));
+
+    assertEquals(where("((\"s_s\" = ?) OR (\"did\" IN (SELECT \"did\" FROM " + SUBTABLE
+        + " WHERE (\"d_l\" > ?))))"), query.getStatement());
+    assertEquals(Arrays.asList(FieldType.STRING, FieldType.INTEGER), parameterTypes(query));
+  }
+
+  @Test
+  public void nestedAndOrAreKept() {
+    SqlQuery query = translate(new AndQueryCriteria(ImmutableList.of(
+        comparison("i", Operator.GT, KvInteger.of(1)),
+        new OrQueryCriteria(ImmutableList.of(
+            comparison("s", Operator.EQ, new StringKvString("x")),
+            new ExistsQueryCriteria(attRef("c.d"), false))))));
+
+    assertEquals(where("((\"i_i\" > ?) AND ((\"s_s\" = ?) OR NOT (\"did\" IN (SELECT \"did\" "
+        + "FROM " + SUBTABLE + " WHERE (\"d_l\" IS NOT NULL)))))"), query.getStatement());
+  }
+
+  @Test
+  public void inOnlyUsesTheCompatibleValuesOfEachColumn() {
+    SqlQuery query = translate(new InQueryCriteria(attRef("m"), Arrays.asList(
+        KvInteger.of(1), new StringKvString("x"), KvDouble.of(2.5), KvBoolean.TRUE)));
+
+    String statement = query.getStatement();
+    assertTrue(statement, statement.contains("\"m_l\" IN (?,?)"));
+    assertTrue(statement, statement.contains("\"m_s\" IN (?)"));
+    assertEquals(3, query.getParameters().size());
+  }
+
+  @Test
+  public void inOnASingleColumn() {
+    SqlQuery query = translate(new InQueryCriteria(attRef("s"), Arrays.asList(
+        new StringKvString("x"), new StringKvString("y"))));
+
+    assertEquals(where("(\"s_s\" IN (?,?))"), query.getStatement());
+    assertEquals(Arrays.asList(FieldType.STRING, FieldType.STRING), parameterTypes(query));
+  }
+
+  @Test
+  public void mixedTypesWithoutCompatibleColumnsNeverMatch() {
+    assertEquals(where("1 = 0"), translate(comparison("s", Operator.EQ, KvInteger.of(1)))
+        .getStatement());
+    assertEquals(where("1 = 0"), translate(comparison("i", Operator.GT,
+        new StringKvString("1"))).getStatement());
+    assertEquals(where("1 = 0"), translate(new InQueryCriteria(attRef("s"), Arrays.asList(
+        KvInteger.of(1), KvBoolean.TRUE))).getStatement());
+    assertEquals(where("1 = 0"), translate(comparison("unknown", Operator.EQ,
+        KvInteger.of(1))).getStatement());
+  }
+
+  @Test
+  public void mixedTypesOnTheSameAttributeOnlyUseTheColumnOfTheValueType() {
+    assertEquals(where("(\"m_s\" = ?)"), translate(comparison("m", Operator.EQ,
+        new StringKvString("x"))).getStatement());
+    assertEquals(where("(\"m_l\" < ?)"), translate(comparison("m", Operator.LT,
+        KvDouble.of(3.5))).getStatement());
+  }
+
+  @Test
+  public void existsChecksAllColumnsOfTheAttribute() {
+    String statement = translate(new ExistsQueryCriteria(attRef("m"), true)).getStatement();
+    assertTrue(statement, statement.contains("\"m_l\" IS NOT NULL"));
+    assertTrue(statement, statement.contains("\"m_s\" IS NOT NULL"));
+
+    assertEquals(where("1 = 1"), translate(new ExistsQueryCriteria(attRef("unknown"), false))
+        .getStatement());
+  }
+
+  @Test
+  public void stringRangesUseTheCodePointCollation() {
+    when(sqlHelper.getCodePointCollation()).thenReturn("\"C\"");
+
+    assertEquals(where("((\"s_s\" COLLATE \"C\" > ?) OR (\"s_s\" = ?))"),
+        translate(new OrQueryCriteria(ImmutableList.of(
+            comparison("s", Operator.GT, new StringKvString("x")),
+            comparison("s", Operator.EQ, new StringKvString("y"))))).getStatement());
+    assertEquals(where("(\"i_i\" > ?)"),
+        translate(comparison("i", Operator.GT, KvInteger.of(1))).getStatement());
+  }
+
+  @Test
+  public void stringRangesUseTheDefaultCollationIfItSortsByCodePoint() {
+    assertEquals(where("(\"s_s\" <= ?)"),
+        translate(comparison("s", Operator.LTE, new StringKvString("x"))).getStatement());
+  }
+
+  @Test
+  public void collectionsWithoutRootDocPartAreNotTranslated() {
+    ImmutableMetaCollection emptyCol = new ImmutableMetaCollection.Builder("empty", "empty")
+        .build();
+
+    assertNull(new QueryCriteriaSqlTranslator(tableRefFactory, sqlHelper)
+        .translate(SCHEMA, emptyCol, TrueQueryCriteria.getInstance()));
+  }
+
+  private SqlQuery translate(QueryCriteria criteria) {
+    return new QueryCriteriaSqlTranslator(tableRefFactory, sqlHelper)
+        .translate(SCHEMA, metaCol, criteria);
+  }
+
+  private static String where(String condition) {
+    return "SELECT \"did\" FROM " + ROOT + " WHERE " + condition + " ORDER BY \"did\"";
+  }
+
+  private static ComparisonQueryCriteria comparison(String path, Operator operator,
+      KvValue<?> value) {
+    return new ComparisonQueryCriteria(attRef(path), operator, value);
+  }
+
+  private static AttributeReference attRef(String path) {
+    AttributeReference.Builder builder = new AttributeReference.Builder();
+    for (String key : path.split("\\.")) {
+      builder.addObjectKey(key);
+    }
+    return builder.build();
+  }
+
+  private static List<FieldType> parameterTypes(SqlQuery query) {
+    return query.getParameters().stream()
+        .map(Tuple2::v1)
+        .collect(Collectors.toList());
+  }
+}
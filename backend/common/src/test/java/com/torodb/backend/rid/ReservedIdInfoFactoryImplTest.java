@@ -0,0 +1,169 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.rid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.torodb.backend.BackendConfig;
+import com.torodb.backend.DbBackendService;
+import com.torodb.backend.DslContextFactory;
+import com.torodb.backend.ReadInterface;
+import com.torodb.backend.SqlInterface;
+import com.torodb.core.TableRef;
+import com.torodb.core.concurrent.ConcurrentToolsFactory;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.transaction.metainf.ImmutableMetaCollection;
+import com.torodb.core.transaction.metainf.ImmutableMetaDatabase;
+import com.torodb.core.transaction.metainf.ImmutableMetaDocPart;
+import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.MetainfoRepository;
+import com.torodb.core.transaction.metainf.MetainfoRepository.SnapshotStage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+
+public class ReservedIdInfoFactoryImplTest {
+
+  private MetainfoRepository metainfoRepository;
+  private SqlInterface sqlInterface;
+  private ConcurrentToolsFactory concurrentToolsFactory;
+  private ReservedIdInfoFactoryImpl factory;
+
+  @Before
+  public void setUp() {
+    ImmutableMetaSnapshot snapshot = mock(ImmutableMetaSnapshot.class);
+    SnapshotStage snapshotStage = mock(SnapshotStage.class);
+    when(snapshotStage.createImmutableSnapshot()).thenReturn(snapshot);
+    metainfoRepository = mock(MetainfoRepository.class);
+    when(metainfoRepository.startSnapshotStage()).thenReturn(snapshotStage);
+
+    sqlInterface = mock(SqlInterface.class);
+    concurrentToolsFactory = mock(ConcurrentToolsFactory.class);
+
+    factory = new ReservedIdInfoFactoryImpl(new ThreadFactoryBuilder().build(),
+        metainfoRepository, sqlInterface, concurrentToolsFactory, mock(BackendConfig.class));
+    factory.startAsync();
+    factory.awaitRunning();
+  }
+
+  @After
+  public void tearDown() {
+    factory.stopAsync();
+    factory.awaitTerminated();
+  }
+
+  @Test
+  public void startUpDoesNotReadTheBackend() {
+    verifyZeroInteractions(metainfoRepository, sqlInterface, concurrentToolsFactory);
+  }
+
+  @Test
+  public void unknownCollectionsStartOnMinusOne() {
+    TableRef root = new TableRefFactoryImpl().createRoot();
+
+    ReservedIdInfo info = factory.create("myDB", "myCollection", root);
+
+    assertEquals(-1, info.getLastUsedId());
+    assertEquals(-1, info.getLastCachedId());
+    verifyZeroInteractions(sqlInterface);
+  }
+
+  @Test
+  public void collectionsAreLoadedOnlyOnce() {
+    TableRefFactoryImpl tableRefFactory = new TableRefFactoryImpl();
+    TableRef root = tableRefFactory.createRoot();
+    TableRef child = tableRefFactory.createChild(root, "child");
+
+    ReservedIdInfo rootInfo = factory.create("myDB", "myCollection", root);
+    factory.create("myDB", "myCollection", child);
+
+    assertSame(rootInfo, factory.create("myDB", "myCollection", root));
+    verify(metainfoRepository, times(1)).startSnapshotStage();
+  }
+
+  @Test
+  public void warmUpUsesOneReadConnectionPerDatabase() throws Exception {
+    TableRef root = new TableRefFactoryImpl().createRoot();
+    ImmutableMetaSnapshot snapshot = new ImmutableMetaSnapshot.Builder()
+        .put(new ImmutableMetaDatabase.Builder("db1", "db1")
+            .put(new ImmutableMetaCollection.Builder("colA", "colA")
+                .put(new ImmutableMetaDocPart.Builder(root, "colA")))
+            .put(new ImmutableMetaCollection.Builder("colB", "colB")
+                .put(new ImmutableMetaDocPart.Builder(root, "colB"))))
+        .put(new ImmutableMetaDatabase.Builder("db2", "db2")
+            .put(new ImmutableMetaCollection.Builder("colC", "colC")
+                .put(new ImmutableMetaDocPart.Builder(root, "colC"))))
+        .build();
+    SnapshotStage snapshotStage = mock(SnapshotStage.class);
+    when(snapshotStage.createImmutableSnapshot()).thenReturn(snapshot);
+    MetainfoRepository warmUpRepository = mock(MetainfoRepository.class);
+    when(warmUpRepository.startSnapshotStage()).thenReturn(snapshotStage);
+
+    DbBackendService dbBackend = mock(DbBackendService.class);
+    when(dbBackend.createReadOnlyConnection()).thenAnswer(invocation -> mock(Connection.class));
+    ReadInterface readInterface = mock(ReadInterface.class);
+    when(readInterface.getLastRowIdUsed(any(), any(), any(), any())).thenReturn(41);
+    SqlInterface warmUpSqlInterface = mock(SqlInterface.class);
+    when(warmUpSqlInterface.getDbBackend()).thenReturn(dbBackend);
+    when(warmUpSqlInterface.getReadInterface()).thenReturn(readInterface);
+    when(warmUpSqlInterface.getDslContextFactory()).thenReturn(mock(DslContextFactory.class));
+
+    ConcurrentToolsFactory warmUpToolsFactory = mock(ConcurrentToolsFactory.class);
+    when(warmUpToolsFactory.createExecutorServiceWithMaxThreads(anyString(), anyInt()))
+        .thenReturn(MoreExecutors.newDirectExecutorService());
+    BackendConfig backendConfig = mock(BackendConfig.class);
+    when(backendConfig.getRidWarmUpParallelism()).thenReturn(4);
+    when(backendConfig.getReservedReadPoolSize()).thenReturn(3);
+
+    ReservedIdInfoFactoryImpl warmUpFactory = new ReservedIdInfoFactoryImpl(
+        new ThreadFactoryBuilder().build(), warmUpRepository, warmUpSqlInterface,
+        warmUpToolsFactory, backendConfig);
+    warmUpFactory.startAsync();
+    warmUpFactory.awaitRunning();
+    try {
+      //the warm up must leave at least one read connection free
+      verify(warmUpToolsFactory).createExecutorServiceWithMaxThreads(anyString(), eq(2));
+      verify(dbBackend, times(2)).createReadOnlyConnection();
+      verify(dbBackend, never()).createSystemConnection();
+      verify(readInterface, times(3)).getLastRowIdUsed(any(), any(), any(), any());
+
+      assertEquals(41, warmUpFactory.create("db1", "colB", root).getLastUsedId());
+      verify(readInterface, times(3)).getLastRowIdUsed(any(), any(), any(), any());
+    } finally {
+      warmUpFactory.stopAsync();
+      warmUpFactory.awaitTerminated();
+    }
+  }
+
+}
@@ -233,4 +233,9 @@ public class DerbyReadInterface extends AbstractReadInterface {
     String statement = sb.toString();
     return statement;
   }
+
+  @Override
+  public boolean isPrefetchSupported() {
+    return false;
+  }
 }
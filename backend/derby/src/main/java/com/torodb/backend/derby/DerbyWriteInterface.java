@@ -22,6 +22,7 @@ import com.torodb.backend.AbstractWriteInterface;
 import com.torodb.backend.InternalField;
 import com.torodb.backend.SqlHelper;
 import com.torodb.backend.tables.MetaDocPartTable;
+import com.torodb.core.TableRefFactory;
 import com.torodb.core.transaction.metainf.FieldType;
 import com.torodb.core.transaction.metainf.MetaDocPart;
 import com.torodb.core.transaction.metainf.MetaField;
@@ -43,8 +44,9 @@ public class DerbyWriteInterface extends AbstractWriteInterface {
   @Inject
   public DerbyWriteInterface(DerbyMetaDataReadInterface metaDataReadInterface,
       DerbyErrorHandler errorHandler,
-      SqlHelper sqlHelper) {
-    super(metaDataReadInterface, errorHandler, sqlHelper);
+      SqlHelper sqlHelper,
+      TableRefFactory tableRefFactory) {
+    super(metaDataReadInterface, errorHandler, sqlHelper, tableRefFactory);
   }
 
   @Override
@@ -29,6 +29,7 @@ import com.torodb.backend.tests.common.DatabaseTestContext;
 import com.torodb.backend.tests.common.IntegrationTestBundleConfig;
 import com.torodb.core.backend.IdentifierConstraints;
 import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.impl.TableRefFactoryImpl;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -71,12 +72,14 @@ public class DerbyDatabaseTestContextFactory {
 
     DerbyMetaDataWriteInterface metadataWriteInterface =
         new DerbyMetaDataWriteInterface(metaDataReadInterface, sqlHelper);
+    DerbyWriteInterface writeInterface = new DerbyWriteInterface(metaDataReadInterface,
+        errorHandler, sqlHelper, new TableRefFactoryImpl());
 
     dbBackend.startAsync();
     dbBackend.awaitRunning();
 
     return new SqlInterfaceDelegate(metaDataReadInterface, metadataWriteInterface, provider,
-        derbyStructureInterface, null, null, identifierConstraints, errorHandler, dslContextFactory, dbBackend);
+        derbyStructureInterface, null, writeInterface, identifierConstraints, errorHandler, dslContextFactory, dbBackend);
   }
 
 }
\ No newline at end of file
@@ -16,19 +16,16 @@
  * along with this program. If not, see <http://www.gnu.org/licenses/>.
  */
 
-package com.torodb.core.exceptions.user;
+package com.torodb.backend.derby;
 
-public class UnsupportedCompoundIndexException extends IndexException {
+import com.torodb.backend.tests.common.AbstractWriteIntegrationSuite;
+import com.torodb.backend.tests.common.DatabaseTestContext;
 
-  private static final long serialVersionUID = 1L;
-
-  public UnsupportedCompoundIndexException(String database, String collection, String index) {
-    super(database, collection, index);
-  }
+public class DerbyWriteIT extends AbstractWriteIntegrationSuite {
 
   @Override
-  public <R, A> R accept(UserExceptionVisitor<R, A> visitor, A arg) {
-    return visitor.visit(this, arg);
+  protected DatabaseTestContext getDatabaseTestContext() {
+    return new DerbyDatabaseTestContextFactory().createInstance();
   }
 
 }
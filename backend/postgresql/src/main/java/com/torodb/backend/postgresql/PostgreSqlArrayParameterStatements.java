@@ -0,0 +1,116 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.postgresql;
+
+import com.torodb.backend.ArrayParameterStatements;
+import com.torodb.backend.postgresql.converters.sql.ArrayParameterSqlBinding;
+import com.torodb.backend.tables.MetaDocPartTable.DocPartTableFields;
+import com.torodb.core.transaction.metainf.MetaField;
+import com.torodb.kvdocument.values.KvValue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The {@link ArrayParameterStatements} of PostgreSQL, that compare columns with
+ * <code>= ANY(?)</code> and bind the values with {@link ArrayParameterSqlBinding}.
+ */
+class PostgreSqlArrayParameterStatements implements ArrayParameterStatements {
+
+  private final PostgreSqlDataTypeProvider dataTypeProvider;
+
+  PostgreSqlArrayParameterStatements(PostgreSqlDataTypeProvider dataTypeProvider) {
+    this.dataTypeProvider = dataTypeProvider;
+  }
+
+  /**
+   * Returns true if the values of all the given fields can be bound as an array parameter.
+   */
+  boolean supports(Collection<MetaField> metaFields) {
+    return metaFields.stream()
+        .allMatch(metaField -> ArrayParameterSqlBinding.INSTANCE.supports(metaField.getType()));
+  }
+
+  @Override
+  public String getReadCollectionDidsWithFieldInArrayStatement(String schemaName,
+      String rootTableName, List<MetaField> metaFields) {
+    StringBuilder sb = new StringBuilder()
+        .append("SELECT \"")
+        .append(DocPartTableFields.DID.fieldName)
+        .append("\" FROM \"")
+        .append(schemaName)
+        .append("\".\"")
+        .append(rootTableName)
+        .append("\" WHERE ");
+
+    Iterator<MetaField> metaFieldIterator = metaFields.iterator();
+    while (metaFieldIterator.hasNext()) {
+      MetaField metaField = metaFieldIterator.next();
+      sb
+          .append('"')
+          .append(metaField.getIdentifier())
+          .append("\" = ANY(")
+          .append(ArrayParameterSqlBinding.INSTANCE.getPlaceholder(metaField.getType()))
+          .append(')');
+      if (metaFieldIterator.hasNext()) {
+        sb.append(" OR ");
+      }
+    }
+
+    sb.append(" ORDER BY \"")
+        .append(DocPartTableFields.DID.fieldName)
+        .append('"');
+    String statement = sb.toString();
+    return statement;
+  }
+
+  @Override
+  public String getReadCollectionDidsAndProjectionWithFieldInArrayStatement(String schemaName,
+      String rootTableName, MetaField metaField) {
+    StringBuilder sb = new StringBuilder()
+        .append("SELECT \"")
+        .append(DocPartTableFields.DID.fieldName)
+        .append("\",\"")
+        .append(metaField.getIdentifier())
+        .append("\" FROM \"")
+        .append(schemaName)
+        .append("\".\"")
+        .append(rootTableName)
+        .append("\" WHERE \"")
+        .append(metaField.getIdentifier())
+        .append("\" = ANY(")
+        .append(ArrayParameterSqlBinding.INSTANCE.getPlaceholder(metaField.getType()))
+        .append(')');
+    String statement = sb.toString();
+    return statement;
+  }
+
+  @Override
+  public void setArrayParameter(Connection connection, PreparedStatement preparedStatement,
+      int parameterIndex, MetaField metaField, Collection<KvValue<?>> values)
+      throws SQLException {
+    ArrayParameterSqlBinding.INSTANCE.set(connection, preparedStatement, parameterIndex,
+        dataTypeProvider.getDataType(metaField.getType()), values);
+  }
+
+}
@@ -83,4 +83,12 @@ public class PostgreSqlDataTypeProvider extends AbstractDataTypeProvider {
   public SQLDialect getDialect() {
     return SQLDialect.POSTGRES_9_4;
   }
+
+  /**
+   * Returns the {@code C} collation, as the default one depends on the locale of the database.
+   */
+  @Override
+  public String getCodePointCollation() {
+    return "\"C\"";
+  }
 }
@@ -33,6 +33,9 @@ public final class PostgreSqlMetrics {
   private final Meter insertFields;
   private final Meter insertDefault;
   private final Meter insertCopy;
+  private final Meter insertBinaryCopy;
+  private final Meter statementCacheHits;
+  private final Meter statementCacheMisses;
 
   @Inject
   public PostgreSqlMetrics(ToroMetricRegistry parentRegistry) {
@@ -42,6 +45,9 @@ public final class PostgreSqlMetrics {
     insertFields = registry.meter("insertFields");
     insertDefault = registry.meter("insertDefault");
     insertCopy = registry.meter("insertCopy");
+    insertBinaryCopy = registry.meter("insertBinaryCopy");
+    statementCacheHits = registry.meter("statementCacheHits");
+    statementCacheMisses = registry.meter("statementCacheMisses");
   }
 
   public Timer getInsertDocPartDataTimer() {
@@ -64,4 +70,16 @@ public final class PostgreSqlMetrics {
     return insertCopy;
   }
 
+  public Meter getInsertBinaryCopy() {
+    return insertBinaryCopy;
+  }
+
+  public Meter getStatementCacheHits() {
+    return statementCacheHits;
+  }
+
+  public Meter getStatementCacheMisses() {
+    return statementCacheMisses;
+  }
+
 }
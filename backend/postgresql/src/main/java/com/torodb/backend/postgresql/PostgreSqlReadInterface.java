@@ -19,6 +19,7 @@
 package com.torodb.backend.postgresql;
 
 import com.torodb.backend.AbstractReadInterface;
+import com.torodb.backend.ArrayParameterStatements;
 import com.torodb.backend.InternalField;
 import com.torodb.backend.SqlHelper;
 import com.torodb.backend.tables.MetaDocPartTable.DocPartTableFields;
@@ -26,11 +27,13 @@ import com.torodb.core.TableRef;
 import com.torodb.core.TableRefFactory;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 import com.torodb.core.transaction.metainf.MetaDocPart;
+import com.torodb.core.transaction.metainf.MetaField;
 import org.jooq.Converter;
 import org.jooq.lambda.tuple.Tuple2;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -40,6 +43,7 @@ import javax.inject.Singleton;
 public class PostgreSqlReadInterface extends AbstractReadInterface {
 
   private final PostgreSqlMetaDataReadInterface metaDataReadInterface;
+  private final PostgreSqlArrayParameterStatements arrayParameterStatements;
 
   @Inject
   public PostgreSqlReadInterface(PostgreSqlMetaDataReadInterface metaDataReadInterface,
@@ -47,6 +51,7 @@ public class PostgreSqlReadInterface extends AbstractReadInterface {
       PostgreSqlErrorHandler errorhandler, SqlHelper sqlHelper, TableRefFactory tableRefFactory) {
     super(metaDataReadInterface, dataTypeProvider, errorhandler, sqlHelper, tableRefFactory);
     this.metaDataReadInterface = metaDataReadInterface;
+    this.arrayParameterStatements = new PostgreSqlArrayParameterStatements(dataTypeProvider);
   }
 
   @Override
@@ -103,6 +108,9 @@ public class PostgreSqlReadInterface extends AbstractReadInterface {
         sb.append("?,");
       }
       sb.setCharAt(sb.length() - 1, ')');
+      if (valuesCountMapEntryIterator.hasNext()) {
+        sb.append(" OR \"");
+      }
     }
 
     sb.append(" ORDER BY \"")
@@ -112,6 +120,15 @@ public class PostgreSqlReadInterface extends AbstractReadInterface {
     return statement;
   }
 
+  @Override
+  protected Optional<ArrayParameterStatements> getArrayParameterStatements(
+      Collection<MetaField> metaFields) {
+    if (!arrayParameterStatements.supports(metaFields)) {
+      return Optional.empty();
+    }
+    return Optional.of(arrayParameterStatements);
+  }
+
   @Override
   protected String getReadCollectionDidsAndProjectionWithFieldInStatement(String schemaName,
       String rootTableName,
@@ -232,4 +249,15 @@ public class PostgreSqlReadInterface extends AbstractReadInterface {
     String statement = sb.toString();
     return statement;
   }
+
+  @Override
+  public boolean isPrefetchSupported() {
+    //pgjdbc reads the whole result set when no fetch size is used
+    return true;
+  }
+
+  @Override
+  protected boolean isMultiStatementFetchSupported() {
+    return true;
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.postgresql;
+
+import com.torodb.backend.BackendLoggerFactory;
+import com.torodb.backend.DocPartStatementKey;
+import org.apache.logging.log4j.Logger;
+import org.jooq.lambda.tuple.Tuple2;
+import org.postgresql.core.BaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A cache of the statements prepared on each physical PostgreSQL connection.
+ *
+ * <p>Statements are prepared on the physical connection, not on the pool proxy, so they survive
+ * the connection being returned to the pool and the driver can keep them prepared on the server
+ * once they have been executed a few times. Each doc part table has a column set version that is
+ * part of the cache key and that is increased when columns are added to it, so statements
+ * prepared before are not reused anymore and end up evicted.
+ *
+ * <p>A physical connection is never used by two threads at the same time, so the statements of
+ * each connection are not synchronized.
+ */
+@Singleton
+@ThreadSafe
+public class PostgreSqlStatementCache {
+
+  private static final Logger LOGGER = BackendLoggerFactory.get(PostgreSqlStatementCache.class);
+  static final int MAX_STATEMENTS_PER_CONNECTION = 256;
+
+  private final PostgreSqlMetrics metrics;
+  private final Map<BaseConnection, ConnectionStatements> connectionStatements =
+      new ConcurrentHashMap<>();
+  private final Map<Tuple2<String, String>, Integer> columnSetVersions =
+      new ConcurrentHashMap<>();
+
+  @Inject
+  public PostgreSqlStatementCache(PostgreSqlMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the statement cached for the given key on the physical connection behind the given
+   * one, preparing it with the supplied text if it is not cached yet.
+   *
+   * <p>If the connection is not a PostgreSQL connection, a new statement is prepared on it.
+   */
+  public PreparedStatement prepareStatement(Connection connection, DocPartStatementKey key,
+      Supplier<String> statementSupplier) throws SQLException {
+    if (!connection.isWrapperFor(BaseConnection.class)) {
+      return connection.prepareStatement(statementSupplier.get());
+    }
+    BaseConnection physicalConnection = connection.unwrap(BaseConnection.class);
+
+    ConnectionStatements statements = connectionStatements.get(physicalConnection);
+    if (statements == null) {
+      removeClosedConnections();
+      statements = new ConnectionStatements();
+      connectionStatements.put(physicalConnection, statements);
+    }
+
+    Tuple2<DocPartStatementKey, Integer> versionedKey = new Tuple2<>(key,
+        getColumnSetVersion(key.getSchemaName(), key.getTableName()));
+    PreparedStatement preparedStatement = statements.get(versionedKey);
+    if (preparedStatement == null) {
+      metrics.getStatementCacheMisses().mark();
+      preparedStatement = physicalConnection.prepareStatement(statementSupplier.get());
+      statements.put(versionedKey, preparedStatement);
+    } else {
+      metrics.getStatementCacheHits().mark();
+    }
+    return preparedStatement;
+  }
+
+  /**
+   * Releases a statement returned by
+   * {@link #prepareStatement(Connection, DocPartStatementKey, Supplier)}, which is closed if it
+   * was not cached.
+   */
+  public void releaseStatement(PreparedStatement preparedStatement) throws SQLException {
+    if (preparedStatement.getConnection() instanceof BaseConnection) {
+      if (!preparedStatement.isClosed()) {
+        preparedStatement.clearBatch();
+        preparedStatement.clearParameters();
+      }
+    } else {
+      preparedStatement.close();
+    }
+  }
+
+  /**
+   * Increases the column set version of the given table, so the statements that have been
+   * prepared for it are not used anymore.
+   */
+  public void invalidate(String schemaName, String tableName) {
+    columnSetVersions.merge(new Tuple2<>(schemaName, tableName), 1, Integer::sum);
+  }
+
+  private int getColumnSetVersion(String schemaName, String tableName) {
+    return columnSetVersions.getOrDefault(new Tuple2<>(schemaName, tableName), 0);
+  }
+
+  private void removeClosedConnections() throws SQLException {
+    for (BaseConnection physicalConnection : connectionStatements.keySet()) {
+      if (physicalConnection.isClosed()) {
+        connectionStatements.remove(physicalConnection);
+      }
+    }
+  }
+
+  @SuppressWarnings("serial")
+  private static class ConnectionStatements
+      extends LinkedHashMap<Tuple2<DocPartStatementKey, Integer>, PreparedStatement> {
+
+    public ConnectionStatements() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(
+        Map.Entry<Tuple2<DocPartStatementKey, Integer>, PreparedStatement> eldest) {
+      if (size() <= MAX_STATEMENTS_PER_CONNECTION) {
+        return false;
+      }
+      try {
+        eldest.getValue().close();
+      } catch (SQLException ex) {
+        LOGGER.debug("Error while closing the evicted statement of " + eldest.getKey().v1, ex);
+      }
+      return true;
+    }
+  }
+}
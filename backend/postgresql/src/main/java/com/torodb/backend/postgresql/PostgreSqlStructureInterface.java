@@ -20,16 +20,21 @@ package com.torodb.backend.postgresql;
 
 import com.google.common.base.Preconditions;
 import com.torodb.backend.AbstractStructureInterface;
+import com.torodb.backend.BackendConfig;
 import com.torodb.backend.ErrorHandler.Context;
 import com.torodb.backend.InternalField;
 import com.torodb.backend.SqlBuilder;
 import com.torodb.backend.SqlHelper;
 import com.torodb.backend.converters.jooq.DataTypeForKv;
+import com.torodb.backend.meta.TorodbSchema;
+import com.torodb.backend.tables.MetaDatabaseTable;
 import com.torodb.core.backend.IdentifierConstraints;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 import com.torodb.core.transaction.metainf.MetaDocPart;
 import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Result;
 import org.jooq.lambda.tuple.Tuple2;
 
 import java.util.Collection;
@@ -45,14 +50,22 @@ import javax.inject.Singleton;
 public class PostgreSqlStructureInterface extends AbstractStructureInterface {
 
   private SqlHelper sqlHelper;
+  /**
+   * If doc part tables created on data insert mode are unlogged.
+   */
+  private final boolean unloggedImportEnabled;
+  private final PostgreSqlStatementCache statementCache;
 
   @Inject
   public PostgreSqlStructureInterface(PostgreSqlDbBackend dbBackend,
       PostgreSqlMetaDataReadInterface metaDataReadInterface,
-      SqlHelper sqlHelper, IdentifierConstraints identifierConstraints) {
+      SqlHelper sqlHelper, IdentifierConstraints identifierConstraints,
+      BackendConfig backendConfig, PostgreSqlStatementCache statementCache) {
     super(dbBackend, metaDataReadInterface, sqlHelper, identifierConstraints);
 
     this.sqlHelper = sqlHelper;
+    this.statementCache = statementCache;
+    this.unloggedImportEnabled = backendConfig.getUnloggedImportEnabled();
   }
 
   @Override
@@ -137,7 +150,27 @@ public class PostgreSqlStructureInterface extends AbstractStructureInterface {
   @Override
   protected String getCreateDocPartTableStatement(String schemaName, String tableName,
       Collection<InternalField<?>> fields) {
-    SqlBuilder sb = new SqlBuilder("CREATE TABLE ");
+    return getCreateDocPartTableStatement("CREATE TABLE ", schemaName, tableName, fields);
+  }
+
+  /**
+   * Unlogged tables are not written to the WAL, so they are faster to load but they are truncated
+   * after a crash. They are changed to logged tables by
+   * {@link #streamDataInsertFinishTableTasks(MetaDatabase)}.
+   */
+  @Override
+  protected String getCreateDocPartTableOnDataInsertModeStatement(String schemaName,
+      String tableName, Collection<InternalField<?>> fields) {
+    if (!unloggedImportEnabled) {
+      return getCreateDocPartTableStatement(schemaName, tableName, fields);
+    }
+    return getCreateDocPartTableStatement("CREATE UNLOGGED TABLE ", schemaName, tableName,
+        fields);
+  }
+
+  private String getCreateDocPartTableStatement(String createTable, String schemaName,
+      String tableName, Collection<InternalField<?>> fields) {
+    SqlBuilder sb = new SqlBuilder(createTable);
     sb.table(schemaName, tableName)
         .append(" (");
     if (!fields.isEmpty()) {
@@ -206,6 +239,13 @@ public class PostgreSqlStructureInterface extends AbstractStructureInterface {
     return sb.toString();
   }
 
+  @Override
+  public void addColumnToDocPartTable(DSLContext dsl, String schemaName, String tableName,
+      String columnName, DataTypeForKv<?> dataType) {
+    super.addColumnToDocPartTable(dsl, schemaName, tableName, columnName, dataType);
+    statementCache.invalidate(schemaName, tableName);
+  }
+
   @Override
   protected String getAddColumnToDocPartTableStatement(String schemaName, String tableName,
       String columnName,
@@ -219,6 +259,53 @@ public class PostgreSqlStructureInterface extends AbstractStructureInterface {
     return sb.toString();
   }
 
+  @Override
+  public Stream<Function<DSLContext, String>> streamDataInsertFinishTableTasks(MetaDatabase db) {
+    if (!unloggedImportEnabled) {
+      return Stream.empty();
+    }
+    return db.streamMetaCollections().flatMap(
+        col -> col.streamContainedMetaDocParts().map(
+            docPart -> createSetLoggedConsumer(db, docPart)
+        )
+    );
+  }
+
+  /**
+   * Changes a table to logged. Tables that are already logged are not modified.
+   */
+  private Function<DSLContext, String> createSetLoggedConsumer(MetaDatabase db,
+      MetaDocPart docPart) {
+    return dsl -> {
+      SqlBuilder sb = new SqlBuilder("ALTER TABLE ")
+          .table(db.getIdentifier(), docPart.getIdentifier())
+          .append(" SET LOGGED");
+      sqlHelper.executeStatement(dsl, sb.toString(), Context.SET_TABLE_LOGGED);
+      return "set logged table " + docPart.getIdentifier();
+    };
+  }
+
+  /**
+   * Unlogged tables are only changed to logged when the data insert mode finishes, so they remain
+   * unlogged if ToroDB stops before. As it is not possible to know if PostgreSQL has crashed since
+   * then, their data is considered lost.
+   */
+  @Override
+  public boolean existsNonDurableDocPartTables(DSLContext dsl) {
+    String statement = "SELECT count(*) FROM pg_class"
+        + " JOIN pg_namespace ON (pg_namespace.oid = pg_class.relnamespace)"
+        + " JOIN \"" + TorodbSchema.IDENTIFIER + "\".\"" + MetaDatabaseTable.TABLE_NAME + "\""
+        + " ON (nspname = identifier)"
+        + " WHERE relkind = 'r' AND relpersistence = 'u'";
+    Result<Record> result = sqlHelper.executeStatementWithResult(dsl, statement, Context.FETCH);
+    return !result.isEmpty() && result.get(0).into(Long.class) > 0;
+  }
+
+  @Override
+  public boolean isDataInsertModeDurable() {
+    return !unloggedImportEnabled;
+  }
+
   @Override
   public Stream<Function<DSLContext, String>> streamDataInsertFinishTasks(MetaDatabase db) {
     return db.streamMetaCollections().flatMap(
@@ -20,18 +20,30 @@ package com.torodb.backend.postgresql;
 
 import com.codahale.metrics.Timer;
 import com.torodb.backend.AbstractWriteInterface;
+import com.torodb.backend.BackendConfig;
 import com.torodb.backend.BackendLoggerFactory;
+import com.torodb.backend.DocPartStatementKey;
 import com.torodb.backend.ErrorHandler;
 import com.torodb.backend.ErrorHandler.Context;
 import com.torodb.backend.InternalField;
+import com.torodb.backend.QueryCriteriaSqlTranslator;
+import com.torodb.backend.SqlBuilder;
 import com.torodb.backend.SqlHelper;
+import com.torodb.backend.TableRefComparator;
+import com.torodb.backend.postgresql.converters.PostgreSqlValueToBinaryCopyConverter;
 import com.torodb.backend.postgresql.converters.PostgreSqlValueToCopyConverter;
+import com.torodb.backend.postgresql.copy.BinaryCopyWriter;
+import com.torodb.backend.postgresql.copy.CopyBufferPool;
+import com.torodb.backend.postgresql.copy.TextCopyWriter;
 import com.torodb.backend.tables.MetaDocPartTable;
+import com.torodb.backend.tables.MetaDocPartTable.DocPartTableFields;
+import com.torodb.core.TableRefFactory;
 import com.torodb.core.d2r.DocPartData;
 import com.torodb.core.d2r.DocPartRow;
-import com.torodb.core.exceptions.SystemException;
 import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDocPart;
 import com.torodb.core.transaction.metainf.MetaField;
 import com.torodb.core.transaction.metainf.MetaScalar;
@@ -40,16 +52,22 @@ import org.apache.logging.log4j.Logger;
 import org.jooq.DSLContext;
 import org.jooq.exception.DataAccessException;
 import org.postgresql.PGConnection;
-import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyIn;
 
-import java.io.EOFException;
-import java.io.IOException;
-import java.io.Reader;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -58,22 +76,35 @@ import javax.inject.Singleton;
 public class PostgreSqlWriteInterface extends AbstractWriteInterface {
 
   private static final Logger LOGGER = BackendLoggerFactory.get(PostgreSqlWriteInterface.class);
+  /**
+   * The time {@code TRUNCATE} waits for its locks before falling back to {@code DELETE}.
+   */
+  private static final int TRUNCATE_LOCK_TIMEOUT_MILLIS = 100;
+  private static final String LOCK_NOT_AVAILABLE_SQL_STATE = "55P03";
 
   private final PostgreSqlMetaDataReadInterface postgreSqlMetaDataReadInterface;
   private final ErrorHandler errorHandler;
   private final SqlHelper sqlHelper;
   private final PostgreSqlMetrics metrics;
+  private final PostgreSqlStatementCache statementCache;
+  private final boolean binaryCopyEnabled;
+  private final CopyBufferPool copyBufferPool = new CopyBufferPool();
 
   @Inject
   public PostgreSqlWriteInterface(PostgreSqlMetaDataReadInterface metaDataReadInterface,
       PostgreSqlErrorHandler errorHandler,
       SqlHelper sqlHelper,
-      PostgreSqlMetrics metrics) {
-    super(metaDataReadInterface, errorHandler, sqlHelper);
+      PostgreSqlMetrics metrics,
+      PostgreSqlStatementCache statementCache,
+      BackendConfig backendConfig,
+      TableRefFactory tableRefFactory) {
+    super(metaDataReadInterface, errorHandler, sqlHelper, tableRefFactory);
     this.postgreSqlMetaDataReadInterface = metaDataReadInterface;
     this.errorHandler = errorHandler;
     this.sqlHelper = sqlHelper;
     this.metrics = metrics;
+    this.statementCache = statementCache;
+    this.binaryCopyEnabled = backendConfig.getBinaryCopyEnabled();
   }
 
   @Override
@@ -96,6 +127,166 @@ public class PostgreSqlWriteInterface extends AbstractWriteInterface {
     return statement;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The dids are bound as a single array parameter, so the same cached statement is used
+   * whatever dids are deleted.
+   */
+  @Override
+  protected void deleteDocPartRows(Connection c, String schemaName, MetaDocPart metaDocPart,
+      Collection<Integer> dids) {
+    DocPartStatementKey key = new DocPartStatementKey(DocPartStatementKey.Kind.DELETE,
+        schemaName, metaDocPart.getIdentifier(), Collections.emptyList());
+    try {
+      PreparedStatement ps = prepareStatement(c, key, () -> new SqlBuilder("DELETE FROM ")
+          .table(schemaName, metaDocPart.getIdentifier())
+          .append(" WHERE ")
+          .quote(DocPartTableFields.DID)
+          .append(" = ANY(?)")
+          .toString());
+      try {
+        ps.setArray(1, ps.getConnection().createArrayOf("int4", dids.toArray()));
+        ps.executeUpdate();
+
+        LOGGER.trace("Executed delete of {}", key);
+      } finally {
+        releaseStatement(ps);
+      }
+    } catch (SQLException ex) {
+      throw errorHandler.handleException(Context.DELETE, ex);
+    }
+  }
+
+  @Override
+  protected PreparedStatement prepareStatement(Connection connection, DocPartStatementKey key,
+      Supplier<String> statementSupplier) throws SQLException {
+    return statementCache.prepareStatement(connection, key, statementSupplier);
+  }
+
+  @Override
+  protected void releaseStatement(PreparedStatement preparedStatement) throws SQLException {
+    statementCache.releaseStatement(preparedStatement);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>All tables are emptied with a single {@code TRUNCATE}, which does not scan them. As
+   * {@code TRUNCATE} needs an {@code ACCESS EXCLUSIVE} lock on each table, it would wait until
+   * every transaction that is reading them (like the ones that keep the cursors of a client open)
+   * finishes. To never block, the lock is requested with a short {@code lock_timeout} and, if it
+   * is not granted in time, the rows are deleted with {@code DELETE} statements instead.
+   *
+   * <p>Note that {@code TRUNCATE} is not MVCC-safe: concurrent transactions whose snapshot was
+   * taken before will see the tables empty once this transaction commits.
+   */
+  @Override
+  protected void deleteAllDocParts(Connection c, String schemaName, List<String> tableNames) {
+    if (tableNames.isEmpty()) {
+      return;
+    }
+    String truncateStatement = tableNames.stream()
+        .map(tableName -> new SqlBuilder("").table(schemaName, tableName).toString())
+        .collect(Collectors.joining(", ", "TRUNCATE ", ""));
+    try {
+      Savepoint savepoint = c.setSavepoint();
+      try (Statement st = c.createStatement()) {
+        String lockTimeout;
+        try (ResultSet rs = st.executeQuery("SELECT current_setting('lock_timeout')")) {
+          rs.next();
+          lockTimeout = rs.getString(1);
+        }
+        st.execute("SET LOCAL lock_timeout = " + TRUNCATE_LOCK_TIMEOUT_MILLIS);
+        st.execute(truncateStatement);
+        try (PreparedStatement ps = c.prepareStatement(
+            "SELECT set_config('lock_timeout', ?, true)")) {
+          ps.setString(1, lockTimeout);
+          ps.execute();
+        }
+        c.releaseSavepoint(savepoint);
+
+        LOGGER.trace("Executed {}", truncateStatement);
+        return;
+      } catch (SQLException ex) {
+        //the lock_timeout set by this method is also rolled back
+        c.rollback(savepoint);
+        if (!LOCK_NOT_AVAILABLE_SQL_STATE.equals(ex.getSQLState())) {
+          throw ex;
+        }
+        LOGGER.debug("The tables of {} are in use. Their rows will be deleted instead of "
+            + "truncated", schemaName);
+      }
+    } catch (SQLException ex) {
+      throw errorHandler.handleException(Context.DELETE, ex);
+    }
+    super.deleteAllDocParts(c, schemaName, tableNames);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The dids are never read by the JVM: a single statement with a writable CTE per doc part
+   * evaluates the criteria once and deletes the matching rows of all doc parts. As all CTEs share
+   * the same snapshot, the criteria is evaluated before any row is deleted and the foreign keys
+   * are checked once the whole statement has been executed.
+   */
+  @Override
+  public long deleteCollectionDocParts(@Nonnull DSLContext dsl,
+      @Nonnull String schemaName, @Nonnull MetaCollection metaCollection,
+      @Nonnull QueryCriteria criteria) {
+    QueryCriteriaSqlTranslator.SqlQuery query = getQueryCriteriaSqlTranslator().translate(
+        schemaName, metaCollection, criteria, false);
+    if (query == null) {
+      return 0;
+    }
+    String rootTableName = getRootDocPart(metaCollection).getIdentifier();
+
+    SqlBuilder sb = new SqlBuilder("WITH \"torodb_dids\" AS (")
+        .append(query.getStatement())
+        .append(')');
+    List<String> tableNames = metaCollection.streamContainedMetaDocParts()
+        .sorted(TableRefComparator.MetaDocPart.DESC)
+        .map(MetaDocPart::getIdentifier)
+        .filter(tableName -> !tableName.equals(rootTableName))
+        .collect(Collectors.toList());
+    int index = 0;
+    for (String tableName : tableNames) {
+      sb.append(", \"torodb_d")
+          .append(Integer.toString(index++))
+          .append("\" AS (");
+      appendDeleteByDids(sb, schemaName, tableName);
+      sb.append(')');
+    }
+    sb.append(' ');
+    appendDeleteByDids(sb, schemaName, rootTableName);
+    String statement = sb.toString();
+
+    Connection connection = dsl.configuration().connectionProvider().acquire();
+    try (PreparedStatement ps = connection.prepareStatement(statement)) {
+      query.setParameters(sqlHelper, ps);
+      int deleted = ps.executeUpdate();
+
+      LOGGER.trace("Executed {}", statement);
+
+      return deleted;
+    } catch (SQLException ex) {
+      throw errorHandler.handleException(Context.DELETE, ex);
+    } finally {
+      dsl.configuration().connectionProvider().release(connection);
+    }
+  }
+
+  private void appendDeleteByDids(SqlBuilder sb, String schemaName, String tableName) {
+    sb.append("DELETE FROM ")
+        .table(schemaName, tableName)
+        .append(" WHERE ")
+        .quote(DocPartTableFields.DID)
+        .append(" IN (SELECT ")
+        .quote(DocPartTableFields.DID)
+        .append(" FROM \"torodb_dids\")");
+  }
+
   @Override
   public void insertDocPartData(DSLContext dsl, String schemaName, DocPartData docPartData) throws
       UserException {
@@ -134,23 +325,25 @@ public class PostgreSqlWriteInterface extends AbstractWriteInterface {
             super.insertDocPartData(dsl, schemaName, docPartData);
           } else {
             try {
-              metrics.getInsertCopy().mark();
-              copyInsertDocPartData(
-                  connection.unwrap(PGConnection.class),
-                  schemaName,
-                  docPartData
-              );
+              if (binaryCopyEnabled) {
+                metrics.getInsertBinaryCopy().mark();
+                binaryCopyInsertDocPartData(
+                    connection.unwrap(PGConnection.class),
+                    schemaName,
+                    docPartData
+                );
+              } else {
+                metrics.getInsertCopy().mark();
+                copyInsertDocPartData(
+                    connection.unwrap(PGConnection.class),
+                    schemaName,
+                    docPartData
+                );
+              }
             } catch (DataAccessException ex) {
               throw errorHandler.handleUserException(Context.INSERT, ex);
             } catch (SQLException ex) {
               throw errorHandler.handleUserException(Context.INSERT, ex);
-            } catch (IOException ex) {
-              if (ex instanceof EOFException && ex.getMessage() == null) {
-                LOGGER.debug(ex);
-                ex = new EOFException("End of file while COPYing data");
-              }
-
-              throw new SystemException(ex);
             }
           }
         } catch (SQLException ex) {
@@ -165,31 +358,84 @@ public class PostgreSqlWriteInterface extends AbstractWriteInterface {
   private void copyInsertDocPartData(
       PGConnection connection,
       String schemaName,
-      DocPartData docPartData) throws SQLException, IOException {
+      DocPartData docPartData) throws SQLException {
 
-    final int maxBatchSize = 1024;
-    final CopyManager copyManager = connection.getCopyAPI();
     final MetaDocPart metaDocPart = docPartData.getMetaDocPart();
-    Collection<InternalField<?>> internalFields = postgreSqlMetaDataReadInterface
+    final Collection<InternalField<?>> internalFields = postgreSqlMetaDataReadInterface
         .getInternalFields(metaDocPart);
-    final StringBuilder sb = new StringBuilder(65536);
     final String copyStatement = getCopyInsertDocPartDataStatement(
         schemaName, docPartData, metaDocPart, internalFields);
 
-    Iterator<DocPartRow> docPartRowIterator = docPartData.iterator();
-    int docCounter = 0;
-    while (docPartRowIterator.hasNext()) {
-      DocPartRow tableRow = docPartRowIterator.next();
-      docCounter++;
+    final CopyIn copyIn = connection.getCopyAPI().copyIn(copyStatement);
+    try (TextCopyWriter writer = new TextCopyWriter(copyBufferPool, copyIn::writeToCopy)) {
+      for (DocPartRow docPartRow : docPartData) {
+        addValuesToCopy(writer.getRowBuilder(), docPartRow, internalFields);
+        writer.endRow();
+      }
+      writer.flush();
+      copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
 
-      addValuesToCopy(sb, tableRow, internalFields);
-      assert sb.length() != 0;
+  private void binaryCopyInsertDocPartData(
+      PGConnection connection,
+      String schemaName,
+      DocPartData docPartData) throws SQLException {
+
+    final MetaDocPart metaDocPart = docPartData.getMetaDocPart();
+    final Collection<InternalField<?>> internalFields = postgreSqlMetaDataReadInterface
+        .getInternalFields(metaDocPart);
+    final String copyStatement = getCopyInsertDocPartDataStatement(
+        schemaName, docPartData, metaDocPart, internalFields) + " WITH (FORMAT binary)";
+    final int columns = internalFields.size() + docPartData.scalarColumnsCount()
+        + docPartData.fieldColumnsCount();
+
+    final CopyIn copyIn = connection.getCopyAPI().copyIn(copyStatement);
+    try (BinaryCopyWriter writer = new BinaryCopyWriter(copyBufferPool, copyIn::writeToCopy)) {
+      writer.writeHeader();
+      for (DocPartRow docPartRow : docPartData) {
+        writer.startRow(columns);
+        addValuesToBinaryCopy(writer, docPartRow, internalFields);
+      }
+      writer.writeTrailer();
+      copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
 
-      if (docCounter % maxBatchSize == 0 || !docPartRowIterator.hasNext()) {
-        executeCopy(copyManager, copyStatement, sb);
-        sb.setLength(0);
+  private void addValuesToBinaryCopy(
+      BinaryCopyWriter writer,
+      DocPartRow docPartRow,
+      Collection<InternalField<?>> internalFields) {
+    for (InternalField<?> internalField : internalFields) {
+      Object internalValue = internalField.getValue(docPartRow);
+      if (internalValue == null) {
+        writer.writeNull();
+      } else {
+        writer.writeInt((Integer) internalValue);
       }
     }
+    for (KvValue<?> value : docPartRow.getScalarValues()) {
+      addValueToBinaryCopy(writer, value);
+    }
+    for (KvValue<?> value : docPartRow.getFieldValues()) {
+      addValueToBinaryCopy(writer, value);
+    }
+  }
+
+  protected void addValueToBinaryCopy(BinaryCopyWriter writer, KvValue<?> value) {
+    if (value != null) {
+      value.accept(PostgreSqlValueToBinaryCopyConverter.INSTANCE, writer);
+    } else {
+      writer.writeNull();
+    }
   }
 
   protected String getCopyInsertDocPartDataStatement(String schemaName, DocPartData docPartData,
@@ -256,40 +502,6 @@ public class PostgreSqlWriteInterface extends AbstractWriteInterface {
     sb.append('\t');
   }
 
-  private void executeCopy(CopyManager copyManager, String copyStatement, final StringBuilder sb)
-      throws SQLException, IOException {
-    Reader reader = new StringBuilderReader(sb);
-
-    copyManager.copyIn(copyStatement, reader);
-  }
-
-  private static class StringBuilderReader extends Reader {
-
-    private final StringBuilder sb;
-    private int readerIndex = 0;
-
-    public StringBuilderReader(StringBuilder sb) {
-      this.sb = sb;
-    }
-
-    @Override
-    public int read(char[] cbuf, int off, int len) throws IOException {
-      if (readerIndex == sb.length()) {
-        return -1;
-      }
-      int newReaderIndex = Math.min(sb.length(), readerIndex + len);
-      sb.getChars(readerIndex, newReaderIndex, cbuf, off);
-      int diff = newReaderIndex - readerIndex;
-      readerIndex = newReaderIndex;
-      return diff;
-    }
-
-    @Override
-    public void close() {
-    }
-
-  }
-
   @Override
   protected String getInsertDocPartDataStatement(String schemaName, MetaDocPart metaDocPart,
       Iterator<MetaField> metaFieldIterator, Iterator<MetaScalar> metaScalarIterator,
@@ -0,0 +1,230 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend.postgresql.converters;
+
+import com.torodb.backend.postgresql.converters.jooq.MongoDbPointerValueConverter;
+import com.torodb.backend.postgresql.converters.jooq.MongoJavascriptWithScopeValueConverter;
+import com.torodb.backend.postgresql.converters.jooq.MongoRegexValueConverter;
+import com.torodb.backend.postgresql.copy.BinaryCopyWriter;
+import com.torodb.kvdocument.values.KvArray;
+import com.torodb.kvdocument.values.KvBinary;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvDate;
+import com.torodb.kvdocument.values.KvDecimal128;
+import com.torodb.kvdocument.values.KvDeprecated;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvDouble;
+import com.torodb.kvdocument.values.KvInstant;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvLong;
+import com.torodb.kvdocument.values.KvMaxKey;
+import com.torodb.kvdocument.values.KvMinKey;
+import com.torodb.kvdocument.values.KvMongoDbPointer;
+import com.torodb.kvdocument.values.KvMongoJavascript;
+import com.torodb.kvdocument.values.KvMongoJavascriptWithScope;
+import com.torodb.kvdocument.values.KvMongoObjectId;
+import com.torodb.kvdocument.values.KvMongoRegex;
+import com.torodb.kvdocument.values.KvMongoTimestamp;
+import com.torodb.kvdocument.values.KvNull;
+import com.torodb.kvdocument.values.KvString;
+import com.torodb.kvdocument.values.KvTime;
+import com.torodb.kvdocument.values.KvUndefined;
+import com.torodb.kvdocument.values.KvValueVisitor;
+import org.postgresql.PGStatement;
+import org.postgresql.core.Oid;
+
+import java.time.LocalDate;
+
+/**
+ * Writes {@link com.torodb.kvdocument.values.KvValue values} on the PostgreSQL binary COPY format
+ * of the types used by {@link com.torodb.backend.postgresql.PostgreSqlDataTypeProvider}.
+ *
+ * <p>This is the binary counterpart of {@link PostgreSqlValueToCopyConverter}.
+ */
+public class PostgreSqlValueToBinaryCopyConverter
+    implements KvValueVisitor<Void, BinaryCopyWriter> {
+
+  public static final PostgreSqlValueToBinaryCopyConverter INSTANCE =
+      new PostgreSqlValueToBinaryCopyConverter();
+
+  private static final long POSTGRES_EPOCH_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+  private static final long POSTGRES_EPOCH_MILLIS = POSTGRES_EPOCH_DAY * 24 * 60 * 60 * 1000;
+
+  PostgreSqlValueToBinaryCopyConverter() {}
+
+  @Override
+  public Void visit(KvBoolean value, BinaryCopyWriter arg) {
+    arg.writeBoolean(value.getValue());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvNull value, BinaryCopyWriter arg) {
+    arg.writeBoolean(true);
+    return null;
+  }
+
+  @Override
+  public Void visit(KvArray value, BinaryCopyWriter arg) {
+    throw new UnsupportedOperationException("Ouch this should not occur");
+  }
+
+  @Override
+  public Void visit(KvInteger value, BinaryCopyWriter arg) {
+    arg.writeInt(value.intValue());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvLong value, BinaryCopyWriter arg) {
+    arg.writeLong(value.longValue());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvDouble value, BinaryCopyWriter arg) {
+    arg.writeDouble(value.doubleValue());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvString value, BinaryCopyWriter arg) {
+    arg.writeString(value.getValue());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMongoObjectId value, BinaryCopyWriter arg) {
+    arg.writeBytes(value.getArrayValue());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvBinary value, BinaryCopyWriter arg) {
+    arg.writeBytes(value.getByteSource().read());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvInstant value, BinaryCopyWriter arg) {
+    long millis = value.getMillisFromUnix();
+    long micros;
+    if (millis == PGStatement.DATE_POSITIVE_INFINITY) {
+      micros = Long.MAX_VALUE;
+    } else if (millis == PGStatement.DATE_NEGATIVE_INFINITY) {
+      micros = Long.MIN_VALUE;
+    } else {
+      micros = (millis - POSTGRES_EPOCH_MILLIS) * 1000;
+    }
+    arg.writeLong(micros);
+    return null;
+  }
+
+  @Override
+  public Void visit(KvDate value, BinaryCopyWriter arg) {
+    arg.writeInt((int) (value.getValue().toEpochDay() - POSTGRES_EPOCH_DAY));
+    return null;
+  }
+
+  @Override
+  public Void visit(KvTime value, BinaryCopyWriter arg) {
+    arg.writeLong(value.getValue().toNanoOfDay() / 1000);
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMongoTimestamp value, BinaryCopyWriter arg) {
+    arg.startRecord(2, 2 * (4 + 8));
+    arg.writeRecordAttributeOid(Oid.INT4);
+    arg.writeInt(value.getSecondsSinceEpoch());
+    arg.writeRecordAttributeOid(Oid.INT4);
+    arg.writeInt(value.getOrdinal());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvDocument value, BinaryCopyWriter arg) {
+    throw new UnsupportedOperationException("Ouch this should not occur");
+  }
+
+  @Override
+  public Void visit(KvDecimal128 value, BinaryCopyWriter arg) {
+    byte[] numeric = BinaryCopyWriter.encodeNumeric(value.getBigDecimal());
+    arg.startRecord(4, (4 + 4 + numeric.length) + 3 * (4 + 5));
+    arg.writeRecordAttributeOid(Oid.NUMERIC);
+    arg.writeBytes(numeric);
+    arg.writeRecordAttributeOid(Oid.BOOL);
+    arg.writeBoolean(value.isInfinite() && !value.isNaN());
+    arg.writeRecordAttributeOid(Oid.BOOL);
+    arg.writeBoolean(value.isNaN());
+    arg.writeRecordAttributeOid(Oid.BOOL);
+    arg.writeBoolean(value.isNegativeZero());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMongoJavascript value, BinaryCopyWriter arg) {
+    arg.writeString(value.getValue());
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMongoJavascriptWithScope value, BinaryCopyWriter arg) {
+    arg.writeJsonb(MongoJavascriptWithScopeValueConverter.CONVERTER.to(value));
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMinKey value, BinaryCopyWriter arg) {
+    arg.writeBoolean(false);
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMaxKey value, BinaryCopyWriter arg) {
+    arg.writeBoolean(true);
+    return null;
+  }
+
+  @Override
+  public Void visit(KvUndefined value, BinaryCopyWriter arg) {
+    arg.writeBoolean(true);
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMongoRegex value, BinaryCopyWriter arg) {
+    arg.writeJsonb(MongoRegexValueConverter.CONVERTER.to(value));
+    return null;
+  }
+
+  @Override
+  public Void visit(KvMongoDbPointer value, BinaryCopyWriter arg) {
+    arg.writeJsonb(MongoDbPointerValueConverter.CONVERTER.to(value));
+    return null;
+  }
+
+  @Override
+  public Void visit(KvDeprecated value, BinaryCopyWriter arg) {
+    arg.writeString(value.toString());
+    return null;
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.torodb.backend.postgresql.converters.sql;
+
+import com.google.common.collect.ImmutableMap;
+import com.torodb.backend.converters.jooq.DataTypeForKv;
+import com.torodb.backend.meta.TorodbSchema;
+import com.torodb.backend.postgresql.converters.util.SqlEscaper;
+import com.torodb.backend.udt.Decimal128UDT;
+import com.torodb.backend.udt.MongoTimestampUDT;
+import com.torodb.backend.udt.record.Decimal128Record;
+import com.torodb.backend.udt.record.MongoTimestampRecord;
+import com.torodb.common.util.HexUtils;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.kvdocument.values.KvValue;
+import org.jooq.Converter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Binds a collection of values of the same type as a single array parameter.
+ *
+ * <p>Values are sent as a text array that is cast to an array of the column type, so the same
+ * statement text can be used whatever the number of values is. Each element is written with the
+ * text representation the type accepts as input, which is also valid for the
+ * {@link MongoTimestampUDT mongo_timestamp} and {@link Decimal128UDT decimal_128} types.
+ */
+public class ArrayParameterSqlBinding {
+
+  public static final ArrayParameterSqlBinding INSTANCE = new ArrayParameterSqlBinding();
+
+  private static final ImmutableMap<FieldType, String> ELEMENT_TYPES =
+      ImmutableMap.<FieldType, String>builder()
+          .put(FieldType.BOOLEAN, "bool")
+          .put(FieldType.DOUBLE, "float8")
+          .put(FieldType.INTEGER, "int4")
+          .put(FieldType.LONG, "int8")
+          .put(FieldType.STRING, "varchar")
+          .put(FieldType.BINARY, "bytea")
+          .put(FieldType.MONGO_OBJECT_ID, "bytea")
+          .put(FieldType.MONGO_TIME_STAMP,
+              '"' + TorodbSchema.IDENTIFIER + "\".\"" + MongoTimestampUDT.IDENTIFIER + '"')
+          .put(FieldType.DECIMAL128,
+              '"' + TorodbSchema.IDENTIFIER + "\".\"" + Decimal128UDT.IDENTIFIER + '"')
+          .build();
+
+  private ArrayParameterSqlBinding() {
+  }
+
+  /**
+   * Returns true if values of the given type can be bound as an array parameter.
+   */
+  public boolean supports(FieldType fieldType) {
+    return ELEMENT_TYPES.containsKey(fieldType);
+  }
+
+  /**
+   * Returns the placeholder of an array parameter whose elements have the given type.
+   *
+   * @throws IllegalArgumentException if the given type is not {@link #supports(FieldType)
+   *                                  supported}
+   */
+  public String getPlaceholder(FieldType fieldType) {
+    String elementType = ELEMENT_TYPES.get(fieldType);
+    if (elementType == null) {
+      throw new IllegalArgumentException("Values of type " + fieldType + " cannot be bound as "
+          + "an array parameter");
+    }
+    return "CAST(? AS " + elementType + "[])";
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void set(Connection connection, PreparedStatement preparedStatement, int parameterIndex,
+      DataTypeForKv<?> dataType, Collection<KvValue<?>> values) throws SQLException {
+    Converter converter = dataType.getConverter();
+    String[] elements = new String[values.size()];
+    int index = 0;
+    for (KvValue<?> value : values) {
+      elements[index] = toText(converter.to(value));
+      index++;
+    }
+    preparedStatement.setArray(parameterIndex, connection.createArrayOf("text", elements));
+  }
+
+  /**
+   * Returns the text representation of an element of the array parameter, as accepted as input by
+   * its element type.
+   */
+  String toText(Object databaseValue) {
+    if (databaseValue instanceof String) {
+      return SqlEscaper.INSTANCE.escape((String) databaseValue);
+    }
+    if (databaseValue instanceof byte[]) {
+      StringBuilder sb = new StringBuilder("\\x");
+      HexUtils.bytes2Hex((byte[]) databaseValue, sb);
+      return sb.toString();
+    }
+    if (databaseValue instanceof MongoTimestampRecord) {
+      MongoTimestampRecord record = (MongoTimestampRecord) databaseValue;
+      return "(" + record.getSecs() + ',' + record.getCounter() + ')';
+    }
+    if (databaseValue instanceof Decimal128Record) {
+      Decimal128Record record = (Decimal128Record) databaseValue;
+      String value = record.getValue() == null ? "" : record.getValue().toString();
+      return "(" + value + ',' + record.getInfinity() + ',' + record.getNan() + ','
+          + record.getNegativeZero() + ')';
+    }
+    return databaseValue.toString();
+  }
+}
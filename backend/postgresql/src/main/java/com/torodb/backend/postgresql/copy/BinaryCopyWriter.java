@@ -0,0 +1,278 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend.postgresql.copy;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Encodes rows using the PostgreSQL binary COPY format.
+ *
+ * <p>Values are written into a buffer borrowed from a {@link CopyBufferPool} that is flushed to
+ * the given {@link CopySink} each time it gets full, so the memory used by a COPY is bounded by
+ * the size of the buffer and not by the number of rows.
+ *
+ * <p>Methods that write values do not throw checked exceptions, so they can be called from
+ * {@link com.torodb.kvdocument.values.KvValueVisitor visitors}. If the sink fails, the error is
+ * kept and the following bytes are discarded until it is thrown by {@link #startRow(int)} or
+ * {@link #writeTrailer()}.
+ *
+ * @see <a href="https://www.postgresql.org/docs/9.4/static/sql-copy.html">COPY binary format</a>
+ */
+@NotThreadSafe
+public class BinaryCopyWriter implements AutoCloseable {
+
+  private static final byte[] SIGNATURE = new byte[]{
+    'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0
+  };
+  private static final int NULL_LENGTH = -1;
+  private static final short TRAILER = -1;
+  private static final int NUMERIC_POSITIVE = 0x0000;
+  private static final int NUMERIC_NEGATIVE = 0x4000;
+  private static final int NUMERIC_DIGITS_PER_GROUP = 4;
+
+  private final CopyBufferPool bufferPool;
+  private final CopySink sink;
+  private ByteBuffer buffer;
+  private SQLException failure;
+
+  public BinaryCopyWriter(CopyBufferPool bufferPool, CopySink sink) {
+    this.bufferPool = bufferPool;
+    this.sink = sink;
+    this.buffer = bufferPool.acquire();
+  }
+
+  public void writeHeader() {
+    ensureCapacity(SIGNATURE.length + 8);
+    buffer.put(SIGNATURE);
+    buffer.putInt(0); //flags
+    buffer.putInt(0); //header extension length
+  }
+
+  public void startRow(int columns) throws SQLException {
+    checkFailure();
+    ensureCapacity(2);
+    buffer.putShort((short) columns);
+  }
+
+  public void writeNull() {
+    ensureCapacity(4);
+    buffer.putInt(NULL_LENGTH);
+  }
+
+  public void writeBoolean(boolean value) {
+    ensureCapacity(5);
+    buffer.putInt(1);
+    buffer.put(value ? (byte) 1 : (byte) 0);
+  }
+
+  public void writeInt(int value) {
+    ensureCapacity(8);
+    buffer.putInt(4);
+    buffer.putInt(value);
+  }
+
+  public void writeLong(long value) {
+    ensureCapacity(12);
+    buffer.putInt(8);
+    buffer.putLong(value);
+  }
+
+  public void writeDouble(double value) {
+    ensureCapacity(12);
+    buffer.putInt(8);
+    buffer.putDouble(value);
+  }
+
+  public void writeBytes(byte[] value) {
+    writeBytes(value, 0, value.length);
+  }
+
+  public void writeBytes(byte[] value, int offset, int length) {
+    ensureCapacity(4);
+    buffer.putInt(length);
+    writeRaw(value, offset, length);
+  }
+
+  public void writeString(String value) {
+    writeBytes(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes a <em>jsonb</em> value, whose binary representation is a version byte followed by the
+   * json text.
+   */
+  public void writeJsonb(String json) {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    ensureCapacity(5);
+    buffer.putInt(bytes.length + 1);
+    buffer.put((byte) 1);
+    writeRaw(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Starts a composite (record) value with the given number of attributes and total length of
+   * attribute data (oids, lengths and values).
+   */
+  public void startRecord(int attributes, int attributesLength) {
+    ensureCapacity(8);
+    buffer.putInt(4 + attributesLength);
+    buffer.putInt(attributes);
+  }
+
+  /**
+   * Writes the oid of the next attribute of the record that is being written.
+   */
+  public void writeRecordAttributeOid(int oid) {
+    ensureCapacity(4);
+    buffer.putInt(oid);
+  }
+
+  /**
+   * Writes a <em>numeric</em> value.
+   *
+   * @see #encodeNumeric(BigDecimal)
+   */
+  public void writeNumeric(BigDecimal value) {
+    writeBytes(encodeNumeric(value));
+  }
+
+  /**
+   * Writes the end of the copy stream and flushes all pending bytes to the sink.
+   */
+  public void writeTrailer() throws SQLException {
+    ensureCapacity(2);
+    buffer.putShort(TRAILER);
+    flush();
+    checkFailure();
+  }
+
+  /**
+   * Throws the error returned by the sink, if any.
+   */
+  public void checkFailure() throws SQLException {
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void flush() {
+    if (buffer.position() > 0) {
+      if (failure == null) {
+        try {
+          sink.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        } catch (SQLException ex) {
+          failure = ex;
+        }
+      }
+      buffer.clear();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (buffer != null) {
+      bufferPool.release(buffer);
+      buffer = null;
+    }
+  }
+
+  private void writeRaw(byte[] value, int offset, int length) {
+    int written = 0;
+    while (written < length) {
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      int chunk = Math.min(buffer.remaining(), length - written);
+      buffer.put(value, offset + written, chunk);
+      written += chunk;
+    }
+  }
+
+  private void ensureCapacity(int bytes) {
+    assert bytes <= buffer.capacity();
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  /**
+   * Returns the binary representation of a <em>numeric</em> value: the number of base 10000
+   * digits, the weight of the first digit, the sign, the display scale and the digits themselves,
+   * without leading or trailing zero digits.
+   */
+  public static byte[] encodeNumeric(BigDecimal value) {
+    BigDecimal abs = value.abs();
+    String plain = abs.toPlainString();
+    int dot = plain.indexOf('.');
+    int intLength = dot < 0 ? plain.length() : dot;
+    int fracLength = dot < 0 ? 0 : plain.length() - dot - 1;
+    int intPad = (NUMERIC_DIGITS_PER_GROUP - intLength % NUMERIC_DIGITS_PER_GROUP)
+        % NUMERIC_DIGITS_PER_GROUP;
+    int fracPad = (NUMERIC_DIGITS_PER_GROUP - fracLength % NUMERIC_DIGITS_PER_GROUP)
+        % NUMERIC_DIGITS_PER_GROUP;
+    int intGroups = (intPad + intLength) / NUMERIC_DIGITS_PER_GROUP;
+    int groups = intGroups + (fracLength + fracPad) / NUMERIC_DIGITS_PER_GROUP;
+
+    short[] digits = new short[groups];
+    for (int group = 0; group < groups; group++) {
+      int groupValue = 0;
+      for (int i = 0; i < NUMERIC_DIGITS_PER_GROUP; i++) {
+        int digitIndex = group * NUMERIC_DIGITS_PER_GROUP + i - intPad;
+        int digit;
+        if (digitIndex < 0 || digitIndex >= intLength + fracLength) {
+          digit = 0;
+        } else if (digitIndex < intLength) {
+          digit = plain.charAt(digitIndex) - '0';
+        } else {
+          digit = plain.charAt(digitIndex + 1) - '0';
+        }
+        groupValue = groupValue * 10 + digit;
+      }
+      digits[group] = (short) groupValue;
+    }
+
+    int first = 0;
+    while (first < groups && digits[first] == 0) {
+      first++;
+    }
+    int last = groups;
+    while (last > first && digits[last - 1] == 0) {
+      last--;
+    }
+    int ndigits = last - first;
+    int weight = ndigits == 0 ? 0 : intGroups - 1 - first;
+    int sign = ndigits != 0 && value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE;
+
+    ByteBuffer result = ByteBuffer.allocate(8 + 2 * ndigits);
+    result.putShort((short) ndigits);
+    result.putShort((short) weight);
+    result.putShort((short) sign);
+    result.putShort((short) Math.max(abs.scale(), 0));
+    for (int i = first; i < last; i++) {
+      result.putShort(digits[i]);
+    }
+    return result.array();
+  }
+}
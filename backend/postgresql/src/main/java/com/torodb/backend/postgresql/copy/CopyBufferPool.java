@@ -0,0 +1,84 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend.postgresql.copy;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded pool of fixed size heap {@link ByteBuffer byte buffers} used to encode COPY payloads
+ * without allocating a new buffer on each insert.
+ */
+@ThreadSafe
+public class CopyBufferPool {
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  public static final int DEFAULT_MAX_POOLED = 64;
+
+  private final int bufferSize;
+  private final int maxPooled;
+  private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooled = new AtomicInteger();
+
+  public CopyBufferPool() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+  }
+
+  public CopyBufferPool(int bufferSize, int maxPooled) {
+    this.bufferSize = bufferSize;
+    this.maxPooled = maxPooled;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Returns an empty buffer, reusing a pooled one if there is any available.
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = pool.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocate(bufferSize);
+    }
+    pooled.decrementAndGet();
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns the given buffer to the pool. Buffers that exceed the pool capacity are discarded.
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer.capacity() != bufferSize) {
+      return;
+    }
+    if (pooled.incrementAndGet() > maxPooled) {
+      pooled.decrementAndGet();
+      return;
+    }
+    buffer.clear();
+    pool.offer(buffer);
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend.postgresql.copy;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Streams rows using the PostgreSQL text COPY format.
+ *
+ * <p>Each row is appended to a {@link StringBuilder} that is reused between rows and, once the
+ * row is finished, it is encoded as UTF-8 into a buffer borrowed from a {@link CopyBufferPool}.
+ * The buffer is flushed to the given {@link CopySink} each time it gets full, so a single COPY
+ * can be used for any number of rows without keeping them in memory.
+ */
+@NotThreadSafe
+public class TextCopyWriter implements AutoCloseable {
+
+  private static final int INITIAL_ROW_CAPACITY = 1024;
+
+  private final CopyBufferPool bufferPool;
+  private final CopySink sink;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private final StringBuilder row = new StringBuilder(INITIAL_ROW_CAPACITY);
+  private ByteBuffer buffer;
+
+  public TextCopyWriter(CopyBufferPool bufferPool, CopySink sink) {
+    this.bufferPool = bufferPool;
+    this.sink = sink;
+    this.buffer = bufferPool.acquire();
+  }
+
+  /**
+   * Returns the builder where the current row must be appended.
+   */
+  public StringBuilder getRowBuilder() {
+    return row;
+  }
+
+  /**
+   * Encodes the current row into the buffer and starts a new one.
+   */
+  public void endRow() throws SQLException {
+    CharBuffer chars = CharBuffer.wrap(row);
+    encoder.reset();
+    CoderResult result;
+    do {
+      result = encoder.encode(chars, buffer, true);
+      if (result.isOverflow()) {
+        flush();
+      }
+    } while (result.isOverflow());
+    while (encoder.flush(buffer).isOverflow()) {
+      flush();
+    }
+    row.setLength(0);
+  }
+
+  /**
+   * Flushes all pending bytes to the sink.
+   */
+  public void flush() throws SQLException {
+    if (buffer.position() > 0) {
+      sink.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+      buffer.clear();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (buffer != null) {
+      bufferPool.release(buffer);
+      buffer = null;
+    }
+  }
+}
@@ -38,6 +38,7 @@ import com.torodb.backend.postgresql.PostgreSqlMetaDataReadInterface;
 import com.torodb.backend.postgresql.PostgreSqlMetaDataWriteInterface;
 import com.torodb.backend.postgresql.PostgreSqlMetrics;
 import com.torodb.backend.postgresql.PostgreSqlReadInterface;
+import com.torodb.backend.postgresql.PostgreSqlStatementCache;
 import com.torodb.backend.postgresql.PostgreSqlStructureInterface;
 import com.torodb.backend.postgresql.PostgreSqlWriteInterface;
 import com.torodb.backend.postgresql.driver.OfficialPostgreSqlDriver;
@@ -142,6 +143,8 @@ public class PostgreSqlBackendModule extends PrivateModule {
 
     bind(PostgreSqlMetrics.class)
         .in(Singleton.class);
+    bind(PostgreSqlStatementCache.class)
+        .in(Singleton.class);
 
     bind(DefaultIdentifierFactory.class)
         .in(Singleton.class);
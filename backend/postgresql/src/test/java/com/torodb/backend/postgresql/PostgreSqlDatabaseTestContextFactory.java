@@ -27,6 +27,8 @@ import com.torodb.backend.tests.common.DatabaseTestContext;
 import com.torodb.backend.tests.common.IntegrationTestBundleConfig;
 import com.torodb.core.backend.IdentifierConstraints;
 import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.metrics.DisabledMetricRegistry;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -34,6 +36,10 @@ import java.util.concurrent.ThreadFactory;
 public class PostgreSqlDatabaseTestContextFactory {
 
   public DatabaseTestContext createInstance() {
+    return createInstance(false);
+  }
+
+  public DatabaseTestContext createInstance(boolean unloggedImportEnabled) {
     DataTypeProvider provider = new PostgreSqlDataTypeProvider();
     PostgreSqlErrorHandler errorHandler = new PostgreSqlErrorHandler();
     SqlHelper sqlHelper = new SqlHelper(provider, errorHandler);
@@ -46,6 +52,7 @@ public class PostgreSqlDatabaseTestContextFactory {
         .setDbName("test")
         .setDbPort(15430)
         .setIncludeForeignKeys(false)
+        .setUnloggedImportEnabled(unloggedImportEnabled)
         .build();
 
     DslContextFactory dslContextFactory = new DslContextFactoryImpl(provider);
@@ -70,8 +77,13 @@ public class PostgreSqlDatabaseTestContextFactory {
     PostgreSqlDbBackend dbBackend = new PostgreSqlDbBackend(threadFactory, backendConfig, driver, errorHandler);
 
     PostgreSqlMetaDataReadInterface metaDataReadInterface = new PostgreSqlMetaDataReadInterface(sqlHelper);
+    PostgreSqlMetrics metrics = new PostgreSqlMetrics(new DisabledMetricRegistry());
+    PostgreSqlStatementCache statementCache = new PostgreSqlStatementCache(metrics);
     PostgreSqlStructureInterface structureInterface =
-        new PostgreSqlStructureInterface(dbBackend, metaDataReadInterface, sqlHelper, identifierConstraints);
+        new PostgreSqlStructureInterface(dbBackend, metaDataReadInterface, sqlHelper, identifierConstraints,
+            backendConfig, statementCache);
+    PostgreSqlWriteInterface writeInterface = new PostgreSqlWriteInterface(metaDataReadInterface,
+        errorHandler, sqlHelper, metrics, statementCache, backendConfig, new TableRefFactoryImpl());
 
     PostgreSqlMetaDataWriteInterface metadataWriteInterface =
         new PostgreSqlMetaDataWriteInterface(metaDataReadInterface, sqlHelper);
@@ -80,7 +92,7 @@ public class PostgreSqlDatabaseTestContextFactory {
     dbBackend.awaitRunning();
 
     return new SqlInterfaceDelegate(metaDataReadInterface, metadataWriteInterface, provider,
-        structureInterface, null, null, identifierConstraints, errorHandler, dslContextFactory, dbBackend);
+        structureInterface, null, writeInterface, identifierConstraints, errorHandler, dslContextFactory, dbBackend);
   }
 
 }
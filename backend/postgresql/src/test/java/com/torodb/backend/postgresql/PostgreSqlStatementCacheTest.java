@@ -0,0 +1,257 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.postgresql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableList;
+import com.torodb.backend.BackendConfig;
+import com.torodb.backend.DocPartStatementKey;
+import com.torodb.backend.DocPartStatementKey.Kind;
+import com.torodb.backend.SqlHelper;
+import com.torodb.backend.postgresql.converters.jooq.IntegerValueConverter;
+import com.torodb.core.metrics.ToroMetricRegistry;
+import org.jooq.DSLContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.postgresql.core.BaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PostgreSqlStatementCacheTest {
+
+  private static final String SCHEMA = "db";
+  private static final String TABLE = "col";
+  private static final String OTHER_TABLE = "col_a";
+
+  private Meter hits;
+  private Meter misses;
+  private PostgreSqlStatementCache cache;
+
+  @Before
+  public void setUp() {
+    hits = new Meter();
+    misses = new Meter();
+    ToroMetricRegistry registry = mock(ToroMetricRegistry.class);
+    when(registry.createSubRegistry(anyString())).thenReturn(registry);
+    when(registry.meter(anyString())).thenAnswer(invocation -> new Meter());
+    when(registry.meter("statementCacheHits")).thenReturn(hits);
+    when(registry.meter("statementCacheMisses")).thenReturn(misses);
+
+    cache = new PostgreSqlStatementCache(new PostgreSqlMetrics(registry));
+  }
+
+  @Test
+  public void testMissAndHit() throws SQLException {
+    BaseConnection physicalConnection = mockPhysicalConnection();
+    Connection connection = mockPooledConnection(physicalConnection);
+    DocPartStatementKey key = insertKey(TABLE, "a");
+
+    PreparedStatement first = cache.prepareStatement(connection, key, () -> "first");
+    PreparedStatement second = cache.prepareStatement(connection, key, () -> "second");
+
+    assertSame(first, second);
+    assertEquals(1, misses.getCount());
+    assertEquals(1, hits.getCount());
+    verify(physicalConnection).prepareStatement("first");
+    verify(physicalConnection, never()).prepareStatement("second");
+    verify(connection, never()).prepareStatement(anyString());
+  }
+
+  @Test
+  public void testDifferentKeysMiss() throws SQLException {
+    Connection connection = mockPooledConnection(mockPhysicalConnection());
+
+    PreparedStatement statementA = cache.prepareStatement(connection, insertKey(TABLE, "a"),
+        () -> "a");
+    PreparedStatement statementB = cache.prepareStatement(connection, insertKey(TABLE, "b"),
+        () -> "b");
+
+    assertNotSame(statementA, statementB);
+    assertEquals(2, misses.getCount());
+    assertEquals(0, hits.getCount());
+  }
+
+  @Test
+  public void testStatementsArePreparedPerPhysicalConnection() throws SQLException {
+    Connection connection1 = mockPooledConnection(mockPhysicalConnection());
+    Connection connection2 = mockPooledConnection(mockPhysicalConnection());
+    DocPartStatementKey key = insertKey(TABLE, "a");
+
+    PreparedStatement statement1 = cache.prepareStatement(connection1, key, () -> "a");
+    PreparedStatement statement2 = cache.prepareStatement(connection2, key, () -> "a");
+
+    assertNotSame(statement1, statement2);
+    assertEquals(2, misses.getCount());
+  }
+
+  @Test
+  public void testReleaseKeepsCachedStatementsOpen() throws SQLException {
+    BaseConnection physicalConnection = mockPhysicalConnection();
+    Connection connection = mockPooledConnection(physicalConnection);
+
+    PreparedStatement statement = cache.prepareStatement(connection, insertKey(TABLE, "a"),
+        () -> "a");
+    cache.releaseStatement(statement);
+
+    verify(statement).clearBatch();
+    verify(statement).clearParameters();
+    verify(statement, never()).close();
+  }
+
+  @Test
+  public void testStatementsOfOtherConnectionsAreNotCached() throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.isWrapperFor(BaseConnection.class)).thenReturn(false);
+    when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+      PreparedStatement statement = mock(PreparedStatement.class);
+      when(statement.getConnection()).thenReturn(connection);
+      return statement;
+    });
+    DocPartStatementKey key = insertKey(TABLE, "a");
+
+    PreparedStatement first = cache.prepareStatement(connection, key, () -> "a");
+    cache.releaseStatement(first);
+    PreparedStatement second = cache.prepareStatement(connection, key, () -> "a");
+
+    assertNotSame(first, second);
+    verify(first).close();
+    assertEquals(0, misses.getCount());
+    assertEquals(0, hits.getCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedStatementIsEvictedAndClosed() throws SQLException {
+    Connection connection = mockPooledConnection(mockPhysicalConnection());
+    int max = PostgreSqlStatementCache.MAX_STATEMENTS_PER_CONNECTION;
+
+    List<PreparedStatement> statements = new ArrayList<>(max);
+    for (int i = 0; i < max; i++) {
+      statements.add(cache.prepareStatement(connection, insertKey(TABLE, "c" + i), () -> "s"));
+    }
+    //the first statement is used again, so the second one is the least recently used
+    assertSame(statements.get(0),
+        cache.prepareStatement(connection, insertKey(TABLE, "c0"), () -> "s"));
+
+    cache.prepareStatement(connection, insertKey(TABLE, "c" + max), () -> "s");
+
+    verify(statements.get(1)).close();
+    for (int i = 0; i < max; i++) {
+      if (i != 1) {
+        verify(statements.get(i), never()).close();
+      }
+    }
+    PreparedStatement prepared = cache.prepareStatement(connection, insertKey(TABLE, "c1"),
+        () -> "s");
+    assertNotSame(statements.get(1), prepared);
+    assertEquals(max + 2, misses.getCount());
+    assertEquals(1, hits.getCount());
+  }
+
+  @Test
+  public void testClosedConnectionsAreRemoved() throws SQLException {
+    BaseConnection closedPhysicalConnection = mockPhysicalConnection();
+    Connection closedConnection = mockPooledConnection(closedPhysicalConnection);
+    Connection openConnection = mockPooledConnection(mockPhysicalConnection());
+    DocPartStatementKey key = insertKey(TABLE, "a");
+
+    PreparedStatement openStatement = cache.prepareStatement(openConnection, key, () -> "a");
+    PreparedStatement closedStatement = cache.prepareStatement(closedConnection, key, () -> "a");
+    when(closedPhysicalConnection.isClosed()).thenReturn(true);
+
+    //closed connections are removed when statements are prepared on a new connection
+    cache.prepareStatement(mockPooledConnection(mockPhysicalConnection()), key, () -> "a");
+
+    assertSame(openStatement, cache.prepareStatement(openConnection, key, () -> "a"));
+    assertNotSame(closedStatement, cache.prepareStatement(closedConnection, key, () -> "a"));
+    verify(closedPhysicalConnection, times(2)).prepareStatement("a");
+  }
+
+  @Test
+  public void testInvalidate() throws SQLException {
+    Connection connection = mockPooledConnection(mockPhysicalConnection());
+    DocPartStatementKey key = insertKey(TABLE, "a");
+    DocPartStatementKey otherKey = insertKey(OTHER_TABLE, "a");
+
+    PreparedStatement statement = cache.prepareStatement(connection, key, () -> "a");
+    PreparedStatement otherStatement = cache.prepareStatement(connection, otherKey, () -> "a");
+    cache.invalidate(SCHEMA, TABLE);
+
+    assertNotSame(statement, cache.prepareStatement(connection, key, () -> "a"));
+    assertSame(otherStatement, cache.prepareStatement(connection, otherKey, () -> "a"));
+  }
+
+  @Test
+  public void testAddColumnToDocPartTableInvalidates() throws SQLException {
+    SqlHelper sqlHelper = mock(SqlHelper.class);
+    PostgreSqlStructureInterface structureInterface = new PostgreSqlStructureInterface(
+        mock(PostgreSqlDbBackend.class), mock(PostgreSqlMetaDataReadInterface.class), sqlHelper,
+        new PostgreSqlIdentifierConstraints(), mock(BackendConfig.class), cache);
+    Connection connection = mockPooledConnection(mockPhysicalConnection());
+    DocPartStatementKey key = insertKey(TABLE, "a");
+    DSLContext dsl = mock(DSLContext.class);
+
+    PreparedStatement statement = cache.prepareStatement(connection, key, () -> "a");
+    structureInterface.addColumnToDocPartTable(dsl, SCHEMA, TABLE, "b",
+        IntegerValueConverter.TYPE);
+
+    verify(sqlHelper).executeStatement(eq(dsl), anyString(), any());
+    assertNotSame(statement, cache.prepareStatement(connection, key, () -> "a"));
+    assertEquals(2, misses.getCount());
+    assertEquals(0, hits.getCount());
+  }
+
+  private static DocPartStatementKey insertKey(String table, String column) {
+    return new DocPartStatementKey(Kind.INSERT, SCHEMA, table, ImmutableList.of(column));
+  }
+
+  private static BaseConnection mockPhysicalConnection() throws SQLException {
+    BaseConnection physicalConnection = mock(BaseConnection.class);
+    when(physicalConnection.prepareStatement(anyString())).thenAnswer(invocation -> {
+      PreparedStatement statement = mock(PreparedStatement.class);
+      when(statement.getConnection()).thenReturn(physicalConnection);
+      return statement;
+    });
+    return physicalConnection;
+  }
+
+  private static Connection mockPooledConnection(BaseConnection physicalConnection)
+      throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.isWrapperFor(BaseConnection.class)).thenReturn(true);
+    when(connection.unwrap(BaseConnection.class)).thenReturn(physicalConnection);
+    return connection;
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.postgresql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.torodb.backend.SqlInterface;
+import com.torodb.backend.StructureInterface;
+import com.torodb.backend.tests.common.DatabaseTestContext;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.transaction.metainf.ImmutableMetaCollection;
+import com.torodb.core.transaction.metainf.ImmutableMetaDatabase;
+import com.torodb.core.transaction.metainf.ImmutableMetaDocPart;
+import com.torodb.core.transaction.metainf.MetaDatabase;
+import org.jooq.DSLContext;
+import org.junit.After;
+import org.junit.Test;
+
+public class PostgreSqlUnloggedImportIT {
+
+  private static final String DB_NAME = "db_name";
+  private static final String SCHEMA_NAME = "schema_name";
+  private static final String TABLE_NAME = "root_table";
+
+  private final TableRefFactory tableRefFactory = new TableRefFactoryImpl();
+  private final MetaDatabase metaDatabase = new ImmutableMetaDatabase.Builder(DB_NAME, SCHEMA_NAME)
+      .put(new ImmutableMetaCollection.Builder("coll", "coll")
+          .put(new ImmutableMetaDocPart.Builder(tableRefFactory.createRoot(), TABLE_NAME).build())
+          .build())
+      .build();
+  private DatabaseTestContext dbTestContext;
+  private SqlInterface sqlInterface;
+
+  private void setUp(boolean unloggedImportEnabled) throws Exception {
+    dbTestContext = new PostgreSqlDatabaseTestContextFactory().createInstance(
+        unloggedImportEnabled);
+    sqlInterface = dbTestContext.getSqlInterface();
+    dbTestContext.setupDatabase();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (dbTestContext != null) {
+      dbTestContext.tearDownDatabase();
+    }
+  }
+
+  @Test
+  public void tablesCreatedOnDataInsertModeAreUnlogged() throws Exception {
+    setUp(true);
+    createTableOnDataInsertMode();
+
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      assertEquals("u", getPersistence(dsl));
+      assertTrue(sqlInterface.getStructureInterface().existsNonDurableDocPartTables(dsl));
+    });
+  }
+
+  @Test
+  public void tablesAreLoggedOnceDataInsertModeFinishes() throws Exception {
+    setUp(true);
+    createTableOnDataInsertMode();
+
+    StructureInterface structureInterface = sqlInterface.getStructureInterface();
+    sqlInterface.getDbBackend().disableDataInsertMode(metaDatabase);
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      structureInterface.streamDataInsertFinishTableTasks(metaDatabase)
+          .forEach(task -> task.apply(dsl));
+    });
+
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      assertEquals("p", getPersistence(dsl));
+      assertFalse(structureInterface.existsNonDurableDocPartTables(dsl));
+    });
+  }
+
+  @Test
+  public void tablesAreLoggedWhenUnloggedImportIsDisabled() throws Exception {
+    setUp(false);
+    createTableOnDataInsertMode();
+
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      assertEquals("p", getPersistence(dsl));
+      assertFalse(sqlInterface.getStructureInterface().existsNonDurableDocPartTables(dsl));
+    });
+  }
+
+  private void createTableOnDataInsertMode() {
+    sqlInterface.getDbBackend().enableDataInsertMode(metaDatabase);
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      sqlInterface.getMetaDataWriteInterface().addMetaDatabase(dsl, metaDatabase);
+      sqlInterface.getStructureInterface().createSchema(dsl, SCHEMA_NAME);
+      sqlInterface.getStructureInterface().createRootDocPartTable(dsl, SCHEMA_NAME, TABLE_NAME,
+          tableRefFactory.createRoot());
+    });
+  }
+
+  private String getPersistence(DSLContext dsl) {
+    return dsl.fetchOne("SELECT relpersistence::text FROM pg_class"
+        + " JOIN pg_namespace ON (pg_namespace.oid = pg_class.relnamespace)"
+        + " WHERE nspname = ? AND relname = ?", SCHEMA_NAME, TABLE_NAME)
+        .into(String.class);
+  }
+}
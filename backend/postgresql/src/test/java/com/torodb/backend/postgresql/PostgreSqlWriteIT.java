@@ -0,0 +1,67 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.postgresql;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.backend.tests.common.AbstractWriteIntegrationSuite;
+import com.torodb.backend.tests.common.DatabaseTestContext;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+public class PostgreSqlWriteIT extends AbstractWriteIntegrationSuite {
+
+  @Override
+  protected DatabaseTestContext getDatabaseTestContext() {
+    return new PostgreSqlDatabaseTestContextFactory().createInstance();
+  }
+
+  @Test
+  public void deleteAllDoesNotWaitForConcurrentReaders() throws Exception {
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> createCollection(dsl, 10));
+
+    try (Connection reader = sqlInterface.getDbBackend().createReadOnlyConnection()) {
+      /* Given a transaction that keeps a lock on the root table until it finishes */
+      try (Statement st = reader.createStatement();
+          ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM \"" + SCHEMA_NAME + "\".\""
+              + ROOT_TABLE + "\"")) {
+        rs.next();
+        assertEquals(10, rs.getLong(1));
+      }
+
+      /* When */
+      dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+        long deleted = sqlInterface.getWriteInterface()
+            .deleteAllCollectionDocParts(dsl, SCHEMA_NAME, metaCollection);
+
+        /* Then */
+        assertEquals(10, deleted);
+        assertEquals(0, countRows(dsl, ROOT_TABLE));
+        assertEquals(0, countRows(dsl, CHILD_TABLE));
+        assertEquals("the lock timeout must be restored", "0",
+            dsl.fetchOne("SELECT current_setting('lock_timeout')").into(String.class));
+      });
+      reader.rollback();
+    }
+  }
+
+}
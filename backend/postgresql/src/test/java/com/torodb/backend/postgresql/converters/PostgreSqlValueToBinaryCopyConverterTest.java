@@ -0,0 +1,140 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend.postgresql.converters;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.backend.postgresql.copy.BinaryCopyWriter;
+import com.torodb.backend.postgresql.copy.CopyBufferPool;
+import com.torodb.common.util.HexUtils;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvDecimal128;
+import com.torodb.kvdocument.values.KvDouble;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvLong;
+import com.torodb.kvdocument.values.KvMaxKey;
+import com.torodb.kvdocument.values.KvMinKey;
+import com.torodb.kvdocument.values.KvNull;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.heap.ByteArrayKvMongoObjectId;
+import com.torodb.kvdocument.values.heap.DefaultKvMongoTimestamp;
+import com.torodb.kvdocument.values.heap.InstantKvInstant;
+import com.torodb.kvdocument.values.heap.LocalDateKvDate;
+import com.torodb.kvdocument.values.heap.LocalTimeKvTime;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class PostgreSqlValueToBinaryCopyConverterTest {
+
+  private static final PostgreSqlValueToBinaryCopyConverter visitor =
+      PostgreSqlValueToBinaryCopyConverter.INSTANCE;
+  private static final String TRAILER = "FFFF";
+
+  @Parameterized.Parameter(0)
+  public String label;
+
+  @Parameterized.Parameter(1)
+  public KvValue<?> value;
+
+  @Parameterized.Parameter(2)
+  public String expectedResult;
+
+  @Parameterized.Parameters(name = "{index} - {0}")
+  public static Collection<Object[]> data() throws Exception {
+    return Arrays.asList(new Object[][] {
+      {"TrueBoolean", KvBoolean.TRUE, "00000001" + "01"},
+      {"FalseBoolean", KvBoolean.FALSE, "00000001" + "00"},
+      {"Null", KvNull.getInstance(), "00000001" + "01"},
+      {"MinKey", KvMinKey.getInstance(), "00000001" + "00"},
+      {"MaxKey", KvMaxKey.getInstance(), "00000001" + "01"},
+      {"PositiveInteger", KvInteger.of(123), "00000004" + "0000007B"},
+      {"NegativeInteger", KvInteger.of(-1), "00000004" + "FFFFFFFF"},
+      {"NegativeLong", KvLong.of(-1L), "00000008" + "FFFFFFFFFFFFFFFF"},
+      {"PositiveDouble", KvDouble.of(4.5), "00000008" + "4012000000000000"},
+      {"NormalString", new StringKvString("a\tb"), "00000003" + "610962"},
+      {
+        "MongoObjectId",
+        new ByteArrayKvMongoObjectId(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 0xa, 0xb, 0xc}),
+        "0000000C" + "0102030405060708090A0B0C"
+      },
+      {
+        "Date",
+        new LocalDateKvDate(LocalDate.of(2000, Month.JANUARY, 2)),
+        "00000004" + "00000001"
+      },
+      {
+        "DateBeforePostgresEpoch",
+        new LocalDateKvDate(LocalDate.of(1999, Month.DECEMBER, 31)),
+        "00000004" + "FFFFFFFF"
+      },
+      {
+        "Time",
+        new LocalTimeKvTime(LocalTime.of(0, 0, 1)),
+        "00000008" + "00000000000F4240"
+      },
+      {
+        "DateTime",
+        new InstantKvInstant(
+            LocalDateTime.of(2000, Month.JANUARY, 1, 0, 0, 1).toInstant(ZoneOffset.UTC)),
+        "00000008" + "00000000000F4240"
+      },
+      {
+        "MongoTimestamp",
+        new DefaultKvMongoTimestamp(1, 2),
+        "0000001C" + "00000002"
+            + "00000017" + "00000004" + "00000001"
+            + "00000017" + "00000004" + "00000002"
+      },
+      {
+        "Decimal128",
+        KvDecimal128.of(new BigDecimal("12345.678")),
+        "00000035" + "00000004"
+            + "000006A4" + "0000000E" + "0003" + "0001" + "0000" + "0003" + "0001" + "0929" + "1A7C"
+            + "00000010" + "00000001" + "00"
+            + "00000010" + "00000001" + "00"
+            + "00000010" + "00000001" + "00"
+      },
+    });
+  }
+
+  @Test
+  public void test() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (BinaryCopyWriter writer = new BinaryCopyWriter(new CopyBufferPool(16, 1),
+        output::write)) {
+      value.accept(visitor, writer);
+      writer.writeTrailer();
+    }
+    assertEquals(expectedResult + TRAILER, HexUtils.bytes2Hex(output.toByteArray()));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.postgresql.converters.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.backend.postgresql.converters.jooq.Decimal128ValueConverter;
+import com.torodb.backend.postgresql.converters.jooq.MongoTimestampValueConverter;
+import com.torodb.backend.udt.record.Decimal128Record;
+import com.torodb.backend.udt.record.MongoTimestampRecord;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.kvdocument.values.KvDecimal128;
+import com.torodb.kvdocument.values.heap.DefaultKvMongoTimestamp;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class ArrayParameterSqlBindingTest {
+
+  private final ArrayParameterSqlBinding binding = ArrayParameterSqlBinding.INSTANCE;
+
+  @Test
+  public void testMongoTimestampToText() {
+    assertEquals("(27,3)", binding.toText(new MongoTimestampRecord(27, 3)));
+  }
+
+  @Test
+  public void testConvertedMongoTimestampToText() {
+    Object databaseValue = MongoTimestampValueConverter.TYPE.getConverter()
+        .to(new DefaultKvMongoTimestamp(1500000000, 12));
+
+    assertEquals("(1500000000,12)", binding.toText(databaseValue));
+  }
+
+  @Test
+  public void testDecimal128ToText() {
+    assertEquals("(12.50,false,false,false)",
+        binding.toText(new Decimal128Record(new BigDecimal("12.50"), false, false, false)));
+  }
+
+  @Test
+  public void testNegativeDecimal128ToText() {
+    assertEquals("(-1000000000000000000,false,false,false)",
+        binding.toText(new Decimal128Record(new BigDecimal("-1000000000000000000"), false, false,
+            false)));
+  }
+
+  @Test
+  public void testDecimal128WithoutValueToText() {
+    assertEquals("(,true,false,false)",
+        binding.toText(new Decimal128Record(null, true, false, false)));
+  }
+
+  @Test
+  public void testConvertedDecimal128ToText() {
+    Object databaseValue = Decimal128ValueConverter.TYPE.getConverter()
+        .to(KvDecimal128.of(new BigDecimal("1000000000000000000000")));
+
+    assertEquals("(1000000000000000000000,false,false,false)", binding.toText(databaseValue));
+  }
+
+  @Test
+  public void testMongoTimestampPlaceholder() {
+    assertEquals("CAST(? AS \"torodb\".\"mongo_timestamp\"[])",
+        binding.getPlaceholder(FieldType.MONGO_TIME_STAMP));
+  }
+
+  @Test
+  public void testDecimal128Placeholder() {
+    assertEquals("CAST(? AS \"torodb\".\"decimal_128\"[])",
+        binding.getPlaceholder(FieldType.DECIMAL128));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedPlaceholder() {
+    binding.getPlaceholder(FieldType.CHILD);
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend.postgresql.copy;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.common.util.HexUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+
+public class BinaryCopyWriterTest {
+
+  @Test
+  public void testNumericEncoding() {
+    assertEquals("0000000000000000", encode("0"));
+    assertEquals("0000000000000002", encode("0.00"));
+    assertEquals("0001FFFF00000004" + "0001", encode("0.0001"));
+    assertEquals("0001000140000000" + "0001", encode("-10000"));
+    assertEquals("0003000100000003" + "000109291A7C", encode("12345.678"));
+  }
+
+  @Test
+  public void testHeaderAndTrailer() throws SQLException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (BinaryCopyWriter writer = new BinaryCopyWriter(new CopyBufferPool(), output::write)) {
+      writer.writeHeader();
+      writer.startRow(1);
+      writer.writeNull();
+      writer.writeTrailer();
+    }
+    assertEquals("5047434F50590AFF0D0A00" + "00000000" + "00000000"
+        + "0001" + "FFFFFFFF"
+        + "FFFF",
+        HexUtils.bytes2Hex(output.toByteArray()));
+  }
+
+  @Test
+  public void testValuesBiggerThanTheBuffer() throws SQLException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] value = new byte[100];
+    for (int i = 0; i < value.length; i++) {
+      value[i] = (byte) i;
+    }
+    try (BinaryCopyWriter writer = new BinaryCopyWriter(new CopyBufferPool(16, 1),
+        output::write)) {
+      writer.writeBytes(value);
+      writer.writeTrailer();
+    }
+    assertEquals("00000064" + HexUtils.bytes2Hex(value) + "FFFF",
+        HexUtils.bytes2Hex(output.toByteArray()));
+  }
+
+  @Test(expected = SQLException.class)
+  public void testSinkErrorsAreDelayed() throws SQLException {
+    try (BinaryCopyWriter writer = new BinaryCopyWriter(new CopyBufferPool(16, 1),
+        (buf, offset, length) -> {
+          throw new SQLException("expected error");
+        })) {
+      writer.writeBytes(new byte[100]);
+      writer.startRow(1);
+    }
+  }
+
+  private static String encode(String value) {
+    return HexUtils.bytes2Hex(BinaryCopyWriter.encodeNumeric(new BigDecimal(value)));
+  }
+}
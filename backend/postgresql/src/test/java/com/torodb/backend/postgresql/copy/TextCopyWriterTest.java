@@ -0,0 +1,57 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.backend.postgresql.copy;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TextCopyWriterTest {
+
+  @Test
+  public void testRowsAreStreamedInFixedSizeChunks() throws SQLException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    List<Integer> chunkSizes = new ArrayList<>();
+    StringBuilder expected = new StringBuilder();
+    try (TextCopyWriter writer = new TextCopyWriter(new CopyBufferPool(16, 1),
+        (buf, offset, length) -> {
+          chunkSizes.add(length);
+          output.write(buf, offset, length);
+        })) {
+      for (int i = 0; i < 10; i++) {
+        String row = i + "\tñandú €" + i + "\n";
+        writer.getRowBuilder().append(row);
+        writer.endRow();
+        expected.append(row);
+      }
+      writer.flush();
+    }
+    assertEquals(expected.toString(), new String(output.toByteArray(), StandardCharsets.UTF_8));
+    for (int chunkSize : chunkSizes) {
+      assertEquals(true, chunkSize <= 16);
+    }
+  }
+}
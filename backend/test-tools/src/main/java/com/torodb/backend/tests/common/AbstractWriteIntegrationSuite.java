@@ -0,0 +1,215 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.backend.tests.common;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.backend.SqlInterface;
+import com.torodb.backend.converters.jooq.DataTypeForKv;
+import com.torodb.core.TableRef;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria.Operator;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.core.transaction.metainf.ImmutableMetaCollection;
+import com.torodb.core.transaction.metainf.ImmutableMetaDocPart;
+import com.torodb.core.transaction.metainf.MetaCollection;
+import com.torodb.kvdocument.values.KvInteger;
+import org.jooq.DSLContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public abstract class AbstractWriteIntegrationSuite {
+
+  protected static final String SCHEMA_NAME = "schema_name";
+  protected static final String ROOT_TABLE = "root_table";
+  protected static final String CHILD_TABLE = "child_table";
+  private static final String FIELD_COLUMN = "a_i";
+
+  protected SqlInterface sqlInterface;
+
+  protected DatabaseTestContext dbTestContext;
+
+  private final TableRefFactory tableRefFactory = new TableRefFactoryImpl();
+
+  private final TableRef rootTableRef = tableRefFactory.createRoot();
+
+  private final TableRef childTableRef = tableRefFactory.createChild(rootTableRef, CHILD_TABLE);
+
+  /**
+   * A collection whose documents have an integer attribute {@code a} and a subdocument stored
+   * on a child doc part.
+   */
+  protected final MetaCollection metaCollection = new ImmutableMetaCollection.Builder(
+      "coll", "coll")
+      .put(new ImmutableMetaDocPart.Builder(rootTableRef, ROOT_TABLE)
+          .putField("a", FIELD_COLUMN, FieldType.INTEGER))
+      .put(new ImmutableMetaDocPart.Builder(childTableRef, CHILD_TABLE))
+      .build();
+
+  @Before
+  public void setUp() throws Exception {
+    dbTestContext = getDatabaseTestContext();
+    sqlInterface = dbTestContext.getSqlInterface();
+    dbTestContext.setupDatabase();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    dbTestContext.tearDownDatabase();
+  }
+
+  protected abstract DatabaseTestContext getDatabaseTestContext();
+
+  @Test
+  public void deleteAllRemovesTheRowsOfAllDocParts() throws Exception {
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      /* Given */
+      createCollection(dsl, 10);
+
+      /* When */
+      long deleted = sqlInterface.getWriteInterface()
+          .deleteAllCollectionDocParts(dsl, SCHEMA_NAME, metaCollection);
+
+      /* Then */
+      assertEquals(10, deleted);
+      assertEquals(0, countRows(dsl, ROOT_TABLE));
+      assertEquals(0, countRows(dsl, CHILD_TABLE));
+    });
+  }
+
+  @Test
+  public void deleteByCriteriaRemovesTheMatchingDocuments() throws Exception {
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      /* Given */
+      createCollection(dsl, 10);
+
+      /* When */
+      long deleted = sqlInterface.getWriteInterface().deleteCollectionDocParts(dsl, SCHEMA_NAME,
+          metaCollection, createLowerThanCriteria(4));
+
+      /* Then */
+      assertEquals(4, deleted);
+      assertEquals(6, countRows(dsl, ROOT_TABLE));
+      assertEquals(6, countRows(dsl, CHILD_TABLE));
+      assertEquals(0, countRows(dsl, ROOT_TABLE, "\"" + FIELD_COLUMN + "\" < 4"));
+    });
+  }
+
+  /**
+   * Deletes more documents than fit on a single delete batch of the backends that read the dids
+   * before deleting them.
+   */
+  @Test
+  public void deleteByCriteriaRemovesDocumentsOnSeveralBatches() throws Exception {
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      /* Given */
+      createCollection(dsl, 350);
+
+      /* When */
+      long deleted = sqlInterface.getWriteInterface().deleteCollectionDocParts(dsl, SCHEMA_NAME,
+          metaCollection, createLowerThanCriteria(250));
+
+      /* Then */
+      assertEquals(250, deleted);
+      assertEquals(100, countRows(dsl, ROOT_TABLE));
+      assertEquals(100, countRows(dsl, CHILD_TABLE));
+    });
+  }
+
+  @Test
+  public void deleteByCriteriaWithoutMatchesDoesNothing() throws Exception {
+    dbTestContext.executeOnDbConnectionWithDslContext(dsl -> {
+      /* Given */
+      createCollection(dsl, 10);
+
+      /* When */
+      long deleted = sqlInterface.getWriteInterface().deleteCollectionDocParts(dsl, SCHEMA_NAME,
+          metaCollection, createLowerThanCriteria(0));
+
+      /* Then */
+      assertEquals(0, deleted);
+      assertEquals(10, countRows(dsl, ROOT_TABLE));
+      assertEquals(10, countRows(dsl, CHILD_TABLE));
+    });
+  }
+
+  private ComparisonQueryCriteria createLowerThanCriteria(int value) {
+    return new ComparisonQueryCriteria(
+        new AttributeReference.Builder().addObjectKey("a").build(),
+        Operator.LT,
+        KvInteger.of(value));
+  }
+
+  /**
+   * Creates the tables of {@link #metaCollection} and stores on them the given number of
+   * documents, whose dids and attribute {@code a} go from 0 to {@code docs - 1}.
+   */
+  protected void createCollection(DSLContext dsl, int docs) {
+    sqlInterface.getStructureInterface().createSchema(dsl, SCHEMA_NAME);
+    sqlInterface.getStructureInterface().createRootDocPartTable(dsl, SCHEMA_NAME, ROOT_TABLE,
+        rootTableRef);
+    sqlInterface.getStructureInterface().createDocPartTable(dsl, SCHEMA_NAME, CHILD_TABLE,
+        childTableRef, ROOT_TABLE);
+    DataTypeForKv<?> dataType = sqlInterface.getDataTypeProvider()
+        .getDataType(FieldType.INTEGER);
+    sqlInterface.getStructureInterface().addColumnToDocPartTable(dsl, SCHEMA_NAME, ROOT_TABLE,
+        FIELD_COLUMN, dataType);
+
+    Connection connection = dsl.configuration().connectionProvider().acquire();
+    try (PreparedStatement rootInsert = connection.prepareStatement("INSERT INTO \""
+            + SCHEMA_NAME + "\".\"" + ROOT_TABLE + "\" (\"did\", \"" + FIELD_COLUMN
+            + "\") VALUES (?, ?)");
+        PreparedStatement childInsert = connection.prepareStatement("INSERT INTO \""
+            + SCHEMA_NAME + "\".\"" + CHILD_TABLE + "\" (\"did\", \"rid\") VALUES (?, ?)")) {
+      for (int did = 0; did < docs; did++) {
+        rootInsert.setInt(1, did);
+        rootInsert.setInt(2, did);
+        rootInsert.addBatch();
+        childInsert.setInt(1, did);
+        childInsert.setInt(2, did);
+        childInsert.addBatch();
+      }
+      rootInsert.executeBatch();
+      childInsert.executeBatch();
+    } catch (SQLException e) {
+      throw new RuntimeException("Wrong test invocation", e);
+    } finally {
+      dsl.configuration().connectionProvider().release(connection);
+    }
+  }
+
+  protected long countRows(DSLContext dsl, String tableName) {
+    return countRows(dsl, tableName, "1 = 1");
+  }
+
+  private long countRows(DSLContext dsl, String tableName, String condition) {
+    return dsl.fetchOne("SELECT COUNT(*) FROM \"" + SCHEMA_NAME + "\".\"" + tableName
+        + "\" WHERE " + condition)
+        .into(Long.class);
+  }
+
+}
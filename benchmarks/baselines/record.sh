@@ -0,0 +1,31 @@
+#!/bin/sh
+#
+# Records the JMH baseline of the current machine on benchmarks/baselines/<host>.json, together
+# with a <host>.txt file that describes the machine and the JVM that produced it.
+#
+# Any argument is passed to JMH, so a subset of the benchmarks can be recorded with, for example:
+#   benchmarks/baselines/record.sh 'R2DTranslatorBenchmark|MetainfoRepositoryBenchmark'
+
+set -e
+
+cd "$(dirname "$0")/../.."
+
+host=$(hostname -s)
+baseline=benchmarks/baselines/$host
+
+mvn -B -pl benchmarks -am package -DskipTests
+
+{
+  echo "date: $(date -u +%Y-%m-%dT%H:%M:%SZ)"
+  echo "commit: $(git rev-parse HEAD)"
+  echo "os: $(uname -srm)"
+  if command -v lscpu > /dev/null; then
+    lscpu | grep -E '^(Model name|CPU\(s\)|Thread\(s\) per core|CPU max MHz):'
+  fi
+  if [ -r /proc/meminfo ]; then
+    grep MemTotal /proc/meminfo
+  fi
+  java -version 2>&1
+} > "$baseline.txt"
+
+java -jar benchmarks/target/benchmarks.jar -rf json -rff "$baseline.json" "$@"
@@ -0,0 +1,191 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.torodb.backend.postgresql.converters.PostgreSqlValueToBinaryCopyConverter;
+import com.torodb.backend.postgresql.converters.PostgreSqlValueToCopyConverter;
+import com.torodb.backend.postgresql.copy.BinaryCopyWriter;
+import com.torodb.backend.postgresql.copy.CopyBufferPool;
+import com.torodb.backend.postgresql.copy.CopySink;
+import com.torodb.backend.postgresql.copy.TextCopyWriter;
+import com.torodb.benchmarks.DocumentGenerator.TypeMix;
+import com.torodb.core.d2r.CollectionData;
+import com.torodb.core.d2r.DocPartData;
+import com.torodb.core.d2r.DocPartRow;
+import com.torodb.core.transaction.metainf.UnmergeableException;
+import com.torodb.kvdocument.values.KvValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding of the doc part rows of a batch of documents on the text and binary
+ * PostgreSQL COPY formats, as done by
+ * {@link com.torodb.backend.postgresql.PostgreSqlWriteInterface}.
+ *
+ * <p>The encoded bytes are discarded, so no PostgreSQL server is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyEncodingBenchmark {
+
+  @Param({"1000"})
+  public int documents;
+
+  @Param({"1"})
+  public int depth;
+
+  @Param({"10"})
+  public int arraySize;
+
+  @Param({"INTEGERS", "STRINGS", "STABLE"})
+  public TypeMix typeMix;
+
+  private final CopyBufferPool bufferPool = new CopyBufferPool();
+  private CollectionData collectionData;
+  private long writtenBytes;
+
+  @Setup
+  public void setUp() throws UnmergeableException {
+    collectionData = new D2RTranslation().translateAndMerge(new DocumentGenerator.Builder()
+        .setDepth(depth)
+        .setArraySize(arraySize)
+        .setTypeMix(typeMix)
+        .build()
+        .next(documents));
+  }
+
+  @Benchmark
+  public long text() throws SQLException {
+    writtenBytes = 0;
+    for (DocPartData docPartData : collectionData.orderedDocPartData()) {
+      try (TextCopyWriter writer = new TextCopyWriter(bufferPool, this::discard)) {
+        for (DocPartRow row : docPartData) {
+          StringBuilder sb = writer.getRowBuilder();
+          appendInternalFields(sb, row);
+          for (KvValue<?> value : row.getScalarValues()) {
+            appendValue(sb, value);
+          }
+          for (KvValue<?> value : row.getFieldValues()) {
+            appendValue(sb, value);
+          }
+          sb.setCharAt(sb.length() - 1, '\n');
+          writer.endRow();
+        }
+        writer.flush();
+      }
+    }
+    return writtenBytes;
+  }
+
+  @Benchmark
+  public long binary() throws SQLException {
+    writtenBytes = 0;
+    for (DocPartData docPartData : collectionData.orderedDocPartData()) {
+      int columns = 4 + docPartData.scalarColumnsCount() + docPartData.fieldColumnsCount();
+      try (BinaryCopyWriter writer = new BinaryCopyWriter(bufferPool, this::discard)) {
+        writer.writeHeader();
+        for (DocPartRow row : docPartData) {
+          writer.startRow(columns);
+          writeInternalFields(writer, row);
+          for (KvValue<?> value : row.getScalarValues()) {
+            writeValue(writer, value);
+          }
+          for (KvValue<?> value : row.getFieldValues()) {
+            writeValue(writer, value);
+          }
+        }
+        writer.writeTrailer();
+      }
+    }
+    return writtenBytes;
+  }
+
+  private void discard(byte[] buf, int offset, int length) {
+    writtenBytes += length;
+  }
+
+  /**
+   * Writes did, rid, pid and seq on every doc part. The backend only writes the internal fields
+   * each doc part has, but the difference does not change the cost per value.
+   */
+  private static void appendInternalFields(StringBuilder sb, DocPartRow row) {
+    sb.append(row.getDid()).append('\t');
+    sb.append(row.getRid()).append('\t');
+    appendNullable(sb, row.getPid());
+    appendNullable(sb, row.getSeq());
+  }
+
+  private static void appendNullable(StringBuilder sb, Integer value) {
+    if (value == null) {
+      sb.append("\\N");
+    } else {
+      sb.append(value.intValue());
+    }
+    sb.append('\t');
+  }
+
+  private static void appendValue(StringBuilder sb, KvValue<?> value) {
+    if (value != null) {
+      value.accept(PostgreSqlValueToCopyConverter.INSTANCE, sb);
+    } else {
+      sb.append("\\N");
+    }
+    sb.append('\t');
+  }
+
+  private static void writeInternalFields(BinaryCopyWriter writer, DocPartRow row) {
+    writer.writeInt(row.getDid());
+    writer.writeInt(row.getRid());
+    writeNullable(writer, row.getPid());
+    writeNullable(writer, row.getSeq());
+  }
+
+  private static void writeNullable(BinaryCopyWriter writer, Integer value) {
+    if (value == null) {
+      writer.writeNull();
+    } else {
+      writer.writeInt(value);
+    }
+  }
+
+  private static void writeValue(BinaryCopyWriter writer, KvValue<?> value) {
+    if (value != null) {
+      value.accept(PostgreSqlValueToBinaryCopyConverter.INSTANCE, writer);
+    } else {
+      writer.writeNull();
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.torodb.backend.postgresql.PostgreSqlIdentifierConstraints;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.d2r.CollectionData;
+import com.torodb.core.d2r.D2RTranslator;
+import com.torodb.core.d2r.DefaultIdentifierFactory;
+import com.torodb.core.d2r.IdentifierFactory;
+import com.torodb.core.d2r.MemoryRidGenerator;
+import com.torodb.core.d2r.impl.D2RTranslatorStack;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.transaction.metainf.ImmutableMetaCollection;
+import com.torodb.core.transaction.metainf.ImmutableMetaDatabase;
+import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.MetainfoRepository.MergerStage;
+import com.torodb.core.transaction.metainf.MetainfoRepository.SnapshotStage;
+import com.torodb.core.transaction.metainf.MutableMetaDatabase;
+import com.torodb.core.transaction.metainf.MutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.UnmergeableException;
+import com.torodb.core.transaction.metainf.impl.metainfo.mvcc.MvccMetainfoRepository;
+import com.torodb.kvdocument.values.KvDocument;
+
+/**
+ * Translates documents to their relational representation the same way they are translated
+ * before being inserted on a PostgreSQL backend, but without a backend.
+ */
+class D2RTranslation {
+
+  private static final String DB_NAME = "bench";
+  private static final String COL_NAME = "bench";
+
+  private final TableRefFactory tableRefFactory = new TableRefFactoryImpl();
+  private final IdentifierFactory identifierFactory = new DefaultIdentifierFactory(
+      new PostgreSqlIdentifierConstraints());
+  private final MemoryRidGenerator ridGenerator = new MemoryRidGenerator();
+  private final MvccMetainfoRepository metainfoRepository = new MvccMetainfoRepository(
+      new ImmutableMetaSnapshot.Builder()
+          .put(new ImmutableMetaDatabase.Builder(DB_NAME, DB_NAME)
+              .put(new ImmutableMetaCollection.Builder(COL_NAME, COL_NAME).build())
+              .build())
+          .build());
+
+  /**
+   * Translates the given documents and stores the metadata they need, so the following
+   * translations of similar documents do not need to create new doc parts or fields.
+   */
+  CollectionData translateAndMerge(Iterable<KvDocument> docs) throws UnmergeableException {
+    MutableMetaSnapshot snapshot = createMutableSnapshot();
+    CollectionData result = translate(snapshot, docs);
+    try (MergerStage merger = metainfoRepository.startMerge(snapshot)) {
+      merger.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Translates the given documents without storing the metadata they need.
+   */
+  CollectionData translate(Iterable<KvDocument> docs) {
+    return translate(createMutableSnapshot(), docs);
+  }
+
+  private CollectionData translate(MutableMetaSnapshot snapshot, Iterable<KvDocument> docs) {
+    MutableMetaDatabase db = snapshot.getMetaDatabaseByName(DB_NAME);
+    D2RTranslator translator = new D2RTranslatorStack(tableRefFactory, identifierFactory,
+        ridGenerator, db, db.getMetaCollectionByName(COL_NAME));
+    for (KvDocument doc : docs) {
+      translator.translate(doc);
+    }
+    return translator.getCollectionDataAccumulator();
+  }
+
+  private MutableMetaSnapshot createMutableSnapshot() {
+    try (SnapshotStage snapshotStage = metainfoRepository.startSnapshotStage()) {
+      return snapshotStage.createMutableSnapshot();
+    }
+  }
+}
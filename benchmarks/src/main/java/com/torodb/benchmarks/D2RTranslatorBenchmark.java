@@ -0,0 +1,93 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.torodb.benchmarks.DocumentGenerator.TypeMix;
+import com.torodb.core.d2r.CollectionData;
+import com.torodb.core.transaction.metainf.UnmergeableException;
+import com.torodb.kvdocument.values.KvDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the translation of a batch of documents to their relational representation with
+ * {@link com.torodb.core.d2r.impl.D2RTranslatorStack}.
+ *
+ * <p>{@link #translateKnownSchema()} translates documents whose doc parts and fields are already
+ * stored on the metadata, which is the usual case, while {@link #translateNewSchema()} also has to
+ * create them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class D2RTranslatorBenchmark {
+
+  @Param({"100"})
+  public int documents;
+
+  @Param({"0", "2"})
+  public int depth;
+
+  @Param({"0", "10"})
+  public int arraySize;
+
+  @Param({"STABLE", "RANDOM"})
+  public TypeMix typeMix;
+
+  private List<KvDocument> docs;
+  private D2RTranslation knownSchemaTranslation;
+
+  @Setup
+  public void setUp() throws UnmergeableException {
+    docs = new DocumentGenerator.Builder()
+        .setDepth(depth)
+        .setArraySize(arraySize)
+        .setTypeMix(typeMix)
+        .build()
+        .next(documents);
+    knownSchemaTranslation = new D2RTranslation();
+    knownSchemaTranslation.translateAndMerge(docs);
+  }
+
+  @Benchmark
+  public CollectionData translateKnownSchema() {
+    return knownSchemaTranslation.translate(docs);
+  }
+
+  @Benchmark
+  public CollectionData translateNewSchema() {
+    return new D2RTranslation().translate(docs);
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.torodb.backend.derby.DerbyDbBackendBundle;
+import com.torodb.backend.derby.driver.DerbyDbBackendConfigBuilder;
+import com.torodb.benchmarks.DocumentGenerator.TypeMix;
+import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.bundle.BundleConfigImpl;
+import com.torodb.core.cursors.Cursor;
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.guice.EssentialModule;
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.core.supervision.Supervisor;
+import com.torodb.core.supervision.SupervisorDecision;
+import com.torodb.core.transaction.RollbackException;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.torod.ReadOnlyTorodTransaction;
+import com.torodb.torod.SharedWriteTorodTransaction;
+import com.torodb.torod.SqlTorodBundle;
+import com.torodb.torod.SqlTorodConfig;
+import com.torodb.torod.TorodConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the insertion and the retrieval of documents through torod on an in memory Derby
+ * backend, so the whole D2R, SQL and R2D path is executed without an external database.
+ *
+ * <p>The collection used by {@link #insert()} is emptied before each iteration, so its size does
+ * not grow with the number of invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DerbyInsertFindBenchmark {
+
+  private static final String DB_NAME = "bench";
+  private static final String INSERT_COL = "insert";
+  private static final String FIND_COL = "find";
+
+  @Param({"100"})
+  public int documents;
+
+  @Param({"0", "1"})
+  public int depth;
+
+  @Param({"3"})
+  public int arraySize;
+
+  private DerbyDbBackendBundle backendBundle;
+  private SqlTorodBundle torodBundle;
+  private TorodConnection connection;
+  private List<KvDocument> docs;
+
+  @Setup(Level.Trial)
+  public void setUp() throws RollbackException, UserException {
+    Supervisor supervisor = new Supervisor() {
+      @Override
+      public SupervisorDecision onError(Object supervised, Throwable error) {
+        throw new AssertionError("error on " + supervised, error);
+      }
+    };
+    Injector essentialInjector = Guice.createInjector(
+        new EssentialModule(
+            DefaultLoggerFactory.getInstance(),
+            () -> true,
+            Clock.systemUTC()
+        )
+    );
+    BundleConfig generalConfig = new BundleConfigImpl(essentialInjector, supervisor);
+
+    backendBundle = new DerbyDbBackendBundle(
+        new DerbyDbBackendConfigBuilder(generalConfig)
+            .setInMemory(true)
+            .setEmbedded(true)
+            .build()
+    );
+    backendBundle.startAsync();
+    backendBundle.awaitRunning();
+
+    torodBundle = new SqlTorodBundle(new SqlTorodConfig(
+        backendBundle,
+        essentialInjector,
+        supervisor)
+    );
+    torodBundle.startAsync();
+    torodBundle.awaitRunning();
+
+    connection = torodBundle.getExternalInterface().getTorodServer().openConnection();
+
+    docs = new DocumentGenerator.Builder()
+        .setDepth(depth)
+        .setArraySize(arraySize)
+        .setTypeMix(TypeMix.STABLE)
+        .build()
+        .next(documents);
+    insert(FIND_COL);
+  }
+
+  @Setup(Level.Iteration)
+  public void clearInsertCollection() throws RollbackException, UserException {
+    try (SharedWriteTorodTransaction trans = connection.openWriteTransaction(false)) {
+      trans.deleteAll(DB_NAME, INSERT_COL);
+      trans.commit();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (connection != null) {
+      connection.close();
+    }
+    if (torodBundle != null) {
+      torodBundle.stopAsync();
+      torodBundle.awaitTerminated();
+    }
+    if (backendBundle != null) {
+      backendBundle.stopAsync();
+      backendBundle.awaitTerminated();
+    }
+  }
+
+  @Benchmark
+  public void insert() throws RollbackException, UserException {
+    insert(INSERT_COL);
+  }
+
+  @Benchmark
+  public List<ToroDocument> findAll() {
+    try (ReadOnlyTorodTransaction trans = connection.openReadOnlyTransaction();
+        Cursor<ToroDocument> cursor = trans.findAll(DB_NAME, FIND_COL).asDocCursor()) {
+      return cursor.getRemaining();
+    }
+  }
+
+  private void insert(String colName) throws RollbackException, UserException {
+    try (SharedWriteTorodTransaction trans = connection.openWriteTransaction(false)) {
+      trans.insert(DB_NAME, colName, docs.stream());
+      trans.commit();
+    }
+  }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.google.common.base.Preconditions;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvDouble;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvLong;
+import com.torodb.kvdocument.values.KvNull;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.heap.ByteArrayKvMongoObjectId;
+import com.torodb.kvdocument.values.heap.ListKvArray;
+import com.torodb.kvdocument.values.heap.LongKvInstant;
+import com.torodb.kvdocument.values.heap.StringKvString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic documents to be used as benchmark input.
+ *
+ * <p>Each document has an {@code _id} and {@link #getFieldsPerLevel()} scalar fields on each
+ * level. Levels shallower than {@link #getDepth()} also contain a subdocument and an array of
+ * subdocuments, and every level contains an array of scalars. Arrays contain
+ * {@link #getArraySize()} elements. The types of the scalar values are chosen by the
+ * {@link TypeMix}.
+ *
+ * <p>Generators are deterministic: two generators created with the same configuration generate
+ * the same documents, so benchmark runs can be compared with each other.
+ */
+public class DocumentGenerator {
+
+  private final int depth;
+  private final int fieldsPerLevel;
+  private final int arraySize;
+  private final TypeMix typeMix;
+  private final Random random;
+  private int nextId;
+
+  private DocumentGenerator(int depth, int fieldsPerLevel, int arraySize, TypeMix typeMix,
+      long seed) {
+    this.depth = depth;
+    this.fieldsPerLevel = fieldsPerLevel;
+    this.arraySize = arraySize;
+    this.typeMix = typeMix;
+    this.random = new Random(seed);
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public int getFieldsPerLevel() {
+    return fieldsPerLevel;
+  }
+
+  public int getArraySize() {
+    return arraySize;
+  }
+
+  public TypeMix getTypeMix() {
+    return typeMix;
+  }
+
+  public KvDocument next() {
+    KvDocument.Builder builder = new KvDocument.Builder()
+        .putValue("_id", nextId++);
+    fillLevel(builder, 0);
+    return builder.build();
+  }
+
+  public List<KvDocument> next(int count) {
+    List<KvDocument> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(next());
+    }
+    return result;
+  }
+
+  private void fillLevel(KvDocument.Builder builder, int level) {
+    for (int i = 0; i < fieldsPerLevel; i++) {
+      builder.putValue("f" + i, nextScalar(i));
+    }
+
+    List<KvValue<?>> scalars = new ArrayList<>(arraySize);
+    for (int i = 0; i < arraySize; i++) {
+      scalars.add(nextScalar(i));
+    }
+    builder.putValue("scalars", new ListKvArray(scalars));
+
+    if (level < depth) {
+      builder.putValue("sub", nextSubdocument(level + 1));
+
+      List<KvValue<?>> subdocs = new ArrayList<>(arraySize);
+      for (int i = 0; i < arraySize; i++) {
+        subdocs.add(nextSubdocument(level + 1));
+      }
+      builder.putValue("subs", new ListKvArray(subdocs));
+    }
+  }
+
+  private KvDocument nextSubdocument(int level) {
+    KvDocument.Builder builder = new KvDocument.Builder();
+    fillLevel(builder, level);
+    return builder.build();
+  }
+
+  private KvValue<?> nextScalar(int position) {
+    switch (typeMix.typeOf(position, random)) {
+      case INTEGER:
+        return KvInteger.of(random.nextInt());
+      case LONG:
+        return KvLong.of(random.nextLong());
+      case DOUBLE:
+        return KvDouble.of(random.nextDouble());
+      case BOOLEAN:
+        return KvBoolean.from(random.nextBoolean());
+      case STRING:
+        return new StringKvString("value" + random.nextInt(1000));
+      case INSTANT:
+        return new LongKvInstant(random.nextInt() & 0x7FFFFFFFL);
+      case OBJECT_ID: {
+        byte[] objectId = new byte[12];
+        random.nextBytes(objectId);
+        return new ByteArrayKvMongoObjectId(objectId);
+      }
+      case NULL:
+        return KvNull.getInstance();
+      default:
+        throw new AssertionError("Unexpected scalar type");
+    }
+  }
+
+  private static enum ScalarType {
+    INTEGER,
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    STRING,
+    INSTANT,
+    OBJECT_ID,
+    NULL;
+  }
+
+  /**
+   * The types of the generated scalar values.
+   */
+  public static enum TypeMix {
+    /**
+     * Only integers.
+     */
+    INTEGERS {
+      @Override
+      ScalarType typeOf(int position, Random random) {
+        return ScalarType.INTEGER;
+      }
+    },
+    /**
+     * Only strings.
+     */
+    STRINGS {
+      @Override
+      ScalarType typeOf(int position, Random random) {
+        return ScalarType.STRING;
+      }
+    },
+    /**
+     * Each field has always the same type, chosen among integers, longs, doubles, booleans,
+     * strings, instants, object ids and nulls.
+     */
+    STABLE {
+      @Override
+      ScalarType typeOf(int position, Random random) {
+        return SCALAR_TYPES[position % SCALAR_TYPES.length];
+      }
+    },
+    /**
+     * Each value has a random type, so the same field has different types on different documents.
+     */
+    RANDOM {
+      @Override
+      ScalarType typeOf(int position, Random random) {
+        return SCALAR_TYPES[random.nextInt(SCALAR_TYPES.length)];
+      }
+    };
+
+    private static final ScalarType[] SCALAR_TYPES = ScalarType.values();
+
+    abstract ScalarType typeOf(int position, Random random);
+  }
+
+  public static class Builder {
+
+    private int depth = 1;
+    private int fieldsPerLevel = 5;
+    private int arraySize = 3;
+    private TypeMix typeMix = TypeMix.STABLE;
+    private long seed = 0;
+
+    public Builder setDepth(int depth) {
+      Preconditions.checkArgument(depth >= 0, "The depth cannot be negative");
+      this.depth = depth;
+      return this;
+    }
+
+    public Builder setFieldsPerLevel(int fieldsPerLevel) {
+      Preconditions.checkArgument(fieldsPerLevel >= 0,
+          "The number of fields per level cannot be negative");
+      this.fieldsPerLevel = fieldsPerLevel;
+      return this;
+    }
+
+    public Builder setArraySize(int arraySize) {
+      Preconditions.checkArgument(arraySize >= 0, "The array size cannot be negative");
+      this.arraySize = arraySize;
+      return this;
+    }
+
+    public Builder setTypeMix(TypeMix typeMix) {
+      this.typeMix = typeMix;
+      return this;
+    }
+
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    public DocumentGenerator build() {
+      return new DocumentGenerator(depth, fieldsPerLevel, arraySize, typeMix, seed);
+    }
+  }
+}
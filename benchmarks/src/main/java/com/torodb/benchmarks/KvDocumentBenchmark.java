@@ -0,0 +1,107 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.torodb.benchmarks.DocumentGenerator.TypeMix;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvDocument.DocEntry;
+import com.torodb.kvdocument.values.KvValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of documents with {@link KvDocument.Builder} and the lookup of their
+ * fields by key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KvDocumentBenchmark {
+
+  @Param({"100"})
+  public int documents;
+
+  @Param({"5", "50"})
+  public int fieldsPerLevel;
+
+  @Param({"0", "10"})
+  public int arraySize;
+
+  private List<KvDocument> docs;
+  private List<String> keys;
+
+  @Setup
+  public void setUp() {
+    docs = new DocumentGenerator.Builder()
+        .setDepth(1)
+        .setFieldsPerLevel(fieldsPerLevel)
+        .setArraySize(arraySize)
+        .setTypeMix(TypeMix.STABLE)
+        .build()
+        .next(documents);
+    keys = new ArrayList<>();
+    docs.get(0).getKeys().forEach(keys::add);
+  }
+
+  @Benchmark
+  public void build(Blackhole blackhole) {
+    for (KvDocument doc : docs) {
+      blackhole.consume(copy(doc));
+    }
+  }
+
+  @Benchmark
+  public void get(Blackhole blackhole) {
+    for (KvDocument doc : docs) {
+      for (String key : keys) {
+        blackhole.consume(doc.get(key));
+      }
+    }
+  }
+
+  private static KvDocument copy(KvDocument doc) {
+    KvDocument.Builder builder = new KvDocument.Builder();
+    for (DocEntry<?> entry : doc) {
+      KvValue<?> value = entry.getValue();
+      if (value instanceof KvDocument) {
+        value = copy((KvDocument) value);
+      }
+      builder.putValue(entry.getKey(), value);
+    }
+    return builder.build();
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.benchmarks;
+
+import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.MetainfoRepository;
+import com.torodb.core.transaction.metainf.MetainfoRepository.MergerStage;
+import com.torodb.core.transaction.metainf.MetainfoRepository.SnapshotStage;
+import com.torodb.core.transaction.metainf.MutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.UnmergeableException;
+import com.torodb.core.transaction.metainf.impl.metainfo.mvcc.LockFreeMetainfoRepository;
+import com.torodb.core.transaction.metainf.impl.metainfo.mvcc.MvccMetainfoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the throughput of {@link MvccMetainfoRepository} and
+ * {@link LockFreeMetainfoRepository} when several readers keep their {@link SnapshotStage
+ * snapshot stages} open meanwhile a writer adds collections.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetainfoRepositoryBenchmark {
+
+  private static final String DB_NAME = "db";
+
+  @Param({"mvcc", "lockFree"})
+  public String implementation;
+
+  /**
+   * The work done by readers meanwhile their snapshot stage is open, in JMH tokens.
+   */
+  @Param({"0", "1000"})
+  public long readerWork;
+
+  private MetainfoRepository repository;
+  private final AtomicInteger collectionCounter = new AtomicInteger();
+
+  @Setup(Level.Iteration)
+  public void setUp() throws UnmergeableException {
+    switch (implementation) {
+      case "mvcc":
+        repository = new MvccMetainfoRepository();
+        break;
+      case "lockFree":
+        repository = new LockFreeMetainfoRepository();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown implementation " + implementation);
+    }
+
+    MutableMetaSnapshot snapshot;
+    try (SnapshotStage stage = repository.startSnapshotStage()) {
+      snapshot = stage.createMutableSnapshot();
+    }
+    snapshot.addMetaDatabase(DB_NAME, DB_NAME);
+    try (MergerStage mergeStage = repository.startMerge(snapshot)) {
+      mergeStage.commit();
+    }
+  }
+
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(3)
+  public ImmutableMetaSnapshot read() {
+    try (SnapshotStage stage = repository.startSnapshotStage()) {
+      ImmutableMetaSnapshot snapshot = stage.createImmutableSnapshot();
+      Blackhole.consumeCPU(readerWork);
+      return snapshot;
+    }
+  }
+
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(1)
+  public void write() throws UnmergeableException {
+    MutableMetaSnapshot snapshot;
+    try (SnapshotStage stage = repository.startSnapshotStage()) {
+      snapshot = stage.createMutableSnapshot();
+    }
+    String colName = "col" + collectionCounter.incrementAndGet();
+    snapshot.getMetaDatabaseByName(DB_NAME)
+        .addMetaCollection(colName, colName);
+    try (MergerStage mergeStage = repository.startMerge(snapshot)) {
+      mergeStage.commit();
+    }
+  }
+
+}
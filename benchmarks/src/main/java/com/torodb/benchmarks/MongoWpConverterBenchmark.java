@@ -0,0 +1,97 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.torodb.benchmarks.DocumentGenerator.TypeMix;
+import com.torodb.kvdocument.conversion.mongowp.MongoWpConverter;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.mongowp.bson.BsonDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the translation of documents between mongowp BSON values and KvDocuments with
+ * {@link MongoWpConverter}, which is done on each document received from or sent to a client or
+ * a replication sync source.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MongoWpConverterBenchmark {
+
+  @Param({"100"})
+  public int documents;
+
+  @Param({"0", "2"})
+  public int depth;
+
+  @Param({"0", "10"})
+  public int arraySize;
+
+  @Param({"STABLE"})
+  public TypeMix typeMix;
+
+  private List<KvDocument> kvDocs;
+  private List<BsonDocument> bsonDocs;
+
+  @Setup
+  public void setUp() {
+    kvDocs = new DocumentGenerator.Builder()
+        .setDepth(depth)
+        .setArraySize(arraySize)
+        .setTypeMix(typeMix)
+        .build()
+        .next(documents);
+    bsonDocs = kvDocs.stream()
+        .map(doc -> (BsonDocument) MongoWpConverter.translate(doc))
+        .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void fromBson(Blackhole blackhole) {
+    for (BsonDocument doc : bsonDocs) {
+      blackhole.consume(MongoWpConverter.toEagerDocument(doc));
+    }
+  }
+
+  @Benchmark
+  public void toBson(Blackhole blackhole) {
+    for (KvDocument doc : kvDocs) {
+      blackhole.consume(MongoWpConverter.translate(doc));
+    }
+  }
+
+}
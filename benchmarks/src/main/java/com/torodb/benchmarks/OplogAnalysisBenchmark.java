@@ -0,0 +1,154 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.benchmarks;
+
+import com.torodb.benchmarks.DocumentGenerator.TypeMix;
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.kvdocument.conversion.mongowp.MongoWpConverter;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvDocument.DocEntry;
+import com.torodb.mongodb.repl.oplogreplier.ApplierContext;
+import com.torodb.mongodb.repl.oplogreplier.analyzed.AnalyzedOp;
+import com.torodb.mongodb.repl.oplogreplier.analyzed.AnalyzedOpReducer;
+import com.torodb.mongodb.repl.oplogreplier.batch.AnalyzedOplogBatch;
+import com.torodb.mongodb.repl.oplogreplier.batch.BatchAnalyzer;
+import com.torodb.mongowp.OpTime;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.bson.utils.DefaultBsonValues;
+import com.torodb.mongowp.commands.oplog.CollectionOplogOperation;
+import com.torodb.mongowp.commands.oplog.DeleteOplogOperation;
+import com.torodb.mongowp.commands.oplog.InsertOplogOperation;
+import com.torodb.mongowp.commands.oplog.OplogOperation;
+import com.torodb.mongowp.commands.oplog.OplogVersion;
+import com.torodb.mongowp.commands.oplog.UpdateOplogOperation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the analysis of an oplog batch made of inserts, updates and deletes, as done by the
+ * oplog applier before the batch is executed.
+ *
+ * <p>{@link #analyze()} splits the batch with {@link BatchAnalyzer}, which also reduces the
+ * operations of each document, while {@link #reduce()} only reduces them with
+ * {@link AnalyzedOpReducer}. The fewer distinct documents a batch modifies, the more operations
+ * are reduced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OplogAnalysisBenchmark {
+
+  private static final String DB_NAME = "bench";
+
+  @Param({"1000"})
+  public int batchSize;
+
+  @Param({"10", "1000"})
+  public int distinctDocuments;
+
+  @Param({"1", "10"})
+  public int collections;
+
+  private final ApplierContext context = new ApplierContext.Builder()
+      .setReapplying(true)
+      .setUpdatesAsUpserts(true)
+      .build();
+  private final AnalyzedOpReducer reducer = new AnalyzedOpReducer(false);
+  private BatchAnalyzer batchAnalyzer;
+  private List<OplogOperation> ops;
+  private List<CollectionOplogOperation> collectionOps;
+
+  @Setup
+  public void setUp() {
+    batchAnalyzer = new BatchAnalyzer(context, DefaultLoggerFactory.getInstance(), reducer);
+
+    DocumentGenerator generator = new DocumentGenerator.Builder()
+        .setDepth(1)
+        .setTypeMix(TypeMix.STABLE)
+        .build();
+    Random random = new Random(0);
+    ops = new ArrayList<>(batchSize);
+    collectionOps = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      int docId = random.nextInt(distinctDocuments);
+      String colName = "col" + (docId % collections);
+      OpTime opTime = new OpTime(DefaultBsonValues.newTimestamp(i + 1, 0));
+      BsonDocument filter = DefaultBsonValues.newDocument("_id",
+          DefaultBsonValues.newInt(docId));
+
+      CollectionOplogOperation op;
+      int type = random.nextInt(10);
+      if (type < 5) {
+        op = new InsertOplogOperation(withId(generator.next(), docId), DB_NAME, colName, opTime,
+            i, OplogVersion.V1, false);
+      } else if (type < 8) {
+        BsonDocument modification = DefaultBsonValues.newDocument("$set",
+            DefaultBsonValues.newDocument("f0", DefaultBsonValues.newInt(i)));
+        op = new UpdateOplogOperation(filter, DB_NAME, colName, opTime, i, OplogVersion.V1,
+            false, modification, false);
+      } else {
+        op = new DeleteOplogOperation(filter, DB_NAME, colName, opTime, i, OplogVersion.V1,
+            false, true);
+      }
+      ops.add(op);
+      collectionOps.add(op);
+    }
+  }
+
+  @Benchmark
+  public List<AnalyzedOplogBatch> analyze() {
+    return batchAnalyzer.apply(ops);
+  }
+
+  @Benchmark
+  public Map<BsonValue<?>, AnalyzedOp> reduce() {
+    return reducer.analyzeAndReduce(collectionOps.stream(), context);
+  }
+
+  private static BsonDocument withId(KvDocument doc, int id) {
+    KvDocument.Builder builder = new KvDocument.Builder()
+        .putValue("_id", id);
+    for (DocEntry<?> entry : doc) {
+      if (!entry.getKey().equals("_id")) {
+        builder.putValue(entry.getKey(), entry.getValue());
+      }
+    }
+    return (BsonDocument) MongoWpConverter.translate(builder.build());
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.benchmarks;
+
+import com.google.common.collect.Lists;
+import com.torodb.core.TableRef;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.d2r.DocPartResult;
+import com.torodb.core.d2r.R2DTranslator;
+import com.torodb.core.d2r.impl.ColumnarR2DTranslator;
+import com.torodb.core.d2r.impl.MetaDocPartBuilder;
+import com.torodb.core.d2r.impl.R2DTranslatorImpl;
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import com.torodb.core.transaction.metainf.FieldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link R2DTranslatorImpl} and {@link ColumnarR2DTranslator} translating a batch of
+ * documents like <code>{name: "...", age: 1, numbers: [1, 2, ...], items: [{k: "...", v: 1},
+ * ...]}</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class R2DTranslatorBenchmark {
+
+  private static final boolean IS_ARRAY = true;
+
+  @Param({"row", "columnar"})
+  public String implementation;
+
+  @Param({"100", "1000"})
+  public int documents;
+
+  @Param({"0", "10", "100"})
+  public int arraySize;
+
+  private R2DTranslator translator;
+  private MetaDocPartBuilder rootBuilder;
+  private MetaDocPartBuilder numbersBuilder;
+  private MetaDocPartBuilder itemsBuilder;
+
+  @Setup
+  public void setUp() {
+    switch (implementation) {
+      case "row":
+        translator = new R2DTranslatorImpl();
+        break;
+      case "columnar":
+        translator = new ColumnarR2DTranslator();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown implementation " + implementation);
+    }
+
+    TableRefFactory tableRefFactory = new TableRefFactoryImpl();
+    TableRef rootRef = tableRefFactory.createRoot();
+
+    rootBuilder = new MetaDocPartBuilder(rootRef);
+    rootBuilder.addMetaField("name", "name_s", FieldType.STRING);
+    rootBuilder.addMetaField("age", "age_i", FieldType.INTEGER);
+    rootBuilder.addMetaField("numbers", "numbers_e", FieldType.CHILD);
+    rootBuilder.addMetaField("items", "items_e", FieldType.CHILD);
+
+    numbersBuilder = new MetaDocPartBuilder(tableRefFactory.createChild(rootRef, "numbers"));
+    numbersBuilder.addMetaScalar("v_i", FieldType.INTEGER);
+
+    itemsBuilder = new MetaDocPartBuilder(tableRefFactory.createChild(rootRef, "items"));
+    itemsBuilder.addMetaField("k", "k_s", FieldType.STRING);
+    itemsBuilder.addMetaField("v", "v_i", FieldType.INTEGER);
+
+    int rid = 0;
+    for (int did = 0; did < documents; did++) {
+      rootBuilder.addRow(did, null, did, null, "name" + did, did, IS_ARRAY, IS_ARRAY);
+      for (int seq = 0; seq < arraySize; seq++) {
+        numbersBuilder.addRow(did, did, rid++, seq, seq);
+        itemsBuilder.addRow(did, did, rid++, seq, "key" + seq, seq);
+      }
+    }
+  }
+
+  @Benchmark
+  public List<ToroDocument> translate() {
+    List<DocPartResult> docPartResults = Lists.newArrayList(
+        numbersBuilder.getResultSet(),
+        itemsBuilder.getResultSet(),
+        rootBuilder.getResultSet()
+    );
+    return translator.translate(docPartResults.iterator());
+  }
+
+}
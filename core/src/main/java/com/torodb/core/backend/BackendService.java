@@ -23,6 +23,9 @@ import com.torodb.common.util.Empty;
 import com.torodb.core.transaction.RollbackException;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
 
 public interface BackendService extends Service {
@@ -50,4 +53,41 @@ public interface BackendService extends Service {
    */
   public CompletableFuture<Empty> enableDataImportMode(MetaDatabase metaDb)
       throws RollbackException;
+
+  /**
+   * Returns true if some data imported on data import mode could have been lost because that mode
+   * was not disabled before the backend stopped.
+   *
+   * <p>Backends that store the imported data as durably as on the normal mode always return false.
+   */
+  public default boolean isImportedDataLossPossible() {
+    return false;
+  }
+
+  /**
+   * Returns true if the data imported on data import mode is stored as durably as on the normal
+   * mode, even before that mode is disabled.
+   *
+   * <p>When it is not, a crash of the backend while the data import mode is enabled can lose the
+   * data imported so far, even if the data import mode is disabled later.
+   */
+  public default boolean isDataImportModeDurable() {
+    return true;
+  }
+
+  /**
+   * Returns the max number of connections that can have an open read only transaction at the same
+   * time, or an empty value if there is no such limit.
+   */
+  public default OptionalInt getMaxReadOnlyConnections() {
+    return OptionalInt.empty();
+  }
+
+  /**
+   * Returns the state of the pools of connections this backend keeps with its database, which is
+   * empty if the backend does not use pools or it is not running.
+   */
+  public default List<ConnectionPoolStats> getConnectionPoolStats() {
+    return Collections.emptyList();
+  }
 }
@@ -21,6 +21,7 @@ package com.torodb.core.backend;
 import com.google.common.collect.Multimap;
 import com.torodb.core.cursors.Cursor;
 import com.torodb.core.exceptions.InvalidDatabaseException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
 import com.torodb.core.transaction.metainf.MetaDocPart;
@@ -50,6 +51,19 @@ public interface BackendTransaction extends AutoCloseable {
   public BackendCursor findByField(MetaDatabase db, MetaCollection col,
       MetaDocPart docPart, MetaField field, KvValue<?> value);
 
+  /**
+   * Return a cursor that iterates over all documents that fulfill the given criteria.
+   *
+   * The whole criteria is evaluated by the backend, so only the matching documents are fetched.
+   *
+   * @param db
+   * @param col
+   * @param criteria
+   * @return
+   */
+  public BackendCursor findByCriteria(MetaDatabase db, MetaCollection col,
+      QueryCriteria criteria);
+
   /**
    * Return a cursor that iterates over all documents that fulfill the query.
    *
@@ -0,0 +1,87 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.core.backend;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The state of one of the pools of connections a backend keeps with its database.
+ */
+@Immutable
+public class ConnectionPoolStats {
+
+  private final String poolName;
+  private final int activeConnections;
+  private final int idleConnections;
+  private final int totalConnections;
+  private final int maxConnections;
+
+  public ConnectionPoolStats(String poolName, int activeConnections, int idleConnections,
+      int totalConnections, int maxConnections) {
+    this.poolName = poolName;
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+    this.totalConnections = totalConnections;
+    this.maxConnections = maxConnections;
+  }
+
+  public String getPoolName() {
+    return poolName;
+  }
+
+  /**
+   * The number of connections that are currently in use.
+   */
+  public int getActiveConnections() {
+    return activeConnections;
+  }
+
+  /**
+   * The number of open connections that are not in use.
+   */
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  /**
+   * The number of open connections, in use or not.
+   */
+  public int getTotalConnections() {
+    return totalConnections;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * The number of connections that can still be obtained from the pool without waiting, either
+   * because they are idle or because they can be opened.
+   */
+  public int getAvailableConnections() {
+    return Math.max(0, maxConnections - activeConnections);
+  }
+
+  @Override
+  public String toString() {
+    return poolName + "{active=" + activeConnections + ", idle=" + idleConnections + ", total="
+        + totalConnections + ", max=" + maxConnections + '}';
+  }
+
+}
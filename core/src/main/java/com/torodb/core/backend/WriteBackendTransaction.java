@@ -20,6 +20,7 @@ package com.torodb.core.backend;
 
 import com.torodb.core.d2r.DocPartData;
 import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.RollbackException;
 import com.torodb.core.transaction.metainf.MetaCollection;
 import com.torodb.core.transaction.metainf.MetaDatabase;
@@ -33,6 +34,7 @@ import com.torodb.core.transaction.metainf.MutableMetaDocPart;
 import com.torodb.kvdocument.values.KvValue;
 
 import java.util.Collection;
+import java.util.Map;
 
 public interface WriteBackendTransaction extends BackendTransaction {
   
@@ -145,6 +147,45 @@ public interface WriteBackendTransaction extends BackendTransaction {
 
   public void deleteDids(MetaDatabase db, MetaCollection col, Collection<Integer> dids);
 
+  /**
+   * Sets the given values on the row of a document stored on the given doc part.
+   *
+   * <p>The doc part must contain at most one row per document, which is the case of the root doc
+   * part and the ones that are only reached through object keys.
+   *
+   * @param db        the database that contains the given collection
+   * @param col       the collection that contains the given doc part
+   * @param docPart   the doc part whose row will be updated
+   * @param did       the document whose row will be updated
+   * @param newValues the new value of each field. A null value sets the field to null
+   * @return the number of updated rows, which is 0 if the document has no row on the doc part
+   * @throws UserException if the new values violate a unique index
+   */
+  public int updateDocPartRow(MetaDatabase db, MetaCollection col, MetaDocPart docPart, int did,
+      Map<MetaField, KvValue<?>> newValues) throws UserException;
+
+  /**
+   * Deletes all documents stored on a collection.
+   *
+   * <p>Backends are free to use operations that do not scan the collection, even if they have
+   * stronger locking requirements than a row by row delete.
+   *
+   * @param db  the database that contains the collection
+   * @param col the collection whose documents will be deleted
+   * @return the number of deleted documents
+   */
+  public long deleteAll(MetaDatabase db, MetaCollection col);
+
+  /**
+   * Deletes the documents stored on a collection that fulfill the given criteria.
+   *
+   * @param db       the database that contains the collection
+   * @param col      the collection whose documents will be deleted
+   * @param criteria the criteria the deleted documents must fulfill
+   * @return the number of deleted documents
+   */
+  public long deleteByCriteria(MetaDatabase db, MetaCollection col, QueryCriteria criteria);
+
   /**
    * Create a logical index on doc part. If not yet existing, a physical index will be created for
    * each existent and future doc part fields and scalars that satisfy logical index definition.
@@ -64,6 +64,14 @@ public interface Cursor<E> extends AutoCloseable, Iterator<E> {
     return new TransformCursor<>(this, transformation);
   }
 
+  /**
+   * Returns a cursor that iterates at most the given number of elements of this cursor.
+   */
+  @Nonnull
+  default Cursor<E> limit(long limit) {
+    return new LimitCursor<>(this, limit);
+  }
+
   @Nonnull
   default BatchCursor<E> batch(int size) {
     return new BatchCursor<>(this, size);
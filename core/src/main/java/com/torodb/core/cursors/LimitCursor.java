@@ -0,0 +1,57 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.core.cursors;
+
+import com.google.common.base.Preconditions;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A cursor that iterates at most a given number of elements of the delegated cursor.
+ */
+public class LimitCursor<E> implements Cursor<E> {
+
+  private final Cursor<E> delegate;
+  private long remaining;
+
+  public LimitCursor(Cursor<E> delegate, long limit) {
+    Preconditions.checkArgument(limit >= 0, "The limit must be non negative");
+    this.delegate = delegate;
+    this.remaining = limit;
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return remaining > 0 && delegate.hasNext();
+  }
+
+  @Override
+  public E next() {
+    if (remaining <= 0) {
+      throw new NoSuchElementException();
+    }
+    remaining--;
+    return delegate.next();
+  }
+}
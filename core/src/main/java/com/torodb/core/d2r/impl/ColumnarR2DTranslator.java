@@ -0,0 +1,346 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.core.d2r.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.torodb.core.TableRef;
+import com.torodb.core.d2r.DocPartResult;
+import com.torodb.core.d2r.DocPartResultRow;
+import com.torodb.core.d2r.InternalFields;
+import com.torodb.core.d2r.R2DTranslator;
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.core.transaction.metainf.MetaDocPart;
+import com.torodb.core.transaction.metainf.MetaField;
+import com.torodb.core.transaction.metainf.MetaScalar;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.heap.ListKvArray;
+import com.torodb.kvdocument.values.heap.MapKvDocument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link R2DTranslator} that produces the same documents than {@link R2DTranslatorImpl} but
+ * reduces the per row work.
+ *
+ * <p>The columns of each {@link DocPartResult} are resolved once into a {@link ColumnPlan}
+ * instead of iterating the meta doc part on each row, the values of the child doc parts are
+ * indexed by the rid of their parent on a primitive open addressing map and documents are built
+ * directly on a presized map instead of using a document builder. Child rows are placed on their
+ * array position as they are read, so rows sorted by (pid, seq) are assembled in a single pass.
+ */
+public class ColumnarR2DTranslator implements R2DTranslator {
+
+  @Override
+  public List<ToroDocument> translate(Iterator<DocPartResult> docPartResultIt) {
+    ImmutableList.Builder<ToroDocument> readDocuments = ImmutableList.builder();
+
+    //values read from doc parts whose parent doc part has not been read yet, indexed by the
+    //table ref of the parent
+    Map<TableRef, RidMap<ChildCell>> pendingChildren = new HashMap<>();
+
+    while (docPartResultIt.hasNext()) {
+      DocPartResult docPartResult = docPartResultIt.next();
+      ColumnPlan plan = new ColumnPlan(docPartResult.getMetaDocPart());
+
+      RidMap<ChildCell> childCells = pendingChildren.remove(plan.tableRef);
+      RidMap<ChildCell> parentCells;
+      if (plan.parentRef == null) {
+        parentCells = null;
+      } else {
+        parentCells = pendingChildren.computeIfAbsent(plan.parentRef, ref -> new RidMap<>());
+      }
+
+      readResult(plan, docPartResult, childCells, parentCells, readDocuments);
+    }
+
+    return readDocuments.build();
+  }
+
+  private void readResult(ColumnPlan plan, DocPartResult docPartResult,
+      RidMap<ChildCell> childCells, RidMap<ChildCell> parentCells,
+      ImmutableList.Builder<ToroDocument> readDocuments) {
+    final FieldType[] scalarTypes = plan.scalarTypes;
+    final FieldType[] fieldTypes = plan.fieldTypes;
+    final String[] fieldNames = plan.fieldNames;
+
+    while (docPartResult.hasNext()) {
+      DocPartResultRow row = docPartResult.next();
+      int rid = row.getRid();
+      ChildCell childCell = childCells != null ? childCells.get(rid) : null;
+
+      KvValue<?> scalarValue = null;
+      int fieldIndex = 0;
+      while (fieldIndex < scalarTypes.length && scalarValue == null) {
+        scalarValue = row.getUserValue(fieldIndex, scalarTypes[fieldIndex]);
+        if (scalarValue != null && scalarTypes[fieldIndex] == FieldType.CHILD) {
+          scalarValue = getChildValue(scalarValue, plan.cellName, childCell);
+        }
+        fieldIndex++;
+      }
+
+      if (scalarValue != null) {
+        Integer seq = row.getSeq();
+        assert seq != null : "found scalar value outside of an array";
+        addToParent(parentCells, row.getPid(), plan.cellName, seq, scalarValue);
+        continue;
+      }
+
+      LinkedHashMap<String, KvValue<?>> values = new LinkedHashMap<>(plan.documentCapacity);
+      for (int i = 0; i < fieldTypes.length; i++) {
+        KvValue<?> value = row.getUserValue(scalarTypes.length + i, fieldTypes[i]);
+        if (value != null) {
+          if (fieldTypes[i] == FieldType.CHILD) {
+            value = getChildValue(value, fieldNames[i], childCell);
+          }
+          values.put(fieldNames[i], value);
+        }
+      }
+      MapKvDocument document = new MapKvDocument(values);
+
+      if (parentCells == null) {
+        readDocuments.add(new ToroDocument(row.getDid(), document));
+      } else {
+        addToParent(parentCells, row.getPid(), plan.cellName, row.getSeq(), document);
+      }
+    }
+  }
+
+  private KvValue<?> getChildValue(KvValue<?> value, String key, ChildCell childCell) {
+    KvBoolean child = (KvBoolean) value;
+    List<KvValue<?>> elements = childCell != null ? childCell.get(key) : null;
+    if (child.getValue() == InternalFields.CHILD_ARRAY_VALUE) {
+      if (elements == null) {
+        return new ListKvArray(ImmutableList.of());
+      }
+      return new ListKvArray(elements);
+    } else {
+      assert elements != null : "found a child document without rows";
+      return elements.get(0);
+    }
+  }
+
+  private void addToParent(RidMap<ChildCell> parentCells, int pid, String cellName,
+      Integer seq, KvValue<?> value) {
+    ChildCell parentCell = parentCells.get(pid);
+    if (parentCell == null) {
+      parentCell = new ChildCell();
+      parentCells.put(pid, parentCell);
+    }
+    if (seq == null) {
+      parentCell.set(cellName, value);
+    } else {
+      parentCell.add(cellName, seq, value);
+    }
+  }
+
+  /**
+   * The columns of a doc part, resolved once per {@link DocPartResult}.
+   */
+  private static final class ColumnPlan {
+
+    private final TableRef tableRef;
+    private final TableRef parentRef;
+    private final String cellName;
+    private final FieldType[] scalarTypes;
+    private final FieldType[] fieldTypes;
+    private final String[] fieldNames;
+    private final int documentCapacity;
+
+    private ColumnPlan(MetaDocPart metaDocPart) {
+      this.tableRef = metaDocPart.getTableRef();
+      this.parentRef = tableRef.getParent().orElse(null);
+      this.cellName = getCellName(tableRef);
+      //backends select the scalar columns and then the field columns in the order they are
+      //streamed by the meta doc part, so the column indexes can be resolved here
+      this.scalarTypes = metaDocPart.streamScalars()
+          .map(MetaScalar::getType)
+          .toArray(FieldType[]::new);
+      List<? extends MetaField> fields = metaDocPart.streamFields()
+          .collect(Collectors.toList());
+      this.fieldTypes = new FieldType[fields.size()];
+      this.fieldNames = new String[fields.size()];
+      for (int i = 0; i < fieldTypes.length; i++) {
+        fieldTypes[i] = fields.get(i).getType();
+        fieldNames[i] = fields.get(i).getName();
+      }
+      //there is a column per name and type, but usually only one type per name
+      this.documentCapacity = (int) (fieldNames.length / 0.75f) + 1;
+    }
+
+    private static String getCellName(TableRef tableRef) {
+      while (tableRef.isInArray()) {
+        tableRef = tableRef.getParent().get();
+      }
+      return tableRef.getName();
+    }
+  }
+
+  /**
+   * The values that the child doc parts contribute to a single row of their parent doc part,
+   * indexed by the attribute name on the parent row.
+   */
+  private static final class ChildCell {
+
+    private String[] names = new String[2];
+    private List<?>[] elements = new List<?>[2];
+    private int size = 0;
+
+    @SuppressWarnings("unchecked")
+    private List<KvValue<?>> get(String name) {
+      int index = indexOf(name);
+      return index < 0 ? null : (List<KvValue<?>>) elements[index];
+    }
+
+    private void set(String name, KvValue<?> value) {
+      int index = indexOf(name);
+      if (index < 0) {
+        index = append(name);
+      }
+      elements[index] = Collections.singletonList(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(String name, int seq, KvValue<?> value) {
+      int index = indexOf(name);
+      ArrayList<KvValue<?>> list;
+      if (index < 0) {
+        list = new ArrayList<>();
+        elements[append(name)] = list;
+      } else {
+        list = (ArrayList<KvValue<?>>) elements[index];
+      }
+      int listSize = list.size();
+      if (seq == listSize) {
+        list.add(value);
+      } else if (seq < listSize) {
+        list.set(seq, value);
+      } else {
+        list.ensureCapacity(seq + 1);
+        for (int i = listSize; i < seq; i++) {
+          list.add(null);
+        }
+        list.add(value);
+      }
+    }
+
+    private int indexOf(String name) {
+      for (int i = 0; i < size; i++) {
+        if (names[i] == name || names[i].equals(name)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private int append(String name) {
+      if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+        elements = Arrays.copyOf(elements, size * 2);
+      }
+      names[size] = name;
+      return size++;
+    }
+  }
+
+  /**
+   * An open addressing hash map whose keys are rids, which avoids boxing the keys and allocating
+   * an entry per mapping.
+   */
+  static final class RidMap<V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    RidMap() {
+      keys = new int[INITIAL_CAPACITY];
+      values = new Object[INITIAL_CAPACITY];
+      mask = INITIAL_CAPACITY - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+      int index = hash(key) & mask;
+      Object value;
+      while ((value = values[index]) != null) {
+        if (keys[index] == key) {
+          return (V) value;
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+
+    void put(int key, V value) {
+      assert value != null;
+      int index = hash(key) & mask;
+      while (values[index] != null) {
+        if (keys[index] == key) {
+          values[index] = value;
+          return;
+        }
+        index = (index + 1) & mask;
+      }
+      keys[index] = key;
+      values[index] = value;
+      size++;
+      if (size * 2 > keys.length) {
+        resize();
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize() {
+      int[] oldKeys = keys;
+      Object[] oldValues = values;
+      keys = new int[oldKeys.length * 2];
+      values = new Object[oldValues.length * 2];
+      mask = keys.length - 1;
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldValues[i] != null) {
+          put(oldKeys[i], (V) oldValues[i]);
+        }
+      }
+    }
+
+    private static int hash(int key) {
+      int h = key * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+}
@@ -29,6 +29,16 @@ import com.torodb.core.d2r.R2DTranslator;
  */
 public class D2RModule extends PrivateModule {
 
+  private final R2DImplementation r2dImplementation;
+
+  public D2RModule() {
+    this(R2DImplementation.ROW);
+  }
+
+  public D2RModule(R2DImplementation r2dImplementation) {
+    this.r2dImplementation = r2dImplementation;
+  }
+
   @Override
   protected void configure() {
     install(new FactoryModuleBuilder()
@@ -38,8 +48,32 @@ public class D2RModule extends PrivateModule {
     expose(D2RTranslatorFactory.class);
 
     bind(R2DTranslator.class)
-        .to(R2DTranslatorImpl.class);
+        .to(r2dImplementation.getTranslatorClass());
     expose(R2DTranslator.class);
   }
 
+  /**
+   * The {@link R2DTranslator} implementations that can be bound by this module.
+   */
+  public static enum R2DImplementation {
+    /**
+     * Translates each row on its own, using {@link R2DTranslatorImpl}.
+     */
+    ROW(R2DTranslatorImpl.class),
+    /**
+     * Resolves the columns once per doc part result, using {@link ColumnarR2DTranslator}.
+     */
+    COLUMNAR(ColumnarR2DTranslator.class);
+
+    private final Class<? extends R2DTranslator> translatorClass;
+
+    private R2DImplementation(Class<? extends R2DTranslator> translatorClass) {
+      this.translatorClass = translatorClass;
+    }
+
+    public Class<? extends R2DTranslator> getTranslatorClass() {
+      return translatorClass;
+    }
+  }
+
 }
@@ -28,8 +28,6 @@ public interface UserExceptionVisitor<R, A> {
 
   public R visit(UnsupportedUniqueIndexException userException, A arg);
 
-  public R visit(UnsupportedCompoundIndexException userException, A arg);
-
   public R visit(UpdateException userException, A arg);
 
   public R visit(UniqueIndexViolationException userException, A arg);
@@ -23,6 +23,7 @@ import com.google.inject.Injector;
 import com.google.inject.Stage;
 import com.torodb.core.logging.LoggerFactory;
 import com.torodb.core.metrics.MetricsConfig;
+import com.torodb.core.transaction.metainf.impl.MetainfModule.MetainfoRepositoryImplementation;
 
 import java.time.Clock;
 
@@ -44,12 +45,23 @@ public class EssentialInjectorFactory {
       MetricsConfig metricsConfig,
       Clock clock,
       Stage stage) {
+    return createEssentialInjector(lifecycleLoggerFactory, metricsConfig, clock, stage,
+        MetainfoRepositoryImplementation.MVCC);
+  }
+
+  public static Injector createEssentialInjector(
+      LoggerFactory lifecycleLoggerFactory,
+      MetricsConfig metricsConfig,
+      Clock clock,
+      Stage stage,
+      MetainfoRepositoryImplementation metainfoRepositoryImplementation) {
     return Guice.createInjector(
         stage,
         new EssentialModule(
             lifecycleLoggerFactory,
             metricsConfig,
-            clock
+            clock,
+            metainfoRepositoryImplementation
         )
     );
   }
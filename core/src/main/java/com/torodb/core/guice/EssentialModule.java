@@ -25,6 +25,7 @@ import com.torodb.core.logging.LoggerFactory;
 import com.torodb.core.metrics.MetricsConfig;
 import com.torodb.core.metrics.MetricsModule;
 import com.torodb.core.transaction.metainf.impl.MetainfModule;
+import com.torodb.core.transaction.metainf.impl.MetainfModule.MetainfoRepositoryImplementation;
 
 import java.time.Clock;
 
@@ -37,12 +38,19 @@ public class EssentialModule extends AbstractModule {
   private final LoggerFactory lifecycleLoggerFactory;
   private final MetricsConfig metricsConfig;
   private final Clock clock;
+  private final MetainfoRepositoryImplementation metainfoRepositoryImplementation;
 
   public EssentialModule(LoggerFactory lifecycleLoggerFactory, MetricsConfig metricsConfig,
       Clock clock) {
+    this(lifecycleLoggerFactory, metricsConfig, clock, MetainfoRepositoryImplementation.MVCC);
+  }
+
+  public EssentialModule(LoggerFactory lifecycleLoggerFactory, MetricsConfig metricsConfig,
+      Clock clock, MetainfoRepositoryImplementation metainfoRepositoryImplementation) {
     this.lifecycleLoggerFactory = lifecycleLoggerFactory;
     this.metricsConfig = metricsConfig;
     this.clock = clock;
+    this.metainfoRepositoryImplementation = metainfoRepositoryImplementation;
   }
 
   @Override
@@ -55,7 +63,7 @@ public class EssentialModule extends AbstractModule {
     install(new CoreModule(lifecycleLoggerFactory));
     install(new ExecutorServicesModule());
     install(new ConcurrentModule(lifecycleLoggerFactory));
-    install(new MetainfModule());
+    install(new MetainfModule(metainfoRepositoryImplementation));
     install(new MetricsModule(metricsConfig));
   }
 
@@ -0,0 +1,38 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.core.language.querycriteria;
+
+import com.torodb.core.language.AttributeReference;
+
+/**
+ * A criteria that restricts the value of a single attribute.
+ */
+public abstract class AttributeQueryCriteria extends QueryCriteria {
+
+  private final AttributeReference attributeReference;
+
+  AttributeQueryCriteria(AttributeReference attributeReference) {
+    this.attributeReference = attributeReference;
+  }
+
+  public AttributeReference getAttributeReference() {
+    return attributeReference;
+  }
+
+}
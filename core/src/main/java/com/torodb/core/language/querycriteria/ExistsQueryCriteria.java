@@ -0,0 +1,76 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.core.language.querycriteria;
+
+import com.torodb.core.language.AttributeReference;
+
+import java.util.Objects;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A criteria that is fulfilled when an attribute exists (or does not exist), whatever its value
+ * is.
+ */
+@Immutable
+public class ExistsQueryCriteria extends AttributeQueryCriteria {
+
+  private final boolean exists;
+
+  public ExistsQueryCriteria(AttributeReference attributeReference, boolean exists) {
+    super(attributeReference);
+    this.exists = exists;
+  }
+
+  /**
+   * Returns true if the attribute must exist or false if it must not exist.
+   */
+  public boolean isExists() {
+    return exists;
+  }
+
+  @Override
+  public <R, A> R accept(QueryCriteriaVisitor<R, A> visitor, A arg) {
+    return visitor.visit(this, arg);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getAttributeReference(), exists);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    ExistsQueryCriteria other = (ExistsQueryCriteria) obj;
+    return exists == other.exists
+        && getAttributeReference().equals(other.getAttributeReference());
+  }
+
+  @Override
+  public String toString() {
+    return getAttributeReference() + (exists ? " exists" : " not exists");
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.core.language.querycriteria;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.kvdocument.values.KvValue;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A criteria that is fulfilled when the value of an attribute is equal to one of the given
+ * values.
+ */
+@Immutable
+public class InQueryCriteria extends AttributeQueryCriteria {
+
+  private final ImmutableSet<KvValue<?>> values;
+
+  public InQueryCriteria(AttributeReference attributeReference,
+      Collection<? extends KvValue<?>> values) {
+    super(attributeReference);
+    Preconditions.checkArgument(!values.isEmpty(), "At least one value is required");
+    this.values = ImmutableSet.copyOf(values);
+  }
+
+  public ImmutableSet<KvValue<?>> getValues() {
+    return values;
+  }
+
+  @Override
+  public <R, A> R accept(QueryCriteriaVisitor<R, A> visitor, A arg) {
+    return visitor.visit(this, arg);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getAttributeReference(), values);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    InQueryCriteria other = (InQueryCriteria) obj;
+    return getAttributeReference().equals(other.getAttributeReference())
+        && values.equals(other.values);
+  }
+
+  @Override
+  public String toString() {
+    return getAttributeReference() + " in " + values;
+  }
+
+}
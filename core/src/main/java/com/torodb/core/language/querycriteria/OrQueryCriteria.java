@@ -0,0 +1,72 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.core.language.querycriteria;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A criteria that is fulfilled when at least one of its sub criteria are fulfilled.
+ */
+@Immutable
+public class OrQueryCriteria extends QueryCriteria {
+
+  private final ImmutableList<QueryCriteria> subCriteria;
+
+  public OrQueryCriteria(List<? extends QueryCriteria> subCriteria) {
+    Preconditions.checkArgument(!subCriteria.isEmpty(), "At least one sub criteria is required");
+    this.subCriteria = ImmutableList.copyOf(subCriteria);
+  }
+
+  public ImmutableList<QueryCriteria> getSubCriteria() {
+    return subCriteria;
+  }
+
+  @Override
+  public <R, A> R accept(QueryCriteriaVisitor<R, A> visitor, A arg) {
+    return visitor.visit(this, arg);
+  }
+
+  @Override
+  public int hashCode() {
+    return subCriteria.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    return subCriteria.equals(((OrQueryCriteria) obj).subCriteria);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + Joiner.on(" or ").join(subCriteria) + ")";
+  }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.core.language.querycriteria;
+
+/**
+ * A logical condition that documents of a collection may fulfill.
+ *
+ * <p>Query criteria are independent of the query language used by the client and of the backend
+ * that evaluates them. Backends should translate them into a single native query instead of
+ * evaluating them on memory.
+ */
+public abstract class QueryCriteria {
+
+  QueryCriteria() {
+  }
+
+  public abstract <R, A> R accept(QueryCriteriaVisitor<R, A> visitor, A arg);
+
+}
@@ -102,7 +102,7 @@ public class ImmutableMetaIndex implements MetaIndex {
   @Override
   public Iterator<ImmutableMetaIndexField> iteratorMetaIndexFieldByTableRef(
       TableRef tableRef) {
-    return fieldsByTableRefAndPosition.computeIfAbsent(tableRef, t -> new ArrayList<>())
+    return fieldsByTableRefAndPosition.getOrDefault(tableRef, Collections.emptyList())
         .iterator();
   }
 
@@ -120,7 +120,7 @@ public class ImmutableMetaIndex implements MetaIndex {
   @Override
   public ImmutableMetaIndexField getMetaIndexFieldByTableRefAndPosition(TableRef tableRef,
       int position) {
-    return fieldsByTableRefAndPosition.computeIfAbsent(tableRef, t -> new ArrayList<>()).get(
+    return fieldsByTableRefAndPosition.getOrDefault(tableRef, Collections.emptyList()).get(
         position);
   }
 
@@ -18,10 +18,12 @@
 
 package com.torodb.core.transaction.metainf;
 
+import com.google.common.collect.Iterators;
 import com.torodb.core.TableRef;
 import com.torodb.core.transaction.metainf.ImmutableMetaIndex.Builder;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -116,13 +118,13 @@ public class WrapperMutableMetaIndex implements MutableMetaIndex {
 
   @Override
   public Iterator<? extends ImmutableMetaIndexField> iteratorFields() {
-    return newFields.values().stream().flatMap(list -> list.stream()).iterator();
+    return Iterators.concat(wrapped.iteratorFields(), addedFields.iterator());
   }
 
   @Override
   public Iterator<? extends ImmutableMetaIndexField> iteratorMetaIndexFieldByTableRef(
       TableRef tableRef) {
-    return newFields.computeIfAbsent(tableRef, t -> new ArrayList<>()).iterator();
+    return newFields.getOrDefault(tableRef, Collections.emptyList()).iterator();
   }
 
   @Override
@@ -141,7 +143,7 @@ public class WrapperMutableMetaIndex implements MutableMetaIndex {
   @Override
   public ImmutableMetaIndexField getMetaIndexFieldByTableRefAndName(TableRef tableRef,
       String fieldName) {
-    return newFields.computeIfAbsent(tableRef, t -> new ArrayList<>()).stream()
+    return newFields.getOrDefault(tableRef, Collections.emptyList()).stream()
         .filter(f -> f.getFieldName().equals(fieldName))
         .findAny()
         .orElse(null);
@@ -149,7 +151,7 @@ public class WrapperMutableMetaIndex implements MutableMetaIndex {
 
   @Override
   public MetaIndexField getMetaIndexFieldByTableRefAndPosition(TableRef tableRef, int position) {
-    return newFields.computeIfAbsent(tableRef, t -> new ArrayList<>()).get(position);
+    return newFields.getOrDefault(tableRef, Collections.emptyList()).get(position);
   }
 
   @Override
@@ -21,6 +21,7 @@ package com.torodb.core.transaction.metainf.impl;
 import com.google.inject.PrivateModule;
 import com.google.inject.Singleton;
 import com.torodb.core.transaction.metainf.MetainfoRepository;
+import com.torodb.core.transaction.metainf.impl.metainfo.mvcc.LockFreeMetainfoRepository;
 import com.torodb.core.transaction.metainf.impl.metainfo.mvcc.MvccMetainfoRepository;
 
 /**
@@ -28,12 +29,47 @@ import com.torodb.core.transaction.metainf.impl.metainfo.mvcc.MvccMetainfoReposi
  */
 public class MetainfModule extends PrivateModule {
 
+  private final MetainfoRepositoryImplementation repositoryImplementation;
+
+  public MetainfModule() {
+    this(MetainfoRepositoryImplementation.MVCC);
+  }
+
+  public MetainfModule(MetainfoRepositoryImplementation repositoryImplementation) {
+    this.repositoryImplementation = repositoryImplementation;
+  }
+
   @Override
   protected void configure() {
     bind(MetainfoRepository.class)
-        .to(MvccMetainfoRepository.class)
+        .to(repositoryImplementation.getRepositoryClass())
         .in(Singleton.class);
     expose(MetainfoRepository.class);
   }
 
+  /**
+   * The {@link MetainfoRepository} implementations that can be bound by this module.
+   */
+  public static enum MetainfoRepositoryImplementation {
+    /**
+     * Uses a read write lock, using {@link MvccMetainfoRepository}.
+     */
+    MVCC(MvccMetainfoRepository.class),
+    /**
+     * Readers never block and writers are only serialized among them, using
+     * {@link LockFreeMetainfoRepository}.
+     */
+    LOCK_FREE(LockFreeMetainfoRepository.class);
+
+    private final Class<? extends MetainfoRepository> repositoryClass;
+
+    private MetainfoRepositoryImplementation(Class<? extends MetainfoRepository> repositoryClass) {
+      this.repositoryClass = repositoryClass;
+    }
+
+    public Class<? extends MetainfoRepository> getRepositoryClass() {
+      return repositoryClass;
+    }
+  }
+
 }
@@ -0,0 +1,178 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.core.transaction.metainf.impl.metainfo.mvcc;
+
+import com.google.common.base.Preconditions;
+import com.torodb.core.d2r.D2RLoggerFactory;
+import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.MetainfoRepository;
+import com.torodb.core.transaction.metainf.MutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.UnmergeableException;
+import com.torodb.core.transaction.metainf.WrapperMutableMetaSnapshot;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+/**
+ * A {@link MetainfoRepository} that publishes its {@link ImmutableMetaSnapshot snapshots} on an
+ * atomic reference.
+ *
+ * <p>Unlike {@link MvccMetainfoRepository}, {@link SnapshotStage snapshot stages} never block, so
+ * long readers do not delay the writers that change the metainfo, and those writers do not delay
+ * new transactions. Writers are serialized among them: the changes are optimistically merged
+ * with the current snapshot without holding any lock and the merge is only repeated, while
+ * holding the writer lock, if another writer published its changes in the meantime. The writer
+ * lock is held until the {@link MergerStage} is closed, so
+ * {@link MergerStage#commit() commit} never fails.
+ */
+public class LockFreeMetainfoRepository implements MetainfoRepository {
+
+  private static final Logger LOGGER = D2RLoggerFactory.get(LockFreeMetainfoRepository.class);
+  private static final int MAX_OPTIMISTIC_MERGES = 3;
+  private final AtomicReference<ImmutableMetaSnapshot> currentSnapshot;
+  private final ReentrantLock writerLock = new ReentrantLock();
+  private final NoChangeMergeStage noChangeMergeStage = new NoChangeMergeStage();
+
+  @Inject
+  public LockFreeMetainfoRepository() {
+    this(new ImmutableMetaSnapshot.Builder().build());
+  }
+
+  public LockFreeMetainfoRepository(ImmutableMetaSnapshot currentView) {
+    this.currentSnapshot = new AtomicReference<>(currentView);
+  }
+
+  @Override
+  @Nonnull
+  public SnapshotStage startSnapshotStage() {
+    return new LockFreeSnapshotStage(currentSnapshot.get());
+  }
+
+  @Override
+  @Nonnull
+  public MergerStage startMerge(MutableMetaSnapshot newSnapshot) throws UnmergeableException {
+    if (!newSnapshot.hasChanged()) {
+      return noChangeMergeStage;
+    }
+    LOGGER.trace("Trying to create a {}", LockFreeMergerStage.class);
+
+    for (int i = 0; i < MAX_OPTIMISTIC_MERGES; i++) {
+      ImmutableMetaSnapshot base = currentSnapshot.get();
+      ImmutableMetaSnapshot.Builder merged = new SnapshotMerger(base, newSnapshot).merge();
+
+      writerLock.lock();
+      if (currentSnapshot.get() == base) {
+        LOGGER.trace("{} created", LockFreeMergerStage.class);
+        return new LockFreeMergerStage(base, merged);
+      }
+      writerLock.unlock();
+      LOGGER.trace("The snapshot changed while it was merged. Retrying");
+    }
+
+    writerLock.lock();
+    MergerStage mergeStage = null;
+    try {
+      ImmutableMetaSnapshot base = currentSnapshot.get();
+      mergeStage = new LockFreeMergerStage(base, new SnapshotMerger(base, newSnapshot).merge());
+      LOGGER.trace("{} created", LockFreeMergerStage.class);
+    } finally {
+      if (mergeStage == null) {
+        writerLock.unlock();
+      }
+    }
+    return mergeStage;
+  }
+
+  private static class LockFreeSnapshotStage implements SnapshotStage {
+
+    private final ImmutableMetaSnapshot snapshot;
+    private boolean open = true;
+
+    public LockFreeSnapshotStage(ImmutableMetaSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public ImmutableMetaSnapshot createImmutableSnapshot() {
+      Preconditions.checkState(open, "This stage is closed");
+      return snapshot;
+    }
+
+    @Override
+    public MutableMetaSnapshot createMutableSnapshot() {
+      Preconditions.checkState(open, "This stage is closed");
+      return new WrapperMutableMetaSnapshot(snapshot);
+    }
+
+    @Override
+    public void close() {
+      open = false;
+    }
+  }
+
+  private class LockFreeMergerStage implements MergerStage {
+
+    private final ImmutableMetaSnapshot base;
+    private final ImmutableMetaSnapshot.Builder snapshotBuilder;
+    private boolean open = true;
+
+    public LockFreeMergerStage(ImmutableMetaSnapshot base,
+        ImmutableMetaSnapshot.Builder snapshotBuilder) {
+      this.base = base;
+      this.snapshotBuilder = snapshotBuilder;
+    }
+
+    @Override
+    public void commit() {
+      Preconditions.checkState(open, "This stage is already closed");
+      Preconditions.checkState(writerLock.isHeldByCurrentThread(), "Trying to "
+          + "apply changes without holding the writer lock");
+
+      boolean published = currentSnapshot.compareAndSet(base, snapshotBuilder.build());
+      Preconditions.checkState(published, "The snapshot was changed after this stage was "
+          + "created. Is it commited twice?");
+    }
+
+    @Override
+    public void close() {
+      if (open) {
+        open = false;
+
+        writerLock.unlock();
+      }
+    }
+  }
+
+  private static class NoChangeMergeStage implements MergerStage {
+
+    @Override
+    public void commit() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+  }
+}
@@ -34,19 +34,38 @@ import com.torodb.kvdocument.values.KvDocument;
 import com.torodb.kvdocument.values.KvNull;
 import com.torodb.kvdocument.values.KvValue;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+@RunWith(Parameterized.class)
 public class R2DTranslatorTest {
 
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> translators() {
+    return Arrays.asList(new Object[][]{
+        {R2DTranslatorImpl.class.getSimpleName(), new R2DTranslatorImpl()},
+        {ColumnarR2DTranslator.class.getSimpleName(), new ColumnarR2DTranslator()}
+    });
+  }
+
+  private final R2DTranslator r2dTranslator;
+
   private TableRefFactory fact = new TableRefFactoryImpl();
   private TableRef rootRef = fact.createRoot();
 
   private static final boolean IsArray = true;
   private static final boolean IsDocument = false;
 
+  public R2DTranslatorTest(String name, R2DTranslator r2dTranslator) {
+    this.r2dTranslator = r2dTranslator;
+  }
+
   /*
    * Document: { "name" : "jero" }
    */
@@ -59,7 +78,6 @@ public class R2DTranslatorTest {
 
     List<DocPartResult> lst = Collections.singletonList(root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
@@ -80,7 +98,6 @@ public class R2DTranslatorTest {
 
     List<DocPartResult> lst = Collections.singletonList(root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
@@ -101,7 +118,6 @@ public class R2DTranslatorTest {
 
     List<DocPartResult> lst = Collections.singletonList(root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
@@ -123,7 +139,6 @@ public class R2DTranslatorTest {
 
     List<DocPartResult> lst = Collections.singletonList(root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
@@ -145,7 +160,6 @@ public class R2DTranslatorTest {
 
     List<DocPartResult> lst = Collections.singletonList(root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     ToroDocument[] readedDocuments = r2dTranslator.translate(lst.iterator()).toArray(
         new ToroDocument[0]);
     assertEquals(2, readedDocuments.length);
@@ -183,7 +197,6 @@ public class R2DTranslatorTest {
 
     List<DocPartResult> lst = Lists.newArrayList(secondLevel, root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
@@ -220,7 +233,6 @@ public class R2DTranslatorTest {
 
     List<DocPartResult> lst = Lists.newArrayList(secondLevel, root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
@@ -283,7 +295,6 @@ public class R2DTranslatorTest {
         secondLevel,
         root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
@@ -337,7 +348,6 @@ public class R2DTranslatorTest {
         secondLevel,
         root);
 
-    R2DTranslator r2dTranslator = new R2DTranslatorImpl();
     Collection<ToroDocument> readedDocuments = r2dTranslator.translate(lst.iterator());
     assertEquals(1, readedDocuments.size());
     KvDocument doc = readedDocuments.iterator().next().getRoot();
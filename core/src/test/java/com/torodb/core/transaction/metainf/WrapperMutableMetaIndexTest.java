@@ -0,0 +1,85 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.torodb.core.transaction.metainf;
+
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.torodb.core.TableRef;
+import com.torodb.core.TableRefFactory;
+import com.torodb.core.impl.TableRefFactoryImpl;
+import org.jooq.lambda.Seq;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class WrapperMutableMetaIndexTest {
+
+  private final TableRefFactory tableRefFactory = new TableRefFactoryImpl();
+
+  @Test
+  public void compoundIndexFieldsKeepTheirPositions() {
+    //GIVEN
+    TableRef root = tableRefFactory.createRoot();
+    TableRef subRef = tableRefFactory.createChild(root, "sub");
+    ImmutableMetaIndex originalIndex = new ImmutableMetaIndex.Builder("testIndex", false)
+        .add(new ImmutableMetaIndexField(0, root, "a", FieldIndexOrdering.ASC))
+        .add(new ImmutableMetaIndexField(1, subRef, "b", FieldIndexOrdering.DESC))
+        .build();
+    WrapperMutableMetaIndex index = new WrapperMutableMetaIndex(originalIndex, (t) -> {});
+
+    //WHEN
+    index.addMetaIndexField(root, "c", FieldIndexOrdering.ASC);
+
+    //THEN
+    List<Integer> positions = Seq.seq(index.iteratorFields())
+        .map(MetaIndexField::getPosition)
+        .toList();
+    assertThat(positions, is(Seq.of(0, 1, 2).toList()));
+    List<String> rootFields = Seq.seq(index.iteratorMetaIndexFieldByTableRef(root))
+        .map(MetaIndexField::getFieldName)
+        .toList();
+    assertThat(rootFields, is(Seq.of("a", "c").toList()));
+    assertThat(index.immutableCopy().getMetaIndexFieldByPosition(2).getFieldName(), is("c"));
+  }
+
+  @Test
+  public void lookupsOnOtherTableRefsDoNotAddTableRefs() {
+    //GIVEN
+    TableRef root = tableRefFactory.createRoot();
+    TableRef otherRef = tableRefFactory.createChild(root, "other");
+    ImmutableMetaIndex originalIndex = new ImmutableMetaIndex.Builder("testIndex", false)
+        .add(new ImmutableMetaIndexField(0, root, "a", FieldIndexOrdering.ASC))
+        .add(new ImmutableMetaIndexField(1, root, "b", FieldIndexOrdering.ASC))
+        .build();
+    WrapperMutableMetaIndex index = new WrapperMutableMetaIndex(originalIndex, (t) -> {});
+
+    //WHEN
+    index.iteratorMetaIndexFieldByTableRef(otherRef);
+    originalIndex.iteratorMetaIndexFieldByTableRef(otherRef);
+
+    //THEN
+    assertThat(index.streamTableRefs().collect(Collectors.toList()),
+        is(Seq.of(root).toList()));
+    assertThat(originalIndex.streamTableRefs().collect(Collectors.toList()),
+        is(Seq.of(root).toList()));
+  }
+
+}
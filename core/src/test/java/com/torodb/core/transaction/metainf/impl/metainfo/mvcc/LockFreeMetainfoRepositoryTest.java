@@ -0,0 +1,174 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.core.transaction.metainf.impl.metainfo.mvcc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.MetainfoRepository.MergerStage;
+import com.torodb.core.transaction.metainf.MetainfoRepository.SnapshotStage;
+import com.torodb.core.transaction.metainf.MutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.UnmergeableException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class LockFreeMetainfoRepositoryTest {
+
+  private static final long MILLIS_TO_WAIT = 10_000;
+  private final String dbName = "dbName";
+  private final String dbId = "dbId";
+  private LockFreeMetainfoRepository repository;
+
+  @Before
+  public void setUp() {
+    repository = new LockFreeMetainfoRepository();
+  }
+
+  /**
+   * Tests that snapshots can be created meanwhile a writer is merging its changes.
+   */
+  @Test
+  public void testReadersDoNotWaitForWriters() throws Exception {
+    MutableMetaSnapshot mutableSnapshot = createMutableSnapshot();
+    mutableSnapshot.addMetaDatabase(dbName, dbId);
+
+    try (MergerStage mergeStage = repository.startMerge(mutableSnapshot)) {
+      ImmutableMetaSnapshot concurrentSnapshot = CompletableFuture
+          .supplyAsync(this::createImmutableSnapshot)
+          .get(MILLIS_TO_WAIT, TimeUnit.MILLISECONDS);
+      assertNull(concurrentSnapshot.getMetaDatabaseByName(dbName));
+
+      mergeStage.commit();
+    }
+
+    assertNotNull(createImmutableSnapshot().getMetaDatabaseByName(dbName));
+  }
+
+  /**
+   * Tests that the changes of concurrent writers that modify the same database are not lost.
+   */
+  @Test
+  public void testConcurrentWriters() throws Exception {
+    int writers = 4;
+    int collectionsPerWriter = 50;
+
+    MutableMetaSnapshot initSnapshot = createMutableSnapshot();
+    initSnapshot.addMetaDatabase(dbName, dbId);
+    try (MergerStage mergeStage = repository.startMerge(initSnapshot)) {
+      mergeStage.commit();
+    }
+
+    ExecutorService es = Executors.newFixedThreadPool(writers);
+    try {
+      List<Future<?>> futures = new ArrayList<>(writers);
+      for (int i = 0; i < writers; i++) {
+        int writerId = i;
+        futures.add(es.submit(() -> {
+          for (int j = 0; j < collectionsPerWriter; j++) {
+            String colName = "col_" + writerId + "_" + j;
+            MutableMetaSnapshot snapshot = createMutableSnapshot();
+            snapshot.getMetaDatabaseByName(dbName)
+                .addMetaCollection(colName, colName);
+            try (MergerStage mergeStage = repository.startMerge(snapshot)) {
+              mergeStage.commit();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(MILLIS_TO_WAIT, TimeUnit.MILLISECONDS);
+      }
+    } finally {
+      es.shutdownNow();
+    }
+
+    assertEquals(writers * collectionsPerWriter, createImmutableSnapshot()
+        .getMetaDatabaseByName(dbName)
+        .streamMetaCollections()
+        .count());
+  }
+
+  /**
+   * Tests that conflicts with changes published after the snapshot was created are detected.
+   */
+  @Test(expected = UnmergeableException.class)
+  public void testConflict() throws Exception {
+    MutableMetaSnapshot snapshot1 = createMutableSnapshot();
+    MutableMetaSnapshot snapshot2 = createMutableSnapshot();
+
+    snapshot1.addMetaDatabase(dbName, dbId);
+    snapshot2.addMetaDatabase(dbName, dbId + "2");
+
+    try (MergerStage mergeStage = repository.startMerge(snapshot1)) {
+      mergeStage.commit();
+    }
+    repository.startMerge(snapshot2);
+  }
+
+  /**
+   * Tests that the writer lock is released when the changes cannot be merged.
+   */
+  @Test
+  public void testConflictReleasesLock() throws Exception {
+    try {
+      testConflict();
+    } catch (UnmergeableException ex) {
+      //expected
+    }
+    MutableMetaSnapshot snapshot = createMutableSnapshot();
+    snapshot.addMetaDatabase(dbName + "2", dbId + "2");
+
+    boolean merged = CompletableFuture.supplyAsync(() -> {
+      try (MergerStage mergeStage = repository.startMerge(snapshot)) {
+        mergeStage.commit();
+        return true;
+      } catch (UnmergeableException ex) {
+        return false;
+      }
+    }).get(MILLIS_TO_WAIT, TimeUnit.MILLISECONDS);
+
+    assertTrue(merged);
+  }
+
+  private ImmutableMetaSnapshot createImmutableSnapshot() {
+    try (SnapshotStage stage = repository.startSnapshotStage()) {
+      return stage.createImmutableSnapshot();
+    }
+  }
+
+  private MutableMetaSnapshot createMutableSnapshot() {
+    try (SnapshotStage stage = repository.startSnapshotStage()) {
+      return stage.createMutableSnapshot();
+    }
+  }
+
+}
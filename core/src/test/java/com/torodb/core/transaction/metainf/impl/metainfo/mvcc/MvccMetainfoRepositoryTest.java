@@ -24,6 +24,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.torodb.common.util.Sequencer;
 import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.MetainfoRepository;
 import com.torodb.core.transaction.metainf.MetainfoRepository.MergerStage;
 import com.torodb.core.transaction.metainf.MetainfoRepository.SnapshotStage;
 import com.torodb.core.transaction.metainf.MutableMetaSnapshot;
@@ -31,18 +32,36 @@ import com.torodb.core.transaction.metainf.UnmergeableException;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  *
  * @author gortiz
  */
+@RunWith(Parameterized.class)
 public class MvccMetainfoRepositoryTest {
 
-  private MvccMetainfoRepository repository;
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> repositories() {
+    return Arrays.asList(new Object[][]{
+        {MvccMetainfoRepository.class.getSimpleName(),
+            (Supplier<MetainfoRepository>) MvccMetainfoRepository::new},
+        {LockFreeMetainfoRepository.class.getSimpleName(),
+            (Supplier<MetainfoRepository>) LockFreeMetainfoRepository::new}
+    });
+  }
+
+  private final Supplier<MetainfoRepository> repositorySupplier;
+  private MetainfoRepository repository;
 
   private final String dbName = "dbName";
   private final String dbId = "dbId";
@@ -51,12 +70,14 @@ public class MvccMetainfoRepositoryTest {
 
   private static final long MILLIS_TO_WAIT = 10_000;
 
-  public MvccMetainfoRepositoryTest() {
+  public MvccMetainfoRepositoryTest(String name,
+      Supplier<MetainfoRepository> repositorySupplier) {
+    this.repositorySupplier = repositorySupplier;
   }
 
   @Before
   public void setUp() throws Exception {
-    repository = new MvccMetainfoRepository();
+    repository = repositorySupplier.get();
   }
 
   @Test
@@ -349,10 +370,10 @@ public class MvccMetainfoRepositoryTest {
 
   private static class ReaderRunnable implements Runnable {
 
-    private final MvccMetainfoRepository repository;
+    private final MetainfoRepository repository;
     private final Sequencer<ReaderPhase> sequencer;
 
-    public ReaderRunnable(MvccMetainfoRepository repository, Sequencer<ReaderPhase> sequencer) {
+    public ReaderRunnable(MetainfoRepository repository, Sequencer<ReaderPhase> sequencer) {
       this.repository = repository;
       this.sequencer = sequencer;
     }
@@ -394,10 +415,10 @@ public class MvccMetainfoRepositoryTest {
 
   private static class WriterRunnable implements Runnable {
 
-    private final MvccMetainfoRepository repository;
+    private final MetainfoRepository repository;
     private final Sequencer<WriterPhase> sequencer;
 
-    public WriterRunnable(MvccMetainfoRepository repository, Sequencer<WriterPhase> sequencer) {
+    public WriterRunnable(MetainfoRepository repository, Sequencer<WriterPhase> sequencer) {
       this.repository = repository;
       this.sequencer = sequencer;
     }
@@ -28,12 +28,16 @@ import com.torodb.mongodb.commands.impl.diagnostic.BuildInfoImplementation;
 import com.torodb.mongodb.commands.impl.diagnostic.GetLogImplementation;
 import com.torodb.mongodb.commands.impl.diagnostic.PingImplementation;
 import com.torodb.mongodb.commands.impl.diagnostic.ServerStatusImplementation;
+import com.torodb.mongodb.commands.impl.general.GetMoreImplementation;
+import com.torodb.mongodb.commands.impl.general.KillCursorsImplementation;
 import com.torodb.mongodb.commands.impl.replication.IsMasterImplementation;
 import com.torodb.mongodb.commands.signatures.authentication.GetNonceCommand;
 import com.torodb.mongodb.commands.signatures.diagnostic.BuildInfoCommand;
 import com.torodb.mongodb.commands.signatures.diagnostic.GetLogCommand;
 import com.torodb.mongodb.commands.signatures.diagnostic.PingCommand;
 import com.torodb.mongodb.commands.signatures.diagnostic.ServerStatusCommand;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand;
+import com.torodb.mongodb.commands.signatures.general.KillCursorsCommand;
 import com.torodb.mongodb.commands.signatures.repl.IsMasterCommand;
 import com.torodb.mongodb.core.MongodConnection;
 import com.torodb.mongodb.core.MongodServerConfig;
@@ -64,6 +68,8 @@ public class ConnectionCmdImpl implements CmdImplMapSupplier<MongodConnection> {
         .put(PingCommand.INSTANCE, new PingImplementation())
         .put(IsMasterCommand.INSTANCE, new IsMasterImplementation(
             clock, mongodServerConfig))
+        .put(GetMoreCommand.INSTANCE, new GetMoreImplementation())
+        .put(KillCursorsCommand.INSTANCE, new KillCursorsImplementation())
         .build();
   }
 
@@ -20,6 +20,8 @@ package com.torodb.mongodb.commands.impl.diagnostic;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.net.HostAndPort;
+import com.google.common.primitives.Ints;
+import com.torodb.core.backend.ConnectionPoolStats;
 import com.torodb.core.logging.LoggerFactory;
 import com.torodb.mongodb.commands.impl.ConnectionTorodbCommandImpl;
 import com.torodb.mongodb.commands.signatures.diagnostic.ServerStatusCommand.Asserts;
@@ -41,15 +43,21 @@ import com.torodb.mongodb.commands.signatures.diagnostic.ServerStatusCommand.Ser
 import com.torodb.mongodb.commands.signatures.diagnostic.ServerStatusCommand.StorageEngine;
 import com.torodb.mongodb.core.MongoLayerConstants;
 import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongodb.core.MongodServer;
 import com.torodb.mongodb.core.MongodServerConfig;
+import com.torodb.mongodb.core.MongodStatusCounters;
+import com.torodb.mongodb.core.MongodStatusCounters.OpCounters;
+import com.torodb.mongodb.core.MongodStatusCounters.OpType;
 import com.torodb.mongowp.Status;
 import com.torodb.mongowp.commands.Command;
 import com.torodb.mongowp.commands.Request;
 import org.apache.logging.log4j.Logger;
 
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
 import java.net.InetAddress;
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -61,6 +69,8 @@ public class ServerStatusImplementation
 
   private final Logger logger;
 
+  private static final long BYTES_PER_MB = 1024 * 1024;
+
   private final HostAndPort selfHostAndPort;
 
   @Inject
@@ -76,6 +86,8 @@ public class ServerStatusImplementation
       ServerStatusArgument arg,
       MongodConnection context) {
     ServerStatusReply.Builder replyBuilder = new ServerStatusReply.Builder();
+    MongodServer server = context.getServer();
+    MongodStatusCounters counters = server.getStatusCounters();
 
     //TODO: improve and complete
     if (arg.isHost()) {
@@ -116,14 +128,28 @@ public class ServerStatusImplementation
           dummyLock));
     }
     if (arg.isGlobalLock()) {
-      GlobalLock.GlobalLockStats dummyGlobalLockStats = new GlobalLock.GlobalLockStats(0, 0, 0);
-      replyBuilder.setGlobalLock(new GlobalLock(0, dummyGlobalLockStats, dummyGlobalLockStats));
+      //ToroDB has no global lock, so there are never queued operations
+      int readers = Ints.saturatedCast(counters.getActiveReaders().sum());
+      int writers = Ints.saturatedCast(counters.getActiveWriters().sum());
+      long totalTimeMicros = TimeUnit.MILLISECONDS.toMicros(
+          System.currentTimeMillis() - server.getStartTimeMillis());
+      replyBuilder.setGlobalLock(new GlobalLock(totalTimeMicros,
+          new GlobalLock.GlobalLockStats(0, 0, 0),
+          new GlobalLock.GlobalLockStats(readers + writers, readers, writers)));
     }
     if (arg.isMem()) {
-      replyBuilder.setMem(new Mem(0, 0, 0, false, 0, 0, ""));
+      replyBuilder.setMem(createMem());
     }
     if (arg.isConnections()) {
-      replyBuilder.setConnections(new Connections(0, 0, 0));
+      //Client connections are not limited, so the backend connections that can still be used
+      //are reported as the available ones
+      int availableConnections = server.getTorodServer().getConnectionPoolStats().stream()
+          .mapToInt(ConnectionPoolStats::getAvailableConnections)
+          .sum();
+      replyBuilder.setConnections(new Connections(
+          Ints.saturatedCast(server.getOpenConnectionsCount()),
+          availableConnections,
+          Ints.saturatedCast(counters.getCreatedConnections().sum())));
     }
     if (arg.isExtraInfo()) {
       replyBuilder.setExtraInfo(new ExtraInfo("", 0, 0));
@@ -132,10 +158,12 @@ public class ServerStatusImplementation
       replyBuilder.setBackgroundFlushing(new BackgroundFlushing(0, 0, 0, 0, Instant.now()));
     }
     if (arg.isCursors()) {
-      replyBuilder.setCursors(new Cursors("", 0, 0, 0, 0, 0));
+      int openCursors = Ints.saturatedCast(server.getCursorManager().getOpenCursorsCount());
+      replyBuilder.setCursors(new Cursors("", openCursors, openCursors, 0, 0, 0));
     }
     if (arg.isNetwork()) {
-      replyBuilder.setNetwork(new Network(0, 0, 0));
+      replyBuilder.setNetwork(new Network(counters.getBytesIn().sum(),
+          counters.getBytesOut().sum(), Ints.saturatedCast(counters.getRequests().sum())));
     }
     //TODO: implement replication status
     //if (arg.isRepl()) {
@@ -143,10 +171,10 @@ public class ServerStatusImplementation
     //new Repl(setName, ismaster, secondary, primary, hosts, me, electionId, rbid, slaves));
     //}
     if (arg.isOpcountersRepl()) {
-      replyBuilder.setOpcountersRepl(new Opcounters(0, 0, 0, 0, 0, 0));
+      replyBuilder.setOpcountersRepl(createOpcounters(counters.getReplOpCounters()));
     }
     if (arg.isOpcounters()) {
-      replyBuilder.setOpcounters(new Opcounters(0, 0, 0, 0, 0, 0));
+      replyBuilder.setOpcounters(createOpcounters(counters.getOpCounters()));
     }
     if (arg.isRangeDeleter()) {
       ImmutableList.Builder<RangeDeleter.LastDeletedStat> builder = ImmutableList.builder();
@@ -172,13 +200,21 @@ public class ServerStatusImplementation
       Metrics.Stats dummyStats = new Metrics.Stats(0, 0);
       replyBuilder.setMetrics(new Metrics(
           builder.build(),
-          new Metrics.Document(0, 0, 0, 0),
+          new Metrics.Document(
+              Ints.saturatedCast(counters.getDeletedDocuments().sum()),
+              Ints.saturatedCast(counters.getInsertedDocuments().sum()),
+              Ints.saturatedCast(counters.getReturnedDocuments().sum()),
+              Ints.saturatedCast(counters.getUpdatedDocuments().sum())),
           new Metrics.GetLastError(dummyStats, 0),
           new Metrics.Operation(0, 0, 0),
           new Metrics.QueryExecutor(0),
           new Metrics.Record(0),
           new Metrics.Repl(
-              new Metrics.Repl.Apply(dummyStats, 0),
+              new Metrics.Repl.Apply(
+                  new Metrics.Stats(
+                      Ints.saturatedCast(counters.getAppliedBatches().sum()),
+                      counters.getAppliedBatchesMillis().sum()),
+                  Ints.saturatedCast(counters.getAppliedOps().sum())),
               new Metrics.Repl.Buffer(0, 0, 0),
               new Metrics.Repl.Network(0, dummyStats, 0, 0),
               new Metrics.Repl.Oplog(dummyStats, 0),
@@ -191,4 +227,39 @@ public class ServerStatusImplementation
     return Status.ok(replyBuilder.build());
   }
 
+  private Opcounters createOpcounters(OpCounters opCounters) {
+    return new Opcounters(
+        Ints.saturatedCast(opCounters.get(OpType.INSERT)),
+        Ints.saturatedCast(opCounters.get(OpType.QUERY)),
+        Ints.saturatedCast(opCounters.get(OpType.UPDATE)),
+        Ints.saturatedCast(opCounters.get(OpType.DELETE)),
+        Ints.saturatedCast(opCounters.get(OpType.GETMORE)),
+        Ints.saturatedCast(opCounters.get(OpType.COMMAND)));
+  }
+
+  /**
+   * Reports the memory of the JVM: the committed memory as resident and the maximum heap plus the
+   * committed non heap memory as virtual, both in megabytes.
+   */
+  private Mem createMem() {
+    MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    long heapCommitted = memoryBean.getHeapMemoryUsage().getCommitted();
+    long heapMax = memoryBean.getHeapMemoryUsage().getMax();
+    long nonHeapCommitted = memoryBean.getNonHeapMemoryUsage().getCommitted();
+    int bits;
+    try {
+      bits = Integer.parseInt(System.getProperty("sun.arch.data.model", "64"));
+    } catch (NumberFormatException ex) {
+      bits = 64;
+    }
+    return new Mem(
+        bits,
+        (heapCommitted + nonHeapCommitted) / BYTES_PER_MB,
+        (Math.max(heapMax, heapCommitted) + nonHeapCommitted) / BYTES_PER_MB,
+        true,
+        0,
+        0,
+        "JVM memory");
+  }
+
 }
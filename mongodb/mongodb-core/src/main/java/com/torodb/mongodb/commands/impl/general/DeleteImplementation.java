@@ -18,22 +18,19 @@
 
 package com.torodb.mongodb.commands.impl.general;
 
-import com.torodb.core.language.AttributeReference;
-import com.torodb.core.language.AttributeReference.Builder;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.logging.LoggerFactory;
-import com.torodb.kvdocument.values.KvValue;
 import com.torodb.mongodb.commands.impl.WriteTorodbCommandImpl;
 import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteArgument;
 import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteStatement;
 import com.torodb.mongodb.core.MongodMetrics;
 import com.torodb.mongodb.core.WriteMongodTransaction;
-import com.torodb.mongowp.ErrorCode;
+import com.torodb.mongodb.language.QueryCriteriaTranslator;
 import com.torodb.mongowp.Status;
 import com.torodb.mongowp.bson.BsonDocument;
 import com.torodb.mongowp.commands.Command;
 import com.torodb.mongowp.commands.Request;
 import com.torodb.mongowp.exceptions.CommandFailed;
-import com.torodb.torod.SharedWriteTorodTransaction;
 import org.apache.logging.log4j.Logger;
 
 import java.util.stream.Collectors;
@@ -45,6 +42,8 @@ import javax.inject.Singleton;
 @Singleton
 public class DeleteImplementation implements WriteTorodbCommandImpl<DeleteArgument, Long> {
 
+  private static final String COMMAND_NAME = "delete";
+
   private final Logger logger;
 
   @Inject
@@ -62,40 +61,26 @@ public class DeleteImplementation implements WriteTorodbCommandImpl<DeleteArgume
     for (DeleteStatement deleteStatement : arg.getStatements()) {
       BsonDocument query = deleteStatement.getQuery();
 
-      switch (query.size()) {
-        case 0: {
+      if (query.size() == 0) {
+        deleted += context.getTorodTransaction()
+            .deleteAll(req.getDatabase(), arg.getCollection());
+      } else {
+        try {
+          logDeleteCommand(arg);
+          QueryCriteria criteria = QueryCriteriaTranslator.translate(COMMAND_NAME, query);
           deleted += context.getTorodTransaction()
-              .deleteAll(req.getDatabase(), arg.getCollection());
-          break;
-        }
-        case 1: {
-          try {
-            logDeleteCommand(arg);
-            deleted += deleteByAttribute(context.getTorodTransaction(), req.getDatabase(), arg
-                .getCollection(), query);
-          } catch (CommandFailed ex) {
-            return Status.from(ex);
-          }
-          break;
-        }
-        default: {
-          return Status.from(ErrorCode.COMMAND_FAILED,
-              "The given query is not supported right now");
+              .deleteByCriteria(req.getDatabase(), arg.getCollection(), criteria);
+        } catch (CommandFailed ex) {
+          return Status.from(ex);
         }
       }
     }
     mongodMetrics.getDeletes().mark(deleted);
+    context.getConnection().getServer().getStatusCounters().getDeletedDocuments().add(deleted);
     return Status.ok(deleted);
 
   }
 
-  private long deleteByAttribute(SharedWriteTorodTransaction transaction, String db, String col,
-      BsonDocument query) throws CommandFailed {
-    Builder refBuilder = new AttributeReference.Builder();
-    KvValue<?> kvValue = AttrRefHelper.calculateValueAndAttRef(query, refBuilder);
-    return transaction.deleteByAttRef(db, col, refBuilder.build(), kvValue);
-  }
-
   private void logDeleteCommand(DeleteArgument arg) {
     if (logger.isTraceEnabled()) {
       String collection = arg.getCollection();
@@ -19,23 +19,26 @@
 package com.torodb.mongodb.commands.impl.general;
 
 import com.torodb.core.cursors.Cursor;
-import com.torodb.core.language.AttributeReference;
-import com.torodb.core.language.AttributeReference.Builder;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.logging.LoggerFactory;
 import com.torodb.kvdocument.conversion.mongowp.ToBsonDocumentTranslator;
-import com.torodb.kvdocument.values.KvDocument;
-import com.torodb.kvdocument.values.KvValue;
 import com.torodb.mongodb.commands.impl.ReadTorodbCommandImpl;
 import com.torodb.mongodb.commands.pojos.CursorResult;
 import com.torodb.mongodb.commands.signatures.general.FindCommand.FindArgument;
 import com.torodb.mongodb.commands.signatures.general.FindCommand.FindResult;
+import com.torodb.mongodb.core.MongoLayerConstants;
+import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongodb.core.MongodCursorManager;
 import com.torodb.mongodb.core.MongodTransaction;
+import com.torodb.mongodb.core.ReadOnlyMongodTransaction;
+import com.torodb.mongodb.language.QueryCriteriaTranslator;
 import com.torodb.mongowp.ErrorCode;
 import com.torodb.mongowp.Status;
 import com.torodb.mongowp.bson.BsonDocument;
 import com.torodb.mongowp.commands.Command;
 import com.torodb.mongowp.commands.Request;
 import com.torodb.mongowp.exceptions.CommandFailed;
+import com.torodb.torod.TorodConnection;
 import com.torodb.torod.TorodTransaction;
 import org.apache.logging.log4j.Logger;
 
@@ -48,6 +51,8 @@ import javax.inject.Singleton;
 @Singleton
 public class FindImplementation implements ReadTorodbCommandImpl<FindArgument, FindResult> {
 
+  private static final String COMMAND_NAME = "find";
+
   private final Logger logger;
 
   @Inject
@@ -61,57 +66,80 @@ public class FindImplementation implements ReadTorodbCommandImpl<FindArgument, F
       MongodTransaction context) {
     logFindCommand(arg);
 
-    BsonDocument filter = arg.getFilter();
-
-    Cursor<BsonDocument> cursor;
-
-    switch (filter.size()) {
-      case 0: {
-        cursor = context.getTorodTransaction().findAll(req.getDatabase(), arg.getCollection())
-            .asDocCursor()
-            .transform(t -> t.getRoot())
-            .transform(ToBsonDocumentTranslator.getInstance());
-        break;
-      }
-      case 1: {
-        try {
-          cursor = getByAttributeCursor(context.getTorodTransaction(), req.getDatabase(), arg
-              .getCollection(), filter)
-              .transform(ToBsonDocumentTranslator.getInstance());
-        } catch (CommandFailed ex) {
-          return Status.from(ex);
-        }
-        break;
-      }
-      default: {
-        return Status.from(ErrorCode.COMMAND_FAILED, "The given query is not supported right now");
-      }
-    }
-
     if (Long.valueOf(arg.getBatchSize()) > (long) Integer.MAX_VALUE) {
       return Status.from(ErrorCode.COMMAND_FAILED, "Only batchSize equals or lower than "
           + Integer.MAX_VALUE + " is supported");
     }
 
     OptionalLong batchSize = arg.getEffectiveBatchSize();
-    List<BsonDocument> batch = cursor.getNextBatch(batchSize.isPresent() ? (int) batchSize
-        .getAsLong() : 101);
-    cursor.close();
+    int firstBatchSize = batchSize.isPresent() ? (int) batchSize.getAsLong()
+        : MongoLayerConstants.MONGO_CURSOR_LIMIT;
+
+    //Cursors that survive the request need their own read transaction, so results can only be
+    //streamed when the caller does not need to see its own uncommitted changes
+    if (!arg.isWantMore() || !(context instanceof ReadOnlyMongodTransaction)) {
+      try (Cursor<BsonDocument> cursor = createCursor(context.getTorodTransaction(),
+          req.getDatabase(), arg)) {
+        List<BsonDocument> batch = cursor.getNextBatch(firstBatchSize);
+        return Status.ok(new FindResult(CursorResult.createSingleBatchCursor(req.getDatabase(),
+            arg.getCollection(), batch.iterator())));
+      } catch (CommandFailed ex) {
+        return Status.from(ex);
+      }
+    }
 
-    return Status.ok(new FindResult(CursorResult.createSingleBatchCursor(req.getDatabase(), arg
-        .getCollection(), batch.iterator())));
+    MongodConnection connection = context.getConnection();
+    MongodCursorManager cursorManager = connection.getServer().getCursorManager();
+    if (!cursorManager.canRegister(connection.getConnectionId())) {
+      return Status.from(ErrorCode.COMMAND_FAILED, "There are too many open cursors");
+    }
 
-  }
+    TorodConnection cursorConnection = connection.getServer().getTorodServer().openConnection();
+    Cursor<BsonDocument> cursor = null;
+    boolean registered = false;
+    try {
+      cursor = createCursor(cursorConnection.openReadOnlyTransaction(), req.getDatabase(), arg);
+      List<BsonDocument> batch = cursor.getNextBatch(firstBatchSize);
+
+      long cursorId = 0;
+      if (cursor.hasNext()) {
+        cursorId = cursorManager.register(connection.getConnectionId(), req.getDatabase(),
+            arg.getCollection(), cursor, cursorConnection)
+            .getCursorId()
+            .getNumericId();
+        registered = true;
+      }
 
-  private Cursor<KvDocument> getByAttributeCursor(TorodTransaction transaction, String db,
-      String col, BsonDocument filter) throws CommandFailed {
+      return Status.ok(new FindResult(CursorResult.create(req.getDatabase(), arg.getCollection(),
+          cursorId, batch.iterator())));
+    } catch (CommandFailed ex) {
+      return Status.from(ex);
+    } finally {
+      if (!registered) {
+        try {
+          if (cursor != null) {
+            cursor.close();
+          }
+        } finally {
+          cursorConnection.close();
+        }
+      }
+    }
+  }
 
-    Builder refBuilder = new AttributeReference.Builder();
-    KvValue<?> kvValue = AttrRefHelper.calculateValueAndAttRef(filter, refBuilder);
+  private Cursor<BsonDocument> createCursor(TorodTransaction transaction, String db,
+      FindArgument arg) throws CommandFailed {
+    QueryCriteria criteria = QueryCriteriaTranslator.translate(COMMAND_NAME, arg.getFilter());
 
-    return transaction.findByAttRef(db, col, refBuilder.build(), kvValue)
+    Cursor<BsonDocument> cursor = transaction.findByCriteria(db, arg.getCollection(), criteria)
         .asDocCursor()
-        .transform(t -> t.getRoot());
+        .transform(t -> t.getRoot())
+        .transform(ToBsonDocumentTranslator.getInstance());
+
+    if (arg.getLimit() > 0) {
+      cursor = cursor.limit(arg.getLimit());
+    }
+    return cursor;
   }
 
   private void logFindCommand(FindArgument arg) {
@@ -0,0 +1,84 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.commands.impl.general;
+
+import com.torodb.core.cursors.CursorId;
+import com.torodb.mongodb.commands.impl.ConnectionTorodbCommandImpl;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand.GetMoreArgument;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand.GetMoreResult;
+import com.torodb.mongodb.core.MongoLayerConstants;
+import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongodb.core.MongodCursor;
+import com.torodb.mongodb.core.MongodCursorManager;
+import com.torodb.mongowp.ErrorCode;
+import com.torodb.mongowp.Status;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.commands.Command;
+import com.torodb.mongowp.commands.Request;
+
+import java.util.List;
+import java.util.Optional;
+
+public class GetMoreImplementation extends
+    ConnectionTorodbCommandImpl<GetMoreArgument, GetMoreResult> {
+
+  @Override
+  public Status<GetMoreResult> apply(Request req,
+      Command<? super GetMoreArgument, ? super GetMoreResult> command, GetMoreArgument arg,
+      MongodConnection context) {
+    MongodCursorManager cursorManager = context.getServer().getCursorManager();
+    CursorId cursorId = new CursorId(arg.getCursorId());
+
+    Optional<MongodCursor> cursorOpt = cursorManager.lookup(cursorId);
+    if (!cursorOpt.isPresent()) {
+      return cursorNotFound(arg.getCursorId());
+    }
+    MongodCursor cursor = cursorOpt.get();
+
+    if (!cursor.getDatabase().equals(req.getDatabase())
+        || !cursor.getCollection().equals(arg.getCollection())) {
+      return Status.from(ErrorCode.UNAUTHORIZED, "Requested getMore on namespace '"
+          + req.getDatabase() + '.' + arg.getCollection() + "', but cursor belongs to a "
+          + "different namespace " + cursor.getDatabase() + '.' + cursor.getCollection());
+    }
+
+    List<BsonDocument> batch;
+    try {
+      batch = cursor.getNextBatch(arg.getBatchSize()
+          .orElse(MongoLayerConstants.GET_MORE_DEFAULT_BATCH_SIZE));
+    } catch (IllegalStateException ex) {
+      //the cursor has been killed or evicted concurrently
+      return cursorNotFound(arg.getCursorId());
+    }
+
+    long resultCursorId = arg.getCursorId();
+    if (!cursor.hasNext()) {
+      cursorManager.kill(cursorId);
+      resultCursorId = 0;
+    }
+
+    return Status.ok(new GetMoreResult(resultCursorId, cursor.getDatabase(),
+        cursor.getCollection(), batch));
+  }
+
+  private Status<GetMoreResult> cursorNotFound(long cursorId) {
+    return Status.from(ErrorCode.CURSOR_NOT_FOUND, "Cursor not found, cursor id: " + cursorId);
+  }
+
+}
@@ -56,6 +56,8 @@ public class InsertImplementation implements WriteTorodbCommandImpl<InsertArgume
     MongodMetrics mongodMetrics = context.getConnection().getServer().getMetrics();
 
     mongodMetrics.getInserts().mark(arg.getDocuments().size());
+    context.getConnection().getServer().getStatusCounters().getInsertedDocuments()
+        .add(arg.getDocuments().size());
     Stream<KvDocument> docsToInsert = arg.getDocuments().stream().map(FromBsonValueTranslator
         .getInstance())
         .map((v) -> (KvDocument) v);
@@ -0,0 +1,56 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.commands.impl.general;
+
+import com.torodb.core.cursors.CursorId;
+import com.torodb.mongodb.commands.impl.ConnectionTorodbCommandImpl;
+import com.torodb.mongodb.commands.signatures.general.KillCursorsCommand.KillCursorsArgument;
+import com.torodb.mongodb.commands.signatures.general.KillCursorsCommand.KillCursorsResult;
+import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongodb.core.MongodCursorManager;
+import com.torodb.mongowp.Status;
+import com.torodb.mongowp.commands.Command;
+import com.torodb.mongowp.commands.Request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class KillCursorsImplementation extends
+    ConnectionTorodbCommandImpl<KillCursorsArgument, KillCursorsResult> {
+
+  @Override
+  public Status<KillCursorsResult> apply(Request req,
+      Command<? super KillCursorsArgument, ? super KillCursorsResult> command,
+      KillCursorsArgument arg, MongodConnection context) {
+    MongodCursorManager cursorManager = context.getServer().getCursorManager();
+
+    List<Long> killed = new ArrayList<>(arg.getCursorIds().size());
+    List<Long> notFound = new ArrayList<>();
+    for (Long cursorId : arg.getCursorIds()) {
+      if (cursorManager.kill(new CursorId(cursorId))) {
+        killed.add(cursorId);
+      } else {
+        notFound.add(cursorId);
+      }
+    }
+
+    return Status.ok(new KillCursorsResult(killed, notFound));
+  }
+
+}
@@ -25,9 +25,9 @@ import com.torodb.core.exceptions.UserWrappedException;
 import com.torodb.core.exceptions.user.UpdateException;
 import com.torodb.core.exceptions.user.UserException;
 import com.torodb.core.language.AttributeReference;
-import com.torodb.core.language.AttributeReference.Builder;
 import com.torodb.core.language.AttributeReference.Key;
 import com.torodb.core.language.AttributeReference.ObjectKey;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.metainf.FieldIndexOrdering;
 import com.torodb.kvdocument.conversion.mongowp.MongoWpConverter;
 import com.torodb.kvdocument.values.KvDocument;
@@ -41,7 +41,9 @@ import com.torodb.mongodb.commands.signatures.general.UpdateCommand.UpsertResult
 import com.torodb.mongodb.core.MongodMetrics;
 import com.torodb.mongodb.core.WriteMongodTransaction;
 import com.torodb.mongodb.language.ObjectIdFactory;
+import com.torodb.mongodb.language.QueryCriteriaTranslator;
 import com.torodb.mongodb.language.UpdateActionTranslator;
+import com.torodb.mongodb.language.update.ModifiedAttributesVisitor;
 import com.torodb.mongodb.language.update.SetDocumentUpdateAction;
 import com.torodb.mongodb.language.update.UpdateAction;
 import com.torodb.mongodb.language.update.UpdatedToroDocumentBuilder;
@@ -53,11 +55,12 @@ import com.torodb.mongowp.commands.Command;
 import com.torodb.mongowp.commands.Request;
 import com.torodb.mongowp.exceptions.CommandFailed;
 import com.torodb.torod.IndexFieldInfo;
-import com.torodb.torod.SharedWriteTorodTransaction;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.Stream;
@@ -71,6 +74,8 @@ import javax.inject.Singleton;
 @Singleton
 public class UpdateImplementation implements WriteTorodbCommandImpl<UpdateArgument, UpdateResult> {
 
+  private static final String COMMAND_NAME = "update";
+
   @Override
   public Status<UpdateResult> apply(Request req,
       Command<? super UpdateArgument, ? super UpdateResult> command, UpdateArgument arg,
@@ -93,29 +98,21 @@ public class UpdateImplementation implements WriteTorodbCommandImpl<UpdateArgume
         BsonDocument query = updateStatement.getQuery();
         UpdateAction updateAction = UpdateActionTranslator.translate(updateStatement.getUpdate());
         Cursor<ToroDocument> candidatesCursor;
-        switch (query.size()) {
-          case 0: {
-            candidatesCursor = context.getTorodTransaction()
-                .findAll(req.getDatabase(), arg.getCollection())
-                .asDocCursor();
-            break;
-          }
-          case 1: {
-            try {
-              candidatesCursor = findByAttribute(context.getTorodTransaction(), req.getDatabase(),
-                  arg.getCollection(), query);
-            } catch (CommandFailed ex) {
-              return Status.from(ex);
-            }
-            break;
-          }
-          default: {
-            return Status.from(ErrorCode.COMMAND_FAILED,
-                "The given query is not supported right now");
-          }
+        try {
+          QueryCriteria criteria = QueryCriteriaTranslator.translate(COMMAND_NAME, query);
+          candidatesCursor = context.getTorodTransaction()
+              .findByCriteria(req.getDatabase(), arg.getCollection(), criteria)
+              .asDocCursor();
+        } catch (CommandFailed ex) {
+          return Status.from(ex);
         }
 
-        if (candidatesCursor.hasNext()) {
+        Optional<Collection<AttributeReference>> modifiedAttributes =
+            ModifiedAttributesVisitor.getModifiedAttributes(updateAction);
+        if (candidatesCursor.hasNext() && modifiedAttributes.isPresent()) {
+          updateInPlace(req, arg, context, updateStatement, updateAction,
+              modifiedAttributes.get(), candidatesCursor, updateStatus);
+        } else if (candidatesCursor.hasNext()) {
           try {
             Stream<List<ToroDocument>> candidatesbatchStream;
             if (updateStatement.isMulti()) {
@@ -178,10 +175,30 @@ public class UpdateImplementation implements WriteTorodbCommandImpl<UpdateArgume
     mongodMetrics.getUpdateModified().mark(updateStatus.updated);
     mongodMetrics.getUpdateMatched().mark(updateStatus.candidates);
     mongodMetrics.getUpdateUpserted().mark(updateStatus.upsertResults.size());
+    context.getConnection().getServer().getStatusCounters().getUpdatedDocuments()
+        .add(updateStatus.updated);
     return Status.ok(new UpdateResult(updateStatus.updated, updateStatus.candidates,
         ImmutableList.copyOf(updateStatus.upsertResults)));
   }
 
+  /**
+   * Updates the candidates one by one, which lets the storage modify the affected attributes of
+   * each document instead of deleting it and inserting it again.
+   */
+  private void updateInPlace(Request req, UpdateArgument arg, WriteMongodTransaction context,
+      UpdateStatement updateStatement, UpdateAction updateAction,
+      Collection<AttributeReference> modifiedAttributes, Cursor<ToroDocument> candidatesCursor,
+      UpdateStatus updateStatus) throws UserException {
+    do {
+      ToroDocument candidate = candidatesCursor.next();
+      updateStatus.increaseCandidates(1);
+      KvDocument updated = update(updateAction, candidate);
+      updateStatus.increaseUpdated();
+      context.getTorodTransaction().update(req.getDatabase(), arg.getCollection(), candidate,
+          updated, modifiedAttributes);
+    } while (updateStatement.isMulti() && candidatesCursor.hasNext());
+  }
+
   private static class UpdateStatus {
 
     int candidates = 0;
@@ -212,12 +229,4 @@ public class UpdateImplementation implements WriteTorodbCommandImpl<UpdateArgume
     return builder.build();
   }
 
-  private Cursor<ToroDocument> findByAttribute(SharedWriteTorodTransaction transaction, String db,
-      String col, BsonDocument query) throws CommandFailed, UserException {
-    Builder refBuilder = new AttributeReference.Builder();
-    KvValue<?> kvValue = AttrRefHelper.calculateValueAndAttRef(query, refBuilder);
-
-    return transaction.findByAttRef(db, col, refBuilder.build(), kvValue).asDocCursor();
-  }
-
 }
@@ -64,6 +64,14 @@ public abstract class CursorResult<E> {
     return new DefaultCursorResult<>(db, col, 0, stream.iterator());
   }
 
+  /**
+   * Creates a cursor result whose cursor can be iterated with getMore if its id is not 0.
+   */
+  public static <E> CursorResult<E> create(String db, String col, long cursorId,
+      Iterator<E> firstBatch) {
+    return new DefaultCursorResult<>(db, col, cursorId, firstBatch);
+  }
+
   public static <E> CursorResult<E> unmarshall(BsonDocument doc,
       Function<BsonValue<?>, E> transformation)
       throws BadValueException, TypesMismatchException, NoSuchKeyException {
@@ -75,7 +75,7 @@ public class CollStatsCommand
 
   @Override
   public BsonDocument marshallArg(CollStatsArgument request) {
-    throw new UnsupportedOperationException("Not supported yet."); //TODO
+    return request.marshall();
   }
 
   @Override
@@ -91,7 +91,7 @@ public class CollStatsCommand
   @Override
   public CollStatsReply unmarshallResult(BsonDocument resultDoc) throws
       BadValueException, TypesMismatchException, NoSuchKeyException {
-    throw new UnsupportedOperationException("Not supported yet."); //TODO
+    return CollStatsReply.unmarshall(resultDoc);
   }
 
   @Immutable
@@ -150,6 +150,14 @@ public class CollStatsCommand
       return new CollStatsArgument(collection, scale, verbose);
     }
 
+    private BsonDocument marshall() {
+      return new BsonDocumentBuilder()
+          .append(COLLECTION_FIELD, collection)
+          .appendNumber(SCALE_FIELD, scale)
+          .append(VERBOSE_FIELD, verbose)
+          .build();
+    }
+
     public String getCollection() {
       return collection;
     }
@@ -218,6 +226,49 @@ public class CollStatsCommand
       this.sizeByIndex = sizeByIndex;
     }
 
+    public int getScale() {
+      return scale;
+    }
+
+    @Nonnull
+    public String getDatabase() {
+      return database;
+    }
+
+    @Nonnull
+    public String getCollection() {
+      return collection;
+    }
+
+    @Nonnull
+    public Number getCount() {
+      return count;
+    }
+
+    @Nonnull
+    public Number getSize() {
+      return size;
+    }
+
+    @Nonnull
+    public Number getStorageSize() {
+      return storageSize;
+    }
+
+    public boolean isCapped() {
+      return capped;
+    }
+
+    @Nullable
+    public Number getMaxIfCapped() {
+      return maxIfCapped;
+    }
+
+    @Nonnull
+    public ImmutableMap<String, ? extends Number> getSizeByIndex() {
+      return sizeByIndex;
+    }
+
     private BsonDocument marshall() {
       BsonDocumentBuilder builder = new BsonDocumentBuilder();
       builder.append(NS_FIELD, database + '.' + collection);
@@ -240,6 +291,48 @@ public class CollStatsCommand
       return builder.build();
     }
 
+    /**
+     * Reads the reply sent by a remote server.
+     *
+     * <p>Storage engine specific stats are ignored and the scale is assumed to be 1.
+     */
+    private static CollStatsReply unmarshall(BsonDocument doc)
+        throws TypesMismatchException, NoSuchKeyException, BadValueException {
+      String ns = BsonReaderTool.getString(doc, NS_FIELD);
+      int dotIndex = ns.indexOf('.');
+      if (dotIndex < 0) {
+        throw new BadValueException("Unexpected namespace " + ns);
+      }
+      Number maxIfCapped = null;
+      if (BsonReaderTool.containsField(doc, MAX_FIELD)) {
+        maxIfCapped = BsonReaderTool.getNumeric(doc, MAX_FIELD).longValue();
+      }
+
+      ImmutableMap.Builder<String, Long> sizeByIndex = ImmutableMap.builder();
+      BsonDocument indexSizes = BsonReaderTool.getDocument(doc, INDEX_SIZES_FIELD,
+          DefaultBsonValues.EMPTY_DOC);
+      for (BsonDocument.Entry<?> entry : indexSizes) {
+        if (entry.getValue().isNumber()) {
+          sizeByIndex.put(entry.getKey(), entry.getValue().asNumber().longValue());
+        }
+      }
+
+      return new CollStatsReply(
+          1,
+          ns.substring(0, dotIndex),
+          ns.substring(dotIndex + 1),
+          BsonReaderTool.getNumeric(doc, COUNT_FIELD, DefaultBsonValues.INT32_ZERO).longValue(),
+          BsonReaderTool.getNumeric(doc, SIZE_FIELD, DefaultBsonValues.INT32_ZERO).longValue(),
+          BsonReaderTool.getNumeric(doc, STORAGE_SIZE_FIELD, DefaultBsonValues.INT32_ZERO)
+              .longValue(),
+          null,
+          BsonReaderTool.getBoolean(doc, CAPPED_FIELD, false),
+          maxIfCapped,
+          BsonReaderTool.getDocument(doc, INDEX_DETAILS_FIELD, DefaultBsonValues.EMPTY_DOC),
+          sizeByIndex.build()
+      );
+    }
+
     private Number getTotalIndexSize() {
       long totalSize = 0;
       for (Number indexSize : sizeByIndex.values()) {
@@ -0,0 +1,247 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.commands.signatures.general;
+
+import com.google.common.collect.ImmutableList;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand.GetMoreArgument;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand.GetMoreResult;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.commands.impl.AbstractNotAliasableCommand;
+import com.torodb.mongowp.exceptions.BadValueException;
+import com.torodb.mongowp.exceptions.NoSuchKeyException;
+import com.torodb.mongowp.exceptions.TypesMismatchException;
+import com.torodb.mongowp.fields.ArrayField;
+import com.torodb.mongowp.fields.DocField;
+import com.torodb.mongowp.fields.LongField;
+import com.torodb.mongowp.fields.NumberField;
+import com.torodb.mongowp.fields.StringField;
+import com.torodb.mongowp.utils.BsonArrayBuilder;
+import com.torodb.mongowp.utils.BsonDocumentBuilder;
+import com.torodb.mongowp.utils.BsonReaderTool;
+
+import java.util.List;
+import java.util.OptionalInt;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Returns the next batch of documents of a cursor that has been opened by a previous command.
+ */
+public class GetMoreCommand extends AbstractNotAliasableCommand<GetMoreArgument, GetMoreResult> {
+
+  public static final GetMoreCommand INSTANCE = new GetMoreCommand();
+  private static final String COMMAND_NAME = "getMore";
+
+  private GetMoreCommand() {
+    super(COMMAND_NAME);
+  }
+
+  @Override
+  public boolean isSlaveOverrideOk() {
+    return true;
+  }
+
+  @Override
+  public boolean isSlaveOk() {
+    return false;
+  }
+
+  @Override
+  public boolean isAllowedOnMaintenance() {
+    return false;
+  }
+
+  @Override
+  public boolean shouldAffectCommandCounter() {
+    return false;
+  }
+
+  @Override
+  public Class<? extends GetMoreArgument> getArgClass() {
+    return GetMoreArgument.class;
+  }
+
+  @Override
+  public GetMoreArgument unmarshallArg(BsonDocument requestDoc) throws BadValueException,
+      TypesMismatchException, NoSuchKeyException {
+    return GetMoreArgument.unmarshall(requestDoc);
+  }
+
+  @Override
+  public BsonDocument marshallArg(GetMoreArgument request) {
+    return request.marshall();
+  }
+
+  @Override
+  public Class<? extends GetMoreResult> getResultClass() {
+    return GetMoreResult.class;
+  }
+
+  @Override
+  public GetMoreResult unmarshallResult(BsonDocument resultDoc) throws BadValueException,
+      TypesMismatchException, NoSuchKeyException {
+    return GetMoreResult.unmarshall(resultDoc);
+  }
+
+  @Override
+  public BsonDocument marshallResult(GetMoreResult result) {
+    return result.marshall();
+  }
+
+  @Immutable
+  public static class GetMoreArgument {
+
+    private static final LongField GET_MORE_FIELD = new LongField(COMMAND_NAME);
+    private static final StringField COLLECTION_FIELD = new StringField("collection");
+    private static final NumberField BATCH_SIZE_FIELD = new NumberField("batchSize");
+
+    private final long cursorId;
+    private final String collection;
+    private final OptionalInt batchSize;
+
+    public GetMoreArgument(long cursorId, String collection, OptionalInt batchSize) {
+      this.cursorId = cursorId;
+      this.collection = collection;
+      this.batchSize = batchSize;
+    }
+
+    public long getCursorId() {
+      return cursorId;
+    }
+
+    public String getCollection() {
+      return collection;
+    }
+
+    /**
+     * The max number of documents to return or {@link OptionalInt#empty()} if the server should
+     * decide it.
+     */
+    public OptionalInt getBatchSize() {
+      return batchSize;
+    }
+
+    private static GetMoreArgument unmarshall(BsonDocument doc) throws BadValueException,
+        TypesMismatchException, NoSuchKeyException {
+      long cursorId = BsonReaderTool.getLong(doc, GET_MORE_FIELD);
+      if (cursorId == 0) {
+        throw new BadValueException("Cursor id cannot be 0");
+      }
+      String collection = BsonReaderTool.getString(doc, COLLECTION_FIELD);
+
+      OptionalInt batchSize = OptionalInt.empty();
+      if (BsonReaderTool.containsField(doc, BATCH_SIZE_FIELD)) {
+        long batchSizeValue = BsonReaderTool.getNumeric(doc, BATCH_SIZE_FIELD).longValue();
+        if (batchSizeValue <= 0 || batchSizeValue > Integer.MAX_VALUE) {
+          throw new BadValueException("Batch size for getMore must be positive and lower than "
+              + Integer.MAX_VALUE + ", but received: " + batchSizeValue);
+        }
+        batchSize = OptionalInt.of((int) batchSizeValue);
+      }
+
+      return new GetMoreArgument(cursorId, collection, batchSize);
+    }
+
+    private BsonDocument marshall() {
+      BsonDocumentBuilder builder = new BsonDocumentBuilder()
+          .append(GET_MORE_FIELD, cursorId)
+          .append(COLLECTION_FIELD, collection);
+      if (batchSize.isPresent()) {
+        builder.appendNumber(BATCH_SIZE_FIELD, batchSize.getAsInt());
+      }
+      return builder.build();
+    }
+  }
+
+  @Immutable
+  public static class GetMoreResult {
+
+    private static final DocField CURSOR_FIELD = new DocField("cursor");
+    private static final LongField ID_FIELD = new LongField("id");
+    private static final StringField NAMESPACE_FIELD = new StringField("ns");
+    private static final ArrayField NEXT_BATCH_FIELD = new ArrayField("nextBatch");
+
+    private final long cursorId;
+    private final String namespace;
+    private final ImmutableList<BsonDocument> nextBatch;
+
+    public GetMoreResult(long cursorId, String database, String collection,
+        List<BsonDocument> nextBatch) {
+      this(cursorId, database + '.' + collection, nextBatch);
+    }
+
+    private GetMoreResult(long cursorId, String namespace, List<BsonDocument> nextBatch) {
+      this.cursorId = cursorId;
+      this.namespace = namespace;
+      this.nextBatch = ImmutableList.copyOf(nextBatch);
+    }
+
+    /**
+     * The id of the cursor or 0 if the cursor has been exhausted.
+     */
+    public long getCursorId() {
+      return cursorId;
+    }
+
+    public String getNamespace() {
+      return namespace;
+    }
+
+    public ImmutableList<BsonDocument> getNextBatch() {
+      return nextBatch;
+    }
+
+    private static GetMoreResult unmarshall(BsonDocument resultDoc) throws BadValueException,
+        TypesMismatchException, NoSuchKeyException {
+      BsonDocument cursorDoc = BsonReaderTool.getDocument(resultDoc, CURSOR_FIELD);
+
+      ImmutableList.Builder<BsonDocument> nextBatch = ImmutableList.builder();
+      for (BsonValue<?> element : BsonReaderTool.getArray(cursorDoc, NEXT_BATCH_FIELD)) {
+        if (!element.isDocument()) {
+          throw new BadValueException("Elements of " + NEXT_BATCH_FIELD.getFieldName()
+              + " must be documents, but " + element + " was found");
+        }
+        nextBatch.add(element.asDocument());
+      }
+
+      return new GetMoreResult(
+          BsonReaderTool.getLong(cursorDoc, ID_FIELD),
+          BsonReaderTool.getString(cursorDoc, NAMESPACE_FIELD),
+          nextBatch.build()
+      );
+    }
+
+    private BsonDocument marshall() {
+      BsonArrayBuilder array = new BsonArrayBuilder();
+      for (BsonDocument doc : nextBatch) {
+        array.add(doc);
+      }
+
+      return new BsonDocumentBuilder()
+          .append(CURSOR_FIELD, new BsonDocumentBuilder()
+              .append(ID_FIELD, cursorId)
+              .append(NAMESPACE_FIELD, namespace)
+              .append(NEXT_BATCH_FIELD, array.build())
+              .build())
+          .build();
+    }
+  }
+
+}
@@ -63,6 +63,24 @@ public final class MongoLayerConstants {
    */
   public static final int MONGO_CURSOR_LIMIT = 101;
 
+  /**
+   * Number of documents returned by a getMore command that does not specify a batch size.
+   */
+  public static final int GET_MORE_DEFAULT_BATCH_SIZE = 1000;
+
+  /**
+   * Time a server side cursor can be unused before it is closed. Obtained from
+   * <a href="https://docs.mongodb.com/manual/reference/parameters/#param.cursorTimeoutMillis">
+   * cursorTimeoutMillis</a>.
+   */
+  public static final long CURSOR_IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+  /**
+   * Max number of server side cursors a single connection can keep open at the same time. Each
+   * open cursor keeps a backend connection busy.
+   */
+  public static final int MAX_CURSORS_PER_CONNECTION = 16;
+
   private MongoLayerConstants() {
   }
 
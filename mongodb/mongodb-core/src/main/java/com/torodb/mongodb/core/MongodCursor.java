@@ -0,0 +1,108 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.core;
+
+import com.google.common.base.Preconditions;
+import com.torodb.core.cursors.Cursor;
+import com.torodb.core.cursors.CursorId;
+import com.torodb.mongowp.bson.BsonDocument;
+
+import java.util.List;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A server side cursor that has been registered on a {@link MongodCursorManager}.
+ *
+ * <p>The cursor owns the resources (usually a dedicated torod connection and its read transaction)
+ * that are needed to keep iterating it, and they are released when the cursor is closed. As
+ * getMore requests can be executed by different threads and the cursor can be evicted at any
+ * moment, all its methods are synchronized.
+ */
+@ThreadSafe
+public class MongodCursor implements AutoCloseable {
+
+  private final CursorId cursorId;
+  private final int ownerConnectionId;
+  private final String database;
+  private final String collection;
+  private final Cursor<BsonDocument> cursor;
+  private final AutoCloseable resources;
+  private boolean closed = false;
+
+  MongodCursor(CursorId cursorId, int ownerConnectionId, String database, String collection,
+      Cursor<BsonDocument> cursor, AutoCloseable resources) {
+    this.cursorId = cursorId;
+    this.ownerConnectionId = ownerConnectionId;
+    this.database = database;
+    this.collection = collection;
+    this.cursor = cursor;
+    this.resources = resources;
+  }
+
+  public CursorId getCursorId() {
+    return cursorId;
+  }
+
+  /**
+   * Returns the id of the connection that opened this cursor.
+   */
+  public int getOwnerConnectionId() {
+    return ownerConnectionId;
+  }
+
+  public String getDatabase() {
+    return database;
+  }
+
+  public String getCollection() {
+    return collection;
+  }
+
+  /**
+   * Gets up to maxSize documents from the current position.
+   *
+   * @throws IllegalStateException if the cursor has been closed
+   */
+  public synchronized List<BsonDocument> getNextBatch(int maxSize) {
+    Preconditions.checkState(!closed, "The cursor " + cursorId.getNumericId() + " is closed");
+    return cursor.getNextBatch(maxSize);
+  }
+
+  public synchronized boolean hasNext() {
+    return !closed && cursor.hasNext();
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public synchronized void close() throws Exception {
+    if (!closed) {
+      closed = true;
+      try {
+        cursor.close();
+      } finally {
+        resources.close();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.core;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.torodb.core.cursors.Cursor;
+import com.torodb.core.cursors.CursorId;
+import com.torodb.core.logging.LoggerFactory;
+import com.torodb.mongowp.bson.BsonDocument;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A registry of the server side cursors that are kept open between requests.
+ *
+ * <p>Cursors are identified by a random positive {@link CursorId} and are evicted (and closed)
+ * when they have not been used for more than the configured idle timeout. The number of cursors
+ * each connection and the whole server can have open at the same time is limited, as each open
+ * cursor keeps a backend connection and its transaction alive.
+ */
+@ThreadSafe
+public class MongodCursorManager {
+
+  private final Logger logger;
+  private final Cache<CursorId, MongodCursor> cursors;
+  private final Map<Integer, Set<CursorId>> cursorsByConnection = new ConcurrentHashMap<>();
+  private final int maxCursorsPerConnection;
+  private final int maxOpenCursors;
+  private final long idleTimeoutMillis;
+  private final MongodMetrics metrics;
+
+  /**
+   * @param maxOpenCursors the max number of cursors that can be open at the same time. It must be
+   *                       lower than the number of read only transactions the backend can keep
+   *                       open, so requests that do not open cursors can still read
+   */
+  public MongodCursorManager(LoggerFactory loggerFactory, MongodMetrics metrics,
+      int maxOpenCursors) {
+    this(loggerFactory, metrics, MongoLayerConstants.CURSOR_IDLE_TIMEOUT_MILLIS,
+        MongoLayerConstants.MAX_CURSORS_PER_CONNECTION, maxOpenCursors, Ticker.systemTicker());
+  }
+
+  public MongodCursorManager(LoggerFactory loggerFactory, MongodMetrics metrics,
+      long idleTimeoutMillis, int maxCursorsPerConnection, int maxOpenCursors, Ticker ticker) {
+    Preconditions.checkArgument(idleTimeoutMillis > 0, "The idle timeout must be positive");
+    Preconditions.checkArgument(maxCursorsPerConnection > 0,
+        "The max number of cursors per connection must be positive");
+    Preconditions.checkArgument(maxOpenCursors > 0,
+        "The max number of open cursors must be positive");
+    this.logger = loggerFactory.apply(this.getClass());
+    this.metrics = metrics;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.maxCursorsPerConnection = maxCursorsPerConnection;
+    this.maxOpenCursors = maxOpenCursors;
+    this.cursors = CacheBuilder.newBuilder()
+        .expireAfterAccess(idleTimeoutMillis, TimeUnit.MILLISECONDS)
+        .ticker(ticker)
+        .removalListener(this::onCursorRemoved)
+        .build();
+  }
+
+  public long getIdleTimeoutMillis() {
+    return idleTimeoutMillis;
+  }
+
+  /**
+   * Returns true iff the given connection can register a new cursor.
+   */
+  public boolean canRegister(int connectionId) {
+    Set<CursorId> ownedCursors = cursorsByConnection.get(connectionId);
+    if (ownedCursors != null && ownedCursors.size() >= maxCursorsPerConnection) {
+      return false;
+    }
+    if (cursors.size() >= maxOpenCursors) {
+      //the size includes the expired cursors that have not been evicted yet
+      cursors.cleanUp();
+    }
+    return cursors.size() < maxOpenCursors;
+  }
+
+  /**
+   * Registers a new cursor that will be kept open until it is exhausted, killed or evicted.
+   *
+   * @param connectionId the id of the connection that owns the cursor
+   * @param cursor       the cursor that iterates the result. It has to be positioned after the
+   *                     documents that have already been returned to the client
+   * @param resources    the resources that must be released when the cursor is closed
+   * @throws IllegalStateException if the connection or the server already have the max number of
+   *                               open cursors
+   */
+  public MongodCursor register(int connectionId, String database, String collection,
+      Cursor<BsonDocument> cursor, AutoCloseable resources) {
+    Preconditions.checkState(canRegister(connectionId), "The connection " + connectionId
+        + " cannot open more cursors. The limits are " + maxCursorsPerConnection
+        + " cursors per connection and " + maxOpenCursors + " open cursors");
+
+    MongodCursor result;
+    do {
+      CursorId cursorId = new CursorId(generateCursorId());
+      result = new MongodCursor(cursorId, connectionId, database, collection, cursor, resources);
+    } while (cursors.asMap().putIfAbsent(result.getCursorId(), result) != null);
+
+    cursorsByConnection.computeIfAbsent(connectionId, id -> ConcurrentHashMap.newKeySet())
+        .add(result.getCursorId());
+    metrics.getOpenCursors().inc();
+
+    logger.trace("Registered cursor {} on {}.{}", result.getCursorId().getNumericId(), database,
+        collection);
+    return result;
+  }
+
+  /**
+   * Returns the cursor with the given id, if it is still open.
+   *
+   * <p>Looking up a cursor resets its idle timeout.
+   */
+  public Optional<MongodCursor> lookup(CursorId cursorId) {
+    return Optional.ofNullable(cursors.getIfPresent(cursorId));
+  }
+
+  /**
+   * Closes and unregisters the given cursor.
+   *
+   * @return true iff the cursor was open
+   */
+  public boolean kill(CursorId cursorId) {
+    return cursors.asMap().remove(cursorId) != null;
+  }
+
+  /**
+   * Closes all cursors opened by the given connection.
+   *
+   * <p>This method must be called when the connection is closed.
+   */
+  public void killConnectionCursors(int connectionId) {
+    Set<CursorId> ownedCursors = cursorsByConnection.remove(connectionId);
+    if (ownedCursors != null) {
+      cursors.invalidateAll(new ArrayList<>(ownedCursors));
+    }
+  }
+
+  /**
+   * Closes all registered cursors.
+   */
+  public void killAll() {
+    cursors.invalidateAll();
+  }
+
+  /**
+   * Closes the cursors whose idle timeout has been reached.
+   *
+   * <p>Expired cursors are also evicted lazily when the manager is used, but this method should be
+   * called periodically to release their resources on idle servers.
+   */
+  public void evictIdleCursors() {
+    cursors.cleanUp();
+  }
+
+  public long getOpenCursorsCount() {
+    return cursors.size();
+  }
+
+  private long generateCursorId() {
+    long id;
+    do {
+      id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+    } while (id == 0);
+    return id;
+  }
+
+  private void onCursorRemoved(RemovalNotification<CursorId, MongodCursor> notification) {
+    MongodCursor cursor = notification.getValue();
+    if (cursor == null) {
+      return;
+    }
+    Set<CursorId> ownedCursors = cursorsByConnection.get(cursor.getOwnerConnectionId());
+    if (ownedCursors != null) {
+      ownedCursors.remove(cursor.getCursorId());
+    }
+    metrics.getOpenCursors().dec();
+    if (notification.getCause() == RemovalCause.EXPIRED) {
+      logger.debug("Cursor {} on {}.{} timed out", cursor.getCursorId().getNumericId(),
+          cursor.getDatabase(), cursor.getCollection());
+      metrics.getTimedOutCursors().mark();
+    }
+    try {
+      cursor.close();
+    } catch (Exception ex) {
+      logger.warn("Error while closing cursor " + cursor.getCursorId().getNumericId(), ex);
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalNotification;
 import com.torodb.core.annotations.TorodbIdleService;
+import com.torodb.core.concurrent.ConcurrentToolsFactory;
 import com.torodb.core.logging.LoggerFactory;
 import com.torodb.core.services.IdleTorodbService;
 import com.torodb.mongodb.commands.CommandClassifier;
@@ -29,7 +30,13 @@ import com.torodb.mongodb.language.ObjectIdFactory;
 import com.torodb.torod.TorodServer;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -37,6 +44,8 @@ import javax.inject.Singleton;
 @Singleton
 public class MongodServer extends IdleTorodbService {
 
+  private static final long CURSOR_REAPER_MAX_PERIOD_MILLIS = 60 * 1000;
+
   private final LoggerFactory loggerFactory;
   private final Logger logger;
   private final TorodServer torodServer;
@@ -44,6 +53,12 @@ public class MongodServer extends IdleTorodbService {
   private final CommandClassifier commandsExecutorClassifier;
   private final MongodMetrics metrics;
   private final ObjectIdFactory objectIdFactory;
+  private final MongodCursorManager cursorManager;
+  private final ConcurrentToolsFactory concurrentToolsFactory;
+  private final MongodStatusCounters statusCounters = new MongodStatusCounters();
+  private final List<IntConsumer> connectionCloseListeners = new CopyOnWriteArrayList<>();
+  private final long startTimeMillis = System.currentTimeMillis();
+  private ScheduledExecutorService cursorReaper;
 
   @Inject
   public MongodServer(@TorodbIdleService ThreadFactory threadFactory,
@@ -51,7 +66,8 @@ public class MongodServer extends IdleTorodbService {
       TorodServer torodServer,
       CommandClassifier commandsExecutorClassifier,
       MongodMetrics metrics,
-      ObjectIdFactory objectIdFactory) {
+      ObjectIdFactory objectIdFactory,
+      ConcurrentToolsFactory concurrentToolsFactory) {
     super(threadFactory);
     this.loggerFactory = loggerFactory;
     this.logger = loggerFactory.apply(this.getClass());
@@ -63,6 +79,9 @@ public class MongodServer extends IdleTorodbService {
     this.commandsExecutorClassifier = commandsExecutorClassifier;
     this.metrics = metrics;
     this.objectIdFactory = objectIdFactory;
+    this.cursorManager = new MongodCursorManager(loggerFactory, metrics,
+        getMaxOpenCursors(torodServer));
+    this.concurrentToolsFactory = concurrentToolsFactory;
   }
 
   public TorodServer getTorodServer() {
@@ -72,27 +91,65 @@ public class MongodServer extends IdleTorodbService {
   public MongodConnection openConnection() {
     MongodConnection connection = new MongodConnection(this);
     openConnections.put(connection.getConnectionId(), connection);
+    statusCounters.getCreatedConnections().increment();
 
     return connection;
   }
 
+  /**
+   * Adds a listener that is called with the id of each connection once it is closed, or once it
+   * has been collected without being closed, so the resources associated to it can be released.
+   */
+  public void addConnectionCloseListener(IntConsumer listener) {
+    connectionCloseListeners.add(listener);
+  }
+
   public MongodMetrics getMetrics() {
     return metrics;
   }
 
+  public MongodStatusCounters getStatusCounters() {
+    return statusCounters;
+  }
+
+  /**
+   * Returns the number of connections that are currently open.
+   */
+  public long getOpenConnectionsCount() {
+    return openConnections.size();
+  }
+
+  public long getStartTimeMillis() {
+    return startTimeMillis;
+  }
+
   public ObjectIdFactory getObjectIdFactory() {
     return objectIdFactory;
   }
 
+  public MongodCursorManager getCursorManager() {
+    return cursorManager;
+  }
+
   @Override
   protected void startUp() throws Exception {
     logger.debug("Waiting for Torod server to be running");
     torodServer.awaitRunning();
+    long reapPeriod = Math.min(
+        cursorManager.getIdleTimeoutMillis(), CURSOR_REAPER_MAX_PERIOD_MILLIS);
+    cursorReaper = concurrentToolsFactory.createScheduledExecutorServiceWithMaxThreads(
+        "mongod-cursor-reaper", 1);
+    cursorReaper.scheduleAtFixedRate(this::reapCursors, reapPeriod, reapPeriod,
+        TimeUnit.MILLISECONDS);
     logger.debug("MongodServer ready to run");
   }
 
   @Override
   protected void shutDown() throws Exception {
+    if (cursorReaper != null) {
+      cursorReaper.shutdownNow();
+    }
+    cursorManager.killAll();
     openConnections.invalidateAll();
   }
 
@@ -100,7 +157,14 @@ public class MongodServer extends IdleTorodbService {
     return commandsExecutorClassifier;
   }
 
+  private void reapCursors() {
+    //releases the resources of the connections that have been collected without being closed
+    openConnections.cleanUp();
+    cursorManager.evictIdleCursors();
+  }
+
   void onConnectionClose(MongodConnection connection) {
+    releaseConnectionResources(connection.getConnectionId());
     openConnections.invalidate(connection.getConnectionId());
   }
 
@@ -109,7 +173,35 @@ public class MongodServer extends IdleTorodbService {
     MongodConnection value = notification.getValue();
     if (value != null) {
       value.close();
+    } else {
+      //the connection has been collected without being closed, but its resources are still open
+      releaseConnectionResources(notification.getKey());
+    }
+  }
+
+  private void releaseConnectionResources(int connectionId) {
+    cursorManager.killConnectionCursors(connectionId);
+    for (IntConsumer listener : connectionCloseListeners) {
+      try {
+        listener.accept(connectionId);
+      } catch (RuntimeException ex) {
+        logger.warn("Error while releasing the resources of connection " + connectionId, ex);
+      }
+    }
+  }
+
+  /**
+   * Returns the max number of cursors that can be open at the same time.
+   *
+   * <p>Each open cursor keeps a read only transaction open, so at least one of the read only
+   * transactions the server can open is left for the requests that do not open cursors.
+   */
+  private static int getMaxOpenCursors(TorodServer torodServer) {
+    OptionalInt maxReadOnlyTransactions = torodServer.getMaxReadOnlyTransactions();
+    if (!maxReadOnlyTransactions.isPresent()) {
+      return Integer.MAX_VALUE;
     }
+    return Math.max(1, maxReadOnlyTransactions.getAsInt() - 1);
   }
 
   public LoggerFactory getLoggerFactory() {
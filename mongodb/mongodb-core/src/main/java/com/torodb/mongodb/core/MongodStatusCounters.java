@@ -0,0 +1,171 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The counters reported by the serverStatus command.
+ *
+ * <p>Unlike {@link MongodMetrics}, these counters are always enabled, so they must be cheap to
+ * update: all of them are {@link LongAdder LongAdders} that can be increased without locking.
+ */
+@ThreadSafe
+public class MongodStatusCounters {
+
+  private final OpCounters opCounters = new OpCounters();
+  private final OpCounters replOpCounters = new OpCounters();
+  private final LongAdder createdConnections = new LongAdder();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final LongAdder activeReaders = new LongAdder();
+  private final LongAdder activeWriters = new LongAdder();
+  private final LongAdder deletedDocuments = new LongAdder();
+  private final LongAdder insertedDocuments = new LongAdder();
+  private final LongAdder returnedDocuments = new LongAdder();
+  private final LongAdder updatedDocuments = new LongAdder();
+  private final LongAdder appliedBatches = new LongAdder();
+  private final LongAdder appliedBatchesMillis = new LongAdder();
+  private final LongAdder appliedOps = new LongAdder();
+
+  /**
+   * The operations executed by the clients of this server.
+   */
+  public OpCounters getOpCounters() {
+    return opCounters;
+  }
+
+  /**
+   * The operations applied by replication.
+   */
+  public OpCounters getReplOpCounters() {
+    return replOpCounters;
+  }
+
+  public LongAdder getCreatedConnections() {
+    return createdConnections;
+  }
+
+  public LongAdder getRequests() {
+    return requests;
+  }
+
+  /**
+   * The number of bytes received from the clients.
+   */
+  public LongAdder getBytesIn() {
+    return bytesIn;
+  }
+
+  /**
+   * The number of bytes sent to the clients.
+   */
+  public LongAdder getBytesOut() {
+    return bytesOut;
+  }
+
+  /**
+   * The number of read transactions that are currently open.
+   */
+  public LongAdder getActiveReaders() {
+    return activeReaders;
+  }
+
+  /**
+   * The number of write transactions that are currently open.
+   */
+  public LongAdder getActiveWriters() {
+    return activeWriters;
+  }
+
+  public LongAdder getDeletedDocuments() {
+    return deletedDocuments;
+  }
+
+  public LongAdder getInsertedDocuments() {
+    return insertedDocuments;
+  }
+
+  public LongAdder getReturnedDocuments() {
+    return returnedDocuments;
+  }
+
+  public LongAdder getUpdatedDocuments() {
+    return updatedDocuments;
+  }
+
+  /**
+   * The number of oplog batches applied by replication.
+   */
+  public LongAdder getAppliedBatches() {
+    return appliedBatches;
+  }
+
+  /**
+   * The sum, for each applied oplog batch, of the milliseconds between the batch was fetched
+   * from the sync source and the moment it was applied.
+   */
+  public LongAdder getAppliedBatchesMillis() {
+    return appliedBatchesMillis;
+  }
+
+  /**
+   * The number of oplog operations applied by replication.
+   */
+  public LongAdder getAppliedOps() {
+    return appliedOps;
+  }
+
+  public static enum OpType {
+    INSERT,
+    QUERY,
+    UPDATE,
+    DELETE,
+    GETMORE,
+    COMMAND;
+  }
+
+  @ThreadSafe
+  public static class OpCounters {
+
+    private final LongAdder[] counters = new LongAdder[OpType.values().length];
+
+    private OpCounters() {
+      for (int i = 0; i < counters.length; i++) {
+        counters[i] = new LongAdder();
+      }
+    }
+
+    public void add(OpType type, long count) {
+      counters[type.ordinal()].add(count);
+    }
+
+    public void increment(OpType type) {
+      counters[type.ordinal()].increment();
+    }
+
+    public long get(OpType type) {
+      return counters[type.ordinal()].sum();
+    }
+  }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.language;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.AndQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria.Operator;
+import com.torodb.core.language.querycriteria.ExistsQueryCriteria;
+import com.torodb.core.language.querycriteria.InQueryCriteria;
+import com.torodb.core.language.querycriteria.OrQueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteria;
+import com.torodb.core.language.querycriteria.TrueQueryCriteria;
+import com.torodb.kvdocument.conversion.mongowp.MongoWpConverter;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvDate;
+import com.torodb.kvdocument.values.KvInstant;
+import com.torodb.kvdocument.values.KvMongoObjectId;
+import com.torodb.kvdocument.values.KvNull;
+import com.torodb.kvdocument.values.KvNumeric;
+import com.torodb.kvdocument.values.KvString;
+import com.torodb.kvdocument.values.KvTime;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonDocument.Entry;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.exceptions.CommandFailed;
+import com.torodb.mongowp.utils.BsonReaderTool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates MongoDB query filters into {@link QueryCriteria}.
+ *
+ * <p>Supported filters are conjunctions and disjunctions ({@code $and}, {@code $or} and implicit
+ * conjunctions) of equality, {@code $eq}, {@code $in}, {@code $gt}, {@code $gte}, {@code $lt},
+ * {@code $lte} and {@code $exists} conditions on scalar values. As on MongoDB, equality with
+ * {@code null} also matches documents where the attribute does not exist. Other filters, like
+ * equality with subdocuments, are rejected with a {@link CommandFailed} exception.
+ */
+public class QueryCriteriaTranslator {
+
+  private QueryCriteriaTranslator() {
+  }
+
+  public static QueryCriteria translate(String commandName, BsonDocument filter)
+      throws CommandFailed {
+    if (filter.isEmpty()) {
+      return TrueQueryCriteria.getInstance();
+    }
+    List<QueryCriteria> conjunction = new ArrayList<>(filter.size());
+    for (Entry<?> entry : filter) {
+      String key = entry.getKey();
+      if (key.startsWith("$")) {
+        conjunction.add(translateLogicalOperator(commandName, key, entry.getValue()));
+      } else {
+        translateAttribute(commandName, toAttRef(key), entry.getValue(), conjunction);
+      }
+    }
+    return and(conjunction);
+  }
+
+  private static QueryCriteria translateLogicalOperator(String commandName, String operator,
+      BsonValue<?> value) throws CommandFailed {
+    if (!operator.equals("$and") && !operator.equals("$or")) {
+      throw new CommandFailed(commandName, "The operator " + operator
+          + " is not supported right now");
+    }
+    if (!value.isArray() || value.asArray().size() == 0) {
+      throw new CommandFailed(commandName, operator + " must be a nonempty array");
+    }
+    List<QueryCriteria> subCriteria = new ArrayList<>(value.asArray().size());
+    for (BsonValue<?> element : value.asArray()) {
+      if (!element.isDocument()) {
+        throw new CommandFailed(commandName, operator + " entries must be objects");
+      }
+      subCriteria.add(translate(commandName, element.asDocument()));
+    }
+    if (operator.equals("$and")) {
+      return and(subCriteria);
+    }
+    return subCriteria.size() == 1 ? subCriteria.get(0) : new OrQueryCriteria(subCriteria);
+  }
+
+  private static void translateAttribute(String commandName, AttributeReference attRef,
+      BsonValue<?> value, List<QueryCriteria> conjunction) throws CommandFailed {
+    if (value.isArray()) {
+      throw new CommandFailed(commandName, "Filters with arrays are not supported right now");
+    }
+    if (!value.isDocument()) {
+      conjunction.add(translateEquality(attRef, MongoWpConverter.translate(value)));
+      return;
+    }
+    BsonDocument doc = value.asDocument();
+    if (doc.isEmpty() || !doc.getFirstEntry().getKey().startsWith("$")) {
+      //a subdocument literal must match the whole value, which is not the same as matching each
+      //one of its attributes
+      throw new CommandFailed(commandName, "Filters with documents are not supported right now");
+    }
+    for (Entry<?> entry : doc) {
+      conjunction.add(translateAttributeOperator(commandName, attRef, entry));
+    }
+  }
+
+  private static QueryCriteria translateAttributeOperator(String commandName,
+      AttributeReference attRef, Entry<?> entry) throws CommandFailed {
+    String operator = entry.getKey();
+    BsonValue<?> value = entry.getValue();
+    switch (operator) {
+      case "$eq":
+        return translateEquality(attRef, translateScalar(commandName, operator, value));
+      case "$gt":
+        return translateRange(commandName, attRef, Operator.GT, operator, value);
+      case "$gte":
+        return translateRange(commandName, attRef, Operator.GTE, operator, value);
+      case "$lt":
+        return translateRange(commandName, attRef, Operator.LT, operator, value);
+      case "$lte":
+        return translateRange(commandName, attRef, Operator.LTE, operator, value);
+      case "$in": {
+        if (!value.isArray()) {
+          throw new CommandFailed(commandName, "$in needs an array");
+        }
+        List<KvValue<?>> values = new ArrayList<>(value.asArray().size());
+        for (BsonValue<?> element : value.asArray()) {
+          values.add(translateScalar(commandName, operator, element));
+        }
+        if (values.isEmpty()) {
+          throw new CommandFailed(commandName, "$in with an empty array is not supported "
+              + "right now");
+        }
+        QueryCriteria in = new InQueryCriteria(attRef, values);
+        if (values.stream().anyMatch(kvValue -> kvValue instanceof KvNull)) {
+          return new OrQueryCriteria(Lists.newArrayList(
+              in, new ExistsQueryCriteria(attRef, false)));
+        }
+        return in;
+      }
+      case "$exists":
+        return new ExistsQueryCriteria(attRef, BsonReaderTool.isPseudoTrue(entry));
+      default:
+        throw new CommandFailed(commandName, "The operator " + operator
+            + " is not supported right now");
+    }
+  }
+
+  private static QueryCriteria translateEquality(AttributeReference attRef, KvValue<?> kvValue) {
+    QueryCriteria equality = new ComparisonQueryCriteria(attRef, Operator.EQ, kvValue);
+    if (kvValue instanceof KvNull) {
+      return new OrQueryCriteria(Lists.newArrayList(
+          equality, new ExistsQueryCriteria(attRef, false)));
+    }
+    return equality;
+  }
+
+  private static QueryCriteria translateRange(String commandName, AttributeReference attRef,
+      Operator operator, String operatorName, BsonValue<?> value) throws CommandFailed {
+    KvValue<?> kvValue = translateScalar(commandName, operatorName, value);
+    if (!isOrderable(kvValue)) {
+      throw new CommandFailed(commandName, operatorName + " is not supported right now on "
+          + kvValue.getType() + " values");
+    }
+    return new ComparisonQueryCriteria(attRef, operator, kvValue);
+  }
+
+  private static KvValue<?> translateScalar(String commandName, String operator,
+      BsonValue<?> value) throws CommandFailed {
+    if (value.isArray() || value.isDocument()) {
+      throw new CommandFailed(commandName, operator + " is only supported right now with scalar "
+          + "values");
+    }
+    return MongoWpConverter.translate(value);
+  }
+
+  private static boolean isOrderable(KvValue<?> value) {
+    return value instanceof KvNumeric
+        || value instanceof KvString
+        || value instanceof KvBoolean
+        || value instanceof KvDate
+        || value instanceof KvInstant
+        || value instanceof KvTime
+        || value instanceof KvMongoObjectId;
+  }
+
+  private static AttributeReference toAttRef(String path) {
+    AttributeReference.Builder builder = new AttributeReference.Builder();
+    for (String subKey : Splitter.on('.').split(path)) {
+      builder.addObjectKey(subKey);
+    }
+    return builder.build();
+  }
+
+  private static QueryCriteria and(List<QueryCriteria> conjunction) {
+    if (conjunction.size() == 1) {
+      return conjunction.get(0);
+    }
+    return new AndQueryCriteria(conjunction);
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.torodb.mongodb.language.update;
+
+import com.torodb.core.language.AttributeReference;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Returns the attributes that an update action can modify on the documents it is applied to or
+ * an empty optional if the action can modify any attribute.
+ *
+ * <p>Replacements and field moves are reported as actions that can modify any attribute, as they
+ * change the structure of the document.
+ */
+public class ModifiedAttributesVisitor
+    implements UpdateActionVisitor<Optional<Collection<AttributeReference>>, Void> {
+
+  private static final ModifiedAttributesVisitor INSTANCE = new ModifiedAttributesVisitor();
+
+  private ModifiedAttributesVisitor() {
+  }
+
+  public static Optional<Collection<AttributeReference>> getModifiedAttributes(
+      UpdateAction action) {
+    return action.accept(INSTANCE, null);
+  }
+
+  private Optional<Collection<AttributeReference>> singleField(SingleFieldUpdateAction action) {
+    return Optional.of(action.getModifiedField());
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(CompositeUpdateAction action, Void arg) {
+    Set<AttributeReference> result = new LinkedHashSet<>();
+    for (SingleFieldUpdateAction subAction : action.getActions().values()) {
+      Optional<Collection<AttributeReference>> subResult = subAction.accept(this, arg);
+      if (!subResult.isPresent()) {
+        return Optional.empty();
+      }
+      result.addAll(subResult.get());
+    }
+    return Optional.of(result);
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(IncrementUpdateAction action, Void arg) {
+    return singleField(action);
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(MoveUpdateAction action, Void arg) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(MultiplyUpdateAction action, Void arg) {
+    return singleField(action);
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(SetCurrentDateUpdateAction action,
+      Void arg) {
+    return singleField(action);
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(SetDocumentUpdateAction action,
+      Void arg) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(SetFieldUpdateAction action, Void arg) {
+    return singleField(action);
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> visit(UnsetFieldUpdateAction action, Void arg) {
+    return singleField(action);
+  }
+
+}
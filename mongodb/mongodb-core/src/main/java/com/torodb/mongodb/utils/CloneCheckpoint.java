@@ -0,0 +1,171 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.utils;
+
+import com.torodb.mongowp.bson.BsonValue;
+
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Stores the progress of a {@link DbCloner}, so a cloning that has been interrupted can be resumed
+ * without cloning again what was already cloned.
+ *
+ * <p>Collections whose progress is stored are cloned in {@code _id} order, so the progress of each
+ * collection is the last {@code _id} whose document (and all previous ones) has been cloned.
+ */
+public interface CloneCheckpoint {
+
+  /**
+   * A checkpoint that does not store anything, so clonings cannot be resumed.
+   */
+  public static final CloneCheckpoint NONE = new CloneCheckpoint() {
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+
+    @Override
+    public CollectionState getState(String dstDb, String collection) {
+      return CollectionState.notStarted();
+    }
+
+    @Override
+    public void onDocumentsCloned(String dstDb, String collection, BsonValue<?> lastClonedId) {
+    }
+
+    @Override
+    public void onDataCloned(String dstDb, String collection) {
+    }
+
+    @Override
+    public void onIndexesCloned(String dstDb, String collection) {
+    }
+  };
+
+  /**
+   * Returns true iff the progress is stored.
+   *
+   * <p>When it is false the cloner is free to read the remote collections in natural order.
+   */
+  public boolean isEnabled();
+
+  @Nonnull
+  public CollectionState getState(String dstDb, String collection);
+
+  /**
+   * Called when all documents whose {@code _id} is lower or equal than the given one have been
+   * cloned and committed.
+   */
+  public void onDocumentsCloned(String dstDb, String collection, BsonValue<?> lastClonedId);
+
+  /**
+   * Called when all documents of the collection have been cloned and committed.
+   */
+  public void onDataCloned(String dstDb, String collection);
+
+  /**
+   * Called when all indexes of the collection have been cloned.
+   */
+  public void onIndexesCloned(String dstDb, String collection);
+
+  public static enum Phase {
+    NOT_STARTED,
+    CLONING_DATA,
+    DATA_CLONED,
+    INDEXES_CLONED;
+  }
+
+  public static class CollectionState {
+
+    private static final CollectionState NOT_STARTED = new CollectionState(
+        Phase.NOT_STARTED, null);
+    private static final CollectionState DATA_CLONED = new CollectionState(
+        Phase.DATA_CLONED, null);
+    private static final CollectionState INDEXES_CLONED = new CollectionState(
+        Phase.INDEXES_CLONED, null);
+
+    private final Phase phase;
+    @Nullable
+    private final BsonValue<?> lastClonedId;
+
+    private CollectionState(Phase phase, @Nullable BsonValue<?> lastClonedId) {
+      this.phase = phase;
+      this.lastClonedId = lastClonedId;
+    }
+
+    public static CollectionState notStarted() {
+      return NOT_STARTED;
+    }
+
+    public static CollectionState cloningData(@Nullable BsonValue<?> lastClonedId) {
+      return new CollectionState(Phase.CLONING_DATA, lastClonedId);
+    }
+
+    public static CollectionState dataCloned() {
+      return DATA_CLONED;
+    }
+
+    public static CollectionState indexesCloned() {
+      return INDEXES_CLONED;
+    }
+
+    public static CollectionState of(Phase phase, @Nullable BsonValue<?> lastClonedId) {
+      switch (phase) {
+        case NOT_STARTED:
+          return notStarted();
+        case CLONING_DATA:
+          return cloningData(lastClonedId);
+        case DATA_CLONED:
+          return dataCloned();
+        case INDEXES_CLONED:
+          return indexesCloned();
+        default:
+          throw new AssertionError("Unexpected phase " + phase);
+      }
+    }
+
+    public Phase getPhase() {
+      return phase;
+    }
+
+    /**
+     * Returns the last {@code _id} that has been cloned, which is only present when the phase is
+     * {@link Phase#CLONING_DATA} and at least one document has been cloned.
+     */
+    public Optional<BsonValue<?>> getLastClonedId() {
+      return Optional.ofNullable(lastClonedId);
+    }
+
+    public boolean isDataCloned() {
+      return phase == Phase.DATA_CLONED || phase == Phase.INDEXES_CLONED;
+    }
+
+    public boolean isIndexesCloned() {
+      return phase == Phase.INDEXES_CLONED;
+    }
+
+    @Override
+    public String toString() {
+      return phase + (lastClonedId != null ? " (" + lastClonedId + ")" : "");
+    }
+  }
+}
@@ -27,6 +27,7 @@ import com.torodb.mongowp.client.core.MongoClient;
 import com.torodb.mongowp.exceptions.MongoException;
 import com.torodb.mongowp.exceptions.NotMasterException;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -48,6 +49,24 @@ public interface DbCloner extends Service {
       MongodServer localServer, @Nonnull CloneOptions opts)
       throws CloningException, NotMasterException, MongoException;
 
+  /**
+   * Clones several databases.
+   *
+   * <p>By default databases are cloned one after the other, but implementations may clone their
+   * collections concurrently.
+   *
+   * @param dstDbToOpts a map whose keys are the destiny databases and whose values are the options
+   *                    used to clone each of them
+   * @see #cloneDatabase(String, MongoClient, MongodServer, CloneOptions)
+   */
+  public default void cloneDatabases(@Nonnull Map<String, CloneOptions> dstDbToOpts,
+      @Nonnull MongoClient remoteClient, MongodServer localServer)
+      throws CloningException, NotMasterException, MongoException {
+    for (Map.Entry<String, CloneOptions> entry : dstDbToOpts.entrySet()) {
+      cloneDatabase(entry.getKey(), remoteClient, localServer, entry.getValue());
+    }
+  }
+
   public static class CloneOptions {
 
     private final boolean cloneData;
@@ -59,6 +78,7 @@ public interface DbCloner extends Service {
     private final Supplier<Boolean> writePermissionSupplier;
     private final Predicate<String> collectionFilter;
     private final IndexFilter indexFilter;
+    private final CloneCheckpoint checkpoint;
 
     public CloneOptions(
         boolean cloneData,
@@ -70,6 +90,21 @@ public interface DbCloner extends Service {
         Supplier<Boolean> writePermissionSupplier,
         Predicate<String> collectionFilter,
         IndexFilter indexFilter) {
+      this(cloneData, cloneIndexes, slaveOk, snapshot, dbToClone, collsToIgnore,
+          writePermissionSupplier, collectionFilter, indexFilter, CloneCheckpoint.NONE);
+    }
+
+    public CloneOptions(
+        boolean cloneData,
+        boolean cloneIndexes,
+        boolean slaveOk,
+        boolean snapshot,
+        String dbToClone,
+        Set<String> collsToIgnore,
+        Supplier<Boolean> writePermissionSupplier,
+        Predicate<String> collectionFilter,
+        IndexFilter indexFilter,
+        CloneCheckpoint checkpoint) {
       this.cloneData = cloneData;
       this.cloneIndexes = cloneIndexes;
       this.slaveOk = slaveOk;
@@ -79,6 +114,7 @@ public interface DbCloner extends Service {
       this.writePermissionSupplier = writePermissionSupplier;
       this.collectionFilter = collectionFilter;
       this.indexFilter = indexFilter;
+      this.checkpoint = checkpoint;
     }
 
     /**
@@ -144,6 +180,14 @@ public interface DbCloner extends Service {
     public IndexFilter getIndexFilter() {
       return indexFilter;
     }
+
+    /**
+     * @return the checkpoint where the progress is stored, which is {@link CloneCheckpoint#NONE}
+     *         if the cloning cannot be resumed
+     */
+    public CloneCheckpoint getCheckpoint() {
+      return checkpoint;
+    }
   }
 
   public static class CloningException extends ToroRuntimeException {
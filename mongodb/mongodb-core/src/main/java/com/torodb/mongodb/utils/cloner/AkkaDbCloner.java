@@ -18,14 +18,18 @@
 
 package com.torodb.mongodb.utils.cloner;
 
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDocument;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newInt;
+
 import akka.NotUsed;
-import akka.japi.Pair;
 import akka.japi.tuple.Tuple3;
 import akka.stream.ActorMaterializer;
 import akka.stream.FlowShape;
+import akka.stream.KillSwitches;
 import akka.stream.Graph;
 import akka.stream.Materializer;
 import akka.stream.OverflowStrategy;
+import akka.stream.SharedKillSwitch;
 import akka.stream.UniformFanInShape;
 import akka.stream.UniformFanOutShape;
 import akka.stream.javadsl.Balance;
@@ -38,10 +42,13 @@ import akka.stream.javadsl.Source;
 import com.google.common.annotations.Beta;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 import com.torodb.common.util.RetryHelper.ExceptionHandler;
 import com.torodb.core.concurrent.ActorSystemTorodbService;
 import com.torodb.core.concurrent.ConcurrentToolsFactory;
+import com.torodb.core.cursors.Cursor;
 import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.logging.DefaultLoggerFactory;
 import com.torodb.core.logging.LoggerFactory;
 import com.torodb.core.retrier.Retrier;
@@ -59,29 +66,45 @@ import com.torodb.mongodb.commands.signatures.admin.CreateIndexesCommand.CreateI
 import com.torodb.mongodb.commands.signatures.admin.CreateIndexesCommand.CreateIndexesResult;
 import com.torodb.mongodb.commands.signatures.admin.DropCollectionCommand;
 import com.torodb.mongodb.commands.signatures.admin.ListCollectionsCommand.ListCollectionsResult.Entry;
+import com.torodb.mongodb.commands.signatures.diagnostic.CollStatsCommand;
+import com.torodb.mongodb.commands.signatures.diagnostic.CollStatsCommand.CollStatsArgument;
+import com.torodb.mongodb.commands.signatures.diagnostic.CollStatsCommand.CollStatsReply;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteArgument;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteStatement;
 import com.torodb.mongodb.commands.signatures.general.InsertCommand;
 import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertArgument;
 import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertResult;
 import com.torodb.mongodb.core.MongodConnection;
 import com.torodb.mongodb.core.MongodServer;
 import com.torodb.mongodb.core.WriteMongodTransaction;
+import com.torodb.mongodb.language.QueryCriteriaTranslator;
+import com.torodb.mongodb.utils.CloneCheckpoint;
+import com.torodb.mongodb.utils.CloneCheckpoint.CollectionState;
+import com.torodb.mongodb.utils.CloneCheckpoint.Phase;
 import com.torodb.mongodb.utils.DbCloner;
+import com.torodb.mongodb.utils.DefaultIdUtils;
 import com.torodb.mongodb.utils.ListCollectionsRequester;
 import com.torodb.mongodb.utils.ListIndexesRequester;
 import com.torodb.mongodb.utils.NamespaceUtil;
 import com.torodb.mongowp.Status;
 import com.torodb.mongowp.WriteConcern;
 import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonType;
+import com.torodb.mongowp.bson.BsonValue;
 import com.torodb.mongowp.client.core.MongoClient;
 import com.torodb.mongowp.client.core.MongoConnection;
+import com.torodb.mongowp.client.core.MongoConnection.RemoteCommandResponse;
 import com.torodb.mongowp.commands.Command;
 import com.torodb.mongowp.commands.Request;
 import com.torodb.mongowp.commands.impl.CollectionCommandArgument;
 import com.torodb.mongowp.commands.pojos.MongoCursor;
+import com.torodb.mongowp.commands.pojos.MongoCursor.Batch;
 import com.torodb.mongowp.exceptions.MongoException;
 import com.torodb.mongowp.exceptions.NotMasterException;
 import com.torodb.mongowp.messages.request.QueryMessage.QueryOption;
 import com.torodb.mongowp.messages.request.QueryMessage.QueryOptions;
+import com.torodb.mongowp.utils.BsonDocumentBuilder;
 import com.torodb.torod.SharedWriteTorodTransaction;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.logging.log4j.Logger;
@@ -89,16 +112,28 @@ import org.apache.logging.log4j.Logger;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 /**
  * This class is used to clone databases using a client, so remote and local databases can be
  * cloned.
@@ -115,6 +150,13 @@ import java.util.function.Function;
 @Beta
 public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
 
+  private static final BsonDocument ID_ORDER_SORT = newDocument(DefaultIdUtils.ID_KEY, newInt(1));
+  /**
+   * The minimum number of documents each {@code _id} range must contain when a collection is read
+   * using several cursors.
+   */
+  private static final long MIN_DOCS_PER_RANGE = 100_000;
+
   private final Logger logger;
   /**
    * The number of parallel task that can be used to clone each collection.
@@ -125,14 +167,61 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
    * phases.
    */
   private final int cursorBatchBufferSize;
+  /**
+   * The number of collections that can be cloned at the same time when
+   * {@link #cloneDatabases(Map, MongoClient, MongodServer) several databases are cloned}.
+   */
+  private final int maxParallelCollections;
+  /**
+   * Limits the number of insert tasks that can be executed at the same time, whatever collection
+   * they belong to, and therefore the number of backend connections used by this cloner.
+   */
+  private final Semaphore insertPermits;
+  /**
+   * The number of remote cursors that can be used to read a single collection. When it is higher
+   * than 1, large collections are split in {@code _id} ranges that are read in parallel, each one
+   * with its own insert tasks.
+   */
+  private final int maxCursorsPerCollection;
+  /**
+   * Limits the number of {@code _id} ranges that are read at the same time, whatever collection
+   * they belong to. Each collection needs one permit to be cloned and takes extra ones to be split
+   * in ranges only when they are available, so the documents buffered by all collections are
+   * bounded by the number of permits times {@code cursorBatchBufferSize} plus the batches being
+   * inserted.
+   */
+  private final Semaphore rangePermits;
   private final CommitHeuristic commitHeuristic;
   private final Clock clock;
   private final Retrier retrier;
+  private final ConcurrentToolsFactory concurrentToolsFactory;
 
   public AkkaDbCloner(ThreadFactory threadFactory,
       ConcurrentToolsFactory concurrentToolsFactory,
       int maxParallelInsertTasks, int cursorBatchBufferSize,
       CommitHeuristic commitHeuristic, Clock clock, Retrier retrier, LoggerFactory loggerFactory) {
+    this(threadFactory, concurrentToolsFactory, maxParallelInsertTasks, cursorBatchBufferSize, 1,
+        maxParallelInsertTasks, 1, commitHeuristic, clock, retrier, loggerFactory);
+  }
+
+  /**
+   * Creates a cloner that can clone several collections at the same time.
+   *
+   * @param maxParallelInsertTasks      the number of insert tasks used to clone each collection
+   * @param cursorBatchBufferSize       the number of documents buffered for each collection
+   * @param maxParallelCollections      the number of collections that can be cloned at the same
+   *                                    time
+   * @param maxParallelInsertTasksTotal the number of insert tasks that can be executed at the same
+   *                                    time among all collections
+   * @param maxCursorsPerCollection     the number of remote cursors that can be used to read a
+   *                                    single collection
+   */
+  public AkkaDbCloner(ThreadFactory threadFactory,
+      ConcurrentToolsFactory concurrentToolsFactory,
+      int maxParallelInsertTasks, int cursorBatchBufferSize, int maxParallelCollections,
+      int maxParallelInsertTasksTotal, int maxCursorsPerCollection,
+      CommitHeuristic commitHeuristic, Clock clock, Retrier retrier,
+      LoggerFactory loggerFactory) {
     super(threadFactory,
         () -> concurrentToolsFactory.createExecutorService(
             "db-cloner", false),
@@ -146,9 +235,21 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
     this.cursorBatchBufferSize = cursorBatchBufferSize;
     Preconditions.checkArgument(cursorBatchBufferSize >= 1, "cursorBatchBufferSize must be "
         + "higher than 0, but " + cursorBatchBufferSize + " was used");
+    this.maxParallelCollections = maxParallelCollections;
+    Preconditions.checkArgument(maxParallelCollections >= 1, "The number of parallel collections "
+        + "must be higher than 0, but " + maxParallelCollections + " was used");
+    Preconditions.checkArgument(maxParallelInsertTasksTotal >= 1, "The total number of parallel "
+        + "insert tasks must be higher than 0, but " + maxParallelInsertTasksTotal + " was used");
+    this.insertPermits = new Semaphore(maxParallelInsertTasksTotal, true);
+    this.maxCursorsPerCollection = maxCursorsPerCollection;
+    Preconditions.checkArgument(maxCursorsPerCollection >= 1, "The number of cursors per "
+        + "collection must be higher than 0, but " + maxCursorsPerCollection + " was used");
+    this.rangePermits = new Semaphore(Math.max(maxParallelCollections, maxCursorsPerCollection),
+        true);
     this.commitHeuristic = commitHeuristic;
     this.clock = clock;
     this.retrier = retrier;
+    this.concurrentToolsFactory = concurrentToolsFactory;
   }
 
   @Override
@@ -190,11 +291,11 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
   private void cloneDatabase(List<Entry> collsToClone, String dstDb, MongoClient remoteClient,
       MongodServer localServer, CloneOptions opts) throws MongoException {
 
-    prepareCollections(collsToClone, localServer, dstDb);
+    prepareCollections(collsToClone, localServer, dstDb, opts);
     
     try (MongoConnection remoteConnection = remoteClient.openConnection()) {
       if (opts.isCloneData()) {
-        cloneData(collsToClone, remoteConnection, dstDb, localServer, opts);
+        cloneData(collsToClone, remoteClient, remoteConnection, dstDb, localServer, opts);
       }
       if (opts.isCloneIndexes()) {
         cloneIndexes(collsToClone, remoteConnection, dstDb, localServer, opts);
@@ -202,6 +303,175 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
     }
   }
 
+  /**
+   * Clones several databases, cloning up to {@code maxParallelCollections} collections at the same
+   * time.
+   *
+   * <p>All collections are prepared first. Then their data is cloned, starting with the largest
+   * ones, so the total time is close to the time needed to clone the largest collection. Indexes
+   * are cloned once all data has been cloned.
+   */
+  @Override
+  public void cloneDatabases(Map<String, CloneOptions> dstDbToOpts, MongoClient remoteClient,
+      MongodServer localServer) throws CloningException, NotMasterException, MongoException {
+    Preconditions.checkState(isRunning(), "This db cloner is not running");
+
+    Map<String, List<Entry>> collsToCloneByDb = new LinkedHashMap<>();
+    for (Map.Entry<String, CloneOptions> dbEntry : dstDbToOpts.entrySet()) {
+      String dstDb = dbEntry.getKey();
+      CloneOptions opts = dbEntry.getValue();
+      if (!remoteClient.isRemote() && opts.getDbToClone().equals(dstDb)) {
+        logger.warn("Trying to clone a database to itself! Ignoring it");
+        continue;
+      }
+      String fromDb = opts.getDbToClone();
+
+      CursorResult<Entry> listCollections = getRemoteCollections(remoteClient, fromDb);
+
+      if (!opts.getWritePermissionSupplier().get()) {
+        throw new NotMasterException("Destiny database cannot be written");
+      }
+
+      List<Entry> collsToClone = getCollsToClone(listCollections, fromDb, opts);
+
+      if (!opts.getWritePermissionSupplier().get()) {
+        throw new NotMasterException("Destiny database cannot be written "
+            + "after get collections info");
+      }
+
+      prepareCollections(collsToClone, localServer, dstDb, opts);
+      collsToCloneByDb.put(dstDb, collsToClone);
+    }
+
+    List<CollectionCloneTask> tasks = new ArrayList<>();
+    try (MongoConnection remoteConnection = remoteClient.openConnection()) {
+      for (Map.Entry<String, List<Entry>> dbEntry : collsToCloneByDb.entrySet()) {
+        CloneOptions opts = dstDbToOpts.get(dbEntry.getKey());
+        if (!opts.isCloneData()) {
+          continue;
+        }
+        for (Entry entry : dbEntry.getValue()) {
+          if (isDataCloned(dbEntry.getKey(), entry, opts)) {
+            continue;
+          }
+          long estimatedSize = estimateSize(remoteConnection, opts.getDbToClone(),
+              entry.getCollectionName());
+          tasks.add(new CollectionCloneTask(dbEntry.getKey(), opts, entry, estimatedSize));
+        }
+      }
+    }
+    tasks.sort(CollectionCloneTask.LARGEST_FIRST);
+
+    cloneCollections(tasks, remoteClient, localServer);
+
+    try (MongoConnection remoteConnection = remoteClient.openConnection()) {
+      for (Map.Entry<String, List<Entry>> dbEntry : collsToCloneByDb.entrySet()) {
+        CloneOptions opts = dstDbToOpts.get(dbEntry.getKey());
+        if (opts.isCloneIndexes()) {
+          cloneIndexes(dbEntry.getValue(), remoteConnection, dbEntry.getKey(), localServer, opts);
+        }
+      }
+    }
+  }
+
+  private void cloneCollections(List<CollectionCloneTask> tasks, MongoClient remoteClient,
+      MongodServer localServer) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    logger.info("Cloning {} collections using up to {} parallel collection cloners", tasks.size(),
+        maxParallelCollections);
+
+    Materializer materializer = ActorMaterializer.create(getActorSystem());
+    SharedKillSwitch killSwitch = KillSwitches.shared("db-cloner");
+    ExecutorService executor = concurrentToolsFactory.createExecutorServiceWithMaxThreads(
+        "db-cloner-scheduler", maxParallelCollections);
+    try {
+      CompletableFuture<?>[] futures = tasks.stream()
+          .map(task -> CompletableFuture.runAsync(
+              () -> cloneCollection(localServer, remoteClient, materializer, killSwitch, task),
+              executor))
+          .toArray(CompletableFuture[]::new);
+      CompletableFuture<Void> all = CompletableFuture.allOf(futures);
+      //fail as soon as one collection fails instead of waiting for the others, whose streams are
+      //aborted so they stop reading and inserting documents
+      for (CompletableFuture<?> future : futures) {
+        future.whenComplete((ignored, error) -> {
+          if (error != null) {
+            killSwitch.abort(error);
+            all.completeExceptionally(error);
+          }
+        });
+      }
+      all.join();
+    } catch (CompletionException completionException) {
+      Throwable cause = completionException.getCause();
+      if (cause instanceof RollbackException) {
+        throw (RollbackException) cause;
+      }
+      if (cause instanceof CloningException) {
+        throw (CloningException) cause;
+      }
+      throw completionException;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void cloneCollection(MongodServer localServer, MongoClient remoteClient,
+      Materializer materializer, SharedKillSwitch killSwitch, CollectionCloneTask task) {
+    String fromDb = task.getOpts().getDbToClone();
+    String collName = task.getEntry().getCollectionName();
+    logger.info("Cloning collection data {}.{} into {}.{}", fromDb, collName, task.getDstDb(),
+        collName);
+
+    try (MongoConnection remoteConnection = remoteClient.openConnection()) {
+      cloneCollection(localServer, remoteClient, remoteConnection, task.getDstDb(),
+          task.getOpts(), materializer, killSwitch, task.getEntry());
+    } catch (MongoException ex) {
+      throw new CloningException("Error while cloning " + task.getDstDb() + "." + collName, ex);
+    }
+  }
+
+  /**
+   * Returns the size in bytes of the given remote collection or 0 if it cannot be known.
+   */
+  private long estimateSize(MongoConnection remoteConnection, String db, String collection) {
+    return getRemoteStats(remoteConnection, db, collection)
+        .map(stats -> stats.getSize().longValue())
+        .orElse(0L);
+  }
+
+  /**
+   * Returns the number of documents of the given remote collection or 0 if it cannot be known.
+   */
+  private long estimateCount(MongoConnection remoteConnection, String db, String collection) {
+    return getRemoteStats(remoteConnection, db, collection)
+        .map(stats -> stats.getCount().longValue())
+        .orElse(0L);
+  }
+
+  private Optional<CollStatsReply> getRemoteStats(MongoConnection remoteConnection, String db,
+      String collection) {
+    try {
+      RemoteCommandResponse<CollStatsReply> response = remoteConnection.execute(
+          CollStatsCommand.INSTANCE,
+          db,
+          true,
+          new CollStatsArgument(collection, 1, false)
+      );
+      if (!response.isOk()) {
+        logger.debug("It was impossible to get the stats of " + db + "." + collection,
+            response.asMongoException());
+        return Optional.empty();
+      }
+      return response.getCommandReply();
+    } catch (MongoException | RuntimeException ex) {
+      logger.debug("It was impossible to get the stats of " + db + "." + collection, ex);
+      return Optional.empty();
+    }
+  }
+
   private CursorResult<Entry> getRemoteCollections(MongoClient remoteClient, String fromDb) {
     try (MongoConnection remoteConnection = remoteClient.openConnection()) {
       return ListCollectionsRequester.getListCollections(
@@ -217,20 +487,25 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
     }
   }
 
-  private void cloneData(List<Entry> collsToClone, MongoConnection remoteConnection, String dstDb,
-      MongodServer localServer, CloneOptions opts) throws MongoException {
+  private void cloneData(List<Entry> collsToClone, MongoClient remoteClient,
+      MongoConnection remoteConnection, String dstDb, MongodServer localServer, CloneOptions opts)
+      throws MongoException {
 
     String fromDb = opts.getDbToClone();
     Materializer materializer = ActorMaterializer.create(getActorSystem());
+    SharedKillSwitch killSwitch = KillSwitches.shared("db-cloner-" + dstDb);
     
     for (Entry entry : collsToClone) {
+      if (isDataCloned(dstDb, entry, opts)) {
+        continue;
+      }
       logger.info("Cloning collection data {}.{} into {}.{}",
           fromDb, entry.getCollectionName(), dstDb,
           entry.getCollectionName());
 
       try {
-        cloneCollection(localServer, remoteConnection, dstDb,
-            opts, materializer, entry);
+        cloneCollection(localServer, remoteClient, remoteConnection, dstDb,
+            opts, materializer, killSwitch, entry);
       } catch (CompletionException completionException) {
         Throwable cause = completionException.getCause();
         if (cause instanceof RollbackException) {
@@ -242,10 +517,25 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
     }
   }
 
+  private boolean isDataCloned(String dstDb, Entry entry, CloneOptions opts) {
+    if (opts.getCheckpoint().getState(dstDb, entry.getCollectionName()).isDataCloned()) {
+      logger.info("Not cloning data of {}.{} because it was already cloned", dstDb,
+          entry.getCollectionName());
+      return true;
+    }
+    return false;
+  }
+
   private void cloneIndexes(List<Entry> collsToClone, MongoConnection remoteConnection, 
       String dstDb, MongodServer localServer, CloneOptions opts) {
     String fromDb = opts.getDbToClone();
+    CloneCheckpoint checkpoint = opts.getCheckpoint();
     for (Entry entry : collsToClone) {
+      if (checkpoint.getState(dstDb, entry.getCollectionName()).isIndexesCloned()) {
+        logger.info("Not cloning indexes of {}.{} because they were already cloned", dstDb,
+            entry.getCollectionName());
+        continue;
+      }
       logger.info("Cloning collection indexes {}.{} into {}.{}",
           fromDb, entry.getCollectionName(), dstDb,
           entry.getCollectionName());
@@ -254,6 +544,7 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
         cloneIndex(localServer, dstDb, dstDb, remoteConnection,
             opts, entry.getCollectionName(),
             entry.getCollectionName());
+        checkpoint.onIndexesCloned(dstDb, entry.getCollectionName());
       } catch (CompletionException completionException) {
         Throwable cause = completionException.getCause();
         if (cause instanceof RollbackException) {
@@ -265,52 +556,85 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
     }
   }
 
-  private void cloneCollection(MongodServer localServer,
+  /**
+   * Clones the data of a collection.
+   *
+   * <p>The collection is read using one cursor per {@link #splitInRanges(MongoConnection,
+   * CloneOptions, Entry, BsonValue, RangePermits) _id range}. The given connection is used to read
+   * the first range and a new connection is opened for each other one. Each range feeds its own
+   * insert tasks and holds one of the {@link #rangePermits} until the collection is cloned.
+   *
+   * <p>The stream is stopped when the given kill switch is aborted.
+   */
+  private void cloneCollection(MongodServer localServer, MongoClient remoteClient,
       MongoConnection remoteConnection, String toDb, CloneOptions opts,
-      Materializer materializer, Entry collToClone) throws MongoException {
+      Materializer materializer, SharedKillSwitch killSwitch, Entry collToClone)
+      throws MongoException {
 
     String collName = collToClone.getCollectionName();
 
-    MongoCursor<BsonDocument> cursor = openCursor(remoteConnection, collName, opts);
-
-    CollectionIterator iterator = new CollectionIterator(cursor, retrier);
-
-    Source<BsonDocument, NotUsed> source = Source.fromIterator(() -> iterator)
-        .buffer(cursorBatchBufferSize, OverflowStrategy.backpressure())
-        .async();
+    boolean idOrder = opts.getCheckpoint().isEnabled()
+        && !collToClone.getCollectionOptions().isCapped();
+    BsonValue<?> resumeFrom = getResumeId(localServer, remoteConnection, toDb, opts,
+        collToClone);
+
+    try (RangePermits permits = acquireRangePermits(toDb, collName)) {
+      List<IdRange> ranges = splitInRanges(remoteConnection, opts, collToClone, resumeFrom,
+          permits);
+      permits.trimTo(ranges.size());
+      if (ranges.size() > 1) {
+        logger.info("Cloning {}.{} using {} parallel cursors", toDb, collName, ranges.size());
+      }
+      cloneRanges(localServer, remoteClient, remoteConnection, toDb, opts, materializer,
+          killSwitch, collName, idOrder, ranges);
+    }
+    opts.getCheckpoint().onDataCloned(toDb, collName);
+  }
 
-    Flow<BsonDocument, Pair<Integer, Integer>, NotUsed> inserterFlow;
-    if (maxParallelInsertTasks == 1) {
-      inserterFlow = createCloneDocsWorker(localServer, toDb, collName);
-    } else {
-      Graph<FlowShape<BsonDocument, Pair<Integer, Integer>>, NotUsed> graph = GraphDSL.create(
-          builder -> {
-            UniformFanOutShape<BsonDocument, BsonDocument> balance = builder.add(
-                Balance.create(maxParallelInsertTasks, false)
-            );
-            UniformFanInShape<Pair<Integer, Integer>, Pair<Integer, Integer>> merge = builder.add(
-                Merge.create(maxParallelInsertTasks, false)
-            );
-
-            for (int i = 0; i < maxParallelInsertTasks; i++) {
-              builder.from(balance.out(i))
-                  .via(builder.add(
-                      createCloneDocsWorker(localServer, toDb, collName).async())
-                  )
-                  .toInlet(merge.in(i));
-            }
-            return FlowShape.of(balance.in(), merge.out());
-          });
-      inserterFlow = Flow.fromGraph(graph);
+  private RangePermits acquireRangePermits(String toDb, String collName) {
+    try {
+      return RangePermits.acquire(rangePermits);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CloningException("Interrupted while waiting to clone " + toDb + "." + collName,
+          ex);
     }
+  }
+
+  private void cloneRanges(MongodServer localServer, MongoClient remoteClient,
+      MongoConnection remoteConnection, String toDb, CloneOptions opts,
+      Materializer materializer, SharedKillSwitch killSwitch, String collName, boolean idOrder,
+      List<IdRange> ranges) throws MongoException {
+    List<MongoConnection> extraConnections = new ArrayList<>(ranges.size() - 1);
     try {
-      source.via(inserterFlow)
-          .fold(new Tuple3<>(0, 0, clock.instant()), (acum, batch) ->
-              postInsertFold(toDb, collName, acum, batch))
-          .toMat(
-              Sink.foreach(tuple -> logCollectionCloning(
-                  toDb, collName, tuple.t1(), tuple.t2())),
-              Keep.right())
+      List<Source<InsertedBatch, NotUsed>> rangeSources = new ArrayList<>(ranges.size());
+      for (int i = 0; i < ranges.size(); i++) {
+        MongoConnection rangeConnection;
+        if (i == 0) {
+          rangeConnection = remoteConnection;
+        } else {
+          rangeConnection = remoteClient.openConnection();
+          extraConnections.add(rangeConnection);
+        }
+        MongoCursor<BsonDocument> cursor = openCursor(rangeConnection, collName, opts, idOrder,
+            ranges.get(i));
+        rangeSources.add(createRangeSource(i, cursor)
+            .via(createInserterFlow(localServer, toDb, collName)));
+      }
+
+      Source<InsertedBatch, NotUsed> source;
+      if (rangeSources.size() == 1) {
+        source = rangeSources.get(0);
+      } else {
+        source = Source.from(rangeSources)
+            .flatMapMerge(rangeSources.size(), rangeSource -> rangeSource);
+      }
+
+      CloneCheckpoint checkpoint = idOrder ? opts.getCheckpoint() : CloneCheckpoint.NONE;
+      source.via(killSwitch.<InsertedBatch>flow())
+          .fold(new CollectionProgress(toDb, collName, checkpoint, ranges.size(),
+              clock.instant()), CollectionProgress::add)
+          .toMat(Sink.foreach(CollectionProgress::finish), Keep.right())
           .run(materializer)
           .toCompletableFuture()
           .join();
@@ -320,53 +644,352 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
         throw new CloningException("Error while cloning " + toDb + "." + collName, cause);
       }
       throw ex;
+    } finally {
+      extraConnections.forEach(MongoConnection::close);
     }
   }
 
-  private Tuple3<Integer, Integer, Instant> postInsertFold(String toDb,
-      String toCol, Tuple3<Integer, Integer, Instant> acum,
-      Pair<Integer, Integer> newBatch) {
-    Instant lastLogInstant = acum.t3();
+  /**
+   * Creates a source that emits the documents read by the given cursor grouped in batches.
+   *
+   * <p>The last emitted batch is always an empty one, which is used to know that all documents of
+   * the range have been read.
+   */
+  private Source<DocBatch, NotUsed> createRangeSource(int range,
+      MongoCursor<BsonDocument> cursor) {
+    CollectionIterator iterator = new CollectionIterator(cursor, retrier);
 
-    long now = clock.millis();
-    long millisSinceLastLog = now - lastLogInstant.toEpochMilli();
-    if (shouldLogCollectionCloning(millisSinceLastLog)) {
-      logCollectionCloning(toDb, toCol, acum.t1(), acum.t2());
-      lastLogInstant = Instant.ofEpochMilli(now);
+    //TODO(gortiz): This is not the best way to use the heuristic,
+    //as it only be asked once per collection, but there is no
+    //builtin stage that groupes using a dynamic function. This kind
+    //of stage is very useful and should be implemented.
+    return createBatchSource(range, iterator, cursorBatchBufferSize,
+        commitHeuristic.getDocumentsPerCommit());
+  }
+
+  /**
+   * Creates a source that emits the given documents grouped in batches of the given size, followed
+   * by an empty end-of-range batch.
+   */
+  static Source<DocBatch, NotUsed> createBatchSource(int range, Iterator<BsonDocument> docs,
+      int bufferSize, int docsPerBatch) {
+    AtomicLong batchCounter = new AtomicLong();
+    return Source.fromIterator(() -> docs)
+        .buffer(bufferSize, OverflowStrategy.backpressure())
+        .async()
+        .grouped(docsPerBatch)
+        .concat(Source.single(Collections.<BsonDocument>emptyList()))
+        .map(batch -> new DocBatch(range, batchCounter.getAndIncrement(), batch));
+  }
+
+  private Flow<DocBatch, InsertedBatch, NotUsed> createInserterFlow(MongodServer localServer,
+      String toDb, String collName) {
+    if (maxParallelInsertTasks == 1) {
+      return createCloneDocsWorker(localServer, toDb, collName);
     }
-    return new Tuple3<>(
-        acum.t1() + newBatch.first(),
-        acum.t2() + newBatch.second(),
-        lastLogInstant
+    Graph<FlowShape<DocBatch, InsertedBatch>, NotUsed> graph = GraphDSL.create(
+        builder -> {
+          UniformFanOutShape<DocBatch, DocBatch> balance = builder.add(
+              Balance.create(maxParallelInsertTasks, false)
+          );
+          UniformFanInShape<InsertedBatch, InsertedBatch> merge = builder.add(
+              Merge.create(maxParallelInsertTasks, false)
+          );
+
+          for (int i = 0; i < maxParallelInsertTasks; i++) {
+            builder.from(balance.out(i))
+                .via(builder.add(
+                    createCloneDocsWorker(localServer, toDb, collName).async())
+                )
+                .toInlet(merge.in(i));
+          }
+          return FlowShape.of(balance.in(), merge.out());
+        });
+    return Flow.fromGraph(graph);
+  }
+
+  /**
+   * Splits the documents of a collection whose {@code _id} is greater than the given one in up to
+   * {@code maxCursorsPerCollection} consecutive {@code _id} ranges with a similar number of
+   * documents.
+   *
+   * <p>Range bounds are sampled by skipping documents on a query sorted by {@code _id}, which only
+   * scans the remote {@code _id} index. Collections are not split when they are capped (their
+   * natural order must be kept), when they are too small or when their {@code _id} have different
+   * canonical types (as range queries only return values of the same canonical type).
+   *
+   * <p>Extra ranges are only used when the given permits can be extended without waiting for
+   * other collections.
+   */
+  private List<IdRange> splitInRanges(MongoConnection remoteConnection, CloneOptions opts,
+      Entry collToClone, @Nullable BsonValue<?> resumeFrom, RangePermits permits)
+      throws MongoException {
+    IdRange wholeRange = new IdRange(resumeFrom, false, null);
+    if (maxCursorsPerCollection == 1 || collToClone.getCollectionOptions().isCapped()) {
+      return Collections.singletonList(wholeRange);
+    }
+    String collName = collToClone.getCollectionName();
+    long count = estimateCount(remoteConnection, opts.getDbToClone(), collName);
+    int rangesCount = getRangesCount(count, maxCursorsPerCollection);
+    if (rangesCount <= 1) {
+      return Collections.singletonList(wholeRange);
+    }
+    BsonValue<?> minId = getBoundaryId(remoteConnection, opts, collName, 1);
+    if (minId == null || !isSplittableId(minId)
+        || !hasOnlyIdsComparableWith(remoteConnection, opts, collName, minId)) {
+      logger.debug("{}.{} cannot be split in _id ranges", opts.getDbToClone(), collName);
+      return Collections.singletonList(wholeRange);
+    }
+    rangesCount = permits.tryAcquireUpTo(rangesCount);
+    if (rangesCount <= 1) {
+      logger.debug("{}.{} is not split in _id ranges because other collections are using all "
+          + "cursors", opts.getDbToClone(), collName);
+      return Collections.singletonList(wholeRange);
+    }
+
+    return splitInRanges(wholeRange, rangesCount, count,
+        (range, skip) -> getFirstId(remoteConnection, opts, collName, range.toQuery(), skip, 1));
+  }
+
+  /**
+   * Returns the number of {@code _id} ranges a collection with the given number of documents should
+   * be split in.
+   */
+  static int getRangesCount(long count, int maxRanges) {
+    return (int) Math.max(1, Math.min(maxRanges, count / MIN_DOCS_PER_RANGE));
+  }
+
+  /**
+   * Splits the given range, which contains the given number of documents, in up to the given number
+   * of consecutive ranges with a similar number of documents.
+   */
+  static List<IdRange> splitInRanges(IdRange wholeRange, int rangesCount, long count,
+      IdFinder idFinder) throws MongoException {
+    int docsPerRange = Ints.saturatedCast(count / rangesCount);
+    List<IdRange> ranges = new ArrayList<>(rangesCount);
+    IdRange lastRange = wholeRange;
+    for (int i = 1; i < rangesCount; i++) {
+      BsonValue<?> bound = idFinder.getFirstId(lastRange, docsPerRange);
+      if (bound == null) {
+        //there are less documents than expected (or they are being removed)
+        break;
+      }
+      ranges.add(new IdRange(lastRange.getLower(), lastRange.isLowerInclusive(), bound));
+      lastRange = new IdRange(bound, true, null);
+    }
+    ranges.add(lastRange);
+    return ranges;
+  }
+
+  /**
+   * Returns the {@code _id} after which the cloning of the given collection can be resumed or null
+   * if the collection must be cloned from the beginning.
+   *
+   * <p>If the collection was partially cloned but the cloning cannot be resumed, the local
+   * collection is created again.
+   */
+  @Nullable
+  private BsonValue<?> getResumeId(MongodServer localServer, MongoConnection remoteConnection,
+      String toDb, CloneOptions opts, Entry collToClone) throws MongoException {
+    String collName = collToClone.getCollectionName();
+    CollectionState state = opts.getCheckpoint().getState(toDb, collName);
+    if (state.getPhase() == Phase.NOT_STARTED) {
+      return null;
+    }
+    Optional<BsonValue<?>> lastClonedId = state.getLastClonedId();
+    if (lastClonedId.isPresent() && !collToClone.getCollectionOptions().isCapped()) {
+      BsonValue<?> minId = getBoundaryId(remoteConnection, opts, collName, 1);
+      BsonValue<?> maxId = getBoundaryId(remoteConnection, opts, collName, -1);
+      if (canResumeAfter(lastClonedId.get(), minId, maxId)
+          && deleteDocumentsAfter(localServer, toDb, collName, lastClonedId.get())) {
+        logger.info("Resuming the cloning of {}.{} after _id {}", toDb, collName,
+            lastClonedId.get());
+        return lastClonedId.get();
+      }
+    }
+    logger.info("The cloning of {}.{} cannot be resumed. It will be cloned from the beginning",
+        toDb, collName);
+    prepareCollection(localServer, toDb, collToClone);
+    return null;
+  }
+
+  /**
+   * Returns true iff the cloning of a collection whose lowest and highest remote {@code _id} are
+   * the given ones can be resumed using {@code _id: {$gt: lastClonedId}}.
+   *
+   * <p>{@code $gt} only matches values of the same canonical type, so all remote {@code _id} must
+   * have the canonical type of the last cloned one. As values are sorted by type first, it is
+   * enough to check the lowest and the highest {@code _id}. Strings are not resumable because the
+   * local backend compares them using its collation instead of the binary order used by MongoDB,
+   * so the local and remote {@code $gt} could match different documents.
+   */
+  static boolean canResumeAfter(BsonValue<?> lastClonedId, @Nullable BsonValue<?> minId,
+      @Nullable BsonValue<?> maxId) {
+    return isResumableId(lastClonedId)
+        && minId != null && maxId != null
+        && haveSameCanonicalType(minId, lastClonedId)
+        && haveSameCanonicalType(maxId, lastClonedId);
+  }
+
+  /**
+   * Returns true iff all {@code _id} of the remote collection have the same canonical type than
+   * the given value.
+   *
+   * <p>As range queries only return values of the same canonical type, this condition is needed to
+   * read the collection using {@code _id} ranges. As values are sorted by type first, it is enough
+   * to check the highest {@code _id} once the lowest one is known.
+   */
+  private boolean hasOnlyIdsComparableWith(MongoConnection remoteConnection, CloneOptions opts,
+      String collection, BsonValue<?> minId) throws MongoException {
+    BsonValue<?> maxId = getBoundaryId(remoteConnection, opts, collection, -1);
+    return maxId != null && haveSameCanonicalType(minId, maxId);
+  }
+
+  @Nullable
+  private BsonValue<?> getBoundaryId(MongoConnection remoteConnection, CloneOptions opts,
+      String collection, int order) throws MongoException {
+    return getFirstId(remoteConnection, opts, collection, null, 0, order);
+  }
+
+  /**
+   * Returns the {@code _id} of the first document that fulfills the given query after skipping
+   * the given number of documents when they are sorted by {@code _id} or null if there is no such
+   * document.
+   */
+  @Nullable
+  private BsonValue<?> getFirstId(MongoConnection remoteConnection, CloneOptions opts,
+      String collection, @Nullable BsonDocument query, int skip, int order)
+      throws MongoException {
+    EnumSet<QueryOption> queryFlags = EnumSet.noneOf(QueryOption.class);
+    if (opts.isSlaveOk()) {
+      queryFlags.add(QueryOption.SLAVE_OK);
+    }
+    MongoCursor<BsonDocument> cursor = remoteConnection.query(
+        opts.getDbToClone(),
+        collection,
+        query,
+        skip,
+        1,
+        new QueryOptions(queryFlags),
+        newDocument(DefaultIdUtils.ID_KEY, newInt(order)),
+        newDocument(DefaultIdUtils.ID_KEY, newInt(1))
     );
+    try {
+      Batch<BsonDocument> batch = cursor.fetchBatch();
+      try {
+        if (!batch.hasNext()) {
+          return null;
+        }
+        return DefaultIdUtils.getIdKey(batch.next());
+      } finally {
+        batch.close();
+      }
+    } finally {
+      cursor.close();
+    }
+  }
+
+  /**
+   * Returns true iff {@code _id} ranges of the given canonical type can be read from the remote
+   * collection.
+   */
+  private static boolean isSplittableId(BsonValue<?> id) {
+    return isResumableId(id) || id.isString();
   }
 
-  private boolean shouldLogCollectionCloning(long millisSinceLog) {
-    return millisSinceLog > 10000;
+  /**
+   * Returns true iff the local and the remote collections sort {@code _id} of the given canonical
+   * type in the same way, so the cloning can be resumed after one of them.
+   */
+  private static boolean isResumableId(BsonValue<?> id) {
+    return id.isNumber() || id.isDateTime() || id.getType() == BsonType.OBJECT_ID;
   }
 
-  private void logCollectionCloning(String toDb, String toCol, int insertedDocs,
-      int requestedDocs) {
-    if (insertedDocs != requestedDocs) {
-      throw new AssertionError("Detected an inconsistency between inserted documents ( "
-          + insertedDocs + ") andrequested documents to insert (" + requestedDocs + ")");
+  /**
+   * Deletes the local documents cloned after the given {@code _id}, as they would be inserted
+   * again.
+   *
+   * @return true iff the documents were deleted and the cloning can be resumed
+   * @see #deleteDocumentsAfter(WriteMongodTransaction, String, String, BsonValue)
+   */
+  private boolean deleteDocumentsAfter(MongodServer localServer, String toDb, String collection,
+      BsonValue<?> lastClonedId) {
+    try {
+      return retrier.retry(() -> {
+        try (WriteMongodTransaction transaction = createWriteMongodTransaction(localServer)) {
+          if (!deleteDocumentsAfter(transaction, toDb, collection, lastClonedId)) {
+            logger.debug("{}.{} contains documents whose _id is not comparable with {}", toDb,
+                collection, lastClonedId);
+            return false;
+          }
+          transaction.commit();
+          return true;
+        } catch (MongoException ex) {
+          throw new RetrierAbortException(ex);
+        } catch (UserException ex) {
+          throw new RetrierAbortException("An unexpected user exception was catched", ex);
+        }
+      });
+    } catch (RetrierGiveUpException ex) {
+      throw new CloningException(ex);
     }
-    logger.info("{} documents have been cloned to {}.{}", insertedDocs, toDb, toCol);
   }
 
-  private Flow<BsonDocument, Pair<Integer, Integer>, NotUsed> createCloneDocsWorker(
+  /**
+   * Deletes the documents of the given local collection whose {@code _id} is greater than the
+   * given one and returns true iff all remaining documents have an {@code _id} lower or equal
+   * than it.
+   *
+   * <p>The later condition fails when a previous execution cloned documents whose {@code _id}
+   * has a greater canonical type, which are not matched by {@code $gt}. In that case the
+   * collection must be cloned from the beginning.
+   */
+  static boolean deleteDocumentsAfter(WriteMongodTransaction transaction, String toDb,
+      String collection, BsonValue<?> lastClonedId) throws MongoException {
+    Status<Long> deleteResult = transaction.execute(
+        new Request(toDb, null, true, null),
+        DeleteCommand.INSTANCE,
+        new DeleteArgument.Builder(collection)
+            .addStatement(new DeleteStatement(
+                newDocument(DefaultIdUtils.ID_KEY, newDocument("$gt", lastClonedId)), false))
+            .build()
+    );
+    if (!deleteResult.isOk()) {
+      throw new MongoException(deleteResult);
+    }
+
+    SharedWriteTorodTransaction torodTransaction = transaction.getTorodTransaction();
+    QueryCriteria criteria = QueryCriteriaTranslator.translate(
+        DeleteCommand.INSTANCE.getCommandName(),
+        newDocument(DefaultIdUtils.ID_KEY, newDocument("$lte", lastClonedId))
+    );
+    long clonedDocs = 0;
+    try (Cursor<Integer> dids = torodTransaction.findByCriteria(toDb, collection, criteria)
+        .asDidCursor()) {
+      while (dids.hasNext()) {
+        dids.next();
+        clonedDocs++;
+      }
+    }
+    return clonedDocs == torodTransaction.countAll(toDb, collection);
+  }
+
+  private static boolean haveSameCanonicalType(BsonValue<?> value1, BsonValue<?> value2) {
+    if (value1.isNumber()) {
+      return value2.isNumber();
+    }
+    return value1.getType() == value2.getType();
+  }
+
+  private Flow<DocBatch, InsertedBatch, NotUsed> createCloneDocsWorker(
       MongodServer localServer, String toDb, String collection) {
-    return Flow.of(BsonDocument.class)
-        //TODO(gortiz): This is not the best way to use the heuristic,
-        //as it only be asked once per collection, but there is no
-        //builtin stage that groupes using a dynamic function. This kind
-        //of stage is very useful and should be implemented.
-        .grouped(commitHeuristic.getDocumentsPerCommit())
-        .map(docs -> retrier.retry(
+    return Flow.of(DocBatch.class)
+        .map(batch -> retrier.retry(
             () -> new Tuple3<>(
                 clock.instant(),
-                insertDocuments(localServer, toDb, collection, docs),
-                docs.size()
+                batch.isEndOfRange() ? 0 :
+                    insertDocuments(localServer, toDb, collection, batch.getDocs()),
+                batch
             ),
             Hint.FREQUENT_ROLLBACK, Hint.TIME_SENSIBLE
         ))
@@ -375,12 +998,28 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
               tuple.t2(),
               clock.millis() - tuple.t1().toEpochMilli()
           );
-          return new Pair<>(tuple.t2(), tuple.t3());
+          return new InsertedBatch(tuple.t3(), tuple.t2());
         });
   }
 
   private int insertDocuments(MongodServer localServer, String toDb, String collection,
       List<BsonDocument> docsToInsert) throws RollbackException {
+    try {
+      insertPermits.acquire();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CloningException("Interrupted while waiting to insert on " + toDb + "."
+          + collection, ex);
+    }
+    try {
+      return insertDocumentsWithPermit(localServer, toDb, collection, docsToInsert);
+    } finally {
+      insertPermits.release();
+    }
+  }
+
+  private int insertDocumentsWithPermit(MongodServer localServer, String toDb, String collection,
+      List<BsonDocument> docsToInsert) throws RollbackException {
 
     try (WriteMongodTransaction transaction = createWriteMongodTransaction(localServer)) {
 
@@ -412,21 +1051,29 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
     }
   }
 
+  /**
+   * Opens a cursor on the remote collection.
+   *
+   * @param idOrder if documents must be returned in {@code _id} order
+   * @param range   the range of {@code _id} whose documents are returned
+   */
   private MongoCursor<BsonDocument> openCursor(MongoConnection remoteConnection, String collection,
-      CloneOptions opts) throws MongoException {
+      CloneOptions opts, boolean idOrder, IdRange range)
+      throws MongoException {
     //TODO: enable exhaust?
     EnumSet<QueryOption> queryFlags = EnumSet.of(QueryOption.NO_CURSOR_TIMEOUT);
     if (opts.isSlaveOk()) {
       queryFlags.add(QueryOption.SLAVE_OK);
     }
+    BsonDocument query = range.toQuery();
     return remoteConnection.query(
         opts.getDbToClone(),
         collection,
-        null,
+        query,
         0,
         0,
         new QueryOptions(queryFlags),
-        null,
+        idOrder ? ID_ORDER_SORT : null,
         null
     );
   }
@@ -467,9 +1114,15 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
   }
 
   private void prepareCollections(List<Entry> collsToClone, MongodServer localServer,
-      String dstDb) {
+      String dstDb, CloneOptions opts) {
     try {
       for (Entry entry : collsToClone) {
+        CollectionState state = opts.getCheckpoint().getState(dstDb, entry.getCollectionName());
+        if (state.getPhase() != Phase.NOT_STARTED) {
+          logger.debug("Not preparing {}.{} because its cloning is on state {}", dstDb,
+              entry.getCollectionName(), state);
+          continue;
+        }
         prepareCollection(localServer, dstDb, entry);
       }
     } catch (RollbackException ex) {
@@ -637,6 +1290,355 @@ public class AkkaDbCloner extends ActorSystemTorodbService implements DbCloner {
 
   }
 
+  static class CollectionCloneTask {
+
+    /**
+     * Sorts the tasks to clone the largest collections first.
+     */
+    static final Comparator<CollectionCloneTask> LARGEST_FIRST =
+        Comparator.comparingLong(CollectionCloneTask::getEstimatedSize).reversed();
+
+    private final String dstDb;
+    private final CloneOptions opts;
+    private final Entry entry;
+    private final long estimatedSize;
+
+    public CollectionCloneTask(String dstDb, CloneOptions opts, Entry entry, long estimatedSize) {
+      this.dstDb = dstDb;
+      this.opts = opts;
+      this.entry = entry;
+      this.estimatedSize = estimatedSize;
+    }
+
+    public String getDstDb() {
+      return dstDb;
+    }
+
+    public CloneOptions getOpts() {
+      return opts;
+    }
+
+    public Entry getEntry() {
+      return entry;
+    }
+
+    public long getEstimatedSize() {
+      return estimatedSize;
+    }
+
+  }
+
+  /**
+   * Finds the {@code _id} used to split a range.
+   */
+  @FunctionalInterface
+  interface IdFinder {
+
+    /**
+     * Returns the {@code _id} of the first document of the given range after skipping the given
+     * number of documents when they are sorted by {@code _id} or null if there is no such document.
+     */
+    @Nullable
+    BsonValue<?> getFirstId(IdRange range, int skip) throws MongoException;
+  }
+
+  /**
+   * The {@link #rangePermits} held by the cloning of a collection, one per {@code _id} range.
+   */
+  static class RangePermits implements AutoCloseable {
+
+    private final Semaphore semaphore;
+    private int acquired;
+
+    private RangePermits(Semaphore semaphore) {
+      this.semaphore = semaphore;
+      this.acquired = 1;
+    }
+
+    /**
+     * Waits until the permit needed to read the first range is available.
+     */
+    static RangePermits acquire(Semaphore semaphore) throws InterruptedException {
+      semaphore.acquire();
+      return new RangePermits(semaphore);
+    }
+
+    /**
+     * Acquires, without waiting, permits until the given number of ranges can be read or no more
+     * permits are available and returns the number of ranges that can be read.
+     */
+    int tryAcquireUpTo(int ranges) {
+      try {
+        //unlike tryAcquire(), it honors the fairness, so collections that are waiting to start
+        //are not delayed by extra ranges
+        while (acquired < ranges && semaphore.tryAcquire(0, TimeUnit.SECONDS)) {
+          acquired++;
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return acquired;
+    }
+
+    /**
+     * Releases the permits that exceed the given number of ranges.
+     */
+    void trimTo(int ranges) {
+      if (ranges < acquired) {
+        semaphore.release(acquired - ranges);
+        acquired = ranges;
+      }
+    }
+
+    int getAcquired() {
+      return acquired;
+    }
+
+    @Override
+    public void close() {
+      semaphore.release(acquired);
+      acquired = 0;
+    }
+  }
+
+  /**
+   * A range of {@code _id} values, whose upper bound is always exclusive.
+   */
+  static class IdRange {
+
+    @Nullable
+    private final BsonValue<?> lower;
+    private final boolean lowerInclusive;
+    @Nullable
+    private final BsonValue<?> upper;
+
+    public IdRange(@Nullable BsonValue<?> lower, boolean lowerInclusive,
+        @Nullable BsonValue<?> upper) {
+      this.lower = lower;
+      this.lowerInclusive = lowerInclusive;
+      this.upper = upper;
+    }
+
+    @Nullable
+    public BsonValue<?> getLower() {
+      return lower;
+    }
+
+    public boolean isLowerInclusive() {
+      return lowerInclusive;
+    }
+
+    @Nullable
+    public BsonValue<?> getUpper() {
+      return upper;
+    }
+
+    /**
+     * Returns the query that selects the documents on this range or null if all documents are on
+     * it.
+     */
+    @Nullable
+    public BsonDocument toQuery() {
+      if (lower == null && upper == null) {
+        return null;
+      }
+      BsonDocumentBuilder condition = new BsonDocumentBuilder();
+      if (lower != null) {
+        condition.appendUnsafe(lowerInclusive ? "$gte" : "$gt", lower);
+      }
+      if (upper != null) {
+        condition.appendUnsafe("$lt", upper);
+      }
+      return newDocument(DefaultIdUtils.ID_KEY, condition.build());
+    }
+  }
+
+  static class DocBatch {
+
+    private final int range;
+    private final long index;
+    private final List<BsonDocument> docs;
+
+    public DocBatch(int range, long index, List<BsonDocument> docs) {
+      this.range = range;
+      this.index = index;
+      this.docs = docs;
+    }
+
+    public int getRange() {
+      return range;
+    }
+
+    public long getIndex() {
+      return index;
+    }
+
+    /**
+     * Returns true iff this is the empty batch emitted once all documents of its range are read.
+     */
+    public boolean isEndOfRange() {
+      return docs.isEmpty();
+    }
+
+    public List<BsonDocument> getDocs() {
+      return docs;
+    }
+
+    @Nullable
+    public BsonValue<?> getLastId() {
+      if (docs.isEmpty()) {
+        return null;
+      }
+      return DefaultIdUtils.getIdKey(docs.get(docs.size() - 1));
+    }
+  }
+
+  private static class InsertedBatch {
+
+    private final DocBatch batch;
+    private final int insertedDocs;
+
+    public InsertedBatch(DocBatch batch, int insertedDocs) {
+      this.batch = batch;
+      this.insertedDocs = insertedDocs;
+    }
+
+    public DocBatch getBatch() {
+      return batch;
+    }
+
+    public int getInsertedDocs() {
+      return insertedDocs;
+    }
+  }
+
+  /**
+   * Tracks the inserted documents of a collection, logging them from time to time and storing the
+   * last {@code _id} whose document and all previous ones have been committed.
+   *
+   * <p>As batches are inserted in parallel, they can be committed in a different order than the
+   * one they were read, so the stored {@code _id} only advances over contiguous batches. When the
+   * collection is read in several {@code _id} ranges, it only advances over a range once all
+   * previous ones have been completely inserted.
+   */
+  private class CollectionProgress {
+
+    private final String toDb;
+    private final String toCol;
+    private final CloneCheckpoint checkpoint;
+    private final RangeProgress[] ranges;
+    private int insertedDocs;
+    private int requestedDocs;
+    private Instant lastLogInstant;
+    private boolean checkpointUpToDate = true;
+
+    public CollectionProgress(String toDb, String toCol, CloneCheckpoint checkpoint,
+        int rangesCount, Instant lastLogInstant) {
+      this.toDb = toDb;
+      this.toCol = toCol;
+      this.checkpoint = checkpoint;
+      this.ranges = new RangeProgress[rangesCount];
+      for (int i = 0; i < rangesCount; i++) {
+        ranges[i] = new RangeProgress();
+      }
+      this.lastLogInstant = lastLogInstant;
+    }
+
+    public CollectionProgress add(InsertedBatch newBatch) {
+      DocBatch batch = newBatch.getBatch();
+      insertedDocs += newBatch.getInsertedDocs();
+      requestedDocs += batch.getDocs().size();
+
+      if (ranges[batch.getRange()].add(batch)) {
+        checkpointUpToDate = false;
+      }
+
+      long now = clock.millis();
+      long millisSinceLastLog = now - lastLogInstant.toEpochMilli();
+      if (shouldLogCollectionCloning(millisSinceLastLog)) {
+        logCollectionCloning();
+        storeCheckpoint();
+        lastLogInstant = Instant.ofEpochMilli(now);
+      }
+      return this;
+    }
+
+    public void finish() {
+      logCollectionCloning();
+    }
+
+    private void storeCheckpoint() {
+      if (checkpointUpToDate || !checkpoint.isEnabled()) {
+        return;
+      }
+      BsonValue<?> lastContiguousId = null;
+      for (RangeProgress range : ranges) {
+        if (range.getLastContiguousId() != null) {
+          lastContiguousId = range.getLastContiguousId();
+        }
+        if (!range.isFinished()) {
+          break;
+        }
+      }
+      if (lastContiguousId != null) {
+        checkpoint.onDocumentsCloned(toDb, toCol, lastContiguousId);
+      }
+      checkpointUpToDate = true;
+    }
+
+    private boolean shouldLogCollectionCloning(long millisSinceLog) {
+      return millisSinceLog > 10000;
+    }
+
+    private void logCollectionCloning() {
+      if (insertedDocs != requestedDocs) {
+        throw new AssertionError("Detected an inconsistency between inserted documents ( "
+            + insertedDocs + ") andrequested documents to insert (" + requestedDocs + ")");
+      }
+      logger.info("{} documents have been cloned to {}.{}", insertedDocs, toDb, toCol);
+    }
+  }
+
+  static class RangeProgress {
+
+    private final Map<Long, Optional<BsonValue<?>>> pendingBatches = new HashMap<>();
+    private long nextBatchIndex;
+    private long endOfRangeIndex = Long.MAX_VALUE;
+    @Nullable
+    private BsonValue<?> lastContiguousId;
+
+    /**
+     * Adds an inserted batch of this range.
+     *
+     * @return true iff more contiguous batches have been inserted
+     */
+    public boolean add(DocBatch batch) {
+      if (batch.isEndOfRange()) {
+        endOfRangeIndex = batch.getIndex();
+      }
+      pendingBatches.put(batch.getIndex(), Optional.ofNullable(batch.getLastId()));
+      boolean advanced = false;
+      Optional<BsonValue<?>> contiguousId;
+      while ((contiguousId = pendingBatches.remove(nextBatchIndex)) != null) {
+        nextBatchIndex++;
+        advanced = true;
+        if (contiguousId.isPresent()) {
+          lastContiguousId = contiguousId.get();
+        }
+      }
+      return advanced;
+    }
+
+    @Nullable
+    public BsonValue<?> getLastContiguousId() {
+      return lastContiguousId;
+    }
+
+    public boolean isFinished() {
+      return nextBatchIndex > endOfRangeIndex;
+    }
+  }
+
   private static class CollectionIterator implements Iterator<BsonDocument> {
 
     private final MongoCursor<BsonDocument> cursor;
@@ -0,0 +1,115 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.commands.signatures.diagnostic;
+
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newBoolean;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDocument;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDouble;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newInt;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newLong;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.torodb.mongodb.commands.signatures.diagnostic.CollStatsCommand.CollStatsArgument;
+import com.torodb.mongodb.commands.signatures.diagnostic.CollStatsCommand.CollStatsReply;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.utils.DefaultBsonValues;
+import com.torodb.mongowp.exceptions.BadValueException;
+import com.torodb.mongowp.exceptions.MongoException;
+import com.torodb.mongowp.utils.BsonDocumentBuilder;
+import org.junit.Test;
+
+public class CollStatsCommandTest {
+
+  private final CollStatsCommand command = CollStatsCommand.INSTANCE;
+
+  @Test
+  public void argumentIsMarshalled() throws MongoException {
+    BsonDocument doc = command.marshallArg(new CollStatsArgument("coll", 1, false));
+
+    assertEquals("coll", doc.get("collStats").asString().getValue());
+    assertEquals(1, doc.get("scale").asNumber().intValue());
+
+    CollStatsArgument arg = command.unmarshallArg(doc);
+    assertEquals("coll", arg.getCollection());
+    assertEquals(1, arg.getScale());
+    assertFalse(arg.isVerbose());
+  }
+
+  @Test
+  public void replyIsUnmarshalledFromItsMarshalledForm() throws MongoException {
+    CollStatsReply reply = new CollStatsReply(1, "db", "coll", 10L, 2048L, 4096L, null, false,
+        null, DefaultBsonValues.EMPTY_DOC, ImmutableMap.of("_id_", 512L, "a_1", 256L));
+
+    CollStatsReply result = command.unmarshallResult(command.marshallResult(reply));
+
+    assertEquals("db", result.getDatabase());
+    assertEquals("coll", result.getCollection());
+    assertEquals(10L, result.getCount().longValue());
+    assertEquals(2048L, result.getSize().longValue());
+    assertEquals(4096L, result.getStorageSize().longValue());
+    assertFalse(result.isCapped());
+    assertNull(result.getMaxIfCapped());
+    assertEquals(ImmutableMap.of("_id_", 512L, "a_1", 256L), result.getSizeByIndex());
+  }
+
+  @Test
+  public void remoteReplyIsUnmarshalled() throws MongoException {
+    BsonDocument doc = new BsonDocumentBuilder()
+        .appendUnsafe("ns", newString("db.my.coll"))
+        .appendUnsafe("size", newDouble(1.5e10))
+        .appendUnsafe("count", newInt(3))
+        .appendUnsafe("storageSize", newLong(1L << 34))
+        .appendUnsafe("capped", newBoolean(true))
+        .appendUnsafe("max", newInt(100))
+        .appendUnsafe("wiredTiger", newDocument("type", newString("file")))
+        .appendUnsafe("indexSizes", newDocument("_id_", newInt(4096)))
+        .appendUnsafe("ok", newDouble(1))
+        .build();
+
+    CollStatsReply result = command.unmarshallResult(doc);
+
+    assertEquals("db", result.getDatabase());
+    assertEquals("my.coll", result.getCollection());
+    assertEquals(3L, result.getCount().longValue());
+    assertEquals(15_000_000_000L, result.getSize().longValue());
+    assertEquals(1L << 34, result.getStorageSize().longValue());
+    assertTrue(result.isCapped());
+    assertEquals(100L, result.getMaxIfCapped().longValue());
+    assertEquals(ImmutableMap.of("_id_", 4096L), result.getSizeByIndex());
+  }
+
+  @Test
+  public void missingCountersAreZero() throws MongoException {
+    CollStatsReply result = command.unmarshallResult(newDocument("ns", newString("db.coll")));
+
+    assertEquals(0L, result.getCount().longValue());
+    assertEquals(0L, result.getSize().longValue());
+    assertTrue(result.getSizeByIndex().isEmpty());
+  }
+
+  @Test(expected = BadValueException.class)
+  public void namespaceWithoutDatabaseIsRejected() throws MongoException {
+    command.unmarshallResult(newDocument("ns", newString("coll")));
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Ticker;
+import com.torodb.core.cursors.Cursor;
+import com.torodb.core.cursors.IteratorCursor;
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.core.metrics.DisabledMetricRegistry;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.utils.DefaultBsonValues;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MongodCursorManagerTest {
+
+  private static final long IDLE_TIMEOUT_MILLIS = 1000;
+  private static final int MAX_CURSORS_PER_CONNECTION = 2;
+  private static final int MAX_OPEN_CURSORS = 3;
+
+  private final AtomicLong nanos = new AtomicLong();
+  private final AtomicInteger closedResources = new AtomicInteger();
+  private MongodCursorManager manager;
+
+  @Before
+  public void setUp() {
+    Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    };
+    manager = new MongodCursorManager(DefaultLoggerFactory.getInstance(),
+        new MongodMetrics(new DisabledMetricRegistry()), IDLE_TIMEOUT_MILLIS,
+        MAX_CURSORS_PER_CONNECTION, MAX_OPEN_CURSORS, ticker);
+  }
+
+  @Test
+  public void testBatchesAreStreamed() {
+    MongodCursor cursor = register(1, 5);
+
+    assertTrue(cursor.getCursorId().getNumericId() > 0);
+    assertEquals(2, manager.lookup(cursor.getCursorId()).get().getNextBatch(2).size());
+    assertEquals(2, manager.lookup(cursor.getCursorId()).get().getNextBatch(2).size());
+    assertEquals(1, manager.lookup(cursor.getCursorId()).get().getNextBatch(2).size());
+    assertFalse(cursor.hasNext());
+  }
+
+  @Test
+  public void testKill() {
+    MongodCursor cursor = register(1, 5);
+
+    assertTrue(manager.kill(cursor.getCursorId()));
+    assertFalse(manager.kill(cursor.getCursorId()));
+    assertFalse(manager.lookup(cursor.getCursorId()).isPresent());
+    assertTrue(cursor.isClosed());
+    assertEquals(1, closedResources.get());
+  }
+
+  @Test
+  public void testIdleCursorsAreEvicted() {
+    MongodCursor idle = register(1, 5);
+    MongodCursor used = register(2, 5);
+
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MILLIS / 2));
+    assertTrue(manager.lookup(used.getCursorId()).isPresent());
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MILLIS / 2 + 1));
+    manager.evictIdleCursors();
+
+    assertFalse(manager.lookup(idle.getCursorId()).isPresent());
+    assertTrue(idle.isClosed());
+    assertTrue(manager.lookup(used.getCursorId()).isPresent());
+    assertEquals(1, manager.getOpenCursorsCount());
+  }
+
+  @Test
+  public void testPerConnectionLimit() {
+    register(1, 5);
+    register(1, 5);
+
+    assertFalse(manager.canRegister(1));
+    assertTrue(manager.canRegister(2));
+
+    try {
+      register(1, 5);
+      throw new AssertionError("A cursor over the limit has been registered");
+    } catch (IllegalStateException ex) {
+      //expected
+    }
+  }
+
+  @Test
+  public void testGlobalLimit() {
+    MongodCursor first = register(1, 5);
+    register(2, 5);
+    register(3, 5);
+
+    assertFalse(manager.canRegister(4));
+
+    manager.kill(first.getCursorId());
+    assertTrue(manager.canRegister(4));
+  }
+
+  @Test
+  public void testIdleCursorsDoNotCountForTheGlobalLimit() {
+    register(1, 5);
+    register(2, 5);
+    register(3, 5);
+
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MILLIS + 1));
+
+    assertTrue(manager.canRegister(4));
+    assertEquals(3, closedResources.get());
+  }
+
+  @Test
+  public void testConnectionCursorsAreKilledOnClose() {
+    MongodCursor first = register(1, 5);
+    MongodCursor second = register(1, 5);
+    MongodCursor other = register(2, 5);
+
+    manager.killConnectionCursors(1);
+
+    assertTrue(first.isClosed());
+    assertTrue(second.isClosed());
+    assertFalse(other.isClosed());
+    assertTrue(manager.canRegister(1));
+    assertEquals(2, closedResources.get());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testKilledCursorCannotBeIterated() {
+    MongodCursor cursor = register(1, 5);
+    manager.kill(cursor.getCursorId());
+
+    cursor.getNextBatch(1);
+  }
+
+  private MongodCursor register(int connectionId, int size) {
+    List<BsonDocument> docs = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      docs.add(DefaultBsonValues.newDocument("_id", DefaultBsonValues.newInt(i)));
+    }
+    Cursor<BsonDocument> cursor = new IteratorCursor<>(docs.iterator());
+    return manager.register(connectionId, "db", "col", cursor, closedResources::incrementAndGet);
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.core;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.mongodb.core.MongodStatusCounters.OpCounters;
+import com.torodb.mongodb.core.MongodStatusCounters.OpType;
+import org.junit.Test;
+
+public class MongodStatusCountersTest {
+
+  @Test
+  public void opCountersAreIndependent() {
+    MongodStatusCounters counters = new MongodStatusCounters();
+    OpCounters opCounters = counters.getOpCounters();
+
+    opCounters.add(OpType.INSERT, 3);
+    opCounters.increment(OpType.INSERT);
+    opCounters.increment(OpType.COMMAND);
+
+    assertEquals(4, opCounters.get(OpType.INSERT));
+    assertEquals(1, opCounters.get(OpType.COMMAND));
+    assertEquals(0, opCounters.get(OpType.QUERY));
+    assertEquals(0, counters.getReplOpCounters().get(OpType.INSERT));
+  }
+
+  @Test
+  public void activeTransactionsGoBackToZero() {
+    MongodStatusCounters counters = new MongodStatusCounters();
+
+    counters.getActiveReaders().increment();
+    counters.getActiveReaders().increment();
+    counters.getActiveReaders().decrement();
+    counters.getActiveReaders().decrement();
+
+    assertEquals(0, counters.getActiveReaders().sum());
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.mongodb.language;
+
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.EMPTY_DOC;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.NULL;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDocument;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newInt;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newString;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Lists;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.AndQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria.Operator;
+import com.torodb.core.language.querycriteria.ExistsQueryCriteria;
+import com.torodb.core.language.querycriteria.InQueryCriteria;
+import com.torodb.core.language.querycriteria.OrQueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteria;
+import com.torodb.core.language.querycriteria.TrueQueryCriteria;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvNull;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.exceptions.CommandFailed;
+import com.torodb.mongowp.utils.BsonArrayBuilder;
+import com.torodb.mongowp.utils.BsonDocumentBuilder;
+import org.junit.Test;
+
+public class QueryCriteriaTranslatorTest {
+
+  private static final String COMMAND_NAME = "find";
+
+  @Test
+  public void testEmptyFilter() throws CommandFailed {
+    assertEquals(TrueQueryCriteria.getInstance(),
+        QueryCriteriaTranslator.translate(COMMAND_NAME, EMPTY_DOC));
+  }
+
+  @Test
+  public void testEquality() throws CommandFailed {
+    assertEquals(
+        new ComparisonQueryCriteria(attRef("a"), Operator.EQ, KvInteger.of(1)),
+        QueryCriteriaTranslator.translate(COMMAND_NAME, newDocument("a", newInt(1))));
+  }
+
+  @Test
+  public void testDottedPath() throws CommandFailed {
+    assertEquals(
+        new ComparisonQueryCriteria(attRef("a", "b"), Operator.EQ, new StringKvString("x")),
+        QueryCriteriaTranslator.translate(COMMAND_NAME, newDocument("a.b", newString("x"))));
+  }
+
+  @Test
+  public void testRangeAndIn() throws CommandFailed {
+    BsonDocument filter = new BsonDocumentBuilder()
+        .appendUnsafe("a", new BsonDocumentBuilder()
+            .appendUnsafe("$gte", newInt(1))
+            .appendUnsafe("$lt", newInt(10))
+            .build())
+        .appendUnsafe("b", newDocument("$in", new BsonArrayBuilder()
+            .add(newInt(1))
+            .add(newInt(2))
+            .build()))
+        .build();
+
+    QueryCriteria expected = new AndQueryCriteria(Lists.newArrayList(
+        new ComparisonQueryCriteria(attRef("a"), Operator.GTE, KvInteger.of(1)),
+        new ComparisonQueryCriteria(attRef("a"), Operator.LT, KvInteger.of(10)),
+        new InQueryCriteria(attRef("b"), Lists.<KvValue<?>>newArrayList(
+            KvInteger.of(1), KvInteger.of(2)))
+    ));
+    assertEquals(expected, QueryCriteriaTranslator.translate(COMMAND_NAME, filter));
+  }
+
+  @Test
+  public void testOr() throws CommandFailed {
+    BsonDocument filter = newDocument("$or", new BsonArrayBuilder()
+        .add(newDocument("a", newInt(1)))
+        .add(newDocument("b", newDocument("$exists", newInt(0))))
+        .build());
+
+    QueryCriteria expected = new OrQueryCriteria(Lists.newArrayList(
+        new ComparisonQueryCriteria(attRef("a"), Operator.EQ, KvInteger.of(1)),
+        new ExistsQueryCriteria(attRef("b"), false)
+    ));
+    assertEquals(expected, QueryCriteriaTranslator.translate(COMMAND_NAME, filter));
+  }
+
+  @Test
+  public void testNullEqualityMatchesMissingAttributes() throws CommandFailed {
+    QueryCriteria expected = new OrQueryCriteria(Lists.newArrayList(
+        new ComparisonQueryCriteria(attRef("a"), Operator.EQ, KvNull.getInstance()),
+        new ExistsQueryCriteria(attRef("a"), false)
+    ));
+    assertEquals(expected, QueryCriteriaTranslator.translate(COMMAND_NAME,
+        newDocument("a", NULL)));
+    assertEquals(expected, QueryCriteriaTranslator.translate(COMMAND_NAME,
+        newDocument("a", newDocument("$eq", NULL))));
+  }
+
+  @Test
+  public void testInWithNullMatchesMissingAttributes() throws CommandFailed {
+    BsonDocument filter = newDocument("a", newDocument("$in", new BsonArrayBuilder()
+        .add(newInt(1))
+        .add(NULL)
+        .build()));
+
+    QueryCriteria expected = new OrQueryCriteria(Lists.newArrayList(
+        new InQueryCriteria(attRef("a"), Lists.<KvValue<?>>newArrayList(
+            KvInteger.of(1), KvNull.getInstance())),
+        new ExistsQueryCriteria(attRef("a"), false)
+    ));
+    assertEquals(expected, QueryCriteriaTranslator.translate(COMMAND_NAME, filter));
+  }
+
+  @Test(expected = CommandFailed.class)
+  public void testSubdocumentValue() throws CommandFailed {
+    //{a: {b: 1, c: 2}} only matches documents whose a is exactly {b: 1, c: 2}
+    QueryCriteriaTranslator.translate(COMMAND_NAME,
+        newDocument("a", new BsonDocumentBuilder()
+            .appendUnsafe("b", newInt(1))
+            .appendUnsafe("c", newInt(2))
+            .build()));
+  }
+
+  @Test(expected = CommandFailed.class)
+  public void testUnsupportedOperator() throws CommandFailed {
+    QueryCriteriaTranslator.translate(COMMAND_NAME,
+        newDocument("a", newDocument("$regex", newString("^a"))));
+  }
+
+  @Test(expected = CommandFailed.class)
+  public void testArrayValue() throws CommandFailed {
+    QueryCriteriaTranslator.translate(COMMAND_NAME,
+        newDocument("a", new BsonArrayBuilder().add(newInt(1)).build()));
+  }
+
+  private static AttributeReference attRef(String... keys) {
+    AttributeReference.Builder builder = new AttributeReference.Builder();
+    for (String key : keys) {
+      builder.addObjectKey(key);
+    }
+    return builder.build();
+  }
+}
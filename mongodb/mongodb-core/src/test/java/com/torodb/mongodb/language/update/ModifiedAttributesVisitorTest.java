@@ -0,0 +1,93 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.torodb.mongodb.language.update;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvInteger;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ *
+ */
+public class ModifiedAttributesVisitorTest {
+
+  private static final AttributeReference F1 = new AttributeReference(
+      Lists.<AttributeReference.Key<?>>newArrayList(new AttributeReference.ObjectKey("f1")));
+  private static final AttributeReference F2 = new AttributeReference(
+      Lists.<AttributeReference.Key<?>>newArrayList(
+          new AttributeReference.ObjectKey("f1"),
+          new AttributeReference.ObjectKey("f2")
+      ));
+
+  @Test
+  public void testSingleField() {
+    Optional<Collection<AttributeReference>> result = ModifiedAttributesVisitor
+        .getModifiedAttributes(new SetFieldUpdateAction(Collections.singleton(F1),
+            KvInteger.of(1)));
+
+    assertTrue(result.isPresent());
+    assertEquals(Sets.newHashSet(F1), Sets.newHashSet(result.get()));
+  }
+
+  @Test
+  public void testComposite() {
+    CompositeUpdateAction action = new CompositeUpdateAction.Builder()
+        .add(new IncrementUpdateAction(Collections.singleton(F1), KvInteger.of(1)), false)
+        .add(new UnsetFieldUpdateAction(Collections.singleton(F2)), false)
+        .build();
+
+    Optional<Collection<AttributeReference>> result = ModifiedAttributesVisitor
+        .getModifiedAttributes(action);
+
+    assertTrue(result.isPresent());
+    assertEquals(Sets.newHashSet(F1, F2), Sets.newHashSet(result.get()));
+  }
+
+  @Test
+  public void testSetDocument() {
+    Optional<Collection<AttributeReference>> result = ModifiedAttributesVisitor
+        .getModifiedAttributes(new SetDocumentUpdateAction(new KvDocument.Builder().build()));
+
+    assertFalse(result.isPresent());
+  }
+
+  @Test
+  public void testCompositeWithMove() {
+    CompositeUpdateAction action = new CompositeUpdateAction.Builder()
+        .add(new IncrementUpdateAction(Collections.singleton(F1), KvInteger.of(1)), false)
+        .add(new MoveUpdateAction(Collections.singleton(F2), F1), false)
+        .build();
+
+    Optional<Collection<AttributeReference>> result = ModifiedAttributesVisitor
+        .getModifiedAttributes(action);
+
+    assertFalse(result.isPresent());
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.utils.cloner;
+
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDocument;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newInt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import akka.actor.ActorSystem;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import com.torodb.mongodb.utils.DefaultIdUtils;
+import com.torodb.mongodb.utils.cloner.AkkaDbCloner.DocBatch;
+import com.torodb.mongodb.utils.cloner.AkkaDbCloner.IdFinder;
+import com.torodb.mongodb.utils.cloner.AkkaDbCloner.IdRange;
+import com.torodb.mongodb.utils.cloner.AkkaDbCloner.RangePermits;
+import com.torodb.mongodb.utils.cloner.AkkaDbCloner.RangeProgress;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.exceptions.MongoException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class AkkaDbClonerRangesTest {
+
+  private static ActorSystem actorSystem;
+  private static Materializer materializer;
+
+  @BeforeClass
+  public static void setUpClass() {
+    actorSystem = ActorSystem.create("akka-db-cloner-ranges-test");
+    materializer = ActorMaterializer.create(actorSystem);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    actorSystem.terminate();
+  }
+
+  @Test
+  public void smallCollectionsAreNotSplit() {
+    assertEquals(1, AkkaDbCloner.getRangesCount(0, 4));
+    assertEquals(1, AkkaDbCloner.getRangesCount(150_000, 4));
+    assertEquals(2, AkkaDbCloner.getRangesCount(200_000, 4));
+    assertEquals(4, AkkaDbCloner.getRangesCount(10_000_000, 4));
+  }
+
+  @Test
+  public void rangesSplitTheIdsEvenly() throws MongoException {
+    List<IdRange> ranges = AkkaDbCloner.splitInRanges(new IdRange(null, false, null), 4, 1000,
+        idFinder(1000));
+
+    assertEquals(4, ranges.size());
+    assertNull(ranges.get(0).getLower());
+    assertEquals(newInt(250), ranges.get(0).getUpper());
+    for (int i = 1; i < 4; i++) {
+      assertEquals(ranges.get(i - 1).getUpper(), ranges.get(i).getLower());
+      assertTrue(ranges.get(i).isLowerInclusive());
+    }
+    assertEquals(newInt(750), ranges.get(3).getLower());
+    assertNull(ranges.get(3).getUpper());
+  }
+
+  @Test
+  public void rangesStartAfterTheResumeId() throws MongoException {
+    List<IdRange> ranges = AkkaDbCloner.splitInRanges(new IdRange(newInt(499), false, null), 2,
+        500, idFinder(1000));
+
+    assertEquals(2, ranges.size());
+    assertEquals(newInt(499), ranges.get(0).getLower());
+    assertFalse(ranges.get(0).isLowerInclusive());
+    assertEquals(newInt(750), ranges.get(0).getUpper());
+    assertEquals(newInt(750), ranges.get(1).getLower());
+    assertNull(ranges.get(1).getUpper());
+  }
+
+  @Test
+  public void lessDocumentsThanEstimatedCreateLessRanges() throws MongoException {
+    List<IdRange> ranges = AkkaDbCloner.splitInRanges(new IdRange(null, false, null), 4, 1000,
+        idFinder(400));
+
+    assertEquals(2, ranges.size());
+    assertEquals(newInt(250), ranges.get(0).getUpper());
+    assertEquals(newInt(250), ranges.get(1).getLower());
+    assertNull(ranges.get(1).getUpper());
+  }
+
+  @Test
+  public void rangePermitsAreSharedAmongCollections() throws InterruptedException {
+    Semaphore semaphore = new Semaphore(5, true);
+    try (RangePermits first = RangePermits.acquire(semaphore)) {
+      assertEquals(4, first.tryAcquireUpTo(4));
+      try (RangePermits second = RangePermits.acquire(semaphore)) {
+        assertEquals("Only the remaining permit must be used", 1, second.tryAcquireUpTo(4));
+        assertEquals(0, semaphore.availablePermits());
+      }
+      first.trimTo(2);
+      assertEquals(2, first.getAcquired());
+      assertEquals(3, semaphore.availablePermits());
+    }
+    assertEquals(5, semaphore.availablePermits());
+  }
+
+  @Test
+  public void collectionsWaitForTheirFirstRange() throws InterruptedException {
+    Semaphore semaphore = new Semaphore(2, true);
+    RangePermits first = RangePermits.acquire(semaphore);
+    first.tryAcquireUpTo(2);
+
+    Thread waiting = new Thread(() -> {
+      try (RangePermits second = RangePermits.acquire(semaphore)) {
+        assertEquals(1, second.getAcquired());
+      } catch (InterruptedException ex) {
+        throw new AssertionError(ex);
+      }
+    });
+    waiting.start();
+    waiting.join(100);
+    assertTrue("The second collection must wait until a permit is released", waiting.isAlive());
+
+    first.close();
+    waiting.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(waiting.isAlive());
+  }
+
+  @Test
+  public void batchSourceEndsWithAnEndOfRangeMarker() {
+    List<DocBatch> batches = runBatchSource(7, 3);
+
+    assertEquals(4, batches.size());
+    assertEquals(3, batches.get(0).getDocs().size());
+    assertEquals(3, batches.get(1).getDocs().size());
+    assertEquals(1, batches.get(2).getDocs().size());
+    assertEquals(newInt(6), batches.get(2).getLastId());
+    for (int i = 0; i < batches.size(); i++) {
+      assertEquals(i, batches.get(i).getIndex());
+      assertEquals(2, batches.get(i).getRange());
+      assertEquals(i == batches.size() - 1, batches.get(i).isEndOfRange());
+    }
+    assertNull(batches.get(3).getLastId());
+  }
+
+  @Test
+  public void emptyRangesOnlyEmitTheEndOfRangeMarker() {
+    List<DocBatch> batches = runBatchSource(0, 3);
+
+    assertEquals(1, batches.size());
+    assertTrue(batches.get(0).isEndOfRange());
+    assertEquals(0, batches.get(0).getIndex());
+  }
+
+  @Test
+  public void rangeIsFinishedOnceAllBatchesBeforeTheMarkerAreInserted() {
+    List<DocBatch> batches = runBatchSource(7, 3);
+    RangeProgress progress = new RangeProgress();
+
+    assertFalse(progress.add(batches.get(3)));
+    assertFalse(progress.add(batches.get(1)));
+    assertFalse(progress.isFinished());
+    assertNull(progress.getLastContiguousId());
+
+    assertTrue(progress.add(batches.get(0)));
+    assertEquals(newInt(5), progress.getLastContiguousId());
+    assertFalse(progress.isFinished());
+
+    assertTrue(progress.add(batches.get(2)));
+    assertEquals(newInt(6), progress.getLastContiguousId());
+    assertTrue(progress.isFinished());
+  }
+
+  private List<DocBatch> runBatchSource(int docsCount, int docsPerBatch) {
+    List<BsonDocument> docs = IntStream.range(0, docsCount)
+        .mapToObj(i -> newDocument(DefaultIdUtils.ID_KEY, newInt(i)))
+        .collect(Collectors.toList());
+    return AkkaDbCloner.createBatchSource(2, docs.iterator(), 2, docsPerBatch)
+        .runWith(Sink.seq(), materializer)
+        .toCompletableFuture()
+        .join();
+  }
+
+  /**
+   * Returns a finder over a collection whose {@code _id} are the integers from 0 to the given
+   * (exclusive) value.
+   */
+  private IdFinder idFinder(int docsCount) {
+    List<BsonValue<?>> ids = new ArrayList<>(docsCount);
+    IntStream.range(0, docsCount).forEach(i -> ids.add(newInt(i)));
+    return (range, skip) -> {
+      List<BsonValue<?>> rangeIds = ids.stream()
+          .filter(id -> isInRange(id, range))
+          .collect(Collectors.toList());
+      if (skip >= rangeIds.size()) {
+        return null;
+      }
+      return rangeIds.get(skip);
+    };
+  }
+
+  private boolean isInRange(BsonValue<?> id, IdRange range) {
+    int value = id.asNumber().intValue();
+    if (range.getLower() != null) {
+      int lower = range.getLower().asNumber().intValue();
+      if (value < lower || value == lower && !range.isLowerInclusive()) {
+        return false;
+      }
+    }
+    return range.getUpper() == null || value < range.getUpper().asNumber().intValue();
+  }
+}
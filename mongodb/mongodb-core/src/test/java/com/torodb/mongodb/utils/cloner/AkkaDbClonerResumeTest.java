@@ -0,0 +1,190 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.utils.cloner;
+
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDateTime;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDocument;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDouble;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newInt;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newLong;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HostAndPort;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.bundle.BundleConfigImpl;
+import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.guice.EssentialModule;
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.core.metrics.DisabledMetricRegistry;
+import com.torodb.core.supervision.Supervisor;
+import com.torodb.core.supervision.SupervisorDecision;
+import com.torodb.mongodb.commands.impl.CommandClassifierImpl;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertArgument;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertResult;
+import com.torodb.mongodb.core.DefaultBuildProperties;
+import com.torodb.mongodb.core.MongoDbCoreBundle;
+import com.torodb.mongodb.core.MongoDbCoreConfig;
+import com.torodb.mongodb.core.MongodServerConfig;
+import com.torodb.mongodb.core.WriteMongodTransaction;
+import com.torodb.mongodb.utils.DefaultIdUtils;
+import com.torodb.mongowp.Status;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.bson.impl.IntBasedBsonObjectId;
+import com.torodb.mongowp.commands.Request;
+import com.torodb.mongowp.commands.impl.NameBasedCommandLibrary;
+import com.torodb.mongowp.exceptions.MongoException;
+import com.torodb.torod.MemoryTorodBundle;
+import com.torodb.torod.TorodBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+public class AkkaDbClonerResumeTest {
+
+  private static final String DB = "test";
+  private static final String COL = "coll";
+
+  private TorodBundle torodBundle;
+  private MongoDbCoreBundle bundle;
+
+  @Before
+  public void setUp() {
+    Supervisor supervisor = new Supervisor() {
+      @Override
+      public SupervisorDecision onError(Object supervised, Throwable error) {
+        throw new AssertionError("error on " + supervised, error);
+      }
+    };
+    Injector essentialInjector = Guice.createInjector(
+        new EssentialModule(
+            DefaultLoggerFactory.getInstance(),
+            () -> true,
+            Clock.systemUTC()
+        )
+    );
+    BundleConfig generalConfig = new BundleConfigImpl(essentialInjector, supervisor);
+    torodBundle = new MemoryTorodBundle(generalConfig);
+    torodBundle.startAsync();
+    torodBundle.awaitRunning();
+
+    MongoDbCoreConfig config = new MongoDbCoreConfig(torodBundle,
+        new NameBasedCommandLibrary("test", ImmutableMap.of()),
+        CommandClassifierImpl.createDefault(DefaultLoggerFactory.getInstance(),
+            Clock.systemUTC(), new DefaultBuildProperties(),
+            new MongodServerConfig(HostAndPort.fromParts("localhost", 8095))),
+        Optional.of(new DisabledMetricRegistry()), DefaultLoggerFactory.getInstance(),
+        essentialInjector, supervisor);
+    bundle = new MongoDbCoreBundle(config);
+    bundle.start();
+  }
+
+  @After
+  public void tearDown() {
+    bundle.stop();
+    if (torodBundle.isRunning()) {
+      torodBundle.stopAsync();
+    }
+  }
+
+  @Test
+  public void numericIdsAreResumable() {
+    assertTrue(AkkaDbCloner.canResumeAfter(newInt(5), newInt(1), newInt(10)));
+    assertTrue(AkkaDbCloner.canResumeAfter(newLong(5), newDouble(0.5), newInt(10)));
+  }
+
+  @Test
+  public void objectIdsAndDatesAreResumable() {
+    BsonValue<?> objectId = new IntBasedBsonObjectId(1, 1, 1, 1);
+    assertTrue(AkkaDbCloner.canResumeAfter(objectId, objectId, objectId));
+    assertTrue(AkkaDbCloner.canResumeAfter(newDateTime(5), newDateTime(1), newDateTime(10)));
+  }
+
+  @Test
+  public void stringIdsAreNotResumable() {
+    assertFalse(AkkaDbCloner.canResumeAfter(newString("b"), newString("a"), newString("c")));
+  }
+
+  @Test
+  public void mixedIdTypesAreNotResumable() {
+    BsonValue<?> objectId = new IntBasedBsonObjectId(1, 1, 1, 1);
+    assertFalse(AkkaDbCloner.canResumeAfter(newInt(5), newInt(1), objectId));
+    assertFalse(AkkaDbCloner.canResumeAfter(objectId, newInt(1), objectId));
+    assertFalse(AkkaDbCloner.canResumeAfter(newInt(5), newString("a"), newInt(10)));
+  }
+
+  @Test
+  public void emptyRemoteCollectionIsNotResumable() {
+    assertFalse(AkkaDbCloner.canResumeAfter(newInt(5), null, null));
+  }
+
+  @Test
+  public void documentsAfterTheLastIdAreDeleted() throws MongoException, UserException {
+    insert(newInt(1), newInt(2), newInt(3), newLong(4), newDouble(5.5));
+
+    try (WriteMongodTransaction transaction = openWriteTransaction()) {
+      assertTrue(AkkaDbCloner.deleteDocumentsAfter(transaction, DB, COL, newInt(3)));
+      assertEquals(3, transaction.getTorodTransaction().countAll(DB, COL));
+    }
+  }
+
+  @Test
+  public void documentsWithOtherIdTypesPreventResuming() throws MongoException,
+      UserException {
+    insert(newInt(1), newInt(2), newInt(3), new IntBasedBsonObjectId(1, 1, 1, 1));
+
+    try (WriteMongodTransaction transaction = openWriteTransaction()) {
+      assertFalse(AkkaDbCloner.deleteDocumentsAfter(transaction, DB, COL, newInt(2)));
+    }
+  }
+
+  private WriteMongodTransaction openWriteTransaction() {
+    return bundle.getExternalInterface().getMongodServer().openConnection()
+        .openWriteTransaction();
+  }
+
+  private void insert(BsonValue<?>... ids) throws MongoException, UserException {
+    List<BsonDocument> docs = new ArrayList<>(ids.length);
+    Arrays.stream(ids).forEach(id -> docs.add(newDocument(DefaultIdUtils.ID_KEY, id)));
+    try (WriteMongodTransaction transaction = openWriteTransaction()) {
+      Status<InsertResult> result = transaction.execute(
+          new Request(DB, null, true, null),
+          InsertCommand.INSTANCE,
+          new InsertArgument.Builder(COL)
+              .addDocuments(docs)
+              .build()
+      );
+      assertTrue(result.getErrorMsg(), result.isOk());
+      transaction.commit();
+    }
+  }
+}
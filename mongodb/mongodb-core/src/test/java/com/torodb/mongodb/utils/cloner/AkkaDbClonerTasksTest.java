@@ -0,0 +1,70 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.utils.cloner;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.mongodb.utils.cloner.AkkaDbCloner.CollectionCloneTask;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AkkaDbClonerTasksTest {
+
+  @Test
+  public void largestCollectionsAreClonedFirst() {
+    List<CollectionCloneTask> tasks = new ArrayList<>(Arrays.asList(
+        task("db1", 10),
+        task("db2", 3_000_000_000L),
+        task("db3", 0),
+        task("db4", 500)
+    ));
+
+    tasks.sort(CollectionCloneTask.LARGEST_FIRST);
+
+    assertEquals(Arrays.asList("db2", "db4", "db1", "db3"), dbs(tasks));
+  }
+
+  @Test
+  public void collectionsWithTheSameSizeKeepTheirOrder() {
+    List<CollectionCloneTask> tasks = new ArrayList<>(Arrays.asList(
+        task("db1", 0),
+        task("db2", 100),
+        task("db3", 0),
+        task("db4", 100)
+    ));
+
+    tasks.sort(CollectionCloneTask.LARGEST_FIRST);
+
+    assertEquals(Arrays.asList("db2", "db4", "db1", "db3"), dbs(tasks));
+  }
+
+  private CollectionCloneTask task(String dstDb, long estimatedSize) {
+    return new CollectionCloneTask(dstDb, null, null, estimatedSize);
+  }
+
+  private List<String> dbs(List<CollectionCloneTask> tasks) {
+    return tasks.stream()
+        .map(CollectionCloneTask::getDstDb)
+        .collect(Collectors.toList());
+  }
+}
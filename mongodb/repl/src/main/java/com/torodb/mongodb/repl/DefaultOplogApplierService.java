@@ -30,6 +30,7 @@ import com.torodb.mongodb.repl.oplogreplier.RollbackReplicationException;
 import com.torodb.mongodb.repl.oplogreplier.fetcher.ContinuousOplogFetcher;
 import com.torodb.mongodb.repl.oplogreplier.fetcher.ContinuousOplogFetcher.ContinuousOplogFetcherFactory;
 import com.torodb.mongodb.repl.oplogreplier.fetcher.OplogFetcher;
+import com.torodb.mongodb.repl.oplogreplier.fetcher.OplogPrefetchConfig;
 import com.torodb.mongowp.OpTime;
 import org.apache.logging.log4j.Logger;
 
@@ -44,7 +45,8 @@ import javax.inject.Inject;
  * A {@link OplogApplierService} that delegate on an {@link OplogApplier}.
  *
  * <p/>A new {@link ContinuousOplogFetcher} is created when this service start up and it is
- * finished once the service stop.
+ * finished once the service stop. Depending on the {@link OplogPrefetchConfig}, the fetcher
+ * reads ahead from the remote oplog while the previous batches are applied.
  */
 public class DefaultOplogApplierService extends IdleTorodbService implements OplogApplierService {
 
@@ -52,6 +54,8 @@ public class DefaultOplogApplierService extends IdleTorodbService implements Opl
   private final OplogApplier oplogApplier;
   private final ContinuousOplogFetcherFactory oplogFetcherFactory;
   private final OplogManager oplogManager;
+  private final OplogPrefetchConfig oplogPrefetchConfig;
+  private final ThreadFactory threadFactory;
   private final Callback callback;
   private volatile boolean stopping;
   private OplogFetcher fetcher;
@@ -63,12 +67,15 @@ public class DefaultOplogApplierService extends IdleTorodbService implements Opl
   public DefaultOplogApplierService(ThreadFactory threadFactory,
       OplogApplier oplogApplier, OplogManager oplogManager,
       ContinuousOplogFetcherFactory oplogFetcherFactory, LoggerFactory loggerFactory,
-      @Assisted Callback callback, ConcurrentToolsFactory concurrentToolsFactory) {
+      OplogPrefetchConfig oplogPrefetchConfig, @Assisted Callback callback,
+      ConcurrentToolsFactory concurrentToolsFactory) {
     super(threadFactory);
     this.logger = loggerFactory.apply(this.getClass());
     this.oplogApplier = oplogApplier;
     this.oplogFetcherFactory = oplogFetcherFactory;
     this.oplogManager = oplogManager;
+    this.oplogPrefetchConfig = oplogPrefetchConfig;
+    this.threadFactory = threadFactory;
     this.callback = callback;
     this.selfExecutor = concurrentToolsFactory.createExecutorService(
         "oplog-applier-service",
@@ -158,6 +165,9 @@ public class DefaultOplogApplierService extends IdleTorodbService implements Opl
       lastAppliedHash = oplogReadTrans.getLastAppliedHash();
     }
 
-    return oplogFetcherFactory.createFetcher(lastAppliedHash, lastAppliedOptime);
+    return oplogPrefetchConfig.decorate(
+        oplogFetcherFactory.createFetcher(lastAppliedHash, lastAppliedOptime),
+        threadFactory
+    );
   }
 }
@@ -0,0 +1,365 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.repl;
+
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.EMPTY_DOC;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newBoolean;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newDocument;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newLong;
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newString;
+
+import com.google.common.base.Preconditions;
+import com.torodb.common.util.Empty;
+import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.logging.LoggerFactory;
+import com.torodb.core.retrier.Retrier;
+import com.torodb.core.retrier.Retrier.Hint;
+import com.torodb.core.retrier.RetrierAbortException;
+import com.torodb.core.retrier.RetrierGiveUpException;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteArgument;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteStatement;
+import com.torodb.mongodb.commands.signatures.general.FindCommand;
+import com.torodb.mongodb.commands.signatures.general.FindCommand.FindArgument;
+import com.torodb.mongodb.commands.signatures.general.FindCommand.FindResult;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertArgument;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertResult;
+import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongodb.core.MongodServer;
+import com.torodb.mongodb.core.ReadOnlyMongodTransaction;
+import com.torodb.mongodb.core.WriteMongodTransaction;
+import com.torodb.mongodb.utils.CloneCheckpoint;
+import com.torodb.mongodb.utils.DefaultIdUtils;
+import com.torodb.mongowp.OpTime;
+import com.torodb.mongowp.Status;
+import com.torodb.mongowp.bson.BsonDateTime;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.bson.utils.DefaultBsonValues;
+import com.torodb.mongowp.bson.utils.TimestampToDateTime;
+import com.torodb.mongowp.commands.Request;
+import com.torodb.mongowp.exceptions.MongoException;
+import com.torodb.mongowp.utils.BsonDocumentBuilder;
+import com.torodb.mongowp.utils.BsonReaderTool;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+/**
+ * Stores the progress of the initial sync, so it can be resumed after a failure or a restart
+ * instead of starting from scratch.
+ *
+ * <p>The progress is stored on the collection {@value #CHECKPOINT_DB}.{@value #CHECKPOINT_COL}. It
+ * contains a document with the oplog operation that was the last one on the sync source when the
+ * initial sync started, which is the first operation that must be applied once all data has been
+ * cloned, and a document for each collection whose cloning has started.
+ *
+ * <p>An initial sync that has imported data on a data import mode that is not durable is
+ * {@link #markNonDurable() marked} as such and is never resumed, as the backend could have lost
+ * the imported data without any error being reported, for instance if it restarted meanwhile.
+ */
+@ThreadSafe
+public class InitialSyncCheckpointManager implements CloneCheckpoint {
+
+  private static final String CHECKPOINT_DB = "torodb";
+  private static final String CHECKPOINT_COL = "initialsync.checkpoint";
+  private static final String START_ID = "$start";
+  private static final String HASH_KEY = "hash";
+  private static final String OPTIME_I_KEY = "optime_i";
+  private static final String OPTIME_T_KEY = "optime_t";
+  private static final String DB_KEY = "db";
+  private static final String COL_KEY = "col";
+  private static final String PHASE_KEY = "phase";
+  private static final String LAST_ID_KEY = "lastId";
+  private static final String DURABLE_KEY = "durable";
+
+  private final Logger logger;
+  private final MongodServer server;
+  private final Retrier retrier;
+  private final Map<String, CollectionState> states = new ConcurrentHashMap<>();
+  private volatile SyncStart currentStart;
+
+  @Inject
+  public InitialSyncCheckpointManager(MongodServer server, Retrier retrier, LoggerFactory lf) {
+    this.logger = lf.apply(this.getClass());
+    this.server = server;
+    this.retrier = retrier;
+  }
+
+  /**
+   * Loads the stored progress.
+   *
+   * @return the start of the interrupted initial sync or an empty optional if there is no
+   *         initial sync to resume or it has been {@link #markNonDurable() marked as non durable}
+   */
+  public Optional<SyncStart> load() throws CheckpointPersistException {
+    states.clear();
+    currentStart = null;
+    try {
+      return retrier.retry(() -> {
+        try (MongodConnection connection = server.openConnection();
+            ReadOnlyMongodTransaction transaction = connection.openReadOnlyTransaction()) {
+          Status<FindResult> status = transaction.execute(
+              new Request(CHECKPOINT_DB, null, true, null),
+              FindCommand.INSTANCE,
+              new FindArgument.Builder()
+                  .setCollection(CHECKPOINT_COL)
+                  .setBatchSize(Integer.MAX_VALUE)
+                  .setWantMore(false)
+                  .setSlaveOk(true)
+                  .build()
+          );
+          if (!status.isOk()) {
+            throw new RetrierAbortException(new MongoException(status));
+          }
+
+          SyncStart start = null;
+          boolean durable = true;
+          Iterator<BsonDocument> batch = status.getResult().getCursor().getFirstBatch();
+          while (batch.hasNext()) {
+            BsonDocument doc = batch.next();
+            String id = BsonReaderTool.getString(doc, DefaultIdUtils.ID_KEY);
+            if (id.equals(START_ID)) {
+              start = parseStart(doc);
+              durable = BsonReaderTool.getBoolean(doc, DURABLE_KEY, true);
+            } else {
+              BsonValue<?> lastId = doc.get(LAST_ID_KEY);
+              states.put(id, CollectionState.of(
+                  Phase.valueOf(BsonReaderTool.getString(doc, PHASE_KEY)),
+                  lastId
+              ));
+            }
+          }
+          if (start != null && !durable) {
+            logger.info("The initial sync that started at {} cannot be resumed because it "
+                + "imported data on a non durable data import mode", start.getOpTime());
+            start = null;
+          }
+          if (start == null) {
+            states.clear();
+          }
+          currentStart = start;
+          return Optional.ofNullable(start);
+        }
+      }, Hint.INFREQUENT_ROLLBACK);
+    } catch (RetrierGiveUpException ex) {
+      throw new CheckpointPersistException(ex);
+    }
+  }
+
+  /**
+   * Discards the stored progress and stores the start of a new initial sync.
+   *
+   * @param hash   the hash of the last oplog operation on the sync source
+   * @param opTime the optime of the last oplog operation on the sync source
+   */
+  public void start(long hash, OpTime opTime) throws CheckpointPersistException {
+    states.clear();
+    currentStart = null;
+    try {
+      write(EMPTY_DOC, createStartDoc(hash, opTime).build());
+    } catch (RetrierGiveUpException ex) {
+      throw new CheckpointPersistException(ex);
+    }
+    currentStart = new SyncStart(hash, opTime);
+  }
+
+  /**
+   * Marks the current initial sync as one that cannot be resumed, which must be done before data
+   * is imported on a data import mode that is not durable.
+   *
+   * <p>The mark is stored before this method returns, so an initial sync interrupted after that
+   * will start from scratch even if the next one does not use the same data import mode.
+   *
+   * @throws IllegalStateException if there is no current initial sync
+   */
+  public void markNonDurable() throws CheckpointPersistException {
+    SyncStart start = currentStart;
+    Preconditions.checkState(start != null, "There is no initial sync to mark");
+    BsonDocument startDoc = createStartDoc(start.getHash(), start.getOpTime())
+        .appendUnsafe(DURABLE_KEY, newBoolean(false))
+        .build();
+    try {
+      write(newDocument(DefaultIdUtils.ID_KEY, newString(START_ID)), startDoc);
+    } catch (RetrierGiveUpException ex) {
+      throw new CheckpointPersistException(ex);
+    }
+  }
+
+  /**
+   * Discards the stored progress, which must be done once the initial sync finishes.
+   */
+  public void clear() throws CheckpointPersistException {
+    states.clear();
+    currentStart = null;
+    try {
+      write(EMPTY_DOC, null);
+    } catch (RetrierGiveUpException ex) {
+      throw new CheckpointPersistException(ex);
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public CollectionState getState(String dstDb, String collection) {
+    return states.getOrDefault(getKey(dstDb, collection), CollectionState.notStarted());
+  }
+
+  @Override
+  public void onDocumentsCloned(String dstDb, String collection, BsonValue<?> lastClonedId) {
+    storeState(dstDb, collection, CollectionState.cloningData(lastClonedId));
+  }
+
+  @Override
+  public void onDataCloned(String dstDb, String collection) {
+    storeState(dstDb, collection, CollectionState.dataCloned());
+  }
+
+  @Override
+  public void onIndexesCloned(String dstDb, String collection) {
+    storeState(dstDb, collection, CollectionState.indexesCloned());
+  }
+
+  private void storeState(String dstDb, String collection, CollectionState state) {
+    String key = getKey(dstDb, collection);
+    BsonDocumentBuilder builder = new BsonDocumentBuilder()
+        .appendUnsafe(DefaultIdUtils.ID_KEY, newString(key))
+        .appendUnsafe(DB_KEY, newString(dstDb))
+        .appendUnsafe(COL_KEY, newString(collection))
+        .appendUnsafe(PHASE_KEY, newString(state.getPhase().name()));
+    if (state.getLastClonedId().isPresent()) {
+      builder.appendUnsafe(LAST_ID_KEY, state.getLastClonedId().get());
+    }
+    try {
+      write(newDocument(DefaultIdUtils.ID_KEY, newString(key)), builder.build());
+    } catch (RetrierGiveUpException ex) {
+      //the initial sync can continue, but it will not be resumable from this point
+      logger.warn("It was impossible to store the initial sync progress of " + key, ex);
+      return;
+    }
+    states.put(key, state);
+    logger.trace("Initial sync progress of {} is {}", key, state);
+  }
+
+  /**
+   * Deletes the documents that fulfil the given query and then inserts the given document, if it
+   * is not null, on the same transaction.
+   */
+  private void write(BsonDocument deleteQuery, BsonDocument newDoc)
+      throws RetrierGiveUpException {
+    retrier.retry(() -> {
+      try (MongodConnection connection = server.openConnection();
+          WriteMongodTransaction transaction = connection.openWriteTransaction()) {
+        Status<Long> deleteResult = transaction.execute(
+            new Request(CHECKPOINT_DB, null, true, null),
+            DeleteCommand.INSTANCE,
+            new DeleteArgument.Builder(CHECKPOINT_COL)
+                .addStatement(new DeleteStatement(deleteQuery, false))
+                .build()
+        );
+        if (!deleteResult.isOk()) {
+          throw new RetrierAbortException(new MongoException(deleteResult));
+        }
+        if (newDoc != null) {
+          Status<InsertResult> insertResult = transaction.execute(
+              new Request(CHECKPOINT_DB, null, true, null),
+              InsertCommand.INSTANCE,
+              new InsertArgument.Builder(CHECKPOINT_COL)
+                  .addDocument(newDoc)
+                  .build()
+          );
+          if (!insertResult.isOk()) {
+            throw new RetrierAbortException(new MongoException(insertResult));
+          }
+        }
+        transaction.commit();
+        return Empty.getInstance();
+      } catch (UserException ex) {
+        throw new RetrierAbortException(ex);
+      }
+    }, Hint.INFREQUENT_ROLLBACK);
+  }
+
+  private static BsonDocumentBuilder createStartDoc(long hash, OpTime opTime) {
+    //the timestamp is packed in a long the same way OplogManager stores it
+    long optimeAsLong = opTime.toOldBson().getMillisFromUnix();
+    return new BsonDocumentBuilder()
+        .appendUnsafe(DefaultIdUtils.ID_KEY, newString(START_ID))
+        .appendUnsafe(HASH_KEY, newLong(hash))
+        .appendUnsafe(OPTIME_I_KEY, newLong(optimeAsLong))
+        .appendUnsafe(OPTIME_T_KEY, newLong(opTime.getTerm()));
+  }
+
+  private static SyncStart parseStart(BsonDocument doc) throws MongoException {
+    long optimeAsLong = BsonReaderTool.getLong(doc, OPTIME_I_KEY);
+    BsonDateTime optimeAsDateTime = DefaultBsonValues.newDateTime(optimeAsLong);
+
+    OpTime opTime = new OpTime(
+        TimestampToDateTime.toTimestamp(optimeAsDateTime, DefaultBsonValues::newTimestamp),
+        BsonReaderTool.getLong(doc, OPTIME_T_KEY)
+    );
+    return new SyncStart(BsonReaderTool.getLong(doc, HASH_KEY), opTime);
+  }
+
+  private static String getKey(String dstDb, String collection) {
+    return dstDb + '.' + collection;
+  }
+
+  /**
+   * The last oplog operation on the sync source when an initial sync started.
+   */
+  public static class SyncStart {
+
+    private final long hash;
+    private final OpTime opTime;
+
+    public SyncStart(long hash, OpTime opTime) {
+      this.hash = hash;
+      this.opTime = opTime;
+    }
+
+    public long getHash() {
+      return hash;
+    }
+
+    public OpTime getOpTime() {
+      return opTime;
+    }
+  }
+
+  public static class CheckpointPersistException extends Exception {
+
+    private static final long serialVersionUID = 5217146337463021409L;
+
+    public CheckpointPersistException(Throwable cause) {
+      super(cause);
+    }
+  }
+}
@@ -44,6 +44,7 @@ import com.torodb.mongodb.repl.guice.ReplSetName;
 import com.torodb.mongodb.repl.oplogreplier.DefaultOplogApplierBundle;
 import com.torodb.mongodb.repl.oplogreplier.DefaultOplogApplierBundleConfig;
 import com.torodb.mongodb.repl.oplogreplier.OplogApplier;
+import com.torodb.mongodb.repl.oplogreplier.fetcher.OplogPrefetchConfig;
 import com.torodb.mongodb.repl.topology.RemoteSeed;
 import com.torodb.mongodb.repl.topology.TopologyBundle;
 import com.torodb.mongodb.repl.topology.TopologyBundleConfig;
@@ -206,6 +207,7 @@ public class MongoDbReplBundle extends AbstractBundle<MongoDbReplExtInt> {
         replCommandsBuilder.getReplCommandsLibrary(),
         replCommandsBuilder.getReplCommandsExecutor(),
         essentialOverrideModule,
+        config.getSubBatchHeuristicConfig(),
         replBundleConfig
     );
   }
@@ -278,6 +280,8 @@ public class MongoDbReplBundle extends AbstractBundle<MongoDbReplExtInt> {
           .toInstance(config.getMongoDbCoreBundle().getExternalInterface().getMongodServer());
       bind(ConsistencyHandler.class)
           .toInstance(config.getConsistencyHandler());
+      bind(OplogPrefetchConfig.class)
+          .toInstance(config.getOplogPrefetchConfig());
       bind(MongoClientConfiguration.class)
           .toInstance(config.getMongoClientConfiguration());
       bind(String.class)
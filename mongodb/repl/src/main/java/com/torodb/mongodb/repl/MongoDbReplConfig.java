@@ -26,6 +26,8 @@ import com.torodb.core.metrics.ToroMetricRegistry;
 import com.torodb.core.supervision.Supervisor;
 import com.torodb.mongodb.core.MongoDbCoreBundle;
 import com.torodb.mongodb.repl.filters.ReplicationFilters;
+import com.torodb.mongodb.repl.oplogreplier.batch.SubBatchHeuristicConfig;
+import com.torodb.mongodb.repl.oplogreplier.fetcher.OplogPrefetchConfig;
 import com.torodb.mongowp.client.wrapper.MongoClientConfiguration;
 
 import java.util.Optional;
@@ -42,13 +44,16 @@ public class MongoDbReplConfig implements BundleConfig {
   private final ConsistencyHandler consistencyHandler;
   private final Optional<ToroMetricRegistry> metricRegistry;
   private final LoggerFactory loggerFactory;
+  private final SubBatchHeuristicConfig subBatchHeuristicConfig;
+  private final OplogPrefetchConfig oplogPrefetchConfig;
   private final BundleConfig generalConfig;
 
   public MongoDbReplConfig(MongoDbCoreBundle coreBundle,
       MongoClientConfiguration mongoClientConfiguration, ReplicationFilters userReplFilter,
       String replSetName, ConsistencyHandler consistencyHandler, 
       Optional<ToroMetricRegistry> metricRegistry,
-      LoggerFactory loggerFactory, BundleConfig generalConfig) {
+      LoggerFactory loggerFactory, SubBatchHeuristicConfig subBatchHeuristicConfig,
+      OplogPrefetchConfig oplogPrefetchConfig, BundleConfig generalConfig) {
     this.coreBundle = coreBundle;
     this.mongoClientConfiguration = mongoClientConfiguration;
     this.userReplFilter = userReplFilter;
@@ -56,6 +61,8 @@ public class MongoDbReplConfig implements BundleConfig {
     this.consistencyHandler = consistencyHandler;
     this.metricRegistry = metricRegistry;
     this.loggerFactory = loggerFactory;
+    this.subBatchHeuristicConfig = subBatchHeuristicConfig;
+    this.oplogPrefetchConfig = oplogPrefetchConfig;
     this.generalConfig = generalConfig;
   }
 
@@ -87,6 +94,14 @@ public class MongoDbReplConfig implements BundleConfig {
     return loggerFactory;
   }
 
+  public SubBatchHeuristicConfig getSubBatchHeuristicConfig() {
+    return subBatchHeuristicConfig;
+  }
+
+  public OplogPrefetchConfig getOplogPrefetchConfig() {
+    return oplogPrefetchConfig;
+  }
+
   @Override
   public Injector getEssentialInjector() {
     return generalConfig.getEssentialInjector();
@@ -24,6 +24,8 @@ import com.torodb.core.logging.LoggerFactory;
 import com.torodb.core.metrics.ToroMetricRegistry;
 import com.torodb.mongodb.core.MongoDbCoreBundle;
 import com.torodb.mongodb.repl.filters.ReplicationFilters;
+import com.torodb.mongodb.repl.oplogreplier.batch.SubBatchHeuristicConfig;
+import com.torodb.mongodb.repl.oplogreplier.fetcher.OplogPrefetchConfig;
 import com.torodb.mongowp.client.wrapper.MongoClientConfiguration;
 
 import java.util.Optional;
@@ -37,6 +39,8 @@ public class MongoDbReplConfigBuilder {
   private ConsistencyHandler consistencyHandler;
   private Optional<ToroMetricRegistry> metricRegistry;
   private LoggerFactory loggerFactory;
+  private SubBatchHeuristicConfig subBatchHeuristicConfig = SubBatchHeuristicConfig.adaptive();
+  private OplogPrefetchConfig oplogPrefetchConfig = OplogPrefetchConfig.defaults();
   private final BundleConfig generalConfig;
 
   public MongoDbReplConfigBuilder(BundleConfig generalConfig) {
@@ -79,6 +83,18 @@ public class MongoDbReplConfigBuilder {
     return this;
   }
 
+  public MongoDbReplConfigBuilder setSubBatchHeuristicConfig(
+      SubBatchHeuristicConfig subBatchHeuristicConfig) {
+    this.subBatchHeuristicConfig = subBatchHeuristicConfig;
+    return this;
+  }
+
+  public MongoDbReplConfigBuilder setOplogPrefetchConfig(
+      OplogPrefetchConfig oplogPrefetchConfig) {
+    this.oplogPrefetchConfig = oplogPrefetchConfig;
+    return this;
+  }
+
   public MongoDbReplConfig build() {
     Preconditions.checkNotNull(coreBundle, "core bundle must be not null");
     Preconditions.checkNotNull(mongoClientConfiguration, "mongo client configuration must be not "
@@ -89,9 +105,13 @@ public class MongoDbReplConfigBuilder {
     Preconditions.checkNotNull(generalConfig, "general config must be not null");
     Preconditions.checkNotNull(metricRegistry, "metric registry must be not null");
     Preconditions.checkNotNull(loggerFactory, "logger factory must be not null");
+    Preconditions.checkNotNull(subBatchHeuristicConfig, "sub batch heuristic config must be not "
+        + "null");
+    Preconditions.checkNotNull(oplogPrefetchConfig, "oplog prefetch config must be not null");
 
     return new MongoDbReplConfig(coreBundle, mongoClientConfiguration, replicationFilters,
-        replSetName, consistencyHandler, metricRegistry, loggerFactory, generalConfig);
+        replSetName, consistencyHandler, metricRegistry, loggerFactory, subBatchHeuristicConfig,
+        oplogPrefetchConfig, generalConfig);
   }
 
 }
@@ -34,6 +34,8 @@ import com.torodb.mongodb.core.MongodServer;
 import com.torodb.mongodb.filters.IndexFilter;
 import com.torodb.mongodb.filters.NamespaceFilter;
 import com.torodb.mongodb.language.Namespace;
+import com.torodb.mongodb.repl.InitialSyncCheckpointManager.CheckpointPersistException;
+import com.torodb.mongodb.repl.InitialSyncCheckpointManager.SyncStart;
 import com.torodb.mongodb.repl.OplogManager.OplogManagerPersistException;
 import com.torodb.mongodb.repl.OplogManager.ReadOplogTransaction;
 import com.torodb.mongodb.repl.OplogManager.WriteOplogTransaction;
@@ -67,13 +69,18 @@ import com.torodb.torod.TorodConnection;
 import com.torodb.torod.TorodServer;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ThreadFactory;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 public class RecoveryService extends RunnableTorodbService {
@@ -90,6 +97,7 @@ public class RecoveryService extends RunnableTorodbService {
   private final OplogApplier oplogApplier;
   private final NamespaceFilter namespaceFilter;
   private final IndexFilter indexFilter;
+  private final InitialSyncCheckpointManager checkpointManager;
 
   @Inject
   public RecoveryService(
@@ -104,6 +112,7 @@ public class RecoveryService extends RunnableTorodbService {
       OplogApplier oplogApplier,
       NamespaceFilter namespaceFilter,
       IndexFilter indexFilter,
+      InitialSyncCheckpointManager checkpointManager,
       LoggerFactory lf) {
     super(callback, threadFactory);
     this.logger = lf.apply(this.getClass());
@@ -117,6 +126,7 @@ public class RecoveryService extends RunnableTorodbService {
     this.oplogApplier = oplogApplier;
     this.namespaceFilter = namespaceFilter;
     this.indexFilter = indexFilter;
+    this.checkpointManager = checkpointManager;
   }
 
   @Override
@@ -200,19 +210,29 @@ public class RecoveryService extends RunnableTorodbService {
 
       try (OplogReader reader = oplogReaderProvider.newReader(remoteConnection)) {
 
-        OplogOperation lastClonedOp = reader.getLastOp();
-        OpTime lastRemoteOptime1 = lastClonedOp.getOpTime();
+        SyncStart syncStart = loadResumableSyncStart(reader);
+        boolean resuming = syncStart != null;
+        if (!resuming) {
+          OplogOperation lastClonedOp = reader.getLastOp();
+          syncStart = new SyncStart(lastClonedOp.getHash(), lastClonedOp.getOpTime());
+        }
+        OpTime lastRemoteOptime1 = syncStart.getOpTime();
 
         try (WriteOplogTransaction oplogTransaction = oplogManager.createWriteTransaction()) {
           logger.info("Remote database cloning started");
           oplogTransaction.truncate();
-          logger.info("Local databases dropping started");
-          Status<?> status = dropDatabases();
-          if (!status.isOk()) {
-            throw new TryAgainException("Error while trying to drop collections: "
-                + status);
+          if (resuming) {
+            logger.info("Resuming the initial sync that started at {}", lastRemoteOptime1);
+          } else {
+            logger.info("Local databases dropping started");
+            Status<?> status = dropDatabases();
+            if (!status.isOk()) {
+              throw new TryAgainException("Error while trying to drop collections: "
+                  + status);
+            }
+            logger.info("Local databases dropping finished");
+            checkpointManager.start(syncStart.getHash(), lastRemoteOptime1);
           }
-          logger.info("Local databases dropping finished");
           if (!isRunning()) {
             logger.warn("Recovery stopped before it can finish");
             return false;
@@ -221,7 +241,7 @@ public class RecoveryService extends RunnableTorodbService {
           cloneDatabases(remoteClient);
           logger.info("Remote database cloning finished");
 
-          oplogTransaction.forceNewValue(lastClonedOp.getHash(), lastClonedOp.getOpTime());
+          oplogTransaction.forceNewValue(syncStart.getHash(), syncStart.getOpTime());
         }
 
         if (!isRunning()) {
@@ -267,6 +287,7 @@ public class RecoveryService extends RunnableTorodbService {
 
           trans.commit();
         }
+        checkpointManager.clear();
       } catch (OplogStartMissingException ex) {
         throw new TryAgainException(ex);
       } catch (OplogOperationUnsupported ex) {
@@ -275,6 +296,8 @@ public class RecoveryService extends RunnableTorodbService {
         throw new TryAgainException(ex);
       } catch (OplogManagerPersistException ex) {
         throw new FatalErrorException();
+      } catch (CheckpointPersistException ex) {
+        throw new FatalErrorException(ex);
       } catch (UserException ex) {
         throw new FatalErrorException(ex);
       }
@@ -288,6 +311,32 @@ public class RecoveryService extends RunnableTorodbService {
     return true;
   }
 
+  /**
+   * Returns the start of the interrupted initial sync that can be resumed, or null if there is no
+   * initial sync to resume or the sync source no longer contains the oplog operations that would
+   * be needed to resume it.
+   */
+  @Nullable
+  private SyncStart loadResumableSyncStart(OplogReader reader) throws CheckpointPersistException,
+      OplogStartMissingException, OplogOperationUnsupported, MongoException {
+    Optional<SyncStart> syncStart = checkpointManager.load();
+    if (!syncStart.isPresent()) {
+      return null;
+    }
+    if (server.getTorodServer().isImportedDataLossPossible()) {
+      logger.info("The initial sync that started at {} cannot be resumed because the data cloned "
+          + "on data import mode could have been lost", syncStart.get().getOpTime());
+      return null;
+    }
+    OpTime firstRemoteOpTime = reader.getFirstOp().getOpTime();
+    if (firstRemoteOpTime.compareTo(syncStart.get().getOpTime()) > 0) {
+      logger.info("The initial sync that started at {} cannot be resumed because the oldest "
+          + "operation on the sync source is {}", syncStart.get().getOpTime(), firstRemoteOpTime);
+      return null;
+    }
+    return syncStart.get();
+  }
+
   private void enableDataImportMode(String db) {
     logger.trace("Starting data import mode on {}", db);
     server.getTorodServer().enableDataImportMode(db).join();
@@ -329,12 +378,31 @@ public class RecoveryService extends RunnableTorodbService {
   }
 
   private void cloneDatabases(@Nonnull MongoClient remoteClient) throws CloningException,
-      MongoException, UserException {
+      MongoException, UserException, CheckpointPersistException {
 
+    Map<String, CloneOptions> dbsToClone = new LinkedHashMap<>();
     streamRemoteDatabases(remoteClient)
         .map(ListDatabasesReply.DatabaseEntry::getName)
         .filter(this::isReplicable)
-        .forEach(databaseName -> cloneDatabase(databaseName, remoteClient));
+        .forEach(databaseName -> dbsToClone.put(databaseName, createCloneOptions(databaseName)));
+
+    if (!server.getTorodServer().isDataImportModeDurable()) {
+      //the backend can lose the imported data without reporting it (for instance, if it restarts
+      //meanwhile), so the data cloned by this initial sync cannot be trusted by the next one
+      checkpointManager.markNonDurable();
+    }
+    List<String> dbsOnImportMode = new ArrayList<>(dbsToClone.size());
+    try {
+      for (String databaseName : dbsToClone.keySet()) {
+        enableDataImportMode(databaseName);
+        dbsOnImportMode.add(databaseName);
+      }
+      cloner.cloneDatabases(dbsToClone, remoteClient, server);
+    } catch (MongoException ex) {
+      throw new CloningException(ex);
+    } finally {
+      dbsOnImportMode.forEach(this::disableDataImportMode);
+    }
   }
 
   private Stream<ListDatabasesReply.DatabaseEntry> streamRemoteDatabases(MongoClient remoteClient)
@@ -356,11 +424,11 @@ public class RecoveryService extends RunnableTorodbService {
     }
   }
 
-  private void cloneDatabase(String databaseName, MongoClient remoteClient) {
+  private CloneOptions createCloneOptions(String databaseName) {
     MyWritePermissionSupplier writePermissionSupplier =
         new MyWritePermissionSupplier(databaseName);
 
-    CloneOptions options = new CloneOptions(
+    return new CloneOptions(
         true,
         true,
         true,
@@ -369,17 +437,9 @@ public class RecoveryService extends RunnableTorodbService {
         Collections.<String>emptySet(),
         writePermissionSupplier,
         (colName) -> namespaceFilter.filter(new Namespace(databaseName, colName)),
-        indexFilter
+        indexFilter,
+        checkpointManager
     );
-
-    try {
-      enableDataImportMode(databaseName);
-      cloner.cloneDatabase(databaseName, remoteClient, server, options);
-    } catch (MongoException ex) {
-      throw new CloningException(ex);
-    } finally {
-      disableDataImportMode(databaseName);
-    }
   }
 
   /**
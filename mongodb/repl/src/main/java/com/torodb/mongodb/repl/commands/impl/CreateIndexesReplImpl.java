@@ -19,7 +19,6 @@
 package com.torodb.mongodb.repl.commands.impl;
 
 import com.google.common.collect.ImmutableList;
-import com.torodb.core.exceptions.user.UnsupportedCompoundIndexException;
 import com.torodb.core.exceptions.user.UnsupportedUniqueIndexException;
 import com.torodb.core.exceptions.user.UserException;
 import com.torodb.core.language.AttributeReference;
@@ -163,11 +162,6 @@ public class CreateIndexesReplImpl
               fields, indexOptions.isUnique())) {
             indexesAfter++;
           }
-        } catch (UnsupportedCompoundIndexException ex) {
-          String note =
-              "Compound indexes are not supported. Skipping index.";
-          logger.info(note);
-          continue;
         } catch (UnsupportedUniqueIndexException ex) {
           String note =
               "Unique index with keys on distinct subdocuments is not supported. Skipping index.";
@@ -70,6 +70,9 @@ public class AkkaDbClonerProvider implements Provider<AkkaDbCloner> {
         concurrentToolsFactory,
         Math.max(1, parallelLevel - 1),
         parallelLevel * docsPerTransaction,
+        parallelLevel,
+        Math.max(1, parallelLevel - 1),
+        Math.max(1, parallelLevel / 2),
         commitHeuristic,
         clock,
         retrier,
@@ -21,6 +21,7 @@ package com.torodb.mongodb.repl.guice;
 import com.google.inject.Key;
 import com.google.inject.PrivateModule;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
+import com.torodb.mongodb.repl.InitialSyncCheckpointManager;
 import com.torodb.mongodb.repl.RecoveryService;
 import com.torodb.mongodb.repl.ReplCoordinator;
 import com.torodb.mongodb.repl.ReplCoordinatorStateMachine;
@@ -40,6 +41,8 @@ public class MongoDbReplModule extends PrivateModule {
         .in(Singleton.class);
     bind(ReplCoordinatorStateMachine.class)
         .in(Singleton.class);
+    bind(InitialSyncCheckpointManager.class)
+        .in(Singleton.class);
 
     install(new FactoryModuleBuilder()
         .implement(RecoveryService.class, RecoveryService.class)
@@ -28,6 +28,7 @@ import com.torodb.mongodb.repl.ReplMetrics;
 import com.torodb.mongodb.repl.SyncSourceProvider;
 import com.torodb.mongodb.repl.oplogreplier.OplogApplier;
 import com.torodb.mongodb.repl.oplogreplier.fetcher.ContinuousOplogFetcher;
+import com.torodb.mongodb.repl.oplogreplier.fetcher.OplogPrefetchConfig;
 
 
 public class OplogApplierServiceModule extends PrivateModule {
@@ -41,6 +42,7 @@ public class OplogApplierServiceModule extends PrivateModule {
     requireBinding(ReplMetrics.class);
     requireBinding(OplogReaderProvider.class);
     requireBinding(OplogApplier.class);
+    requireBinding(OplogPrefetchConfig.class);
 
     install(new FactoryModuleBuilder()
         //To use the old applier that emulates MongoDB
@@ -40,6 +40,10 @@ import com.torodb.core.Shutdowner;
 import com.torodb.core.concurrent.ConcurrentToolsFactory;
 import com.torodb.core.concurrent.akka.BatchFlow;
 import com.torodb.core.logging.LoggerFactory;
+import com.torodb.mongodb.core.MongodServer;
+import com.torodb.mongodb.core.MongodStatusCounters;
+import com.torodb.mongodb.core.MongodStatusCounters.OpCounters;
+import com.torodb.mongodb.core.MongodStatusCounters.OpType;
 import com.torodb.mongodb.repl.OplogManager;
 import com.torodb.mongodb.repl.OplogManager.OplogManagerPersistException;
 import com.torodb.mongodb.repl.OplogManager.WriteOplogTransaction;
@@ -81,12 +85,14 @@ public class DefaultOplogApplier implements OplogApplier {
   private final OplogApplierMetrics metrics;
   private final OplogBatchFilter batchFilter;
   private final OplogBatchChecker batchChecker;
+  private final MongodStatusCounters statusCounters;
 
   @Inject
   public DefaultOplogApplier(BatchLimits batchLimits, OplogManager oplogManager,
       AnalyzedOplogBatchExecutor batchExecutor, BatchAnalyzerFactory batchAnalyzerFactory,
       ConcurrentToolsFactory concurrentToolsFactory, Shutdowner shutdowner, LoggerFactory lf,
-      OplogApplierMetrics metrics, OplogBatchFilter batchFilter, OplogBatchChecker batchChecker) {
+      OplogApplierMetrics metrics, OplogBatchFilter batchFilter, OplogBatchChecker batchChecker,
+      MongodServer mongodServer) {
     this.logger = lf.apply(this.getClass());
     this.batchExecutor = batchExecutor;
     this.batchLimits = batchLimits;
@@ -101,6 +107,7 @@ public class DefaultOplogApplier implements OplogApplier {
     this.metrics = metrics;
     this.batchFilter = batchFilter;
     this.batchChecker = batchChecker;
+    this.statusCounters = mongodServer.getStatusCounters();
     shutdowner.addCloseShutdownListener(this);
   }
 
@@ -247,10 +254,37 @@ public class DefaultOplogApplier implements OplogApplier {
     metrics.getApplied().mark(rawBatchSize);
 
     metricOpsExecutionDelay(rawBatchSize, batchExecutionMillis);
+    countAppliedOps(streamElement.rawBatch.getOps(), batchExecutionMillis);
 
     return streamElement;
   }
 
+  private void countAppliedOps(List<OplogOperation> ops, long batchExecutionMillis) {
+    statusCounters.getAppliedBatches().increment();
+    statusCounters.getAppliedBatchesMillis().add(Math.max(0, batchExecutionMillis));
+    statusCounters.getAppliedOps().add(ops.size());
+
+    OpCounters replOpCounters = statusCounters.getReplOpCounters();
+    for (OplogOperation op : ops) {
+      switch (op.getType()) {
+        case INSERT:
+          replOpCounters.increment(OpType.INSERT);
+          break;
+        case UPDATE:
+          replOpCounters.increment(OpType.UPDATE);
+          break;
+        case DELETE:
+          replOpCounters.increment(OpType.DELETE);
+          break;
+        case DB_CMD:
+          replOpCounters.increment(OpType.COMMAND);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
   private void metricOpsExecutionDelay(int rawBatchSize, long batchExecutionMillis) {
     if (rawBatchSize < 1) {
       return;
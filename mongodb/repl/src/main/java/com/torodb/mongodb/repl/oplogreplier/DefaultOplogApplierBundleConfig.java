@@ -26,6 +26,7 @@ import com.torodb.mongodb.repl.ReplCoreBundle;
 import com.torodb.mongodb.repl.commands.ReplCommandExecutor;
 import com.torodb.mongodb.repl.commands.ReplCommandLibrary;
 import com.torodb.mongodb.repl.guice.ReplEssentialOverrideModule;
+import com.torodb.mongodb.repl.oplogreplier.batch.SubBatchHeuristicConfig;
 
 public class DefaultOplogApplierBundleConfig implements BundleConfig {
 
@@ -34,17 +35,27 @@ public class DefaultOplogApplierBundleConfig implements BundleConfig {
   private final ReplCommandLibrary replCommandsLibrary;
   private final ReplCommandExecutor replCommandsExecutor;
   private final ReplEssentialOverrideModule essentialOverrideModule;
+  private final SubBatchHeuristicConfig subBatchHeuristicConfig;
   private final BundleConfig delegate;
 
   public DefaultOplogApplierBundleConfig(ReplCoreBundle replCoreBundle,
       MongoDbCoreBundle mongoDbCorebundle, ReplCommandLibrary replCommandsLibrary,
       ReplCommandExecutor replCommandsExecutor, ReplEssentialOverrideModule essentialOverrideModule,
       BundleConfig delegate) {
+    this(replCoreBundle, mongoDbCorebundle, replCommandsLibrary, replCommandsExecutor,
+        essentialOverrideModule, SubBatchHeuristicConfig.adaptive(), delegate);
+  }
+
+  public DefaultOplogApplierBundleConfig(ReplCoreBundle replCoreBundle,
+      MongoDbCoreBundle mongoDbCorebundle, ReplCommandLibrary replCommandsLibrary,
+      ReplCommandExecutor replCommandsExecutor, ReplEssentialOverrideModule essentialOverrideModule,
+      SubBatchHeuristicConfig subBatchHeuristicConfig, BundleConfig delegate) {
     this.replCoreBundle = replCoreBundle;
     this.mongoDbCorebundle = mongoDbCorebundle;
     this.replCommandsLibrary = replCommandsLibrary;
     this.replCommandsExecutor = replCommandsExecutor;
     this.essentialOverrideModule = essentialOverrideModule;
+    this.subBatchHeuristicConfig = subBatchHeuristicConfig;
     this.delegate = delegate;
   }
 
@@ -68,6 +79,10 @@ public class DefaultOplogApplierBundleConfig implements BundleConfig {
     return essentialOverrideModule;
   }
 
+  public SubBatchHeuristicConfig getSubBatchHeuristicConfig() {
+    return subBatchHeuristicConfig;
+  }
+
   @Override
   public Injector getEssentialInjector() {
     return delegate.getEssentialInjector();
@@ -76,7 +76,7 @@ public class DefaultOplogApplierGuiceModule extends PrivateModule {
         .to(ConcurrentOplogBatchExecutor.ConcurrentOplogBatchExecutorMetrics.class);
 
     bind(ConcurrentOplogBatchExecutor.SubBatchHeuristic.class)
-        .toInstance((metrics) -> 100);
+        .toInstance(config.getSubBatchHeuristicConfig().createHeuristic());
 
     bind(AnalyzedOpReducer.class)
         .toInstance(new AnalyzedOpReducer(false));
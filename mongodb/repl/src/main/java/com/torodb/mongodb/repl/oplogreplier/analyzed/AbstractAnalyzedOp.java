@@ -97,21 +97,25 @@ public abstract class AbstractAnalyzedOp extends AnalyzedOp {
     //This is more a warning than an upsertion. Remove if want to do fancy things
     assert UpdateActionsTool.isSetModification(op);
 
-    //A simple assertion to fail before the callback is called when an illegal update is recived
-    assert UpdateActionsTool.applyAsUpsert(op) != null;
+    //The new document does not depend on the fetched one, so it is calculated only once. This
+    //also fails before the callback is called when an illegal update is recived
+    KvDocument newDoc = UpdateActionsTool.applyAsUpsert(op);
+    assert newDoc != null;
 
-    return (ignored) -> UpdateActionsTool.applyAsUpsert(op);
+    return (ignored) -> newDoc;
   }
 
+  /**
+   * Returns a function that applies the modification of the given operation on the document
+   * calculated by this operation.
+   *
+   * <p>Consecutive modifications on the same document are merged into a single
+   * {@link ModificationChain}, so the document is built once no matter how many modifications
+   * were found on the batch.
+   */
   protected final Function<KvDocument, KvDocument> createUpdateMergeChain(UpdateOplogOperation op) {
-    //A simple assertion to fail before the callback is called when an illegal update is recived
-    assert UpdateActionsTool.parseUpdateAction(op) != null;
-
     assert calculateFun != null;
 
-    return (fetch) -> UpdateActionsTool.applyModification(
-        calculateFun.apply(fetch),
-        UpdateActionsTool.parseUpdateAction(op)
-    );
+    return ModificationChain.andThen(calculateFun, UpdateActionsTool.parseUpdateAction(op));
   }
 }
@@ -21,6 +21,7 @@ package com.torodb.mongodb.repl.oplogreplier.analyzed;
 import static com.torodb.mongowp.commands.oplog.OplogOperationType.INSERT;
 import static com.torodb.mongowp.commands.oplog.OplogOperationType.UPDATE;
 
+import com.torodb.core.language.AttributeReference;
 import com.torodb.kvdocument.values.KvDocument;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.mongodb.repl.oplogreplier.ApplierContext;
@@ -30,6 +31,8 @@ import com.torodb.mongowp.commands.oplog.DeleteOplogOperation;
 import com.torodb.mongowp.commands.oplog.InsertOplogOperation;
 import com.torodb.mongowp.commands.oplog.UpdateOplogOperation;
 
+import java.util.Collection;
+import java.util.Optional;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -53,6 +56,18 @@ public abstract class AnalyzedOp {
   public abstract KvDocument calculateDocToInsert(
       @Nullable Function<AnalyzedOp, KvDocument> fetchedDocFun);
 
+  /**
+   * Returns the attributes of the fetched document that this operation can modify when it only
+   * modifies some attributes of it, or an empty optional otherwise.
+   *
+   * <p>When it is present, the document returned by {@link #calculateDocToInsert(Function)} can be
+   * stored by updating these attributes instead of deleting the fetched document and inserting
+   * the new one.
+   */
+  public Optional<Collection<AttributeReference>> getModifiedAttributes() {
+    return Optional.empty();
+  }
+
   final AnalyzedOp apply(CollectionOplogOperation colOp, ApplierContext context) {
     switch (colOp.getType()) {
       case INSERT:
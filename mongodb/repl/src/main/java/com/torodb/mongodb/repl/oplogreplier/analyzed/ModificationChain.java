@@ -0,0 +1,104 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.torodb.mongodb.repl.oplogreplier.analyzed;
+
+import com.torodb.core.language.AttributeReference;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.mongodb.language.update.ModifiedAttributesVisitor;
+import com.torodb.mongodb.language.update.UpdateAction;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * A function that applies a chain of update actions on the document returned by a base function.
+ *
+ * <p>Each action is parsed once, when it is added to the chain, and all of them are applied on
+ * the same document builder, so a document that is modified several times on the same batch is
+ * only built once. Chains are immutable and extending one takes constant time.
+ */
+final class ModificationChain implements Function<KvDocument, KvDocument> {
+
+  private final Function<KvDocument, KvDocument> base;
+  @Nullable
+  private final ModificationChain previous;
+  private final UpdateAction action;
+  private final int length;
+
+  private ModificationChain(Function<KvDocument, KvDocument> base,
+      @Nullable ModificationChain previous, UpdateAction action) {
+    this.base = base;
+    this.previous = previous;
+    this.action = action;
+    this.length = previous == null ? 1 : previous.length + 1;
+  }
+
+  /**
+   * Returns a function that applies the given action on the result of the given function.
+   */
+  static ModificationChain andThen(Function<KvDocument, KvDocument> fun, UpdateAction action) {
+    if (fun instanceof ModificationChain) {
+      ModificationChain chain = (ModificationChain) fun;
+      return new ModificationChain(chain.base, chain, action);
+    }
+    return new ModificationChain(fun, null, action);
+  }
+
+  /**
+   * Returns the number of update actions on this chain.
+   */
+  int getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the attributes that the actions on this chain can modify or an empty optional if they
+   * can modify any attribute.
+   *
+   * @see ModifiedAttributesVisitor
+   */
+  Optional<Collection<AttributeReference>> getModifiedAttributes() {
+    Set<AttributeReference> result = new LinkedHashSet<>();
+    for (ModificationChain node = this; node != null; node = node.previous) {
+      Optional<Collection<AttributeReference>> nodeResult =
+          ModifiedAttributesVisitor.getModifiedAttributes(node.action);
+      if (!nodeResult.isPresent()) {
+        return Optional.empty();
+      }
+      result.addAll(nodeResult.get());
+    }
+    return Optional.of(result);
+  }
+
+  @Override
+  public KvDocument apply(KvDocument fetched) {
+    Deque<UpdateAction> actions = new ArrayDeque<>(length);
+    for (ModificationChain node = this; node != null; node = node.previous) {
+      actions.addFirst(node.action);
+    }
+    return UpdateActionsTool.applyModifications(base.apply(fetched), actions);
+  }
+
+}
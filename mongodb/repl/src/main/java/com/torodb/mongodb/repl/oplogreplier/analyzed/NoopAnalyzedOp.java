@@ -21,7 +21,6 @@ package com.torodb.mongodb.repl.oplogreplier.analyzed;
 import com.torodb.kvdocument.values.KvDocument;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.kvdocument.values.heap.MapKvDocument;
-import com.torodb.mongodb.language.update.UpdateAction;
 import com.torodb.mongodb.utils.DefaultIdUtils;
 import com.torodb.mongowp.commands.oplog.DeleteOplogOperation;
 import com.torodb.mongowp.commands.oplog.UpdateOplogOperation;
@@ -45,15 +44,7 @@ public class NoopAnalyzedOp extends AbstractAnalyzedOp {
 
   @Override
   public AnalyzedOp andThenUpdateMod(UpdateOplogOperation op) {
-    //A simple assertion to fail before the callback is called when an illegal update is recived
-    assert UpdateActionsTool.parseUpdateAction(op) != null;
-
-    Function<KvDocument, KvDocument> calculateFun = (fetched) -> {
-      UpdateAction updateAction = UpdateActionsTool.parseUpdateAction(op);
-      return UpdateActionsTool.applyModification(fetched, updateAction);
-    };
-
-    return new UpdateModAnalyzedOp(getMongoDocId(), calculateFun);
+    return new UpdateModAnalyzedOp(getMongoDocId(), createUpdateMergeChain(op));
   }
 
   @Override
@@ -63,21 +54,17 @@ public class NoopAnalyzedOp extends AbstractAnalyzedOp {
 
   @Override
   public AnalyzedOp andThenUpsertMod(UpdateOplogOperation op) {
-    //A simple assertion to fail before the callback is called when an illegal update is recived
-    assert UpdateActionsTool.parseUpdateAction(op) != null;
-
-    Function<KvDocument, KvDocument> calculateFun = (fetched) -> {
-      KvDocument newFetched = fetched;
-      if (newFetched == null) {
-        LinkedHashMap<String, KvValue<?>> map = new LinkedHashMap<>(1);
-        map.put(DefaultIdUtils.ID_KEY, getMongoDocId());
-        newFetched = new MapKvDocument(map);
+    Function<KvDocument, KvDocument> fetchedOrEmpty = (fetched) -> {
+      if (fetched != null) {
+        return fetched;
       }
-      UpdateAction updateAction = UpdateActionsTool.parseUpdateAction(op);
-      return UpdateActionsTool.applyModification(newFetched, updateAction);
+      LinkedHashMap<String, KvValue<?>> map = new LinkedHashMap<>(1);
+      map.put(DefaultIdUtils.ID_KEY, getMongoDocId());
+      return new MapKvDocument(map);
     };
 
-    return new UpsertModAnalyzedOp(getMongoDocId(), calculateFun);
+    return new UpsertModAnalyzedOp(getMongoDocId(), ModificationChain.andThen(fetchedOrEmpty,
+        UpdateActionsTool.parseUpdateAction(op)));
   }
 
   @Override
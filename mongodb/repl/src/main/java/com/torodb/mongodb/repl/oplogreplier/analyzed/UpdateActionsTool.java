@@ -40,6 +40,8 @@ import com.torodb.mongodb.language.update.UpdatedToroDocumentBuilder;
 import com.torodb.mongodb.utils.DefaultIdUtils;
 import com.torodb.mongowp.commands.oplog.UpdateOplogOperation;
 
+import java.util.Collections;
+
 import javax.inject.Singleton;
 
 @Singleton
@@ -72,9 +74,19 @@ public class UpdateActionsTool {
   }
 
   public static KvDocument applyModification(KvDocument doc, UpdateAction modification) {
+    return applyModifications(doc, Collections.singleton(modification));
+  }
+
+  /**
+   * Applies the given modifications in order on the given document, building the result once.
+   */
+  public static KvDocument applyModifications(KvDocument doc,
+      Iterable<UpdateAction> modifications) {
     UpdatedToroDocumentBuilder docBuilder = UpdatedToroDocumentBuilder.from(doc);
     try {
-      modification.apply(docBuilder);
+      for (UpdateAction modification : modifications) {
+        modification.apply(docBuilder);
+      }
     } catch (UpdateException ex) {
       throw new ToroRuntimeException("Unexpected error while analyzing a update oplog operation",
           ex);
@@ -18,11 +18,14 @@
 
 package com.torodb.mongodb.repl.oplogreplier.analyzed;
 
+import com.torodb.core.language.AttributeReference;
 import com.torodb.kvdocument.values.KvDocument;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.mongowp.commands.oplog.DeleteOplogOperation;
 import com.torodb.mongowp.commands.oplog.UpdateOplogOperation;
 
+import java.util.Collection;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
@@ -30,8 +33,20 @@ import java.util.function.Function;
  */
 public class UpdateModAnalyzedOp extends AbstractAnalyzedOp {
 
+  private final Optional<Collection<AttributeReference>> modifiedAttributes;
+
   public UpdateModAnalyzedOp(KvValue<?> mongoDocId, Function<KvDocument, KvDocument> calculateFun) {
     super(mongoDocId, AnalyzedOpType.UPDATE_MOD, calculateFun);
+    if (calculateFun instanceof ModificationChain) {
+      this.modifiedAttributes = ((ModificationChain) calculateFun).getModifiedAttributes();
+    } else {
+      this.modifiedAttributes = Optional.empty();
+    }
+  }
+
+  @Override
+  public Optional<Collection<AttributeReference>> getModifiedAttributes() {
+    return modifiedAttributes;
   }
 
   @Override
@@ -0,0 +1,144 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.mongodb.repl.oplogreplier.batch;
+
+import com.google.common.base.Preconditions;
+import com.torodb.mongodb.repl.oplogreplier.batch.ConcurrentOplogBatchExecutor.ConcurrentOplogBatchExecutorMetrics;
+import com.torodb.mongodb.repl.oplogreplier.batch.ConcurrentOplogBatchExecutor.SubBatchHeuristic;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link SubBatchHeuristic} that tunes the sub batch size to apply each sub batch in a target
+ * latency.
+ *
+ * <p>The cost of applying an op and the cost of committing a sub batch are estimated with an
+ * exponentially weighted moving average of the observed sub batches. The size is the number of ops
+ * that can be applied in the target latency once the commit cost is discounted. When the commit
+ * cost is higher than the target, the max size is used to amortize it. The size is also limited
+ * to keep at least one sub batch per thread, so small batches are executed in parallel.
+ *
+ * <p>The depth of the executor queue (the sub batches that wait for a thread) is also averaged.
+ * When sub batches queue, threads are the bottleneck and each extra sub batch adds a commit to
+ * the batch latency, so the target latency is stretched proportionally to the sub batches queued
+ * per thread (up to four times) to create less and bigger sub batches.
+ */
+@ThreadSafe
+public class AdaptiveSubBatchHeuristic implements SubBatchHeuristic {
+
+  private static final double SMOOTHING_FACTOR = 0.2;
+  private static final double MAX_TARGET_STRETCH = 4;
+
+  private final long targetLatencyNanos;
+  private final int minSize;
+  private final int maxSize;
+  private final int initialSize;
+  private double opNanos = Double.NaN;
+  private double commitNanos = Double.NaN;
+  private double queueDepth = Double.NaN;
+
+  public AdaptiveSubBatchHeuristic(Duration targetLatency, int minSize, int maxSize,
+      int initialSize) {
+    Preconditions.checkArgument(!targetLatency.isNegative() && !targetLatency.isZero(),
+        "The target latency must be positive, but %s was recived", targetLatency);
+    Preconditions.checkArgument(minSize > 0, "The min size must be positive, but %s was recived",
+        minSize);
+    Preconditions.checkArgument(minSize <= maxSize, "The min size (%s) must be lower or equal "
+        + "than the max size (%s)", minSize, maxSize);
+    Preconditions.checkArgument(minSize <= initialSize && initialSize <= maxSize, "The initial "
+        + "size (%s) must be between %s and %s", initialSize, minSize, maxSize);
+    this.targetLatencyNanos = targetLatency.toNanos();
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.initialSize = initialSize;
+  }
+
+  @Override
+  public int getSubBatchSize(ConcurrentOplogBatchExecutorMetrics metrics) {
+    return getSubBatchSize(metrics, Integer.MAX_VALUE, 1);
+  }
+
+  @Override
+  public int getSubBatchSize(ConcurrentOplogBatchExecutorMetrics metrics, int batchOps,
+      int parallelism) {
+    double currentOpNanos;
+    double currentCommitNanos;
+    double currentQueueDepth;
+    synchronized (this) {
+      currentOpNanos = opNanos;
+      currentCommitNanos = commitNanos;
+      currentQueueDepth = queueDepth;
+    }
+
+    long size;
+    if (Double.isNaN(currentOpNanos)) {
+      size = initialSize;
+    } else {
+      metrics.getEstimatedOpCost().setValue(toMicros(currentOpNanos));
+      metrics.getEstimatedCommitCost().setValue(toMicros(currentCommitNanos));
+
+      double targetNanos = targetLatencyNanos;
+      if (!Double.isNaN(currentQueueDepth)) {
+        metrics.getEstimatedQueueDepth().setValue(currentQueueDepth);
+        double queuedPerThread = currentQueueDepth / Math.max(parallelism, 1);
+        targetNanos *= Math.min(MAX_TARGET_STRETCH, 1 + queuedPerThread);
+      }
+      double budgetNanos = targetNanos - currentCommitNanos;
+      if (budgetNanos <= 0) {
+        size = maxSize;
+      } else {
+        size = (long) (budgetNanos / Math.max(currentOpNanos, 1));
+      }
+    }
+    if (parallelism > 1 && batchOps > 0) {
+      size = Math.min(size, (batchOps + parallelism - 1) / parallelism);
+    }
+    return (int) Math.max(minSize, Math.min(maxSize, size));
+  }
+
+  @Override
+  public synchronized void onSubBatchApplied(int ops, long applyNanos, long commitNanos) {
+    if (ops <= 0) {
+      return;
+    }
+    this.opNanos = smooth(this.opNanos, (double) applyNanos / ops);
+    this.commitNanos = smooth(this.commitNanos, commitNanos);
+  }
+
+  @Override
+  public synchronized void onSubBatchStarted(int queuedSubBatches) {
+    this.queueDepth = smooth(this.queueDepth, queuedSubBatches);
+  }
+
+  private static double smooth(double estimation, double sample) {
+    if (Double.isNaN(estimation)) {
+      return sample;
+    }
+    return estimation + SMOOTHING_FACTOR * (sample - estimation);
+  }
+
+  private static long toMicros(double nanos) {
+    return TimeUnit.NANOSECONDS.toMicros((long) nanos);
+  }
+
+}
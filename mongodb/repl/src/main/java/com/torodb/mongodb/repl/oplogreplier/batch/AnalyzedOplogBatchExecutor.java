@@ -19,6 +19,7 @@
 package com.torodb.mongodb.repl.oplogreplier.batch;
 
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.google.common.util.concurrent.Service;
 import com.torodb.core.exceptions.user.UserException;
@@ -59,15 +60,24 @@ public interface AnalyzedOplogBatchExecutor extends Service,
     private final ConcurrentMap<String, Timer> singleOpTimers = new ConcurrentHashMap<>();
     private final ToroMetricRegistry registry;
     private final Histogram cudBatchSize;
+    private final Histogram cudReducedBatchSize;
+    private final Meter cudReducedOps;
     private final Timer cudBatchTimer;
     private final Timer namespaceBatchTimer;
+    private final Timer namespaceOpTimer;
+    private final Timer namespaceCommitTimer;
 
     @Inject
     public AnalyzedOplogBatchExecutorMetrics(ToroMetricRegistry parentRegistry) {
       this.registry = parentRegistry.createSubRegistry("OplogBatchExecutor");
       this.cudBatchSize = registry.histogram("batchSize");
+      this.cudReducedBatchSize = registry.histogram("reducedBatchSize");
+      this.cudReducedOps = registry.meter("reducedOps");
+      registry.gauge("reducedOpsUnit").setValue("ops");
       this.cudBatchTimer = registry.timer("cudTimer");
       this.namespaceBatchTimer = registry.timer("namespaceTimer");
+      this.namespaceOpTimer = registry.timer("namespaceOpTimer");
+      this.namespaceCommitTimer = registry.timer("namespaceCommitTimer");
     }
 
     protected ToroMetricRegistry getRegistry() {
@@ -90,6 +100,23 @@ public interface AnalyzedOplogBatchExecutor extends Service,
       return cudBatchSize;
     }
 
+    /**
+     * Returns the histogram that stores the number of analyzed ops each
+     * {@link CudAnalyzedOplogBatch} is reduced to, which can be compared with
+     * {@link #getCudBatchSize()}.
+     */
+    public Histogram getCudReducedBatchSize() {
+      return cudReducedBatchSize;
+    }
+
+    /**
+     * Returns the meter that marks the oplog operations that did not have to be applied because
+     * they were merged with other operations on the same document.
+     */
+    public Meter getCudReducedOps() {
+      return cudReducedOps;
+    }
+
     public Timer getCudBatchTimer() {
       return cudBatchTimer;
     }
@@ -98,6 +125,21 @@ public interface AnalyzedOplogBatchExecutor extends Service,
       return namespaceBatchTimer;
     }
 
+    /**
+     * Returns the timer that measures the average time used to apply each operation of a
+     * {@link NamespaceJob}, excluding the time used to commit it.
+     */
+    public Timer getNamespaceOpTimer() {
+      return namespaceOpTimer;
+    }
+
+    /**
+     * Returns the timer that measures the time used to commit each {@link NamespaceJob}.
+     */
+    public Timer getNamespaceCommitTimer() {
+      return namespaceCommitTimer;
+    }
+
     @Nonnull
     private String getMapKey(OplogOperation oplogOp) {
       if (oplogOp instanceof DbCmdOplogOperation) {
@@ -0,0 +1,115 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.mongodb.repl.oplogreplier.batch;
+
+import com.google.common.collect.ImmutableSet;
+import com.torodb.mongodb.language.Namespace;
+import com.torodb.mongodb.utils.NamespaceUtil;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.commands.oplog.CollectionOplogOperation;
+import com.torodb.mongowp.commands.oplog.DbCmdOplogOperation;
+import com.torodb.mongowp.commands.oplog.InsertOplogOperation;
+import com.torodb.mongowp.commands.oplog.OplogOperation;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The set of namespaces affected by one or more oplog operations that must be applied
+ * sequentially, like commands or modifications on system collections.
+ *
+ * <p>Operations on namespaces that are not affected by a barrier can be applied before or after
+ * it, but the ones that are affected must be applied after it.
+ */
+class BarrierScope {
+
+  private static final ImmutableSet<String> COLLECTION_COMMANDS = ImmutableSet.of(
+      "create", "drop", "createIndexes", "collMod", "convertToCapped", "emptycapped",
+      "deleteIndex", "deleteIndexes", "dropIndex", "dropIndexes");
+  private static final ImmutableSet<String> DATABASE_COMMANDS = ImmutableSet.of(
+      "dropDatabase");
+
+  private boolean all = false;
+  private final Set<String> databases = new HashSet<>();
+  private final Set<Namespace> namespaces = new HashSet<>();
+
+  public boolean isEmpty() {
+    return !all && databases.isEmpty() && namespaces.isEmpty();
+  }
+
+  public boolean affects(String database, String collection) {
+    return all || databases.contains(database)
+        || namespaces.contains(new Namespace(database, collection));
+  }
+
+  /**
+   * Adds the namespaces affected by the given operation to this scope.
+   */
+  public void add(OplogOperation barrier) {
+    switch (barrier.getType()) {
+      case DB_CMD:
+        addCommand((DbCmdOplogOperation) barrier);
+        break;
+      case DELETE:
+      case INSERT:
+      case UPDATE:
+        addSystemCud((CollectionOplogOperation) barrier);
+        break;
+      default:
+        all = true;
+    }
+  }
+
+  private void addCommand(DbCmdOplogOperation op) {
+    BsonDocument request = op.getRequest();
+    if (request.isEmpty()) {
+      all = true;
+      return;
+    }
+    BsonDocument.Entry<?> firstEntry = request.getFirstEntry();
+    String commandName = firstEntry.getKey();
+    BsonValue<?> firstValue = firstEntry.getValue();
+    if (COLLECTION_COMMANDS.contains(commandName) && firstValue.isString()) {
+      namespaces.add(new Namespace(op.getDatabase(), firstValue.asString().getValue()));
+    } else if (DATABASE_COMMANDS.contains(commandName)) {
+      databases.add(op.getDatabase());
+    } else {
+      //renameCollection, applyOps and unknown commands can affect any namespace
+      all = true;
+    }
+  }
+
+  private void addSystemCud(CollectionOplogOperation op) {
+    if (op instanceof InsertOplogOperation
+        && NamespaceUtil.isIndexesMetaCollection(op.getCollection())) {
+      BsonValue<?> ns = ((InsertOplogOperation) op).getDocToInsert().get("ns");
+      if (ns != null && ns.isString()) {
+        String fullName = ns.asString().getValue();
+        int dotIndex = fullName.indexOf('.');
+        if (dotIndex > 0 && fullName.substring(0, dotIndex).equals(op.getDatabase())) {
+          namespaces.add(new Namespace(op.getDatabase(), fullName.substring(dotIndex + 1)));
+          return;
+        }
+      }
+    }
+    databases.add(op.getDatabase());
+  }
+}
@@ -30,7 +30,6 @@ import com.torodb.mongodb.repl.oplogreplier.ApplierContext;
 import com.torodb.mongodb.repl.oplogreplier.analyzed.AnalyzedOpReducer;
 import com.torodb.mongodb.utils.NamespaceUtil;
 import com.torodb.mongowp.commands.oplog.CollectionOplogOperation;
-import com.torodb.mongowp.commands.oplog.DbCmdOplogOperation;
 import com.torodb.mongowp.commands.oplog.OplogOperation;
 import org.apache.logging.log4j.Logger;
 
@@ -60,52 +59,76 @@ public class BatchAnalyzer implements Function<List<OplogOperation>, List<Analyz
     this.analyzedOpReducer = analyzedOpReducer;
   }
 
+  /**
+   * Splits the given operations into batches that must be applied sequentially.
+   *
+   * <p>Commands and modifications on system collections are applied one by one, but they only act
+   * as barriers for the namespaces they affect. Operations on other namespaces that are found
+   * after them are moved to the previous {@link CudAnalyzedOplogBatch}, so they can be applied
+   * concurrently. The order of the operations on each namespace and the order between barriers are
+   * kept.
+   */
   @Override
   public List<AnalyzedOplogBatch> apply(List<OplogOperation> oplogOps) {
     List<AnalyzedOplogBatch> result = new ArrayList<>();
 
-    int fromExcluded = -1;
-
-    for (int i = 0; i < oplogOps.size(); i++) {
-      OplogOperation op = oplogOps.get(i);
-      switch (op.getType()) {
-        case DB:
-        case NOOP:
-          logger.debug("Ignoring operation {}", op);
-          break;
-        case DB_CMD:
-          addParallelToBatch(oplogOps, fromExcluded, i, result);
-          fromExcluded = i;
-          result.add(new SingleOpAnalyzedOplogBatch((DbCmdOplogOperation) op));
-          break;
-        case DELETE:
-        case INSERT:
-        case UPDATE: {
-          //CUD operations on system collection must be addressed sequentially
-          if (SYSTEM_COLLECTIONS.contains(((CollectionOplogOperation) op).getCollection())) {
-            addParallelToBatch(oplogOps, fromExcluded, i, result);
-            fromExcluded = i;
-            result.add(new SingleOpAnalyzedOplogBatch(op));
+    List<OplogOperation> remaining = oplogOps;
+    while (!remaining.isEmpty()) {
+      List<OplogOperation> parallel = new ArrayList<>(remaining.size());
+      List<OplogOperation> deferred = new ArrayList<>();
+      BarrierScope barrierScope = new BarrierScope();
+
+      for (OplogOperation op : remaining) {
+        switch (op.getType()) {
+          case DB:
+          case NOOP:
+            logger.debug("Ignoring operation {}", op);
+            break;
+          case DB_CMD:
+            barrierScope.add(op);
+            deferred.add(op);
+            break;
+          case DELETE:
+          case INSERT:
+          case UPDATE: {
+            CollectionOplogOperation collectionOp = (CollectionOplogOperation) op;
+            //CUD operations on system collection must be addressed sequentially
+            if (SYSTEM_COLLECTIONS.contains(collectionOp.getCollection())) {
+              barrierScope.add(op);
+              deferred.add(op);
+            } else if (barrierScope.affects(collectionOp.getDatabase(),
+                collectionOp.getCollection())) {
+              deferred.add(op);
+            } else {
+              parallel.add(op);
+            }
+            break;
           }
-          break;
+          default:
+            throw new AssertionError("Found an unknown oplog operation " + op);
         }
-        default:
-          throw new AssertionError("Found an unknown oplog operation " + op);
       }
+      addParallelToBatch(parallel, result);
+
+      if (deferred.isEmpty()) {
+        break;
+      }
+      assert !(deferred.get(0) instanceof CollectionOplogOperation) || SYSTEM_COLLECTIONS.contains(
+          ((CollectionOplogOperation) deferred.get(0)).getCollection())
+          : "The first deferred operation must be a barrier";
+      result.add(new SingleOpAnalyzedOplogBatch(deferred.get(0)));
+      remaining = deferred.subList(1, deferred.size());
     }
-    addParallelToBatch(oplogOps, fromExcluded, oplogOps.size(), result);
 
     return result;
   }
 
-  private void addParallelToBatch(List<OplogOperation> allOperations, int fromExcluded,
-      int toExcluded, List<AnalyzedOplogBatch> batches) {
-    int from = fromExcluded + 1;
-    if (from == toExcluded) {
+  private void addParallelToBatch(List<OplogOperation> operations,
+      List<AnalyzedOplogBatch> batches) {
+    if (operations.isEmpty()) {
       return;
     }
-    batches.add(new CudAnalyzedOplogBatch(allOperations.subList(from, toExcluded), context,
-        analyzedOpReducer));
+    batches.add(new CudAnalyzedOplogBatch(operations, context, analyzedOpReducer));
   }
 
   public static interface BatchAnalyzerFactory {
@@ -26,6 +26,7 @@ import com.torodb.core.concurrent.ConcurrentToolsFactory;
 import com.torodb.core.concurrent.StreamExecutor;
 import com.torodb.core.exceptions.user.UserException;
 import com.torodb.core.logging.LoggerFactory;
+import com.torodb.core.metrics.SettableGauge;
 import com.torodb.core.metrics.ToroMetricRegistry;
 import com.torodb.core.retrier.Retrier;
 import com.torodb.core.transaction.RollbackException;
@@ -41,6 +42,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -53,6 +55,7 @@ public class ConcurrentOplogBatchExecutor extends SimpleAnalyzedOplogBatchExecut
   private final StreamExecutor streamExecutor;
   private final ConcurrentOplogBatchExecutorMetrics concurrentMetrics;
   private final SubBatchHeuristic subBatchHeuristic;
+  private final int parallelism;
 
   @Inject
   public ConcurrentOplogBatchExecutor(OplogOperationApplier oplogOperationApplier,
@@ -64,6 +67,7 @@ public class ConcurrentOplogBatchExecutor extends SimpleAnalyzedOplogBatchExecut
         lf.apply(this.getClass()), "concurrent-oplog-batch-executor", true);
     this.concurrentMetrics = concurrentMetrics;
     this.subBatchHeuristic = subBatchHeuristic;
+    this.parallelism = concurrentToolsFactory.getDefaultMaxThreads();
   }
 
   @Override
@@ -85,13 +89,27 @@ public class ConcurrentOplogBatchExecutor extends SimpleAnalyzedOplogBatchExecut
   @Override
   public void execute(CudAnalyzedOplogBatch cudBatch, ApplierContext context) throws UserException {
     assert isRunning() : "The service is on state " + state() + " instead of RUNNING";
-    List<NamespaceJob> namespaceJobList = cudBatch.streamNamespaceJobs().flatMap(this::split)
+    List<NamespaceJob> unsplittedJobs = cudBatch.streamNamespaceJobs()
+        .collect(Collectors.toList());
+    int batchOps = unsplittedJobs.stream()
+        .mapToInt(job -> job.getJobs().size())
+        .sum();
+    int subBatchSize = subBatchHeuristic.getSubBatchSize(concurrentMetrics, batchOps, parallelism);
+    assert subBatchSize > 0 : "Sub batch size must be positive";
+    concurrentMetrics.getSubBatchSizeLimit().setValue(subBatchSize);
+
+    List<NamespaceJob> namespaceJobList = unsplittedJobs.stream()
+        .flatMap(job -> split(job, subBatchSize))
         .collect(Collectors.toList());
     concurrentMetrics.getSubBatchSizeMeter().mark(namespaceJobList.size());
     concurrentMetrics.getSubBatchSizeHistogram().update(namespaceJobList.size());
 
+    AtomicInteger queuedSubBatches = new AtomicInteger(namespaceJobList.size());
     Stream<Callable<Empty>> callables = namespaceJobList.stream()
         .map((Function<NamespaceJob, Callable<Empty>>) (NamespaceJob namespaceJob) -> () -> {
+          int queued = queuedSubBatches.decrementAndGet();
+          concurrentMetrics.getQueuedSubBatches().setValue(queued);
+          subBatchHeuristic.onSubBatchStarted(queued);
           execute(namespaceJob, context);
           return Empty.getInstance();
         });
@@ -117,12 +135,14 @@ public class ConcurrentOplogBatchExecutor extends SimpleAnalyzedOplogBatchExecut
     }
   }
 
-  private Stream<NamespaceJob> split(NamespaceJob namespaceJob) {
-    Collection<AnalyzedOp> jobs = namespaceJob.getJobs();
-
-    int subBatchSize = subBatchHeuristic.getSubBatchSize(concurrentMetrics);
+  @Override
+  protected void onNamespaceJobApplied(NamespaceJob job, long applyNanos, long commitNanos) {
+    super.onNamespaceJobApplied(job, applyNanos, commitNanos);
+    subBatchHeuristic.onSubBatchApplied(job.getJobs().size(), applyNanos, commitNanos);
+  }
 
-    assert subBatchSize > 0 : "Sub batch size must be positive";
+  private Stream<NamespaceJob> split(NamespaceJob namespaceJob, int subBatchSize) {
+    Collection<AnalyzedOp> jobs = namespaceJob.getJobs();
 
     Supplier<List<AnalyzedOp>> currentListFactory = () -> new ArrayList<>(subBatchSize);
 
@@ -156,12 +176,23 @@ public class ConcurrentOplogBatchExecutor extends SimpleAnalyzedOplogBatchExecut
 
     private final Meter subBatchSizeMeter;
     private final Histogram subBatchSizeHistogram;
+    private final SettableGauge<Integer> subBatchSizeLimit;
+    private final SettableGauge<Long> estimatedOpCost;
+    private final SettableGauge<Long> estimatedCommitCost;
+    private final SettableGauge<Integer> queuedSubBatches;
+    private final SettableGauge<Double> estimatedQueueDepth;
 
     @Inject
     public ConcurrentOplogBatchExecutorMetrics(ToroMetricRegistry parentRegistry) {
       super(parentRegistry);
       this.subBatchSizeMeter = getRegistry().meter("subBatchSizeMeter");
       this.subBatchSizeHistogram = getRegistry().histogram("subBatchSizeHistogram");
+      this.subBatchSizeLimit = getRegistry().gauge("subBatchSizeLimit");
+      this.estimatedOpCost = getRegistry().gauge("estimatedOpCost");
+      this.estimatedCommitCost = getRegistry().gauge("estimatedCommitCost");
+      this.queuedSubBatches = getRegistry().gauge("queuedSubBatches");
+      this.estimatedQueueDepth = getRegistry().gauge("estimatedQueueDepth");
+      getRegistry().gauge("estimatedCostUnit").setValue("microseconds");
     }
 
     public Meter getSubBatchSizeMeter() {
@@ -171,6 +202,46 @@ public class ConcurrentOplogBatchExecutor extends SimpleAnalyzedOplogBatchExecut
     public Histogram getSubBatchSizeHistogram() {
       return subBatchSizeHistogram;
     }
+
+    /**
+     * Returns the gauge that stores the max number of ops per sub batch decided by the
+     * {@link SubBatchHeuristic} for the last batch.
+     */
+    public SettableGauge<Integer> getSubBatchSizeLimit() {
+      return subBatchSizeLimit;
+    }
+
+    /**
+     * Returns the gauge that stores the estimated microseconds used to apply an op, as seen by the
+     * {@link SubBatchHeuristic}.
+     */
+    public SettableGauge<Long> getEstimatedOpCost() {
+      return estimatedOpCost;
+    }
+
+    /**
+     * Returns the gauge that stores the estimated microseconds used to commit a sub batch, as seen
+     * by the {@link SubBatchHeuristic}.
+     */
+    public SettableGauge<Long> getEstimatedCommitCost() {
+      return estimatedCommitCost;
+    }
+
+    /**
+     * Returns the gauge that stores the number of sub batches of the current batch that were
+     * waiting for a thread when the last sub batch started.
+     */
+    public SettableGauge<Integer> getQueuedSubBatches() {
+      return queuedSubBatches;
+    }
+
+    /**
+     * Returns the gauge that stores the average number of sub batches waiting for a thread, as
+     * seen by the {@link SubBatchHeuristic}.
+     */
+    public SettableGauge<Double> getEstimatedQueueDepth() {
+      return estimatedQueueDepth;
+    }
   }
 
   public static interface SubBatchHeuristic {
@@ -183,6 +254,38 @@ public class ConcurrentOplogBatchExecutor extends SimpleAnalyzedOplogBatchExecut
      */
     @Nonnegative
     public int getSubBatchSize(ConcurrentOplogBatchExecutorMetrics metrics);
+
+    /**
+     * Like {@link #getSubBatchSize(ConcurrentOplogBatchExecutorMetrics)}, but it also receives the
+     * number of ops on the batch that is going to be splitted and the number of threads that will
+     * execute the sub batches.
+     *
+     * @return a positive integer
+     */
+    @Nonnegative
+    public default int getSubBatchSize(ConcurrentOplogBatchExecutorMetrics metrics,
+        int batchOps, int parallelism) {
+      return getSubBatchSize(metrics);
+    }
+
+    /**
+     * Called each time a sub batch has been applied and committed.
+     *
+     * @param ops         the number of ops on the sub batch
+     * @param applyNanos  the nanoseconds used to apply the ops
+     * @param commitNanos the nanoseconds used to commit them
+     */
+    public default void onSubBatchApplied(int ops, long applyNanos, long commitNanos) {
+    }
+
+    /**
+     * Called each time a sub batch starts being executed.
+     *
+     * @param queuedSubBatches the number of sub batches of the same batch that are still waiting
+     *                         for a thread
+     */
+    public default void onSubBatchStarted(int queuedSubBatches) {
+    }
   }
 
 }
@@ -41,6 +41,7 @@ public class CudAnalyzedOplogBatch extends AnalyzedOplogBatch {
 
   private final List<OplogOperation> originalBatch;
   private final Table<String, String, Map<BsonValue<?>, AnalyzedOp>> jobs;
+  private int cudSize = 0;
 
   public CudAnalyzedOplogBatch(List<OplogOperation> operations, ApplierContext context,
       AnalyzedOpReducer analyzedOpReducer) {
@@ -83,6 +84,23 @@ public class CudAnalyzedOplogBatch extends AnalyzedOplogBatch {
     return originalBatch;
   }
 
+  /**
+   * Returns the number of insert, update and delete operations contained on the original batch.
+   */
+  public int getCudSize() {
+    return cudSize;
+  }
+
+  /**
+   * Returns the number of {@link AnalyzedOp analyzed ops} the CUD operations of the original batch
+   * have been reduced to, which is the number of documents they modify.
+   */
+  public int getReducedSize() {
+    return jobs.values().stream()
+        .mapToInt(Map::size)
+        .sum();
+  }
+
   @Override
   public <R, A, T extends Throwable> R accept(AnalyzedOplogBatchVisitor<R, A, T> visitor, A arg)
       throws T {
@@ -94,6 +112,7 @@ public class CudAnalyzedOplogBatch extends AnalyzedOplogBatch {
     String database = op.getDatabase();
     String collection = op.getCollection();
 
+    cudSize++;
     Map<BsonValue<?>, AnalyzedOp> byDocAnalyzedOps = jobs.get(database, collection);
     if (byDocAnalyzedOps == null) {
       byDocAnalyzedOps = new HashMap<>();
@@ -35,8 +35,12 @@ import com.torodb.mongodb.utils.DefaultIdUtils;
 import com.torodb.mongowp.Status;
 import org.jooq.lambda.tuple.Tuple2;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -66,8 +70,9 @@ public class NamespaceJobExecutor {
     }
     if (errors.isEmpty()) {
       Map<AnalyzedOp, ToroDocument> fetchDocs = fetchDocs(job, transaction, fetchDids);
-      deleteDocs(job, transaction, fetchDids);
-      insertDocs(job, transaction, fetchDocs);
+      Set<AnalyzedOp> updatedOps = updateDocs(job, transaction, fetchDocs);
+      deleteDocs(job, transaction, fetchDids, updatedOps);
+      insertDocs(job, transaction, fetchDocs, updatedOps);
     }
 
   }
@@ -146,14 +151,40 @@ public class NamespaceJobExecutor {
         );
   }
 
+  /**
+   * Applies the ops whose {@link AnalyzedOp#getModifiedAttributes() modified attributes} are known
+   * as updates of the fetched documents, which lets the storage modify these attributes instead
+   * of deleting the documents and inserting them again.
+   *
+   * @return the ops that have been applied
+   */
+  private Set<AnalyzedOp> updateDocs(NamespaceJob job, WriteMongodTransaction transaction,
+      Map<AnalyzedOp, ToroDocument> fetchDocs) throws RollbackException, UserException {
+    Set<AnalyzedOp> updatedOps = new HashSet<>();
+    for (AnalyzedOp op : job.getJobs()) {
+      Optional<Collection<AttributeReference>> modifiedAttributes = op.getModifiedAttributes();
+      ToroDocument fetchedDoc = fetchDocs.get(op);
+      if (!modifiedAttributes.isPresent() || fetchedDoc == null) {
+        continue;
+      }
+      KvDocument newDoc = op.calculateDocToInsert(ignored -> fetchedDoc.getRoot());
+      assert newDoc != null;
+      transaction.getTorodTransaction().update(job.getDatabase(), job.getCollection(),
+          fetchedDoc, newDoc, modifiedAttributes.get());
+      updatedOps.add(op);
+    }
+    return updatedOps;
+  }
+
   private void deleteDocs(NamespaceJob job, WriteMongodTransaction transaction,
-      Map<AnalyzedOp, Integer> fetchDids) {
+      Map<AnalyzedOp, Integer> fetchDids, Set<AnalyzedOp> updatedOps) {
     if (fetchDids.isEmpty()) {
       return;
     }
 
     Stream<Integer> didsToDelete = job.getJobs().stream()
         .filter(AnalyzedOp::deletes)
+        .filter(op -> !updatedOps.contains(op))
         .map(op -> fetchDids.get(op))
         .filter(did -> did != null);
 
@@ -162,7 +193,8 @@ public class NamespaceJobExecutor {
   }
 
   private void insertDocs(NamespaceJob job, WriteMongodTransaction transaction,
-      Map<AnalyzedOp, ToroDocument> fetchDocs) throws UserException {
+      Map<AnalyzedOp, ToroDocument> fetchDocs, Set<AnalyzedOp> updatedOps)
+      throws UserException {
     Function<AnalyzedOp, KvDocument> getFetchDocFun = op -> {
       ToroDocument fetchToroDoc = fetchDocs.get(op);
       if (fetchToroDoc == null) {
@@ -172,6 +204,7 @@ public class NamespaceJobExecutor {
       }
     };
     Stream<KvDocument> docsToInsert = job.getJobs().stream()
+        .filter(op -> !updatedOps.contains(op))
         .map(op -> op.calculateDocToInsert(getFetchDocFun))
         .filter(doc -> doc != null);
 
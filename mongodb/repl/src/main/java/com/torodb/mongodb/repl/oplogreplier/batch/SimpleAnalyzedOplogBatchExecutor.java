@@ -40,6 +40,7 @@ import com.torodb.mongowp.commands.oplog.OplogOperation;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -121,11 +122,29 @@ public class SimpleAnalyzedOplogBatchExecutor extends AbstractService
       throws RollbackException, UserException, NamespaceJobExecutionException,
       UniqueIndexViolationException {
     try (WriteMongodTransaction mongoTransaction = connection.openWriteTransaction()) {
+      long applyStart = System.nanoTime();
       namespaceJobExecutor.apply(job, mongoTransaction, applierContext, optimisticDeleteAndCreate);
+      long commitStart = System.nanoTime();
       mongoTransaction.commit();
+      onNamespaceJobApplied(job, commitStart - applyStart, System.nanoTime() - commitStart);
     }
   }
 
+  /**
+   * Called each time a {@link NamespaceJob} has been applied and committed.
+   *
+   * @param job          the applied job
+   * @param applyNanos   the nanoseconds used to apply the operations of the job
+   * @param commitNanos  the nanoseconds used to commit the transaction
+   */
+  protected void onNamespaceJobApplied(NamespaceJob job, long applyNanos, long commitNanos) {
+    int ops = job.getJobs().size();
+    if (ops > 0) {
+      metrics.getNamespaceOpTimer().update(applyNanos / ops, TimeUnit.NANOSECONDS);
+    }
+    metrics.getNamespaceCommitTimer().update(commitNanos, TimeUnit.NANOSECONDS);
+  }
+
   @Override
   public OplogOperation visit(SingleOpAnalyzedOplogBatch batch, ApplierContext arg) throws
       RetrierGiveUpException {
@@ -159,6 +178,8 @@ public class SimpleAnalyzedOplogBatchExecutor extends AbstractService
   public OplogOperation visit(CudAnalyzedOplogBatch batch, ApplierContext arg) throws
       RetrierGiveUpException {
     metrics.getCudBatchSize().update(batch.getOriginalBatch().size());
+    metrics.getCudReducedBatchSize().update(batch.getReducedSize());
+    metrics.getCudReducedOps().mark(batch.getCudSize() - batch.getReducedSize());
     try (Context context = metrics.getCudBatchTimer().time()) {
       try {
         execute(batch, arg);
@@ -0,0 +1,118 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.mongodb.repl.oplogreplier.batch;
+
+import com.google.common.base.Preconditions;
+import com.torodb.mongodb.repl.oplogreplier.batch.ConcurrentOplogBatchExecutor.SubBatchHeuristic;
+
+import java.time.Duration;
+
+/**
+ * The configuration that decides which {@link SubBatchHeuristic} is used to split the batches
+ * applied by {@link ConcurrentOplogBatchExecutor}.
+ */
+public abstract class SubBatchHeuristicConfig {
+
+  public static final Duration DEFAULT_TARGET_LATENCY = Duration.ofMillis(200);
+  public static final int DEFAULT_MIN_SIZE = 10;
+  public static final int DEFAULT_MAX_SIZE = 5000;
+  public static final int DEFAULT_FIXED_SIZE = 100;
+
+  private SubBatchHeuristicConfig() {
+  }
+
+  /**
+   * Creates the heuristic described by this configuration.
+   */
+  public abstract SubBatchHeuristic createHeuristic();
+
+  /**
+   * Returns a configuration whose sub batches have always the given size.
+   */
+  public static SubBatchHeuristicConfig fixed(int size) {
+    return new Fixed(size);
+  }
+
+  /**
+   * Returns a configuration that uses an {@link AdaptiveSubBatchHeuristic} with the default
+   * values.
+   */
+  public static SubBatchHeuristicConfig adaptive() {
+    return adaptive(DEFAULT_TARGET_LATENCY, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Returns a configuration that uses an {@link AdaptiveSubBatchHeuristic}.
+   *
+   * @param targetLatency the time each sub batch should need to be applied and committed
+   * @param minSize       the min number of ops on each sub batch
+   * @param maxSize       the max number of ops on each sub batch
+   */
+  public static SubBatchHeuristicConfig adaptive(Duration targetLatency, int minSize,
+      int maxSize) {
+    return new Adaptive(targetLatency, minSize, maxSize);
+  }
+
+  private static class Fixed extends SubBatchHeuristicConfig {
+
+    private final int size;
+
+    private Fixed(int size) {
+      Preconditions.checkArgument(size > 0, "The sub batch size must be positive, but %s was "
+          + "recived", size);
+      this.size = size;
+    }
+
+    @Override
+    public SubBatchHeuristic createHeuristic() {
+      return (metrics) -> size;
+    }
+
+    @Override
+    public String toString() {
+      return "fixed{size=" + size + '}';
+    }
+  }
+
+  private static class Adaptive extends SubBatchHeuristicConfig {
+
+    private final Duration targetLatency;
+    private final int minSize;
+    private final int maxSize;
+
+    private Adaptive(Duration targetLatency, int minSize, int maxSize) {
+      this.targetLatency = targetLatency;
+      this.minSize = minSize;
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public SubBatchHeuristic createHeuristic() {
+      int initialSize = Math.max(minSize, Math.min(maxSize, DEFAULT_FIXED_SIZE));
+      return new AdaptiveSubBatchHeuristic(targetLatency, minSize, maxSize, initialSize);
+    }
+
+    @Override
+    public String toString() {
+      return "adaptive{targetLatency=" + targetLatency + ", minSize=" + minSize + ", maxSize="
+          + maxSize + '}';
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.repl.oplogreplier.fetcher;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The configuration that decides how many batches are read ahead from the remote oplog by a
+ * {@link PrefetchingOplogFetcher}.
+ */
+public final class OplogPrefetchConfig {
+
+  public static final int DEFAULT_MAX_BATCHES = 4;
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private static final OplogPrefetchConfig DISABLED = new OplogPrefetchConfig(0, 0);
+
+  private final int maxBatches;
+  private final long maxBytes;
+
+  private OplogPrefetchConfig(int maxBatches, long maxBytes) {
+    this.maxBatches = maxBatches;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns a configuration that does not read ahead, so each batch is fetched when the applier
+   * asks for it.
+   */
+  public static OplogPrefetchConfig disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Returns a configuration that reads ahead with the default limits.
+   */
+  public static OplogPrefetchConfig defaults() {
+    return readAhead(DEFAULT_MAX_BATCHES, DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * Returns a configuration that reads ahead.
+   *
+   * @param maxBatches the max number of fetched batches that can be waiting to be applied
+   * @param maxBytes   the max estimated size of the operations that can be waiting to be applied.
+   *                   Once it is exceeded, no more batches are fetched until some are applied.
+   */
+  public static OplogPrefetchConfig readAhead(int maxBatches, long maxBytes) {
+    Preconditions.checkArgument(maxBatches > 0, "The max number of batches must be positive, "
+        + "but %s was recived", maxBatches);
+    Preconditions.checkArgument(maxBytes > 0, "The max number of bytes must be positive, but %s "
+        + "was recived", maxBytes);
+    return new OplogPrefetchConfig(maxBatches, maxBytes);
+  }
+
+  public boolean isEnabled() {
+    return maxBatches > 0;
+  }
+
+  public int getMaxBatches() {
+    return maxBatches;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns a fetcher that reads ahead from the given one as indicated by this configuration or
+   * the given fetcher if read ahead is disabled.
+   */
+  public OplogFetcher decorate(OplogFetcher fetcher, ThreadFactory threadFactory) {
+    if (!isEnabled()) {
+      return fetcher;
+    }
+    return new PrefetchingOplogFetcher(fetcher, threadFactory, maxBatches, maxBytes);
+  }
+
+  @Override
+  public String toString() {
+    if (!isEnabled()) {
+      return "disabled";
+    }
+    return "readAhead{maxBatches=" + maxBatches + ", maxBytes=" + maxBytes + '}';
+  }
+
+}
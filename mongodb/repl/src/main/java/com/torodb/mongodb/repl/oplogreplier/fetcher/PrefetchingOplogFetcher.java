@@ -0,0 +1,309 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.repl.oplogreplier.fetcher;
+
+import com.google.common.base.Preconditions;
+import com.torodb.mongodb.repl.oplogreplier.FinishedOplogBatch;
+import com.torodb.mongodb.repl.oplogreplier.RollbackReplicationException;
+import com.torodb.mongodb.repl.oplogreplier.StopReplicationException;
+import com.torodb.mongodb.repl.oplogreplier.batch.OplogBatch;
+import com.torodb.mongowp.bson.BsonArray;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.BsonValue;
+import com.torodb.mongowp.commands.oplog.DbCmdOplogOperation;
+import com.torodb.mongowp.commands.oplog.DbOplogOperation;
+import com.torodb.mongowp.commands.oplog.DeleteOplogOperation;
+import com.torodb.mongowp.commands.oplog.InsertOplogOperation;
+import com.torodb.mongowp.commands.oplog.NoopOplogOperation;
+import com.torodb.mongowp.commands.oplog.OplogOperation;
+import com.torodb.mongowp.commands.oplog.OplogOperationVisitor;
+import com.torodb.mongowp.commands.oplog.UpdateOplogOperation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An {@link OplogFetcher} that reads ahead from another fetcher on its own thread, so the next
+ * batches are read from the remote oplog and decoded while the previous ones are being applied.
+ *
+ * <p>The read ahead stops once there are {@code maxBatches} fetched batches or the estimated size
+ * of their operations is {@code maxBytes} or more, and continues as soon as {@link #fetch()} takes
+ * one of them.
+ *
+ * <p>The delegated fetcher is only used by the read ahead thread, so the checks it does on each
+ * batch (like rollback detection) are not modified. Any exception it throws is thrown by
+ * {@link #fetch()} once the batches fetched before it have been returned.
+ */
+@ThreadSafe
+public class PrefetchingOplogFetcher implements OplogFetcher {
+
+  private static final SizeEstimator SIZE_ESTIMATOR = new SizeEstimator();
+
+  private final OplogFetcher delegate;
+  private final ThreadFactory threadFactory;
+  private final int maxBatches;
+  private final long maxBytes;
+  private final Lock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  @GuardedBy("lock")
+  private final Deque<FetchResult> fetched = new ArrayDeque<>();
+  @GuardedBy("lock")
+  private long fetchedBytes = 0;
+  @GuardedBy("lock")
+  private boolean closed = false;
+  @GuardedBy("lock")
+  private Thread readAheadThread;
+
+  public PrefetchingOplogFetcher(OplogFetcher delegate, ThreadFactory threadFactory,
+      int maxBatches, long maxBytes) {
+    Preconditions.checkArgument(maxBatches > 0, "maxBatches must be positive");
+    Preconditions.checkArgument(maxBytes > 0, "maxBytes must be positive");
+    this.delegate = delegate;
+    this.threadFactory = threadFactory;
+    this.maxBatches = maxBatches;
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public OplogBatch fetch() throws StopReplicationException, RollbackReplicationException {
+    FetchResult result;
+    lock.lock();
+    try {
+      if (closed) {
+        return FinishedOplogBatch.getInstance();
+      }
+      if (readAheadThread == null) {
+        readAheadThread = threadFactory.newThread(this::readAhead);
+        readAheadThread.start();
+      }
+      while (fetched.isEmpty() && !closed) {
+        notEmpty.await();
+      }
+      if (closed) {
+        return FinishedOplogBatch.getInstance();
+      }
+      result = fetched.poll();
+      fetchedBytes -= result.bytes;
+      notFull.signal();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new StopReplicationException("Interrupted while waiting for the next oplog batch",
+          ex);
+    } finally {
+      lock.unlock();
+    }
+    return result.get();
+  }
+
+  @Override
+  public void close() {
+    boolean closeDelegate;
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      fetched.clear();
+      fetchedBytes = 0;
+      notEmpty.signalAll();
+      notFull.signalAll();
+      //if the read ahead thread has been started, it closes the delegate when it finishes
+      closeDelegate = readAheadThread == null;
+    } finally {
+      lock.unlock();
+    }
+    if (closeDelegate) {
+      delegate.close();
+    }
+  }
+
+  private void readAhead() {
+    try {
+      boolean finished = false;
+      while (!finished) {
+        lock.lock();
+        try {
+          while (!closed && (fetched.size() >= maxBatches || fetchedBytes >= maxBytes)) {
+            notFull.await();
+          }
+          if (closed) {
+            return;
+          }
+        } finally {
+          lock.unlock();
+        }
+
+        FetchResult result;
+        try {
+          OplogBatch batch = delegate.fetch();
+          result = new FetchResult(batch, null, estimateSize(batch));
+          finished = batch.isLastOne();
+        } catch (StopReplicationException | RollbackReplicationException | RuntimeException ex) {
+          result = new FetchResult(null, ex, 0);
+          finished = true;
+        }
+
+        lock.lock();
+        try {
+          if (closed) {
+            return;
+          }
+          fetched.add(result);
+          fetchedBytes += result.bytes;
+          notEmpty.signal();
+        } finally {
+          lock.unlock();
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      lock.lock();
+      try {
+        if (!closed) {
+          fetched.add(new FetchResult(null, new StopReplicationException(
+              "The oplog read ahead thread has been interrupted", ex), 0));
+          notEmpty.signal();
+        }
+      } finally {
+        lock.unlock();
+      }
+    } finally {
+      delegate.close();
+    }
+  }
+
+  private static long estimateSize(OplogBatch batch) {
+    long size = 0;
+    for (OplogOperation op : batch.getOps()) {
+      size += op.accept(SIZE_ESTIMATOR, null);
+    }
+    return size;
+  }
+
+  private static class FetchResult {
+
+    @Nullable
+    private final OplogBatch batch;
+    @Nullable
+    private final Exception error;
+    private final long bytes;
+
+    private FetchResult(@Nullable OplogBatch batch, @Nullable Exception error, long bytes) {
+      this.batch = batch;
+      this.error = error;
+      this.bytes = bytes;
+    }
+
+    private OplogBatch get() throws StopReplicationException, RollbackReplicationException {
+      if (error == null) {
+        assert batch != null;
+        return batch;
+      }
+      if (error instanceof StopReplicationException) {
+        throw (StopReplicationException) error;
+      }
+      if (error instanceof RollbackReplicationException) {
+        throw (RollbackReplicationException) error;
+      }
+      throw (RuntimeException) error;
+    }
+  }
+
+  /**
+   * Estimates the memory used by an operation from the size of the documents it contains.
+   *
+   * <p>The estimation is only used to limit the number of operations that are read ahead, so it
+   * does not need to be exact.
+   */
+  private static class SizeEstimator implements OplogOperationVisitor<Long, Void> {
+
+    private static final long OP_OVERHEAD = 128;
+    private static final long VALUE_OVERHEAD = 16;
+
+    @Override
+    public Long visit(DbCmdOplogOperation op, Void arg) {
+      return OP_OVERHEAD + estimate(op.getRequest());
+    }
+
+    @Override
+    public Long visit(DbOplogOperation op, Void arg) {
+      return OP_OVERHEAD;
+    }
+
+    @Override
+    public Long visit(DeleteOplogOperation op, Void arg) {
+      return OP_OVERHEAD + estimate(op.getFilter());
+    }
+
+    @Override
+    public Long visit(InsertOplogOperation op, Void arg) {
+      return OP_OVERHEAD + estimate(op.getDocToInsert());
+    }
+
+    @Override
+    public Long visit(NoopOplogOperation op, Void arg) {
+      return OP_OVERHEAD;
+    }
+
+    @Override
+    public Long visit(UpdateOplogOperation op, Void arg) {
+      return OP_OVERHEAD + estimate(op.getFilter()) + estimate(op.getModification());
+    }
+
+    private static long estimate(@Nullable BsonDocument doc) {
+      if (doc == null) {
+        return 0;
+      }
+      long size = VALUE_OVERHEAD;
+      for (BsonDocument.Entry<?> entry : doc) {
+        size += entry.getKey().length() + estimate(entry.getValue());
+      }
+      return size;
+    }
+
+    private static long estimate(BsonValue<?> value) {
+      if (value.isDocument()) {
+        return estimate(value.asDocument());
+      }
+      if (value.isArray()) {
+        BsonArray array = value.asArray();
+        long size = VALUE_OVERHEAD;
+        for (BsonValue<?> element : array) {
+          size += estimate(element);
+        }
+        return size;
+      }
+      if (value.isString()) {
+        return VALUE_OVERHEAD + value.asString().getValue().length();
+      }
+      return VALUE_OVERHEAD;
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ import com.torodb.core.cursors.Cursor;
 import com.torodb.core.exceptions.user.CollectionNotFoundException;
 import com.torodb.core.exceptions.user.IndexNotFoundException;
 import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.torod.CollectionInfo;
 import com.torodb.torod.IndexInfo;
@@ -105,6 +106,11 @@ public abstract class TransDecorator<D extends TorodTransaction, C extends Torod
     return decorated.findByAttRef(dbName, colName, attRef, value);
   }
 
+  @Override
+  public TorodCursor findByCriteria(String dbName, String colName, QueryCriteria criteria) {
+    return decorated.findByCriteria(dbName, colName, criteria);
+  }
+
   @Override
   public TorodCursor findByAttRefIn(String dbName, String colName, AttributeReference attRef,
       Collection<KvValue<?>> values) {
@@ -19,12 +19,15 @@
 package com.torodb.mongodb.repl.sharding.isolation.db;
 
 import com.torodb.common.util.Empty;
+import com.torodb.core.backend.ConnectionPoolStats;
 import com.torodb.core.logging.LoggerFactory;
 import com.torodb.core.services.IdleTorodbService;
 import com.torodb.torod.TorodConnection;
 import com.torodb.torod.TorodServer;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
+import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadFactory;
 
@@ -71,6 +74,26 @@ public class DbIsolatorServer extends IdleTorodbService implements TorodServer {
     return decorated.enableDataImportMode(convertDatabaseName(dbName));
   }
 
+  @Override
+  public boolean isImportedDataLossPossible() {
+    return decorated.isImportedDataLossPossible();
+  }
+
+  @Override
+  public boolean isDataImportModeDurable() {
+    return decorated.isDataImportModeDurable();
+  }
+
+  @Override
+  public OptionalInt getMaxReadOnlyTransactions() {
+    return decorated.getMaxReadOnlyTransactions();
+  }
+
+  @Override
+  public List<ConnectionPoolStats> getConnectionPoolStats() {
+    return decorated.getConnectionPoolStats();
+  }
+
   @Override
   protected void startUp() throws Exception {
   }
@@ -22,6 +22,7 @@ import com.torodb.core.cursors.Cursor;
 import com.torodb.core.exceptions.user.CollectionNotFoundException;
 import com.torodb.core.exceptions.user.IndexNotFoundException;
 import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.mongodb.repl.sharding.isolation.TransDecorator;
 import com.torodb.torod.CollectionInfo;
@@ -94,6 +95,11 @@ public class DbIsolatorTrans<D extends TorodTransaction>
     return super.findByAttRefIn(convertDatabaseName(dbName), colName, attRef, values);
   }
 
+  @Override
+  public TorodCursor findByCriteria(String dbName, String colName, QueryCriteria criteria) {
+    return super.findByCriteria(convertDatabaseName(dbName), colName, criteria);
+  }
+
   @Override
   public TorodCursor findByAttRef(String dbName, String colName, AttributeReference attRef,
       KvValue<?> value) {
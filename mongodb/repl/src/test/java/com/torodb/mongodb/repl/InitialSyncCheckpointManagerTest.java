@@ -0,0 +1,197 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.repl;
+
+import static com.torodb.mongowp.bson.utils.DefaultBsonValues.newInt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HostAndPort;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.bundle.BundleConfigImpl;
+import com.torodb.core.guice.EssentialModule;
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.core.metrics.DisabledMetricRegistry;
+import com.torodb.core.retrier.NeverRetryRetrier;
+import com.torodb.core.supervision.Supervisor;
+import com.torodb.core.supervision.SupervisorDecision;
+import com.torodb.mongodb.commands.impl.CommandClassifierImpl;
+import com.torodb.mongodb.core.DefaultBuildProperties;
+import com.torodb.mongodb.core.MongoDbCoreBundle;
+import com.torodb.mongodb.core.MongoDbCoreConfig;
+import com.torodb.mongodb.core.MongodServerConfig;
+import com.torodb.mongodb.repl.InitialSyncCheckpointManager.SyncStart;
+import com.torodb.mongodb.utils.CloneCheckpoint.CollectionState;
+import com.torodb.mongodb.utils.CloneCheckpoint.Phase;
+import com.torodb.mongowp.OpTime;
+import com.torodb.mongowp.bson.utils.DefaultBsonValues;
+import com.torodb.mongowp.commands.impl.NameBasedCommandLibrary;
+import com.torodb.torod.MemoryTorodBundle;
+import com.torodb.torod.TorodBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.Optional;
+
+public class InitialSyncCheckpointManagerTest {
+
+  private TorodBundle torodBundle;
+  private MongoDbCoreBundle bundle;
+
+  @Before
+  public void setUp() {
+    Supervisor supervisor = new Supervisor() {
+      @Override
+      public SupervisorDecision onError(Object supervised, Throwable error) {
+        throw new AssertionError("error on " + supervised, error);
+      }
+    };
+    Injector essentialInjector = Guice.createInjector(
+        new EssentialModule(
+            DefaultLoggerFactory.getInstance(),
+            () -> true,
+            Clock.systemUTC()
+        )
+    );
+    BundleConfig generalConfig = new BundleConfigImpl(essentialInjector, supervisor);
+    torodBundle = new MemoryTorodBundle(generalConfig);
+    torodBundle.startAsync();
+    torodBundle.awaitRunning();
+
+    MongoDbCoreConfig config = new MongoDbCoreConfig(torodBundle,
+        new NameBasedCommandLibrary("test", ImmutableMap.of()),
+        CommandClassifierImpl.createDefault(DefaultLoggerFactory.getInstance(),
+            Clock.systemUTC(), new DefaultBuildProperties(),
+            new MongodServerConfig(HostAndPort.fromParts("localhost", 8095))),
+        Optional.of(new DisabledMetricRegistry()), DefaultLoggerFactory.getInstance(),
+        essentialInjector, supervisor);
+    bundle = new MongoDbCoreBundle(config);
+    bundle.start();
+  }
+
+  @After
+  public void tearDown() {
+    bundle.stop();
+    if (torodBundle.isRunning()) {
+      torodBundle.stopAsync();
+    }
+  }
+
+  private InitialSyncCheckpointManager createManager() {
+    return new InitialSyncCheckpointManager(bundle.getExternalInterface().getMongodServer(),
+        NeverRetryRetrier.getInstance(), DefaultLoggerFactory.getInstance());
+  }
+
+  @Test
+  public void nothingToResumeWhenNotStarted() throws Exception {
+    InitialSyncCheckpointManager manager = createManager();
+
+    assertFalse(manager.load().isPresent());
+    assertEquals(Phase.NOT_STARTED, manager.getState("db", "col").getPhase());
+  }
+
+  @Test
+  public void startIsLoaded() throws Exception {
+    OpTime opTime = new OpTime(DefaultBsonValues.newTimestamp(1482000000, 7), 3);
+    createManager().start(1234L, opTime);
+
+    Optional<SyncStart> start = createManager().load();
+    assertTrue(start.isPresent());
+    assertEquals(1234L, start.get().getHash());
+    assertEquals(opTime, start.get().getOpTime());
+  }
+
+  @Test
+  public void collectionStatesAreLoaded() throws Exception {
+    InitialSyncCheckpointManager manager = createManager();
+    manager.start(1L, new OpTime(DefaultBsonValues.newTimestamp(1482000000, 1), 1));
+    manager.onDocumentsCloned("db", "cloning", newInt(10));
+    manager.onDocumentsCloned("db", "cloned", newInt(10));
+    manager.onDataCloned("db", "cloned");
+    manager.onIndexesCloned("db", "indexed");
+
+    InitialSyncCheckpointManager loaded = createManager();
+    assertTrue(loaded.load().isPresent());
+
+    CollectionState cloning = loaded.getState("db", "cloning");
+    assertEquals(Phase.CLONING_DATA, cloning.getPhase());
+    assertEquals(Optional.of(newInt(10)), cloning.getLastClonedId());
+    assertEquals(Phase.DATA_CLONED, loaded.getState("db", "cloned").getPhase());
+    assertEquals(Phase.INDEXES_CLONED, loaded.getState("db", "indexed").getPhase());
+    assertEquals(Phase.NOT_STARTED, loaded.getState("db", "other").getPhase());
+  }
+
+  @Test
+  public void startDiscardsPreviousStates() throws Exception {
+    InitialSyncCheckpointManager manager = createManager();
+    manager.start(1L, new OpTime(DefaultBsonValues.newTimestamp(1482000000, 1), 1));
+    manager.onDataCloned("db", "col");
+    manager.start(2L, new OpTime(DefaultBsonValues.newTimestamp(1482000001, 1), 1));
+
+    assertEquals(Phase.NOT_STARTED, manager.getState("db", "col").getPhase());
+    InitialSyncCheckpointManager loaded = createManager();
+    assertEquals(2L, loaded.load().get().getHash());
+    assertEquals(Phase.NOT_STARTED, loaded.getState("db", "col").getPhase());
+  }
+
+  @Test
+  public void clearDiscardsEverything() throws Exception {
+    InitialSyncCheckpointManager manager = createManager();
+    manager.start(1L, new OpTime(DefaultBsonValues.newTimestamp(1482000000, 1), 1));
+    manager.onDataCloned("db", "col");
+    manager.clear();
+
+    assertEquals(Phase.NOT_STARTED, manager.getState("db", "col").getPhase());
+    assertFalse(createManager().load().isPresent());
+  }
+
+  @Test
+  public void nonDurableSyncIsNotResumed() throws Exception {
+    InitialSyncCheckpointManager manager = createManager();
+    manager.start(1L, new OpTime(DefaultBsonValues.newTimestamp(1482000000, 1), 1));
+    manager.markNonDurable();
+    manager.onDataCloned("db", "col");
+
+    InitialSyncCheckpointManager loaded = createManager();
+    assertFalse(loaded.load().isPresent());
+    assertEquals(Phase.NOT_STARTED, loaded.getState("db", "col").getPhase());
+  }
+
+  @Test
+  public void resumedSyncCanBeMarkedAsNonDurable() throws Exception {
+    createManager().start(1L, new OpTime(DefaultBsonValues.newTimestamp(1482000000, 1), 1));
+
+    InitialSyncCheckpointManager resumed = createManager();
+    assertTrue(resumed.load().isPresent());
+    resumed.markNonDurable();
+
+    assertFalse(createManager().load().isPresent());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void markNonDurableWithoutSync() throws Exception {
+    createManager().markNonDurable();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.torodb.mongodb.repl.oplogreplier.analyzed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.torodb.core.language.AttributeReference;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import com.torodb.mongodb.language.update.IncrementUpdateAction;
+import com.torodb.mongodb.language.update.SetDocumentUpdateAction;
+import com.torodb.mongodb.language.update.SetFieldUpdateAction;
+import com.torodb.mongodb.language.update.UnsetFieldUpdateAction;
+import com.torodb.mongodb.language.update.UpdateAction;
+import com.torodb.mongodb.utils.DefaultIdUtils;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.function.Function;
+
+/**
+ *
+ */
+public class ModificationChainTest {
+
+  private final AttributeReference intAtt = new AttributeReference.Builder()
+      .addObjectKey("intAtt")
+      .build();
+  private final AttributeReference stringAtt = new AttributeReference.Builder()
+      .addObjectKey("stringAtt")
+      .build();
+
+  private KvDocument createDoc() {
+    return new KvDocument.Builder()
+        .putValue(DefaultIdUtils.ID_KEY, KvInteger.of(1))
+        .putValue("intAtt", KvInteger.of(10))
+        .putValue("stringAtt", new StringKvString("a string value"))
+        .build();
+  }
+
+  @Test
+  public void testEquivalentToSequentialApplication() {
+    UpdateAction inc = new IncrementUpdateAction(Collections.singleton(intAtt), KvInteger.of(3));
+    UpdateAction set = new SetFieldUpdateAction(Collections.singleton(stringAtt),
+        new StringKvString("another value"));
+    UpdateAction unset = new UnsetFieldUpdateAction(Collections.singleton(stringAtt));
+
+    ModificationChain chain = ModificationChain.andThen(Function.identity(), inc);
+    chain = ModificationChain.andThen(chain, set);
+    chain = ModificationChain.andThen(chain, inc);
+    chain = ModificationChain.andThen(chain, unset);
+
+    KvDocument expected = createDoc();
+    for (UpdateAction action : new UpdateAction[]{inc, set, inc, unset}) {
+      expected = UpdateActionsTool.applyModification(expected, action);
+    }
+
+    assertEquals(4, chain.getLength());
+    assertEquals(expected, chain.apply(createDoc()));
+  }
+
+  @Test
+  public void testChainsAreImmutable() {
+    UpdateAction inc = new IncrementUpdateAction(Collections.singleton(intAtt), KvInteger.of(3));
+
+    ModificationChain chain = ModificationChain.andThen(Function.identity(), inc);
+    ModificationChain longerChain = ModificationChain.andThen(chain, inc);
+
+    assertEquals(1, chain.getLength());
+    assertEquals(2, longerChain.getLength());
+    assertEquals(UpdateActionsTool.applyModification(createDoc(), inc), chain.apply(createDoc()));
+  }
+
+  @Test
+  public void testBaseFunctionIsAppliedFirst() {
+    UpdateAction inc = new IncrementUpdateAction(Collections.singleton(intAtt), KvInteger.of(3));
+    KvDocument base = createDoc();
+
+    ModificationChain chain = ModificationChain.andThen(ignored -> base, inc);
+    chain = ModificationChain.andThen(chain, inc);
+
+    KvDocument expected = UpdateActionsTool.applyModification(
+        UpdateActionsTool.applyModification(base, inc), inc);
+    assertEquals(expected, chain.apply(null));
+  }
+
+  @Test
+  public void testModifiedAttributesAreTheUnionOfTheActions() {
+    UpdateAction inc = new IncrementUpdateAction(Collections.singleton(intAtt), KvInteger.of(3));
+    UpdateAction set = new SetFieldUpdateAction(Collections.singleton(stringAtt),
+        new StringKvString("another value"));
+
+    ModificationChain chain = ModificationChain.andThen(Function.identity(), inc);
+    chain = ModificationChain.andThen(chain, set);
+    chain = ModificationChain.andThen(chain, inc);
+
+    assertEquals(new HashSet<>(Arrays.asList(intAtt, stringAtt)),
+        new HashSet<>(chain.getModifiedAttributes().get()));
+  }
+
+  @Test
+  public void testModifiedAttributesAreUnknownIfAnyActionReplacesTheDocument() {
+    UpdateAction inc = new IncrementUpdateAction(Collections.singleton(intAtt), KvInteger.of(3));
+    UpdateAction setDoc = new SetDocumentUpdateAction(createDoc());
+
+    ModificationChain chain = ModificationChain.andThen(Function.identity(), inc);
+    chain = ModificationChain.andThen(chain, setDoc);
+    chain = ModificationChain.andThen(chain, inc);
+
+    assertFalse(chain.getModifiedAttributes().isPresent());
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.mongodb.repl.oplogreplier.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.torodb.core.metrics.DisabledMetricRegistry;
+import com.torodb.mongodb.repl.oplogreplier.batch.ConcurrentOplogBatchExecutor.ConcurrentOplogBatchExecutorMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveSubBatchHeuristicTest {
+
+  private static final int MIN_SIZE = 10;
+  private static final int MAX_SIZE = 1000;
+  private static final int INITIAL_SIZE = 100;
+  private ConcurrentOplogBatchExecutorMetrics metrics;
+  private AdaptiveSubBatchHeuristic heuristic;
+
+  @Before
+  public void setUp() {
+    metrics = new ConcurrentOplogBatchExecutorMetrics(new DisabledMetricRegistry());
+    heuristic = new AdaptiveSubBatchHeuristic(Duration.ofMillis(100), MIN_SIZE, MAX_SIZE,
+        INITIAL_SIZE);
+  }
+
+  @Test
+  public void testInitialSize() {
+    assertEquals(INITIAL_SIZE, heuristic.getSubBatchSize(metrics));
+  }
+
+  @Test
+  public void testCheapOps() {
+    //100 ops in 1ms + 10ms of commit
+    heuristic.onSubBatchApplied(100, millis(1), millis(10));
+
+    assertEquals(MAX_SIZE, heuristic.getSubBatchSize(metrics));
+  }
+
+  @Test
+  public void testExpensiveOps() {
+    //100 ops in 200ms + 20ms of commit
+    heuristic.onSubBatchApplied(100, millis(200), millis(20));
+
+    assertEquals(40, heuristic.getSubBatchSize(metrics));
+  }
+
+  @Test
+  public void testVeryExpensiveOps() {
+    heuristic.onSubBatchApplied(10, millis(1000), millis(1));
+
+    assertEquals(MIN_SIZE, heuristic.getSubBatchSize(metrics));
+  }
+
+  @Test
+  public void testExpensiveCommit() {
+    heuristic.onSubBatchApplied(100, millis(1), millis(150));
+
+    assertEquals(MAX_SIZE, heuristic.getSubBatchSize(metrics));
+  }
+
+  @Test
+  public void testSmoothing() {
+    heuristic.onSubBatchApplied(100, millis(200), millis(20));
+    //a single cheap sub batch does not change the estimation completely
+    heuristic.onSubBatchApplied(100, millis(1), millis(20));
+
+    int size = heuristic.getSubBatchSize(metrics);
+    assertTrue("Expected a size bigger than 40, but " + size + " was found", size > 40);
+    assertTrue("Expected a size lower than 100, but " + size + " was found", size < 100);
+  }
+
+  @Test
+  public void testParallelism() {
+    heuristic.onSubBatchApplied(100, millis(1), millis(10));
+
+    assertEquals(250, heuristic.getSubBatchSize(metrics, 1000, 4));
+    assertEquals(MIN_SIZE, heuristic.getSubBatchSize(metrics, 20, 4));
+    assertEquals(MAX_SIZE, heuristic.getSubBatchSize(metrics, 1_000_000, 4));
+  }
+
+  @Test
+  public void testQueueDepth() {
+    //100 ops in 200ms + 20ms of commit
+    heuristic.onSubBatchApplied(100, millis(200), millis(20));
+    heuristic.onSubBatchStarted(0);
+
+    assertEquals(40, heuristic.getSubBatchSize(metrics, 1_000_000, 2));
+
+    //4 queued sub batches on 2 threads stretch the target latency to 300ms
+    heuristic = new AdaptiveSubBatchHeuristic(Duration.ofMillis(100), MIN_SIZE, MAX_SIZE,
+        INITIAL_SIZE);
+    heuristic.onSubBatchApplied(100, millis(200), millis(20));
+    heuristic.onSubBatchStarted(4);
+
+    assertEquals(140, heuristic.getSubBatchSize(metrics, 1_000_000, 2));
+  }
+
+  @Test
+  public void testQueueDepthStretchIsLimited() {
+    heuristic.onSubBatchApplied(100, millis(200), millis(20));
+    heuristic.onSubBatchStarted(100);
+
+    //the target latency is stretched up to 400ms
+    assertEquals(190, heuristic.getSubBatchSize(metrics, 1_000_000, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSizes() {
+    new AdaptiveSubBatchHeuristic(Duration.ofMillis(100), 100, 10, 50);
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+}
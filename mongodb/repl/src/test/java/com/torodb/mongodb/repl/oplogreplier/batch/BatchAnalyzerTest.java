@@ -0,0 +1,203 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.mongodb.repl.oplogreplier.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.mongodb.repl.oplogreplier.ApplierContext;
+import com.torodb.mongodb.repl.oplogreplier.OpTimeFactory;
+import com.torodb.mongodb.repl.oplogreplier.analyzed.AnalyzedOpReducer;
+import com.torodb.mongodb.utils.DefaultIdUtils;
+import com.torodb.mongodb.utils.NamespaceUtil;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.utils.DefaultBsonValues;
+import com.torodb.mongowp.commands.oplog.DbCmdOplogOperation;
+import com.torodb.mongowp.commands.oplog.InsertOplogOperation;
+import com.torodb.mongowp.commands.oplog.OplogOperation;
+import com.torodb.mongowp.commands.oplog.OplogVersion;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchAnalyzerTest {
+
+  private final OpTimeFactory opTimeFactory = new OpTimeFactory();
+  private BatchAnalyzer batchAnalyzer;
+  private int opCounter;
+
+  @Before
+  public void setUp() {
+    opCounter = 0;
+    ApplierContext context = new ApplierContext.Builder()
+        .setReapplying(true)
+        .setUpdatesAsUpserts(true)
+        .build();
+    batchAnalyzer = new BatchAnalyzer(context, DefaultLoggerFactory.getInstance(),
+        new AnalyzedOpReducer(false));
+  }
+
+  @Test
+  public void testOnlyCud() {
+    OplogOperation insert1 = insert("db", "col1");
+    OplogOperation insert2 = insert("db", "col2");
+
+    List<AnalyzedOplogBatch> result = batchAnalyzer.apply(Arrays.asList(insert1, insert2));
+
+    assertEquals(1, result.size());
+    assertCud(result.get(0), insert1, insert2);
+  }
+
+  @Test
+  public void testCollectionCommandOnlyBlocksItsNamespace() {
+    OplogOperation insert1 = insert("db", "col1");
+    OplogOperation drop = command("db", "drop", "col2");
+    OplogOperation insert2 = insert("db", "col1");
+    OplogOperation insert3 = insert("db", "col2");
+
+    List<AnalyzedOplogBatch> result = batchAnalyzer.apply(
+        Arrays.asList(insert1, drop, insert2, insert3));
+
+    assertEquals(3, result.size());
+    assertCud(result.get(0), insert1, insert2);
+    assertSingle(result.get(1), drop);
+    assertCud(result.get(2), insert3);
+  }
+
+  @Test
+  public void testDatabaseCommandBlocksItsDatabase() {
+    OplogOperation insert1 = insert("db1", "col");
+    OplogOperation dropDatabase = command("db1", "dropDatabase", 1);
+    OplogOperation insert2 = insert("db1", "otherCol");
+    OplogOperation insert3 = insert("db2", "col");
+
+    List<AnalyzedOplogBatch> result = batchAnalyzer.apply(
+        Arrays.asList(insert1, dropDatabase, insert2, insert3));
+
+    assertEquals(3, result.size());
+    assertCud(result.get(0), insert1, insert3);
+    assertSingle(result.get(1), dropDatabase);
+    assertCud(result.get(2), insert2);
+  }
+
+  @Test
+  public void testUnknownCommandBlocksEverything() {
+    OplogOperation insert1 = insert("db1", "col");
+    OplogOperation rename = command("admin", "renameCollection", "db1.col");
+    OplogOperation insert2 = insert("db2", "col");
+
+    List<AnalyzedOplogBatch> result = batchAnalyzer.apply(Arrays.asList(insert1, rename, insert2));
+
+    assertEquals(3, result.size());
+    assertCud(result.get(0), insert1);
+    assertSingle(result.get(1), rename);
+    assertCud(result.get(2), insert2);
+  }
+
+  @Test
+  public void testCommandsKeepTheirOrder() {
+    OplogOperation insert1 = insert("db", "col1");
+    OplogOperation create1 = command("db", "create", "col1");
+    OplogOperation insert2 = insert("db", "col1");
+    OplogOperation create2 = command("db", "create", "col2");
+    OplogOperation insert3 = insert("db", "col2");
+    OplogOperation insert4 = insert("db", "col3");
+
+    List<AnalyzedOplogBatch> result = batchAnalyzer.apply(
+        Arrays.asList(insert1, create1, insert2, create2, insert3, insert4));
+
+    assertEquals(5, result.size());
+    assertCud(result.get(0), insert1, insert4);
+    assertSingle(result.get(1), create1);
+    assertCud(result.get(2), insert2);
+    assertSingle(result.get(3), create2);
+    assertCud(result.get(4), insert3);
+  }
+
+  @Test
+  public void testIndexInsertBlocksItsNamespace() {
+    OplogOperation createIndex = new InsertOplogOperation(
+        DefaultBsonValues.newDocument("ns", DefaultBsonValues.newString("db.col1")),
+        "db",
+        NamespaceUtil.INDEXES_COLLECTION,
+        opTimeFactory.newOpTime(opCounter++),
+        opCounter,
+        OplogVersion.V1,
+        false);
+    OplogOperation insert1 = insert("db", "col1");
+    OplogOperation insert2 = insert("db", "col2");
+
+    List<AnalyzedOplogBatch> result = batchAnalyzer.apply(
+        Arrays.asList(createIndex, insert1, insert2));
+
+    assertEquals(3, result.size());
+    assertCud(result.get(0), insert2);
+    assertSingle(result.get(1), createIndex);
+    assertCud(result.get(2), insert1);
+  }
+
+  private void assertCud(AnalyzedOplogBatch batch, OplogOperation... expectedOps) {
+    assertTrue("A cud batch was expected, but " + batch + " was found",
+        batch instanceof CudAnalyzedOplogBatch);
+    assertEquals(Arrays.asList(expectedOps), ((CudAnalyzedOplogBatch) batch).getOriginalBatch());
+  }
+
+  private void assertSingle(AnalyzedOplogBatch batch, OplogOperation expectedOp) {
+    assertTrue("A single op batch was expected, but " + batch + " was found",
+        batch instanceof SingleOpAnalyzedOplogBatch);
+    assertEquals(expectedOp, ((SingleOpAnalyzedOplogBatch) batch).getOperation());
+  }
+
+  private OplogOperation insert(String db, String col) {
+    int i = opCounter++;
+    return new InsertOplogOperation(
+        DefaultBsonValues.newDocument(DefaultIdUtils.ID_KEY, DefaultBsonValues.newInt(i)),
+        db,
+        col,
+        opTimeFactory.newOpTime(i),
+        i,
+        OplogVersion.V1,
+        false);
+  }
+
+  private OplogOperation command(String db, String commandName, String arg) {
+    return command(db, DefaultBsonValues.newDocument(commandName,
+        DefaultBsonValues.newString(arg)));
+  }
+
+  private OplogOperation command(String db, String commandName, int arg) {
+    return command(db, DefaultBsonValues.newDocument(commandName, DefaultBsonValues.newInt(arg)));
+  }
+
+  private OplogOperation command(String db, BsonDocument request) {
+    int i = opCounter++;
+    return new DbCmdOplogOperation(
+        request,
+        db,
+        opTimeFactory.newOpTime(i),
+        i,
+        OplogVersion.V1,
+        false);
+  }
+
+}
@@ -27,6 +27,7 @@ import com.google.common.collect.Lists;
 import com.torodb.core.concurrent.ConcurrentToolsFactory;
 import com.torodb.core.concurrent.StreamExecutor;
 import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.core.metrics.SettableGauge;
 import com.torodb.core.retrier.Retrier;
 import com.torodb.kvdocument.values.KvInteger;
 import com.torodb.mongodb.core.MongodConnection;
@@ -133,7 +134,8 @@ public class ConcurrentOplogBatchExecutorTest {
     Meter mockMeter = mock(Meter.class);
 
     given(batch.streamNamespaceJobs()).willReturn(jobs.stream());
-    given(subBatchHeuristic.getSubBatchSize(any())).willReturn(subBatchSize);
+    given(subBatchHeuristic.getSubBatchSize(any(), anyInt(), anyInt())).willReturn(subBatchSize);
+    given(metrics.getSubBatchSizeLimit()).willReturn(new SettableGauge<>());
     given(metrics.getSubBatchSizeHistogram()).willReturn(mockHistogram);
     given(metrics.getSubBatchSizeMeter()).willReturn(mockMeter);
     given(streamExecutor.execute(any()))
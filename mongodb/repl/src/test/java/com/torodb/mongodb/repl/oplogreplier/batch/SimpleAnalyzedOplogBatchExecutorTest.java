@@ -35,6 +35,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
 import com.google.common.collect.Lists;
@@ -98,8 +99,12 @@ public class SimpleAnalyzedOplogBatchExecutorTest {
     given(conn.openWriteTransaction()).willReturn(writeTrans);
 
     given(metrics.getCudBatchSize()).willReturn(mock(Histogram.class));
+    given(metrics.getCudReducedBatchSize()).willReturn(mock(Histogram.class));
+    given(metrics.getCudReducedOps()).willReturn(mock(Meter.class));
     given(metrics.getCudBatchTimer()).willReturn(mock(Timer.class));
     given(metrics.getNamespaceBatchTimer()).willReturn(mock(Timer.class));
+    given(metrics.getNamespaceOpTimer()).willReturn(mock(Timer.class));
+    given(metrics.getNamespaceCommitTimer()).willReturn(mock(Timer.class));
     given(metrics.getCudBatchSize()).willReturn(mock(Histogram.class));
 
     actualExecutor.startAsync();
@@ -500,6 +505,7 @@ public class SimpleAnalyzedOplogBatchExecutorTest {
       success = false;
     }
     then(metrics.getCudBatchSize()).should().update(batch.getOriginalBatch().size());
+    then(metrics.getCudReducedBatchSize()).should().update(batch.getReducedSize());
     then(metrics).should().getCudBatchTimer();
     then(metrics.getCudBatchTimer()).should().time();
 
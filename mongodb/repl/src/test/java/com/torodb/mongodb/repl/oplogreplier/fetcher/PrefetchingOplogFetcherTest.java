@@ -0,0 +1,145 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.repl.oplogreplier.fetcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.torodb.mongodb.repl.oplogreplier.FinishedOplogBatch;
+import com.torodb.mongodb.repl.oplogreplier.NormalOplogBatch;
+import com.torodb.mongodb.repl.oplogreplier.RollbackReplicationException;
+import com.torodb.mongodb.repl.oplogreplier.StopReplicationException;
+import com.torodb.mongodb.repl.oplogreplier.batch.OplogBatch;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrefetchingOplogFetcherTest {
+
+  private final ThreadFactory threadFactory = runnable -> {
+    Thread thread = new Thread(runnable, "oplog-read-ahead-test");
+    thread.setDaemon(true);
+    return thread;
+  };
+
+  @Test
+  public void testBatchesAreReturnedInOrder() throws Exception {
+    OplogBatch batch1 = newBatch();
+    OplogBatch batch2 = newBatch();
+    ScriptedFetcher delegate = new ScriptedFetcher(batch1, batch2,
+        FinishedOplogBatch.getInstance());
+
+    try (PrefetchingOplogFetcher fetcher = new PrefetchingOplogFetcher(delegate, threadFactory,
+        2, Long.MAX_VALUE)) {
+      assertSame(batch1, fetcher.fetch());
+      assertSame(batch2, fetcher.fetch());
+      assertTrue(fetcher.fetch().isLastOne());
+    }
+    assertTrue(delegate.closed.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testErrorsAreThrownAfterPreviousBatches() throws Exception {
+    OplogBatch batch1 = newBatch();
+    ScriptedFetcher delegate = new ScriptedFetcher(batch1,
+        new RollbackReplicationException("rollback detected"));
+
+    try (PrefetchingOplogFetcher fetcher = new PrefetchingOplogFetcher(delegate, threadFactory,
+        4, Long.MAX_VALUE)) {
+      assertSame(batch1, fetcher.fetch());
+      try {
+        fetcher.fetch();
+        fail("A rollback was expected");
+      } catch (RollbackReplicationException ex) {
+        //expected
+      }
+    }
+  }
+
+  @Test
+  public void testReadAheadIsBounded() throws Exception {
+    ScriptedFetcher delegate = new ScriptedFetcher(newBatch(), newBatch(), newBatch(),
+        newBatch(), newBatch(), FinishedOplogBatch.getInstance());
+
+    try (PrefetchingOplogFetcher fetcher = new PrefetchingOplogFetcher(delegate, threadFactory,
+        2, Long.MAX_VALUE)) {
+      fetcher.fetch();
+      //give time to the read ahead thread to fill the buffer
+      Thread.sleep(200);
+      //one batch has been returned and two are waiting
+      assertEquals(3, delegate.fetchCalls.get());
+    }
+  }
+
+  @Test
+  public void testCloseWithoutFetching() throws Exception {
+    ScriptedFetcher delegate = new ScriptedFetcher();
+
+    PrefetchingOplogFetcher fetcher = new PrefetchingOplogFetcher(delegate, threadFactory, 2,
+        Long.MAX_VALUE);
+    fetcher.close();
+
+    assertTrue(delegate.closed.await(10, TimeUnit.SECONDS));
+    assertTrue(fetcher.fetch().isLastOne());
+    assertEquals(0, delegate.fetchCalls.get());
+  }
+
+  private static OplogBatch newBatch() {
+    return new NormalOplogBatch(Collections.emptyList(), true);
+  }
+
+  private static class ScriptedFetcher implements OplogFetcher {
+
+    private final Deque<Object> script;
+    private final AtomicInteger fetchCalls = new AtomicInteger();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private ScriptedFetcher(Object... script) {
+      this.script = new ArrayDeque<>();
+      Collections.addAll(this.script, script);
+    }
+
+    @Override
+    public OplogBatch fetch() throws StopReplicationException, RollbackReplicationException {
+      fetchCalls.incrementAndGet();
+      Object next = script.poll();
+      if (next == null) {
+        return FinishedOplogBatch.getInstance();
+      }
+      if (next instanceof RollbackReplicationException) {
+        throw (RollbackReplicationException) next;
+      }
+      return (OplogBatch) next;
+    }
+
+    @Override
+    public void close() {
+      closed.countDown();
+    }
+  }
+
+}
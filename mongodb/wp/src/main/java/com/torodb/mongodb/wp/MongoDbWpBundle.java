@@ -31,6 +31,7 @@ import java.util.Collections;
 public class MongoDbWpBundle extends AbstractBundle<MongoDbWpExtInt> {
   private final MongoDbCoreBundle coreBundle;
   private final NettyMongoServer nettyMongoServer;
+  private final TorodbSafeRequestProcessor requestProcessor;
 
   public MongoDbWpBundle(MongoDbWpConfig config) {
     super(config);
@@ -41,6 +42,7 @@ public class MongoDbWpBundle extends AbstractBundle<MongoDbWpExtInt> {
             config.getPort()
         ));
     this.nettyMongoServer = injector.getInstance(NettyMongoServer.class);
+    this.requestProcessor = injector.getInstance(TorodbSafeRequestProcessor.class);
     this.coreBundle = config.getCoreBundle();
   }
 
@@ -54,6 +56,7 @@ public class MongoDbWpBundle extends AbstractBundle<MongoDbWpExtInt> {
   protected void preDependenciesShutDown() throws Exception {
     nettyMongoServer.stopAsync();
     nettyMongoServer.awaitTerminated();
+    requestProcessor.shutDown();
   }
 
   @Override
@@ -0,0 +1,73 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.wp;
+
+import com.torodb.mongodb.core.MongodServer;
+import com.torodb.mongodb.core.MongodStatusCounters;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Counts the bytes received from and sent to the clients on the {@link MongodStatusCounters} of
+ * the server.
+ *
+ * <p>It must be the first handler of the pipeline, so it sees the bytes as they are read from and
+ * written to the socket.
+ */
+@Sharable
+@Singleton
+public class NetworkCountersHandler extends ChannelDuplexHandler {
+
+  public static final String NAME = "torodb-network-counters";
+
+  private final MongodStatusCounters counters;
+
+  @Inject
+  public NetworkCountersHandler(MongodServer server) {
+    this(server.getStatusCounters());
+  }
+
+  NetworkCountersHandler(MongodStatusCounters counters) {
+    this.counters = counters;
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof ByteBuf) {
+      counters.getBytesIn().add(((ByteBuf) msg).readableBytes());
+    }
+    super.channelRead(ctx, msg);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof ByteBuf) {
+      counters.getBytesOut().add(((ByteBuf) msg).readableBytes());
+    }
+    super.write(ctx, msg, promise);
+  }
+
+}
@@ -19,22 +19,39 @@
 package com.torodb.mongodb.wp;
 
 import com.codahale.metrics.Timer;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.torodb.core.concurrent.ConcurrentToolsFactory;
+import com.torodb.core.cursors.CursorId;
 import com.torodb.core.retrier.Retrier;
 import com.torodb.core.retrier.RetrierGiveUpException;
 import com.torodb.mongodb.commands.CommandClassifier;
 import com.torodb.mongodb.commands.RequiredTransaction;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteArgument;
 import com.torodb.mongodb.commands.signatures.general.FindCommand;
 import com.torodb.mongodb.commands.signatures.general.FindCommand.FindArgument;
 import com.torodb.mongodb.commands.signatures.general.FindCommand.FindResult;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand.GetMoreArgument;
+import com.torodb.mongodb.commands.signatures.general.GetMoreCommand.GetMoreResult;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertArgument;
+import com.torodb.mongodb.commands.signatures.general.UpdateCommand;
+import com.torodb.mongodb.commands.signatures.general.UpdateCommand.UpdateArgument;
 import com.torodb.mongodb.core.ExclusiveWriteMongodTransaction;
 import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongodb.core.MongodCursorManager;
 import com.torodb.mongodb.core.MongodMetrics;
 import com.torodb.mongodb.core.MongodServer;
+import com.torodb.mongodb.core.MongodStatusCounters;
+import com.torodb.mongodb.core.MongodStatusCounters.OpCounters;
+import com.torodb.mongodb.core.MongodStatusCounters.OpType;
 import com.torodb.mongodb.core.ReadOnlyMongodTransaction;
 import com.torodb.mongodb.core.WriteMongodTransaction;
 import com.torodb.mongowp.ErrorCode;
 import com.torodb.mongowp.Status;
+import com.torodb.mongowp.bson.BsonDocument;
 import com.torodb.mongowp.bson.utils.DefaultBsonValues;
 import com.torodb.mongowp.commands.Command;
 import com.torodb.mongowp.commands.CommandLibrary;
@@ -53,7 +70,13 @@ import com.torodb.mongowp.messages.utils.IterableDocumentProvider;
 import io.netty.util.AttributeKey;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
@@ -69,17 +92,27 @@ public class TorodbSafeRequestProcessor implements SafeRequestProcessor<MongodCo
   private final CommandLibrary commandLibrary;
   private final CommandClassifier commandClassifier;
   private final MongodMetrics mongodMetrics;
+  private final ExecutorService unacknowledgedWritesExecutor;
+  /**
+   * The queues of unacknowledged writes of the open connections, by connection id. Entries are
+   * removed, and their queues closed, when their connections are closed.
+   */
+  private final ConcurrentMap<Integer, UnacknowledgedWriteQueue> unacknowledgedWriteQueues =
+      new ConcurrentHashMap<>();
 
   @Inject
   public TorodbSafeRequestProcessor(MongodServer server, Retrier retrier,
       CommandLibrary commandLibrary, CommandClassifier commandClassifier,
-      MongodMetrics mongodMetrics) {
+      MongodMetrics mongodMetrics, ConcurrentToolsFactory concurrentToolsFactory) {
     this.server = server;
     this.retrier = retrier;
     this.commandLibrary = commandLibrary;
     this.commandClassifier = commandClassifier;
     this.mongodMetrics = mongodMetrics;
     this.logger = server.getLoggerFactory().apply(this.getClass());
+    this.unacknowledgedWritesExecutor = concurrentToolsFactory.createExecutorService(
+        "unacknowledged-writes", true);
+    server.addConnectionCloseListener(this::onConnectionClosed);
   }
 
   @Override
@@ -94,7 +127,17 @@ public class TorodbSafeRequestProcessor implements SafeRequestProcessor<MongodCo
   @Override
   public <A, R> Status<R> execute(Request req, Command<? super A, ? super R> command,
       A arg, MongodConnection connection) {
+    try {
+      awaitUnacknowledgedWrites(connection);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return Status.from(ErrorCode.OPERATION_FAILED,
+          "Interrupted while waiting for the previous writes of the connection");
+    }
     mongodMetrics.getCommands().mark();
+    MongodStatusCounters statusCounters = server.getStatusCounters();
+    statusCounters.getRequests().increment();
+    countOperation(statusCounters.getOpCounters(), command, arg);
     Timer timer = mongodMetrics.getTimer(command);
     try (Timer.Context ctx = timer.time()) {
       Callable<Status<R>> callable;
@@ -107,24 +150,31 @@ public class TorodbSafeRequestProcessor implements SafeRequestProcessor<MongodCo
           break;
         case READ_TRANSACTION:
           callable = () -> {
+            statusCounters.getActiveReaders().increment();
             try (ReadOnlyMongodTransaction trans = connection.openReadOnlyTransaction()) {
               return trans.execute(req, command, arg);
+            } finally {
+              statusCounters.getActiveReaders().decrement();
             }
           };
           break;
         case WRITE_TRANSACTION:
           callable = () -> {
+            statusCounters.getActiveWriters().increment();
             try (WriteMongodTransaction trans = connection.openWriteTransaction(true)) {
               Status<R> result = trans.execute(req, command, arg);
               if (result.isOk()) {
                 trans.commit();
               }
               return result;
+            } finally {
+              statusCounters.getActiveWriters().decrement();
             }
           };
           break;
         case EXCLUSIVE_WRITE_TRANSACTION:
           callable = () -> {
+            statusCounters.getActiveWriters().increment();
             try (ExclusiveWriteMongodTransaction trans = connection.openExclusiveWriteTransaction(
                 true)) {
               Status<R> result = trans.execute(req, command, arg);
@@ -132,6 +182,8 @@ public class TorodbSafeRequestProcessor implements SafeRequestProcessor<MongodCo
                 trans.commit();
               }
               return result;
+            } finally {
+              statusCounters.getActiveWriters().decrement();
             }
           };
           break;
@@ -174,6 +226,8 @@ public class TorodbSafeRequestProcessor implements SafeRequestProcessor<MongodCo
 
     FindResult result = status.getResult();
     assert result != null;
+    List<BsonDocument> firstBatch = Lists.newArrayList(result.getCursor().getFirstBatch());
+    server.getStatusCounters().getReturnedDocuments().add(firstBatch.size());
 
     return new ReplyMessage(
         EmptyBsonContext.getInstance(),
@@ -184,7 +238,7 @@ public class TorodbSafeRequestProcessor implements SafeRequestProcessor<MongodCo
         false,
         result.getCursor().getCursorId(),
         queryRequest.getNumberToSkip(),
-        IterableDocumentProvider.of(Lists.newArrayList(result.getCursor().getFirstBatch()))
+        IterableDocumentProvider.of(firstBatch)
     );
   }
 
@@ -192,32 +246,158 @@ public class TorodbSafeRequestProcessor implements SafeRequestProcessor<MongodCo
   public ReplyMessage getMore(MongodConnection connection, Request req, int requestId,
       GetMoreMessage moreMessage)
       throws MongoException {
-    throw new UnsupportedOperationException("Not supported yet.");
+    int numberToReturn = Math.abs(moreMessage.getNumberToReturn());
+    GetMoreArgument getMoreArg = new GetMoreArgument(moreMessage.getCursorId(),
+        moreMessage.getCollection(),
+        numberToReturn > 0 ? OptionalInt.of(numberToReturn) : OptionalInt.empty());
+
+    Status<GetMoreResult> status = execute(req, GetMoreCommand.INSTANCE, getMoreArg, connection);
+
+    if (!status.isOk()) {
+      if (status.getErrorCode() == ErrorCode.CURSOR_NOT_FOUND) {
+        return new ReplyMessage(
+            EmptyBsonContext.getInstance(),
+            requestId,
+            true,
+            false,
+            false,
+            false,
+            0,
+            0,
+            IterableDocumentProvider.of(Collections.<BsonDocument>emptyList())
+        );
+      }
+      throw new MongoException(status.getErrorCode(), status.getErrorMsg());
+    }
+
+    GetMoreResult result = status.getResult();
+    assert result != null;
+    server.getStatusCounters().getReturnedDocuments().add(result.getNextBatch().size());
+
+    return new ReplyMessage(
+        EmptyBsonContext.getInstance(),
+        requestId,
+        false,
+        false,
+        false,
+        false,
+        result.getCursorId(),
+        0,
+        IterableDocumentProvider.of(result.getNextBatch())
+    );
   }
 
   @Override
   public void killCursors(MongodConnection connection, Request req,
       KillCursorsMessage killCursorsMessage)
       throws MongoException {
-    throw new UnsupportedOperationException("Not supported yet.");
+    MongodCursorManager cursorManager = server.getCursorManager();
+    for (long cursorId : killCursorsMessage.getCursorIds()) {
+      cursorManager.kill(new CursorId(cursorId));
+    }
   }
 
   @Override
   public void insert(MongodConnection connection, Request req, InsertMessage insertMessage) throws
       MongoException {
-    throw new UnsupportedOperationException("Not supported yet.");
+    try {
+      getUnacknowledgedWriteQueue(connection).addInsert(req, insertMessage.getCollection(),
+          insertMessage.getDocuments().getIterable(), insertMessage.isFlagsContinueOnError());
+    } catch (InterruptedException ex) {
+      throw interruptedWrite(ex);
+    }
   }
 
   @Override
   public void update(MongodConnection connection, Request req, UpdateMessage updateMessage) throws
       MongoException {
-    throw new UnsupportedOperationException("Not supported yet.");
+    try {
+      getUnacknowledgedWriteQueue(connection).addUpdate(req, updateMessage.getCollection(),
+          updateMessage.getSelector(), updateMessage.getUpdate(), updateMessage.isUpsert(),
+          updateMessage.isMultiUpdate());
+    } catch (InterruptedException ex) {
+      throw interruptedWrite(ex);
+    }
   }
 
   @Override
   public void delete(MongodConnection connection, Request req, DeleteMessage deleteMessage) throws
       MongoException {
-    throw new UnsupportedOperationException("Not supported yet.");
+    try {
+      getUnacknowledgedWriteQueue(connection).addDelete(req, deleteMessage.getCollection(),
+          deleteMessage.getDocument(), deleteMessage.isSingleRemove());
+    } catch (InterruptedException ex) {
+      throw interruptedWrite(ex);
+    }
+  }
+
+  /**
+   * Executes the pending unacknowledged writes and stops accepting new ones.
+   */
+  public void shutDown() {
+    for (UnacknowledgedWriteQueue queue : unacknowledgedWriteQueues.values()) {
+      try {
+        queue.awaitDrained();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    for (Integer connectionId : unacknowledgedWriteQueues.keySet()) {
+      onConnectionClosed(connectionId);
+    }
+    unacknowledgedWritesExecutor.shutdown();
+  }
+
+  /**
+   * Counts the operations of the given command as serverStatus does: inserts are counted per
+   * document, updates and deletes per statement and any other command once.
+   */
+  private static void countOperation(OpCounters opCounters, Command<?, ?> command, Object arg) {
+    if (command == InsertCommand.INSTANCE) {
+      opCounters.add(OpType.INSERT, ((InsertArgument) arg).getDocuments().size());
+    } else if (command == UpdateCommand.INSTANCE) {
+      opCounters.add(OpType.UPDATE, Iterables.size(((UpdateArgument) arg).getStatements()));
+    } else if (command == DeleteCommand.INSTANCE) {
+      opCounters.add(OpType.DELETE, Iterables.size(((DeleteArgument) arg).getStatements()));
+    } else if (command == FindCommand.INSTANCE) {
+      opCounters.increment(OpType.QUERY);
+    } else if (command == GetMoreCommand.INSTANCE) {
+      opCounters.increment(OpType.GETMORE);
+    } else {
+      opCounters.increment(OpType.COMMAND);
+    }
+  }
+
+  private UnacknowledgedWriteQueue getUnacknowledgedWriteQueue(MongodConnection connection) {
+    return unacknowledgedWriteQueues.computeIfAbsent(connection.getConnectionId(),
+        id -> new UnacknowledgedWriteQueue(logger, server::openConnection, this::execute,
+            unacknowledgedWritesExecutor));
+  }
+
+  private void awaitUnacknowledgedWrites(MongodConnection connection)
+      throws InterruptedException {
+    UnacknowledgedWriteQueue queue = unacknowledgedWriteQueues.get(connection.getConnectionId());
+    if (queue != null) {
+      queue.awaitDrained();
+    }
+  }
+
+  /**
+   * Closes the queue of unacknowledged writes of the given connection, if it has one. The queue
+   * closes its own connection once its pending writes have been executed.
+   */
+  private void onConnectionClosed(int connectionId) {
+    UnacknowledgedWriteQueue queue = unacknowledgedWriteQueues.remove(connectionId);
+    if (queue != null) {
+      queue.close();
+    }
+  }
+
+  private MongoException interruptedWrite(InterruptedException ex) {
+    Thread.currentThread().interrupt();
+    return new MongoException(ErrorCode.OPERATION_FAILED,
+        "Interrupted while waiting for the previous writes of the connection");
   }
 
 }
@@ -0,0 +1,365 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.wp;
+
+import com.google.common.base.Preconditions;
+import com.torodb.kvdocument.conversion.mongowp.MongoWpConverter;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteArgument;
+import com.torodb.mongodb.commands.signatures.general.DeleteCommand.DeleteStatement;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertArgument;
+import com.torodb.mongodb.commands.signatures.general.UpdateCommand;
+import com.torodb.mongodb.commands.signatures.general.UpdateCommand.UpdateArgument;
+import com.torodb.mongodb.commands.signatures.general.UpdateCommand.UpdateStatement;
+import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongowp.Status;
+import com.torodb.mongowp.WriteConcern;
+import com.torodb.mongowp.WriteConcern.SyncMode;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.commands.Command;
+import com.torodb.mongowp.commands.Request;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The legacy write messages (OP_INSERT, OP_UPDATE and OP_DELETE) received on a connection that
+ * have not been executed yet.
+ *
+ * <p>The wire protocol does not acknowledge these messages, so they are executed in background
+ * while the next messages of the connection are read. Pending consecutive inserts on the same
+ * collection are merged into a single insert command, so clients that send lots of small insert
+ * messages do not pay a transaction for each one. As an insert command is executed on a single
+ * transaction, if a merged insert fails its messages are executed again one by one, so a message
+ * cannot make the ones it was merged with fail.
+ *
+ * <p>Writes are executed in the order they were received, using a connection owned by this
+ * queue. {@link #awaitDrained()} must be called before any other request of the client
+ * connection is executed, so it sees the effects of the previous writes.
+ */
+@ThreadSafe
+class UnacknowledgedWriteQueue implements AutoCloseable {
+
+  private static final int MAX_PENDING_WRITES = 64;
+  private static final int MAX_MERGED_INSERT_DOCUMENTS = 1000;
+  private static final WriteConcern UNACKNOWLEDGED = WriteConcern.with(SyncMode.NONE, 0, 0);
+
+  private final Logger logger;
+  private final Supplier<MongodConnection> connectionFactory;
+  private final WriteCommandExecutor commandExecutor;
+  private final Executor executor;
+  @GuardedBy("this")
+  private final Deque<PendingWrite> pendingWrites = new ArrayDeque<>();
+  @GuardedBy("this")
+  private boolean draining = false;
+  @GuardedBy("this")
+  private boolean closed = false;
+  /**
+   * Only used by the drain task, of which there is at most one running at the same time.
+   */
+  private MongodConnection writeConnection;
+
+  /**
+   * @param connectionFactory the factory of the connection used to execute the writes
+   * @param commandExecutor   the executor of the commands the writes are translated to
+   * @param executor          the executor where the writes are executed
+   */
+  UnacknowledgedWriteQueue(Logger logger, Supplier<MongodConnection> connectionFactory,
+      WriteCommandExecutor commandExecutor, Executor executor) {
+    this.logger = logger;
+    this.connectionFactory = connectionFactory;
+    this.commandExecutor = commandExecutor;
+    this.executor = executor;
+  }
+
+  void addInsert(Request req, String collection, Iterable<? extends BsonDocument> documents,
+      boolean continueOnError) throws InterruptedException {
+    List<BsonDocument> documentList = new ArrayList<>();
+    for (BsonDocument document : documents) {
+      documentList.add(toHeapDocument(document));
+    }
+    add(new PendingInsert(req, collection, documentList, !continueOnError));
+  }
+
+  void addUpdate(Request req, String collection, BsonDocument selector, BsonDocument update,
+      boolean upsert, boolean multi) throws InterruptedException {
+    add(new PendingUpdate(req, collection, new UpdateStatement(toHeapDocument(selector),
+        toHeapDocument(update), upsert, multi)));
+  }
+
+  void addDelete(Request req, String collection, @Nullable BsonDocument selector,
+      boolean justOne) throws InterruptedException {
+    add(new PendingDelete(req, collection, new DeleteStatement(
+        selector == null ? null : toHeapDocument(selector), justOne)));
+  }
+
+  /**
+   * Waits until all the writes added before have been executed.
+   */
+  synchronized void awaitDrained() throws InterruptedException {
+    while (draining) {
+      wait();
+    }
+  }
+
+  /**
+   * Closes the connection used to execute the writes once the pending ones have been executed.
+   */
+  @Override
+  public void close() {
+    MongodConnection connectionToClose;
+    synchronized (this) {
+      closed = true;
+      if (draining) {
+        return;
+      }
+      connectionToClose = writeConnection;
+      writeConnection = null;
+    }
+    if (connectionToClose != null) {
+      connectionToClose.close();
+    }
+  }
+
+  /**
+   * Copies the given document, which may be backed by the buffer of the message it was read from,
+   * to the heap, as the message is released once it has been processed.
+   */
+  private static BsonDocument toHeapDocument(BsonDocument document) {
+    return (BsonDocument) MongoWpConverter.translate(MongoWpConverter.toEagerDocument(document));
+  }
+
+  private synchronized void add(PendingWrite write) throws InterruptedException {
+    Preconditions.checkState(!closed, "The queue is closed");
+    while (pendingWrites.size() >= MAX_PENDING_WRITES) {
+      wait();
+    }
+    PendingWrite last = pendingWrites.peekLast();
+    if (last == null || !last.merge(write)) {
+      pendingWrites.addLast(write);
+    }
+    if (!draining) {
+      draining = true;
+      try {
+        executor.execute(this::drain);
+      } catch (RejectedExecutionException ex) {
+        pendingWrites.clear();
+        draining = false;
+        notifyAll();
+        throw ex;
+      }
+    }
+  }
+
+  private void drain() {
+    while (true) {
+      PendingWrite write;
+      synchronized (this) {
+        write = pendingWrites.pollFirst();
+        if (write == null) {
+          draining = false;
+          notifyAll();
+          if (closed && writeConnection != null) {
+            writeConnection.close();
+            writeConnection = null;
+          }
+          return;
+        }
+        notifyAll();
+      }
+      execute(write);
+    }
+  }
+
+  private void execute(PendingWrite write) {
+    if (tryExecute(write)) {
+      return;
+    }
+    List<PendingWrite> messages = write.split();
+    if (messages.size() > 1) {
+      logger.debug("Executing the {} messages merged on {} one by one", messages.size(), write);
+      for (PendingWrite message : messages) {
+        tryExecute(message);
+      }
+    }
+  }
+
+  /**
+   * Executes the given write, logging its error if it fails.
+   *
+   * @return true iff the write has been executed without errors
+   */
+  private boolean tryExecute(PendingWrite write) {
+    try {
+      if (writeConnection == null) {
+        writeConnection = connectionFactory.get();
+      }
+      Status<?> status = write.execute(commandExecutor, writeConnection);
+      if (!status.isOk()) {
+        logger.warn("Unacknowledged {} failed: {}", write, status.getErrorMsg());
+        return false;
+      }
+      return true;
+    } catch (RuntimeException ex) {
+      logger.warn("Error while executing an unacknowledged " + write, ex);
+      return false;
+    }
+  }
+
+  /**
+   * Executes the commands the pending writes are translated to.
+   */
+  interface WriteCommandExecutor {
+
+    <A, R> Status<R> execute(Request req, Command<? super A, ? super R> command, A arg,
+        MongodConnection connection);
+  }
+
+  private abstract static class PendingWrite {
+
+    protected final Request req;
+    protected final String collection;
+
+    PendingWrite(Request req, String collection) {
+      this.req = req;
+      this.collection = collection;
+    }
+
+    /**
+     * Tries to merge the given write, which has been received just after this one, into this
+     * one.
+     */
+    boolean merge(PendingWrite next) {
+      return false;
+    }
+
+    /**
+     * Returns the writes, one per received message, this write has been merged from.
+     */
+    List<PendingWrite> split() {
+      return Collections.singletonList(this);
+    }
+
+    abstract Status<?> execute(WriteCommandExecutor commandExecutor,
+        MongodConnection connection);
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + " on " + req.getDatabase() + '.' + collection;
+    }
+  }
+
+  private static class PendingInsert extends PendingWrite {
+
+    private final List<BsonDocument> documents;
+    private final boolean ordered;
+    /**
+     * The inserts this one has been merged from, or an empty list if it has not been merged.
+     */
+    private final List<PendingInsert> messages = new ArrayList<>();
+
+    PendingInsert(Request req, String collection, List<BsonDocument> documents,
+        boolean ordered) {
+      super(req, collection);
+      this.documents = documents;
+      this.ordered = ordered;
+    }
+
+    @Override
+    boolean merge(PendingWrite next) {
+      if (!(next instanceof PendingInsert)) {
+        return false;
+      }
+      PendingInsert nextInsert = (PendingInsert) next;
+      if (!req.getDatabase().equals(nextInsert.req.getDatabase())
+          || !collection.equals(nextInsert.collection)
+          || ordered != nextInsert.ordered
+          || documents.size() + nextInsert.documents.size() > MAX_MERGED_INSERT_DOCUMENTS) {
+        return false;
+      }
+      if (messages.isEmpty()) {
+        messages.add(new PendingInsert(req, collection, new ArrayList<>(documents), ordered));
+      }
+      messages.add(nextInsert);
+      documents.addAll(nextInsert.documents);
+      return true;
+    }
+
+    @Override
+    List<PendingWrite> split() {
+      if (messages.isEmpty()) {
+        return super.split();
+      }
+      return Collections.<PendingWrite>unmodifiableList(messages);
+    }
+
+    @Override
+    Status<?> execute(WriteCommandExecutor commandExecutor, MongodConnection connection) {
+      InsertArgument arg = new InsertArgument(collection, documents, UNACKNOWLEDGED, ordered,
+          null);
+      return commandExecutor.execute(req, InsertCommand.INSTANCE, arg, connection);
+    }
+  }
+
+  private static class PendingUpdate extends PendingWrite {
+
+    private final UpdateStatement statement;
+
+    PendingUpdate(Request req, String collection, UpdateStatement statement) {
+      super(req, collection);
+      this.statement = statement;
+    }
+
+    @Override
+    Status<?> execute(WriteCommandExecutor commandExecutor, MongodConnection connection) {
+      UpdateArgument arg = new UpdateArgument(collection,
+          Collections.singletonList(statement), true, UNACKNOWLEDGED);
+      return commandExecutor.execute(req, UpdateCommand.INSTANCE, arg, connection);
+    }
+  }
+
+  private static class PendingDelete extends PendingWrite {
+
+    private final DeleteStatement statement;
+
+    PendingDelete(Request req, String collection, DeleteStatement statement) {
+      super(req, collection);
+      this.statement = statement;
+    }
+
+    @Override
+    Status<?> execute(WriteCommandExecutor commandExecutor, MongodConnection connection) {
+      DeleteArgument arg = new DeleteArgument(collection,
+          Collections.singletonList(statement), true, UNACKNOWLEDGED);
+      return commandExecutor.execute(req, DeleteCommand.INSTANCE, arg, connection);
+    }
+  }
+}
@@ -27,9 +27,11 @@ import com.torodb.core.logging.LoggerFactory;
 import com.torodb.mongodb.commands.CommandClassifier;
 import com.torodb.mongodb.core.MongoDbCoreBundle;
 import com.torodb.mongodb.core.MongoDbCoreExtInt;
+import com.torodb.mongodb.core.MongodConnection;
 import com.torodb.mongodb.core.MongodMetrics;
 import com.torodb.mongodb.core.MongodServer;
 import com.torodb.mongodb.core.ToroErrorHandler;
+import com.torodb.mongodb.wp.NetworkCountersHandler;
 import com.torodb.mongodb.wp.TorodbSafeRequestProcessor;
 import com.torodb.mongowp.MongoServerConfig;
 import com.torodb.mongowp.annotations.MongoWp;
@@ -62,6 +64,7 @@ import com.torodb.mongowp.server.wp.ReplyMessageObjectHandler;
 import com.torodb.mongowp.server.wp.RequestIdGenerator;
 import com.torodb.mongowp.server.wp.RequestMessageByteHandler;
 import com.torodb.mongowp.server.wp.RequestMessageObjectHandler;
+import io.netty.channel.Channel;
 
 import java.util.concurrent.ThreadFactory;
 
@@ -79,6 +82,7 @@ public class MongoDbWpModule extends PrivateModule {
   protected void configure() {
     expose(NettyMongoServer.class);
     expose(MongoServerConfig.class);
+    expose(TorodbSafeRequestProcessor.class);
 
     install(new WpToDefaultModule());
 
@@ -122,6 +126,8 @@ public class MongoDbWpModule extends PrivateModule {
     bind(ReplyMessageObjectHandler.class);
     bind(TorodbSafeRequestProcessor.class)
         .in(Singleton.class);
+    bind(NetworkCountersHandler.class)
+        .in(Singleton.class);
 
     bind(ReplyMessageEncoder.class)
         .in(Singleton.class);
@@ -172,8 +178,14 @@ public class MongoDbWpModule extends PrivateModule {
 
   @Provides
   RequestProcessor createRequestProcessorAdaptor(TorodbSafeRequestProcessor tsrp,
-      ErrorHandler errorHandler) {
-    return new RequestProcessorAdaptor<>(tsrp, errorHandler);
+      ErrorHandler errorHandler, NetworkCountersHandler networkCountersHandler) {
+    return new RequestProcessorAdaptor<MongodConnection>(tsrp, errorHandler) {
+      @Override
+      public void onChannelActive(Channel channel) {
+        channel.pipeline().addFirst(NetworkCountersHandler.NAME, networkCountersHandler);
+        super.onChannelActive(channel);
+      }
+    };
   }
 
   private void bindCore() {
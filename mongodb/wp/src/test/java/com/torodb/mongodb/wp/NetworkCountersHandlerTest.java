@@ -0,0 +1,48 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.wp;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.mongodb.core.MongodStatusCounters;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+public class NetworkCountersHandlerTest {
+
+  @Test
+  public void bytesAreCounted() {
+    MongodStatusCounters counters = new MongodStatusCounters();
+    EmbeddedChannel channel = new EmbeddedChannel(new NetworkCountersHandler(counters));
+
+    channel.writeInbound(Unpooled.wrappedBuffer(new byte[16]));
+    channel.writeInbound(Unpooled.wrappedBuffer(new byte[4]));
+    channel.writeOutbound(Unpooled.wrappedBuffer(new byte[36]));
+
+    assertEquals(20, counters.getBytesIn().sum());
+    assertEquals(36, counters.getBytesOut().sum());
+    ((ByteBuf) channel.readInbound()).release();
+    ((ByteBuf) channel.readInbound()).release();
+    ((ByteBuf) channel.readOutbound()).release();
+    channel.finish();
+  }
+
+}
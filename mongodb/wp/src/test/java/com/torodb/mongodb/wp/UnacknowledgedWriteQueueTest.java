@@ -0,0 +1,225 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.mongodb.wp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.mongodb.commands.signatures.general.InsertCommand.InsertArgument;
+import com.torodb.mongodb.core.MongodConnection;
+import com.torodb.mongodb.wp.UnacknowledgedWriteQueue.WriteCommandExecutor;
+import com.torodb.mongowp.ErrorCode;
+import com.torodb.mongowp.Status;
+import com.torodb.mongowp.bson.BsonDocument;
+import com.torodb.mongowp.bson.utils.DefaultBsonValues;
+import com.torodb.mongowp.commands.Command;
+import com.torodb.mongowp.commands.Request;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+public class UnacknowledgedWriteQueueTest {
+
+  private static final Request REQUEST = new Request("db", null, true, null);
+  private static final long BLOCKED_MILLIS = 200;
+
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final List<String> executed = new CopyOnWriteArrayList<>();
+  private Predicate<String> failing;
+  private UnacknowledgedWriteQueue queue;
+
+  @Before
+  public void setUp() {
+    failing = write -> false;
+    WriteCommandExecutor commandExecutor = new WriteCommandExecutor() {
+      @Override
+      public <A, R> Status<R> execute(Request req, Command<? super A, ? super R> command, A arg,
+          MongodConnection connection) {
+        String write = describe(command, arg);
+        executed.add(write);
+        if (failing.test(write)) {
+          return Status.from(ErrorCode.COMMAND_FAILED, "failed " + write);
+        }
+        return Status.ok(null);
+      }
+    };
+    queue = new UnacknowledgedWriteQueue(
+        DefaultLoggerFactory.getInstance().apply(getClass()),
+        () -> null,
+        commandExecutor,
+        tasks::add);
+  }
+
+  @Test
+  public void writesAreExecutedInOrder() throws InterruptedException {
+    queue.addInsert(REQUEST, "col", docs(0, 1), false);
+    queue.addUpdate(REQUEST, "col", doc(0), doc(1), false, false);
+    queue.addDelete(REQUEST, "col", doc(0), true);
+    queue.addInsert(REQUEST, "col", docs(1, 1), false);
+
+    runTasks();
+
+    assertEquals(Arrays.asList("insert col [0]", "update col", "delete col", "insert col [1]"),
+        executed);
+  }
+
+  @Test
+  public void consecutiveInsertsAreMerged() throws InterruptedException {
+    queue.addInsert(REQUEST, "col", docs(0, 2), false);
+    queue.addInsert(REQUEST, "col", docs(2, 1), false);
+
+    runTasks();
+
+    assertEquals(Collections.singletonList("insert col [0, 1, 2]"), executed);
+  }
+
+  @Test
+  public void insertsOnDifferentCollectionsOrFlagsAreNotMerged() throws InterruptedException {
+    queue.addInsert(REQUEST, "col1", docs(0, 1), false);
+    queue.addInsert(REQUEST, "col2", docs(1, 1), false);
+    queue.addInsert(REQUEST, "col2", docs(2, 1), true);
+
+    runTasks();
+
+    assertEquals(Arrays.asList("insert col1 [0]", "insert col2 [1]", "insert col2 [2]"),
+        executed);
+  }
+
+  @Test
+  public void mergedInsertsAreLimited() throws InterruptedException {
+    queue.addInsert(REQUEST, "col", docs(0, 600), false);
+    queue.addInsert(REQUEST, "col", docs(600, 600), false);
+
+    runTasks();
+
+    assertEquals(2, executed.size());
+  }
+
+  @Test
+  public void failedMergedInsertIsExecutedMessageByMessage() throws InterruptedException {
+    failing = write -> write.contains("1");
+    queue.addInsert(REQUEST, "col", docs(0, 1), false);
+    queue.addInsert(REQUEST, "col", docs(1, 1), false);
+    queue.addInsert(REQUEST, "col", docs(2, 1), false);
+
+    runTasks();
+
+    assertEquals(Arrays.asList("insert col [0, 1, 2]", "insert col [0]", "insert col [1]",
+        "insert col [2]"), executed);
+  }
+
+  @Test
+  public void addBlocksWhenTooManyWritesArePending() throws InterruptedException {
+    for (int i = 0; i < 64; i++) {
+      queue.addDelete(REQUEST, "col", doc(i), true);
+    }
+    Thread producer = new Thread(() -> {
+      try {
+        queue.addDelete(REQUEST, "col", doc(64), true);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    producer.start();
+    producer.join(BLOCKED_MILLIS);
+    assertTrue("The producer should be blocked", producer.isAlive());
+
+    runTasks();
+    producer.join(TimeUnit.SECONDS.toMillis(10));
+    runTasks();
+
+    assertFalse(producer.isAlive());
+    assertEquals(65, executed.size());
+  }
+
+  @Test
+  public void awaitDrainedWaitsForPendingWrites() throws InterruptedException {
+    queue.addDelete(REQUEST, "col", doc(0), true);
+    Thread waiter = new Thread(() -> {
+      try {
+        queue.awaitDrained();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    waiter.start();
+    waiter.join(BLOCKED_MILLIS);
+    assertTrue("awaitDrained should wait for the pending delete", waiter.isAlive());
+
+    runTasks();
+    waiter.join(TimeUnit.SECONDS.toMillis(10));
+
+    assertFalse(waiter.isAlive());
+    assertEquals(1, executed.size());
+  }
+
+  @Test
+  public void awaitDrainedReturnsWhenThereAreNoWrites() throws InterruptedException {
+    queue.awaitDrained();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void closedQueueRejectsWrites() throws InterruptedException {
+    queue.close();
+    queue.addDelete(REQUEST, "col", doc(0), true);
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private static String describe(Command<?, ?> command, Object arg) {
+    if (arg instanceof InsertArgument) {
+      InsertArgument insertArg = (InsertArgument) arg;
+      List<Integer> ids = new ArrayList<>();
+      for (BsonDocument doc : insertArg.getDocuments()) {
+        ids.add(doc.get("_id").asNumber().intValue());
+      }
+      return command.getCommandName() + " " + insertArg.getCollection() + " " + ids;
+    }
+    return command.getCommandName() + " col";
+  }
+
+  private static BsonDocument doc(int id) {
+    return DefaultBsonValues.newDocument("_id", DefaultBsonValues.newInt(id));
+  }
+
+  private static List<BsonDocument> docs(int firstId, int count) {
+    List<BsonDocument> docs = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      docs.add(doc(firstId + i));
+    }
+    return docs;
+  }
+
+}
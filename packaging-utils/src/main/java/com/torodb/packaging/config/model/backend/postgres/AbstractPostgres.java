@@ -33,6 +33,9 @@ public abstract class AbstractPostgres implements BackendImplementation, Backend
   private String applicationName;
   private Boolean includeForeignKeys;
   private Boolean ssl;
+  private Boolean binaryCopy = false;
+  private Boolean unloggedImport = false;
+  private Integer ridWarmUpParallelism = 0;
 
   protected AbstractPostgres(String host, Integer port, String database, String user,
       String password, String toropassFile,
@@ -128,6 +131,30 @@ public abstract class AbstractPostgres implements BackendImplementation, Backend
     this.ssl = ssl;
   }
 
+  public Boolean getBinaryCopy() {
+    return binaryCopy;
+  }
+
+  public void setBinaryCopy(Boolean binaryCopy) {
+    this.binaryCopy = binaryCopy;
+  }
+
+  public Boolean getUnloggedImport() {
+    return unloggedImport;
+  }
+
+  public void setUnloggedImport(Boolean unloggedImport) {
+    this.unloggedImport = unloggedImport;
+  }
+
+  public Integer getRidWarmUpParallelism() {
+    return ridWarmUpParallelism;
+  }
+
+  public void setRidWarmUpParallelism(Integer ridWarmUpParallelism) {
+    this.ridWarmUpParallelism = ridWarmUpParallelism;
+  }
+
   @Override
   public <R, A> R accept(BackendImplementationVisitor<R, A> visitor, A arg) {
     return visitor.visit(this, arg);
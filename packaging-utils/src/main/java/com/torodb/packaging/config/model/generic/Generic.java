@@ -20,7 +20,9 @@ package com.torodb.packaging.config.model.generic;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.torodb.core.d2r.impl.D2RModule.R2DImplementation;
 import com.torodb.core.metrics.MetricsConfig;
+import com.torodb.core.transaction.metainf.impl.MetainfModule.MetainfoRepositoryImplementation;
 import com.torodb.packaging.config.annotation.Description;
 import com.torodb.packaging.config.model.backend.ConnectionPoolConfig;
 
@@ -56,6 +58,13 @@ public class Generic implements ConnectionPoolConfig, MetricsConfig {
   private Integer reservedReadPoolSize = 10;
   @Description("config.generic.metricsEnabled")
   private Boolean metricsEnabled = false;
+  @Description("config.generic.r2dImplementation")
+  @NotNull
+  private R2DImplementation r2dImplementation = R2DImplementation.ROW;
+  @Description("config.generic.metainfoRepositoryImplementation")
+  @NotNull
+  private MetainfoRepositoryImplementation metainfoRepositoryImplementation =
+      MetainfoRepositoryImplementation.MVCC;
 
   public LogLevel getLogLevel() {
     return logLevel;
@@ -127,4 +136,25 @@ public class Generic implements ConnectionPoolConfig, MetricsConfig {
     }
   }
 
+  public R2DImplementation getR2dImplementation() {
+    return r2dImplementation;
+  }
+
+  public void setR2dImplementation(R2DImplementation r2dImplementation) {
+    if (r2dImplementation != null) {
+      this.r2dImplementation = r2dImplementation;
+    }
+  }
+
+  public MetainfoRepositoryImplementation getMetainfoRepositoryImplementation() {
+    return metainfoRepositoryImplementation;
+  }
+
+  public void setMetainfoRepositoryImplementation(
+      MetainfoRepositoryImplementation metainfoRepositoryImplementation) {
+    if (metainfoRepositoryImplementation != null) {
+      this.metainfoRepositoryImplementation = metainfoRepositoryImplementation;
+    }
+  }
+
 }
@@ -19,6 +19,7 @@
 package com.torodb.packaging.config.util;
 
 import com.google.inject.Injector;
+import com.google.inject.Stage;
 import com.torodb.backend.BackendConfig;
 import com.torodb.backend.BackendConfigImpl;
 import com.torodb.backend.BackendConfigImplBuilder;
@@ -28,17 +29,39 @@ import com.torodb.backend.derby.driver.DerbyDbBackendConfigBuilder;
 import com.torodb.backend.postgresql.PostgreSqlBackendBundle;
 import com.torodb.core.backend.BackendBundle;
 import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.d2r.impl.D2RModule.R2DImplementation;
+import com.torodb.core.guice.EssentialInjectorFactory;
+import com.torodb.core.logging.LoggerFactory;
 import com.torodb.packaging.config.model.backend.AbstractBackend;
 import com.torodb.packaging.config.model.backend.ConnectionPoolConfig;
 import com.torodb.packaging.config.model.backend.derby.AbstractDerby;
 import com.torodb.packaging.config.model.backend.postgres.AbstractPostgres;
+import com.torodb.packaging.config.model.generic.Generic;
 import com.torodb.torod.SqlTorodBundle;
 import com.torodb.torod.SqlTorodConfig;
 import com.torodb.torod.TorodBundle;
 
+import java.time.Clock;
+
 public class BundleFactory {
   private BundleFactory() {}
 
+  /**
+   * Creates the essential injector configured with the metrics and the
+   * {@link com.torodb.core.transaction.metainf.MetainfoRepository} implementation of the given
+   * {@link Generic} configuration.
+   */
+  public static Injector createEssentialInjector(LoggerFactory lifecycleLoggerFactory,
+      Generic generic, Clock clock) {
+    return EssentialInjectorFactory.createEssentialInjector(
+        lifecycleLoggerFactory,
+        generic,
+        clock,
+        Stage.PRODUCTION,
+        generic.getMetainfoRepositoryImplementation()
+    );
+  }
+
   /**
    * Creates a {@link BackendBundle} configured with the given {@link AbstractBackend}.
    */
@@ -63,6 +86,10 @@ public class BundleFactory {
                 .setReservedReadPoolSize(connPoolConf.getReservedReadPoolSize())
                 .setUsername(value.getUser())
                 .setSslEnabled(value.getSsl())
+                .setBinaryCopyEnabled(Boolean.TRUE.equals(value.getBinaryCopy()))
+                .setUnloggedImportEnabled(Boolean.TRUE.equals(value.getUnloggedImport()))
+                .setRidWarmUpParallelism(value.getRidWarmUpParallelism() == null ? 0
+                    : value.getRidWarmUpParallelism())
                 .build();
             return new PostgreSqlBackendBundle(config);
           }
@@ -95,11 +122,48 @@ public class BundleFactory {
   public static TorodBundle createTorodBundle(
       BundleConfig generalConfig,
       BackendBundle backendBundle) {
+    return createTorodBundle(generalConfig, backendBundle, R2DImplementation.ROW);
+  }
+
+  /**
+   * Creates a {@link TorodBundle} that translates the rows read from the backend to documents
+   * with the {@link R2DImplementation} of the given {@link Generic} configuration.
+   */
+  public static TorodBundle createTorodBundle(
+      BundleConfig generalConfig,
+      BackendBundle backendBundle,
+      Generic generic) {
+    return new SqlTorodBundle(createTorodConfig(generalConfig, backendBundle, generic));
+  }
+
+  /**
+   * Creates a {@link TorodBundle} that translates the rows read from the backend to documents
+   * with the given {@link R2DImplementation}.
+   */
+  public static TorodBundle createTorodBundle(
+      BundleConfig generalConfig,
+      BackendBundle backendBundle,
+      R2DImplementation r2dImplementation) {
+    return new SqlTorodBundle(createTorodConfig(generalConfig, backendBundle, r2dImplementation));
+  }
+
+  static SqlTorodConfig createTorodConfig(
+      BundleConfig generalConfig,
+      BackendBundle backendBundle,
+      Generic generic) {
+    return createTorodConfig(generalConfig, backendBundle, generic.getR2dImplementation());
+  }
+
+  private static SqlTorodConfig createTorodConfig(
+      BundleConfig generalConfig,
+      BackendBundle backendBundle,
+      R2DImplementation r2dImplementation) {
     Injector essentialInjector = generalConfig.getEssentialInjector();
-    return new SqlTorodBundle(new SqlTorodConfig(
+    return new SqlTorodConfig(
         backendBundle,
         essentialInjector, 
-        generalConfig.getSupervisor()
-    ));
+        generalConfig.getSupervisor(),
+        r2dImplementation
+    );
   }
 }
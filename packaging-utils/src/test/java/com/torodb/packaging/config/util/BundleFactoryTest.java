@@ -0,0 +1,50 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.packaging.config.util;
+
+import static org.junit.Assert.assertEquals;
+
+import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.bundle.BundleConfigImpl;
+import com.torodb.core.d2r.impl.D2RModule.R2DImplementation;
+import com.torodb.packaging.config.model.generic.Generic;
+import org.junit.Test;
+
+public class BundleFactoryTest {
+
+  private final BundleConfig generalConfig = new BundleConfigImpl(null, null);
+
+  @Test
+  public void defaultR2dImplementationTest() throws Exception {
+    Generic generic = ConfigUtils.readConfigFromYaml(Generic.class, "logFile: torodb.log");
+
+    assertEquals(R2DImplementation.ROW,
+        BundleFactory.createTorodConfig(generalConfig, null, generic).getR2dImplementation());
+  }
+
+  @Test
+  public void configuredR2dImplementationTest() throws Exception {
+    Generic generic = ConfigUtils.readConfigFromYaml(Generic.class,
+        "r2dImplementation: COLUMNAR");
+
+    assertEquals(R2DImplementation.COLUMNAR,
+        BundleFactory.createTorodConfig(generalConfig, null, generic).getR2dImplementation());
+  }
+
+}
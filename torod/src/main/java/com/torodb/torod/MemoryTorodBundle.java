@@ -40,9 +40,16 @@ public class MemoryTorodBundle extends AbstractTorodBundle {
   private final InsertPipelineFactory insertPipelineFactory;
 
   public MemoryTorodBundle(BundleConfig config) {
+    this(config, new MemoryTorodModule());
+  }
+
+  /**
+   * Creates a bundle whose {@link TorodServer} is provided by the given module, like
+   * {@link com.torodb.torod.guice.ConcurrentMemoryTorodModule}.
+   */
+  public MemoryTorodBundle(BundleConfig config, MemoryTorodModule torodModule) {
     super(config);
-    Injector injector = config.getEssentialInjector().createChildInjector(
-        new MemoryTorodModule());
+    Injector injector = config.getEssentialInjector().createChildInjector(torodModule);
     this.torodServer = injector.getInstance(TorodServer.class);
     this.reservedIdGenerator = new MemoryRidGenerator();
     this.insertPipelineFactory = injector.getInstance(InsertPipelineFactory.class);
@@ -23,11 +23,14 @@ import com.torodb.core.cursors.IteratorCursor;
 import com.torodb.core.document.ToroDocument;
 import com.torodb.core.exceptions.user.UserException;
 import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.RollbackException;
 import com.torodb.kvdocument.values.KvDocument;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.torod.cursors.TorodCursor;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -50,11 +53,43 @@ public interface SharedWriteTorodTransaction extends TorodTransaction {
 
   public void delete(String dbName, String colName, Cursor<Integer> cursor);
 
+  /**
+   * Replaces a stored document with a new version of it.
+   *
+   * <p>The given attributes are the only ones whose value can differ between both versions.
+   * Implementations can use them to modify the stored document in place, but they are free to
+   * delete the old version and insert the new one, which is what this default implementation
+   * does.
+   *
+   * @param oldDoc             the stored document
+   * @param newDoc             the new version of the document
+   * @param modifiedAttributes the attributes that may have changed
+   */
+  public default void update(String dbName, String colName, ToroDocument oldDoc,
+      KvDocument newDoc, Collection<AttributeReference> modifiedAttributes)
+      throws RollbackException, UserException {
+    delete(dbName, colName, Collections.singletonList(oldDoc));
+    insert(dbName, colName, Stream.of(newDoc));
+  }
+
   public long deleteAll(String dbName, String colName);
 
   public long deleteByAttRef(String dbName, String colName, AttributeReference attRef,
       KvValue<?> value);
 
+  /**
+   * Deletes all documents on the given collection that fulfill the given criteria.
+   *
+   * @return the number of deleted documents
+   */
+  public default long deleteByCriteria(String dbName, String colName, QueryCriteria criteria) {
+    List<Integer> dids = findByCriteria(dbName, colName, criteria)
+        .asDidCursor()
+        .getRemaining();
+    delete(dbName, colName, new IteratorCursor<>(dids.iterator()));
+    return dids.size();
+  }
+
   public void dropCollection(String db, String collection) throws RollbackException, UserException;
 
   public void createCollection(String db, String collection)
@@ -21,20 +21,32 @@ package com.torodb.torod;
 import com.google.inject.Injector;
 import com.torodb.core.backend.BackendBundle;
 import com.torodb.core.bundle.BundleConfigImpl;
+import com.torodb.core.d2r.impl.D2RModule.R2DImplementation;
 import com.torodb.core.supervision.Supervisor;
 
 
 public class SqlTorodConfig extends BundleConfigImpl {
   private final BackendBundle backendBundle;
+  private final R2DImplementation r2dImplementation;
 
   public SqlTorodConfig(BackendBundle backendBundle, Injector essentialInjector,
       Supervisor supervisor) {
+    this(backendBundle, essentialInjector, supervisor, R2DImplementation.ROW);
+  }
+
+  public SqlTorodConfig(BackendBundle backendBundle, Injector essentialInjector,
+      Supervisor supervisor, R2DImplementation r2dImplementation) {
     super(essentialInjector, supervisor);
     this.backendBundle = backendBundle;
+    this.r2dImplementation = r2dImplementation;
   }
 
   public BackendBundle getBackendBundle() {
     return backendBundle;
   }
+
+  public R2DImplementation getR2dImplementation() {
+    return r2dImplementation;
+  }
   
 }
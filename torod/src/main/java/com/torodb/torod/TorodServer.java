@@ -19,8 +19,12 @@
 package com.torodb.torod;
 
 import com.torodb.common.util.Empty;
+import com.torodb.core.backend.ConnectionPoolStats;
 import com.torodb.core.services.TorodbService;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -33,4 +37,36 @@ public interface TorodServer extends TorodbService {
   public CompletableFuture<Empty> disableDataImportMode(String dbName);
 
   public CompletableFuture<Empty> enableDataImportMode(String dbName);
+
+  /**
+   * Returns true if some data imported on data import mode could have been lost because that mode
+   * was not disabled before the server stopped.
+   */
+  public default boolean isImportedDataLossPossible() {
+    return false;
+  }
+
+  /**
+   * Returns true if the data imported on data import mode is stored as durably as on the normal
+   * mode, even before that mode is disabled.
+   */
+  public default boolean isDataImportModeDurable() {
+    return true;
+  }
+
+  /**
+   * Returns the max number of read only transactions that can be open at the same time, or an
+   * empty value if there is no such limit.
+   */
+  public default OptionalInt getMaxReadOnlyTransactions() {
+    return OptionalInt.empty();
+  }
+
+  /**
+   * Returns the state of the pools of connections the backend keeps with its database, which is
+   * empty if the backend does not use pools.
+   */
+  public default List<ConnectionPoolStats> getConnectionPoolStats() {
+    return Collections.emptyList();
+  }
 }
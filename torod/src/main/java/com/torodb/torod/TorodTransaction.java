@@ -22,6 +22,7 @@ import com.torodb.core.cursors.Cursor;
 import com.torodb.core.exceptions.user.CollectionNotFoundException;
 import com.torodb.core.exceptions.user.IndexNotFoundException;
 import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.torod.cursors.TorodCursor;
 import org.jooq.lambda.tuple.Tuple2;
@@ -55,6 +56,12 @@ public interface TorodTransaction extends AutoCloseable {
   public TorodCursor findByAttRef(String dbName, String colName, AttributeReference attRef,
       KvValue<?> value);
 
+  /**
+   * Returns a cursor that iterates over all documents on the given collection that fulfill the
+   * given criteria.
+   */
+  public TorodCursor findByCriteria(String dbName, String colName, QueryCriteria criteria);
+
   public TorodCursor findByAttRefIn(String dbName, String colName, AttributeReference attRef,
       Collection<KvValue<?>> values);
 
@@ -45,11 +45,7 @@ public class MemoryTorodModule extends PrivateModule {
 
     install(new EssentialToDefaultModule());
 
-    bind(MemoryTorodServer.class)
-        .in(Singleton.class);
-
-    bind(TorodServer.class)
-        .to(MemoryTorodServer.class);
+    bindTorodServer();
 
     bind(InsertPipelineFactory.class)
         .to(MemoryInsertPipelineFactory.class)
@@ -59,6 +55,17 @@ public class MemoryTorodModule extends PrivateModule {
         .to(BackendConnectionJobFactoryImpl.class);
   }
 
+  /**
+   * Binds the {@link TorodServer} implementation exposed by this module.
+   */
+  protected void bindTorodServer() {
+    bind(MemoryTorodServer.class)
+        .in(Singleton.class);
+
+    bind(TorodServer.class)
+        .to(MemoryTorodServer.class);
+  }
+
   private static class MemoryInsertPipelineFactory extends AbstractService
       implements InsertPipelineFactory {
 
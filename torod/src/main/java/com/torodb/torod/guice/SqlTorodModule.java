@@ -57,7 +57,7 @@ public class SqlTorodModule extends PrivateModule {
 
     install(new EssentialToDefaultModule());
 
-    install(new D2RModule());
+    install(new D2RModule(config.getR2dImplementation()));
 
     install(new FactoryModuleBuilder()
         .implement(SameThreadInsertPipeline.class, SameThreadInsertPipeline.class)
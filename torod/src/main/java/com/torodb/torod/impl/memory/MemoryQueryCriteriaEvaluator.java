@@ -0,0 +1,160 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.torodb.torod.impl.memory;
+
+import com.torodb.core.language.querycriteria.AndQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.ExistsQueryCriteria;
+import com.torodb.core.language.querycriteria.InQueryCriteria;
+import com.torodb.core.language.querycriteria.OrQueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteriaVisitor;
+import com.torodb.core.language.querycriteria.TrueQueryCriteria;
+import com.torodb.core.util.AttributeRefKvDocResolver;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvNumeric;
+import com.torodb.kvdocument.values.KvString;
+import com.torodb.kvdocument.values.KvValue;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Evaluates a {@link com.torodb.core.language.querycriteria.QueryCriteria} on a document using
+ * the same semantics the SQL backends use.
+ */
+public class MemoryQueryCriteriaEvaluator implements QueryCriteriaVisitor<Boolean, KvDocument> {
+
+  public static final MemoryQueryCriteriaEvaluator INSTANCE = new MemoryQueryCriteriaEvaluator();
+
+  private MemoryQueryCriteriaEvaluator() {
+  }
+
+  @Override
+  public Boolean visit(TrueQueryCriteria criteria, KvDocument arg) {
+    return true;
+  }
+
+  @Override
+  public Boolean visit(AndQueryCriteria criteria, KvDocument arg) {
+    return criteria.getSubCriteria().stream()
+        .allMatch(sub -> sub.accept(this, arg));
+  }
+
+  @Override
+  public Boolean visit(OrQueryCriteria criteria, KvDocument arg) {
+    return criteria.getSubCriteria().stream()
+        .anyMatch(sub -> sub.accept(this, arg));
+  }
+
+  @Override
+  public Boolean visit(ComparisonQueryCriteria criteria, KvDocument arg) {
+    Optional<KvValue<?>> resolved = AttributeRefKvDocResolver.resolve(
+        criteria.getAttributeReference(), arg);
+    if (!resolved.isPresent()) {
+      return false;
+    }
+    OptionalInt comparison = compare(resolved.get(), criteria.getValue());
+    if (!comparison.isPresent()) {
+      return false;
+    }
+    int result = comparison.getAsInt();
+    switch (criteria.getOperator()) {
+      case EQ:
+        return result == 0;
+      case GT:
+        return result > 0;
+      case GTE:
+        return result >= 0;
+      case LT:
+        return result < 0;
+      case LTE:
+        return result <= 0;
+      default:
+        throw new AssertionError("Unexpected operator " + criteria.getOperator());
+    }
+  }
+
+  @Override
+  public Boolean visit(InQueryCriteria criteria, KvDocument arg) {
+    Optional<KvValue<?>> resolved = AttributeRefKvDocResolver.resolve(
+        criteria.getAttributeReference(), arg);
+    if (!resolved.isPresent()) {
+      return false;
+    }
+    return criteria.getValues().stream()
+        .anyMatch(value -> {
+          OptionalInt comparison = compare(resolved.get(), value);
+          return comparison.isPresent() && comparison.getAsInt() == 0;
+        });
+  }
+
+  @Override
+  public Boolean visit(ExistsQueryCriteria criteria, KvDocument arg) {
+    boolean exists = AttributeRefKvDocResolver.resolve(criteria.getAttributeReference(), arg)
+        .isPresent();
+    return exists == criteria.isExists();
+  }
+
+  /**
+   * Compares two values, returning an empty optional if they are not comparable.
+   *
+   * <p>Numeric values are compared by their numeric value, whatever their type is. Strings are
+   * compared by code point, as MongoDB and the SQL backends do. Other values are only comparable
+   * with values of the same type.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static OptionalInt compare(KvValue<?> docValue, KvValue<?> criteriaValue) {
+    if (docValue instanceof KvNumeric && criteriaValue instanceof KvNumeric) {
+      return OptionalInt.of(Double.compare(
+          ((KvNumeric<?>) docValue).doubleValue(),
+          ((KvNumeric<?>) criteriaValue).doubleValue()));
+    }
+    if (!docValue.getType().equals(criteriaValue.getType())) {
+      return OptionalInt.empty();
+    }
+    if (docValue.equals(criteriaValue)) {
+      return OptionalInt.of(0);
+    }
+    if (docValue instanceof KvString) {
+      return OptionalInt.of(compareCodePoints(((KvString) docValue).getValue(),
+          ((KvString) criteriaValue).getValue()));
+    }
+    Object docInnerValue = docValue.getValue();
+    if (docInnerValue instanceof Comparable) {
+      return OptionalInt.of(((Comparable) docInnerValue).compareTo(criteriaValue.getValue()));
+    }
+    return OptionalInt.empty();
+  }
+
+  private static int compareCodePoints(String s1, String s2) {
+    int i1 = 0;
+    int i2 = 0;
+    while (i1 < s1.length() && i2 < s2.length()) {
+      int cp1 = s1.codePointAt(i1);
+      int cp2 = s2.codePointAt(i2);
+      if (cp1 != cp2) {
+        return Integer.compare(cp1, cp2);
+      }
+      i1 += Character.charCount(cp1);
+      i2 += Character.charCount(cp2);
+    }
+    return Integer.compare(s1.length() - i1, s2.length() - i2);
+  }
+}
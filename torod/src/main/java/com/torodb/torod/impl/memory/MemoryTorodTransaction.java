@@ -25,6 +25,7 @@ import com.torodb.core.document.ToroDocument;
 import com.torodb.core.exceptions.user.CollectionNotFoundException;
 import com.torodb.core.exceptions.user.IndexNotFoundException;
 import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.util.AttributeRefKvDocResolver;
 import com.torodb.kvdocument.values.KvDocument;
 import com.torodb.kvdocument.values.KvValue;
@@ -110,6 +111,13 @@ public abstract class MemoryTorodTransaction implements TorodTransaction {
     return createCursor(streamByAttRef(dbName, colName, attRef, value));
   }
 
+  @Override
+  public TorodCursor findByCriteria(String dbName, String colName, QueryCriteria criteria) {
+    return createCursor(getTransaction().streamCollection(dbName, colName)
+        .filter(doc -> criteria.accept(MemoryQueryCriteriaEvaluator.INSTANCE, doc.getRoot()))
+    );
+  }
+
   @Override
   public TorodCursor findByAttRefIn(String dbName, String colName, AttributeReference attRef,
       Collection<KvValue<?>> values) {
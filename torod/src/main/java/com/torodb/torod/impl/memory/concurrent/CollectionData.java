@@ -0,0 +1,214 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.exceptions.user.UniqueIndexViolationException;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.util.AttributeRefKvDocResolver;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.torod.IndexInfo;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The documents stored on a collection and the indexes defined on them.
+ *
+ * <p>Instances are immutable: modifications return a new instance that shares most of its
+ * structure with the previous one, so a transaction can keep reading an old version while other
+ * transactions modify the collection.
+ */
+@Immutable
+final class CollectionData {
+
+  private static final String ID_KEY = "_id";
+  private static final String ID_INDEX_NAME = "_id_";
+  private static final AttributeReference ID_ATT_REF = new AttributeReference.Builder()
+      .addObjectKey(ID_KEY)
+      .build();
+  static final CollectionData EMPTY = new CollectionData(PersistentHashMap.empty(),
+      PersistentHashMap.empty(), PersistentHashMap.empty());
+
+  private final PersistentHashMap<Integer, KvDocument> docs;
+  /**
+   * The did of the document that has each _id, which is always unique.
+   */
+  private final PersistentHashMap<KvValue<?>, Integer> idIndex;
+  private final PersistentHashMap<String, MemoryIndex> indexes;
+
+  private CollectionData(PersistentHashMap<Integer, KvDocument> docs,
+      PersistentHashMap<KvValue<?>, Integer> idIndex,
+      PersistentHashMap<String, MemoryIndex> indexes) {
+    this.docs = docs;
+    this.idIndex = idIndex;
+    this.indexes = indexes;
+  }
+
+  int size() {
+    return docs.size();
+  }
+
+  /**
+   * Returns an estimation of the bytes used by the documents stored on this collection.
+   *
+   * <p>This method visits all documents, so its cost is linear on the collection size.
+   */
+  long estimateDocumentsSize() {
+    return docs.values()
+        .mapToLong(KvValueSizeEstimator::estimate)
+        .sum();
+  }
+
+  /**
+   * Returns an estimation of the bytes used by the indexes defined on this collection, including
+   * the implicit {@code _id} index.
+   */
+  long estimateIndexesSize() {
+    long idIndexSize = idIndex.keys()
+        .mapToLong(id -> KvValueSizeEstimator.estimate(id) + MemoryIndex.DID_SIZE)
+        .sum();
+    return idIndexSize + indexes.values()
+        .mapToLong(MemoryIndex::estimateSize)
+        .sum();
+  }
+
+  Stream<ToroDocument> streamDocs() {
+    return docs.stream()
+        .map(CollectionData::entryToDocument);
+  }
+
+  @Nullable
+  ToroDocument getDoc(int did) {
+    KvDocument doc = docs.get(did);
+    if (doc == null) {
+      return null;
+    }
+    return new ToroDocument(did, doc);
+  }
+
+  /**
+   * Returns the documents whose value on the given attribute is equal to the given one, using an
+   * index if there is one on the given attribute.
+   */
+  Stream<ToroDocument> streamByAttRef(AttributeReference attRef, KvValue<?> value) {
+    if (attRef.equals(ID_ATT_REF)) {
+      Integer did = idIndex.get(value);
+      return did == null ? Stream.empty() : Stream.of(new ToroDocument(did, docs.get(did)));
+    }
+    Optional<MemoryIndex> index = indexes.values()
+        .filter(candidate -> candidate.isOn(attRef))
+        .findAny();
+    if (index.isPresent()) {
+      return index.get().lookup(value)
+          .map(this::getDoc);
+    }
+    return streamDocs()
+        .filter(doc -> {
+          Optional<KvValue<?>> resolved = AttributeRefKvDocResolver.resolve(
+              attRef, doc.getRoot());
+          return resolved.isPresent() && value.equals(resolved.get());
+        });
+  }
+
+  Stream<IndexInfo> streamIndexInfos() {
+    return indexes.values()
+        .map(MemoryIndex::getInfo);
+  }
+
+  boolean containsIndex(String indexName) {
+    return indexes.containsKey(indexName);
+  }
+
+  CollectionData insert(int did, KvDocument doc) throws UniqueIndexViolationException {
+    KvValue<?> id = doc.get(ID_KEY);
+    PersistentHashMap<KvValue<?>, Integer> newIdIndex = idIndex;
+    if (id != null) {
+      if (idIndex.containsKey(id)) {
+        throw new UniqueIndexViolationException(ID_INDEX_NAME, doc);
+      }
+      newIdIndex = idIndex.plus(id, did);
+    }
+    PersistentHashMap<String, MemoryIndex> newIndexes = indexes;
+    Iterator<MemoryIndex> indexIt = indexes.values().iterator();
+    while (indexIt.hasNext()) {
+      MemoryIndex index = indexIt.next();
+      newIndexes = newIndexes.plus(index.getName(), index.add(did, doc));
+    }
+    return new CollectionData(docs.plus(did, doc), newIdIndex, newIndexes);
+  }
+
+  CollectionData delete(int did) {
+    KvDocument doc = docs.get(did);
+    if (doc == null) {
+      return this;
+    }
+    KvValue<?> id = doc.get(ID_KEY);
+    PersistentHashMap<KvValue<?>, Integer> newIdIndex = idIndex;
+    if (id != null && Integer.valueOf(did).equals(idIndex.get(id))) {
+      newIdIndex = idIndex.minus(id);
+    }
+    PersistentHashMap<String, MemoryIndex> newIndexes = indexes;
+    Iterator<MemoryIndex> indexIt = indexes.values().iterator();
+    while (indexIt.hasNext()) {
+      MemoryIndex index = indexIt.next();
+      newIndexes = newIndexes.plus(index.getName(), index.remove(did, doc));
+    }
+    return new CollectionData(docs.minus(did), newIdIndex, newIndexes);
+  }
+
+  CollectionData deleteAll() {
+    PersistentHashMap<String, MemoryIndex> newIndexes = indexes;
+    Iterator<MemoryIndex> indexIt = indexes.values().iterator();
+    while (indexIt.hasNext()) {
+      MemoryIndex index = indexIt.next();
+      newIndexes = newIndexes.plus(index.getName(), index.clear());
+    }
+    return new CollectionData(PersistentHashMap.empty(), PersistentHashMap.empty(), newIndexes);
+  }
+
+  /**
+   * Returns a collection that contains a new index, which is populated with the documents stored
+   * on this collection.
+   */
+  CollectionData addIndex(IndexInfo indexInfo) throws UniqueIndexViolationException {
+    MemoryIndex index = MemoryIndex.empty(indexInfo);
+    Iterator<Map.Entry<Integer, KvDocument>> docIt = docs.stream().iterator();
+    while (docIt.hasNext()) {
+      Map.Entry<Integer, KvDocument> entry = docIt.next();
+      index = index.add(entry.getKey(), entry.getValue());
+    }
+    return new CollectionData(docs, idIndex, indexes.plus(index.getName(), index));
+  }
+
+  CollectionData removeIndex(String indexName) {
+    return new CollectionData(docs, idIndex, indexes.minus(indexName));
+  }
+
+  private static ToroDocument entryToDocument(Map.Entry<Integer, KvDocument> entry) {
+    return new ToroDocument(entry.getKey(), entry.getValue());
+  }
+
+}
@@ -0,0 +1,362 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.google.common.base.Preconditions;
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.exceptions.user.UniqueIndexViolationException;
+import com.torodb.core.transaction.RollbackException;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.torod.IndexInfo;
+import org.jooq.lambda.tuple.Tuple2;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An in memory storage whose committed state is an immutable map from collections to their
+ * {@link CollectionData}.
+ *
+ * <p>Read transactions just keep the state that was committed when they were opened, so they
+ * never block and never copy data. Write transactions lock each collection the first time they
+ * modify it and publish the new versions of the modified collections atomically on commit, so
+ * writers on different collections run concurrently and writers on the same collection are
+ * serialized. A write transaction that cannot lock a collection in
+ * {@link #LOCK_TIMEOUT_MILLIS} milliseconds (for example, because two transactions are waiting
+ * for each other) is rolled back with a {@link RollbackException}. The same happens when a write
+ * transaction locks a collection it has already read and another transaction has committed a new
+ * version of it since then, as the changes could be based on stale data.
+ */
+@ThreadSafe
+public class ConcurrentMemoryData {
+
+  private static final long LOCK_TIMEOUT_MILLIS = 10_000;
+
+  private final AtomicReference<PersistentHashMap<Tuple2<String, String>, CollectionData>> state =
+      new AtomicReference<>(PersistentHashMap.empty());
+  private final ConcurrentMap<Tuple2<String, String>, Semaphore> collectionLocks =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger idGenerator = new AtomicInteger();
+
+  public MdReadTransaction openReadTransaction() {
+    return new MdReadTransaction(state.get());
+  }
+
+  public MdWriteTransaction openWriteTransaction() {
+    return new MdWriteTransaction(this);
+  }
+
+  /**
+   * Removes all data, without waiting for the open transactions.
+   */
+  public void clear() {
+    state.set(PersistentHashMap.empty());
+  }
+
+  private void lock(Tuple2<String, String> collection) {
+    Semaphore semaphore = collectionLocks.computeIfAbsent(collection, key -> new Semaphore(1));
+    boolean acquired;
+    try {
+      acquired = semaphore.tryAcquire(LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RollbackException("Interrupted while waiting for the lock on collection "
+          + collection.v1 + '.' + collection.v2, ex);
+    }
+    if (!acquired) {
+      throw new RollbackException("Timeout while waiting for the lock on collection "
+          + collection.v1 + '.' + collection.v2);
+    }
+  }
+
+  private void unlock(Tuple2<String, String> collection) {
+    collectionLocks.get(collection).release();
+  }
+
+  private void publish(Set<Tuple2<String, String>> modified,
+      PersistentHashMap<Tuple2<String, String>, CollectionData> newState) {
+    state.getAndUpdate(committed -> {
+      PersistentHashMap<Tuple2<String, String>, CollectionData> result = committed;
+      for (Tuple2<String, String> collection : modified) {
+        CollectionData colData = newState.get(collection);
+        result = colData == null ? result.minus(collection) : result.plus(collection, colData);
+      }
+      return result;
+    });
+  }
+
+  public static class MdTransaction implements AutoCloseable {
+
+    private boolean closed = false;
+    PersistentHashMap<Tuple2<String, String>, CollectionData> collections;
+
+    MdTransaction(PersistentHashMap<Tuple2<String, String>, CollectionData> collections) {
+      this.collections = collections;
+    }
+
+    public boolean isClosed() {
+      return closed;
+    }
+
+    public boolean existsDatabase(String db) {
+      return streamDbs().anyMatch(db::equals);
+    }
+
+    public boolean existsCollection(String db, String col) {
+      return getCollection(db, col) != null;
+    }
+
+    public Stream<String> streamDbs() {
+      return collections.keys()
+          .map(Tuple2::v1)
+          .distinct();
+    }
+
+    public Stream<String> streamCollectionNames(String db) {
+      return collections.keys()
+          .filter(collection -> collection.v1.equals(db))
+          .map(Tuple2::v2);
+    }
+
+    @Nullable
+    CollectionData getCollection(String db, String col) {
+      return collections.get(new Tuple2<>(db, col));
+    }
+
+    public Stream<ToroDocument> streamCollection(String db, String col) {
+      CollectionData colData = getCollection(db, col);
+      if (colData == null) {
+        return Stream.empty();
+      }
+      return colData.streamDocs();
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+      }
+    }
+
+  }
+
+  @NotThreadSafe
+  public static class MdReadTransaction extends MdTransaction {
+
+    MdReadTransaction(PersistentHashMap<Tuple2<String, String>, CollectionData> collections) {
+      super(collections);
+    }
+
+  }
+
+  @NotThreadSafe
+  public static class MdWriteTransaction extends MdTransaction {
+
+    private final ConcurrentMemoryData data;
+    /**
+     * The collections locked by this transaction, which are the only ones it can modify.
+     */
+    private final Set<Tuple2<String, String>> locked = new LinkedHashSet<>();
+    /**
+     * The collections this transaction has read before locking them.
+     */
+    private final Set<Tuple2<String, String>> readUnlocked = new HashSet<>();
+
+    MdWriteTransaction(ConcurrentMemoryData data) {
+      super(data.state.get());
+      this.data = data;
+    }
+
+    @Override
+    @Nullable
+    CollectionData getCollection(String db, String col) {
+      Tuple2<String, String> collection = new Tuple2<>(db, col);
+      if (!locked.contains(collection)) {
+        readUnlocked.add(collection);
+      }
+      return super.getCollection(db, col);
+    }
+
+    /**
+     * Locks the given collection if it was not locked by this transaction and returns its last
+     * committed version, which cannot be modified by other transactions until this one is closed.
+     *
+     * @throws RollbackException if this transaction has read the collection before and another
+     *                           transaction has committed a new version of it since then
+     */
+    @Nullable
+    private CollectionData lockCollection(String db, String col) {
+      Preconditions.checkState(!isClosed(), "This transaction is closed");
+      Tuple2<String, String> collection = new Tuple2<>(db, col);
+      if (!locked.contains(collection)) {
+        data.lock(collection);
+        locked.add(collection);
+        CollectionData committed = data.state.get().get(collection);
+        if (readUnlocked.remove(collection) && committed != collections.get(collection)) {
+          throw new RollbackException("The collection " + db + '.' + col + " has been modified "
+              + "by another transaction since it was read");
+        }
+        collections = committed == null ? collections.minus(collection)
+            : collections.plus(collection, committed);
+      }
+      return collections.get(collection);
+    }
+
+    private CollectionData lockOrCreateCollection(String db, String col) {
+      CollectionData colData = lockCollection(db, col);
+      return colData != null ? colData : CollectionData.EMPTY;
+    }
+
+    private void setCollection(String db, String col, @Nullable CollectionData colData) {
+      Tuple2<String, String> collection = new Tuple2<>(db, col);
+      assert locked.contains(collection);
+      collections = colData == null ? collections.minus(collection)
+          : collections.plus(collection, colData);
+    }
+
+    void insert(String db, String col, Stream<KvDocument> docs)
+        throws UniqueIndexViolationException {
+      CollectionData colData = lockOrCreateCollection(db, col);
+      Iterator<KvDocument> docIt = docs.iterator();
+      while (docIt.hasNext()) {
+        colData = colData.insert(data.idGenerator.incrementAndGet(), docIt.next());
+      }
+      setCollection(db, col, colData);
+    }
+
+    long delete(String db, String col, Stream<Integer> dids) {
+      CollectionData colData = lockCollection(db, col);
+      if (colData == null) {
+        return 0;
+      }
+      int sizeBefore = colData.size();
+      Iterator<Integer> didIt = dids.iterator();
+      while (didIt.hasNext()) {
+        colData = colData.delete(didIt.next());
+      }
+      setCollection(db, col, colData);
+      return sizeBefore - colData.size();
+    }
+
+    long deleteAll(String db, String col) {
+      CollectionData colData = lockCollection(db, col);
+      if (colData == null) {
+        return 0;
+      }
+      setCollection(db, col, colData.deleteAll());
+      return colData.size();
+    }
+
+    void createCollection(String db, String col) {
+      setCollection(db, col, lockOrCreateCollection(db, col));
+    }
+
+    void dropCollection(String db, String col) {
+      lockCollection(db, col);
+      setCollection(db, col, null);
+    }
+
+    void renameCollection(String fromDb, String fromCol, String toDb, String toCol) {
+      CollectionData colData = lockCollection(fromDb, fromCol);
+      lockCollection(toDb, toCol);
+      if (colData != null) {
+        setCollection(fromDb, fromCol, null);
+        setCollection(toDb, toCol, colData);
+      }
+    }
+
+    /**
+     * Drops all collections of the given database that have been committed or created by this
+     * transaction.
+     */
+    void dropDatabase(String db) {
+      List<String> colNames = Stream.concat(
+          data.state.get().keys().filter(collection -> collection.v1.equals(db)).map(Tuple2::v2),
+          streamCollectionNames(db))
+          .distinct()
+          .collect(Collectors.toCollection(ArrayList::new));
+      for (String colName : colNames) {
+        dropCollection(db, colName);
+      }
+    }
+
+    boolean createIndex(String db, String col, IndexInfo indexInfo)
+        throws UniqueIndexViolationException {
+      CollectionData colData = lockOrCreateCollection(db, col);
+      if (colData.containsIndex(indexInfo.getName())) {
+        return false;
+      }
+      setCollection(db, col, colData.addIndex(indexInfo));
+      return true;
+    }
+
+    boolean dropIndex(String db, String col, String indexName) {
+      CollectionData colData = lockCollection(db, col);
+      if (colData == null || !colData.containsIndex(indexName)) {
+        return false;
+      }
+      setCollection(db, col, colData.removeIndex(indexName));
+      return true;
+    }
+
+    void commit() {
+      Preconditions.checkState(!isClosed(), "This transaction is closed");
+      data.publish(locked, collections);
+    }
+
+    void rollback() {
+      Preconditions.checkState(!isClosed(), "This transaction is closed");
+      PersistentHashMap<Tuple2<String, String>, CollectionData> committed = data.state.get();
+      for (Tuple2<String, String> collection : locked) {
+        CollectionData colData = committed.get(collection);
+        collections = colData == null ? collections.minus(collection)
+            : collections.plus(collection, colData);
+      }
+    }
+
+    @Override
+    public void close() {
+      if (!isClosed()) {
+        for (Tuple2<String, String> collection : locked) {
+          data.unlock(collection);
+        }
+        locked.clear();
+      }
+      super.close();
+    }
+
+  }
+
+}
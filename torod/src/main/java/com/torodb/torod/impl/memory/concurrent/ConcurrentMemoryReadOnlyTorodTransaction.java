@@ -0,0 +1,46 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.torodb.torod.ReadOnlyTorodTransaction;
+import com.torodb.torod.impl.memory.concurrent.ConcurrentMemoryData.MdTransaction;
+
+/**
+ * A read only transaction that sees the data that was committed when it was opened.
+ */
+public class ConcurrentMemoryReadOnlyTorodTransaction extends ConcurrentMemoryTorodTransaction
+    implements ReadOnlyTorodTransaction {
+
+  private final ConcurrentMemoryData.MdReadTransaction trans;
+
+  public ConcurrentMemoryReadOnlyTorodTransaction(ConcurrentMemoryTorodConnection connection) {
+    super(connection);
+    trans = connection.getServer().getData().openReadTransaction();
+  }
+
+  @Override
+  public void rollback() {
+  }
+
+  @Override
+  protected MdTransaction getTransaction() {
+    return trans;
+  }
+
+}
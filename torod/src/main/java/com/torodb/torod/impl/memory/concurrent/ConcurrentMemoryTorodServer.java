@@ -0,0 +1,102 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.inject.Singleton;
+import com.torodb.common.util.Empty;
+import com.torodb.core.services.IdleTorodbService;
+import com.torodb.torod.TorodConnection;
+import com.torodb.torod.TorodServer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+/**
+ * A memory {@link TorodServer} whose write transactions can be executed concurrently.
+ *
+ * @see ConcurrentMemoryData
+ */
+@Singleton
+public class ConcurrentMemoryTorodServer extends IdleTorodbService implements TorodServer {
+
+  private final ConcurrentMemoryData data = new ConcurrentMemoryData();
+  private final AtomicInteger connIdGenerator = new AtomicInteger();
+  private final Cache<Integer, ConcurrentMemoryTorodConnection> openConnections;
+
+  @Inject
+  public ConcurrentMemoryTorodServer(ThreadFactory threadFactory) {
+    super(threadFactory);
+
+    openConnections = CacheBuilder.newBuilder()
+        .weakValues()
+        .removalListener(this::onConnectionInvalidated)
+        .build();
+  }
+
+  @Override
+  public TorodConnection openConnection() {
+    ConcurrentMemoryTorodConnection connection = new ConcurrentMemoryTorodConnection(
+        this, connIdGenerator.incrementAndGet());
+    openConnections.put(connection.getConnectionId(), connection);
+    return connection;
+  }
+
+  @Override
+  public CompletableFuture<Empty> disableDataImportMode(String dbName) {
+    return CompletableFuture.completedFuture(Empty.getInstance());
+  }
+
+  @Override
+  public CompletableFuture<Empty> enableDataImportMode(String dbName) {
+    return CompletableFuture.completedFuture(Empty.getInstance());
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    openConnections.invalidateAll();
+    data.clear();
+  }
+
+  ConcurrentMemoryData getData() {
+    return data;
+  }
+
+  private void onConnectionInvalidated(
+      RemovalNotification<Integer, ConcurrentMemoryTorodConnection> notification) {
+    ConcurrentMemoryTorodConnection value = notification.getValue();
+    if (value != null) {
+      value.close();
+    }
+  }
+
+  void onConnectionClosed(ConcurrentMemoryTorodConnection connection) {
+    openConnections.invalidate(connection.getConnectionId());
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.torodb.core.cursors.Cursor;
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.transaction.RollbackException;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.torod.ExclusiveWriteTorodTransaction;
+import com.torodb.torod.IndexFieldInfo;
+import com.torodb.torod.IndexInfo;
+import com.torodb.torod.impl.memory.concurrent.ConcurrentMemoryData.MdTransaction;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A write transaction that only blocks other write transactions that modify the same
+ * collections.
+ */
+public class ConcurrentMemoryWriteTorodTransaction extends ConcurrentMemoryTorodTransaction
+    implements ExclusiveWriteTorodTransaction {
+
+  private final ConcurrentMemoryData.MdWriteTransaction trans;
+
+  public ConcurrentMemoryWriteTorodTransaction(ConcurrentMemoryTorodConnection connection) {
+    super(connection);
+    this.trans = connection.getServer().getData().openWriteTransaction();
+  }
+
+  @Override
+  protected MdTransaction getTransaction() {
+    return trans;
+  }
+
+  @Override
+  public void insert(String db, String collection, Stream<KvDocument> documents) throws
+      RollbackException, UserException {
+    trans.insert(db, collection, documents);
+  }
+
+  @Override
+  public long deleteAll(String dbName, String colName) {
+    return trans.deleteAll(dbName, colName);
+  }
+
+  @Override
+  public long deleteByAttRef(String dbName, String colName, AttributeReference attRef,
+      KvValue<?> value) {
+    return trans.delete(dbName, colName, streamByAttRef(dbName, colName, attRef, value).map(
+        ToroDocument::getId));
+  }
+
+  @Override
+  public void delete(String dbName, String colName, Cursor<Integer> cursor) {
+    trans.delete(dbName, colName, cursor.getRemaining().stream());
+  }
+
+  @Override
+  public void dropCollection(String dbName, String colName)
+      throws RollbackException, UserException {
+    trans.dropCollection(dbName, colName);
+  }
+
+  @Override
+  public void renameCollection(String fromDb, String fromCollection, String toDb,
+      String toCollection)
+      throws RollbackException, UserException {
+    trans.renameCollection(fromDb, fromCollection, toDb, toCollection);
+  }
+
+  @Override
+  public void createCollection(String dbName, String colName) throws RollbackException,
+      UserException {
+    trans.createCollection(dbName, colName);
+  }
+
+  @Override
+  public void dropDatabase(String dbName) throws RollbackException, UserException {
+    trans.dropDatabase(dbName);
+  }
+
+  @Override
+  public boolean createIndex(String dbName, String colName, String indexName,
+      List<IndexFieldInfo> fields, boolean unique) throws UserException {
+    IndexInfo.Builder indexInfoBuilder = new IndexInfo.Builder(indexName, unique);
+    for (IndexFieldInfo field : fields) {
+      indexInfoBuilder.addField(field.getAttributeReference(), field.isAscending());
+    }
+    return trans.createIndex(dbName, colName, indexInfoBuilder.build());
+  }
+
+  @Override
+  public boolean dropIndex(String dbName, String colName, String indexName) {
+    return trans.dropIndex(dbName, colName, indexName);
+  }
+
+  @Override
+  public void rollback() {
+    trans.rollback();
+  }
+
+  @Override
+  public void commit() throws RollbackException, UserException {
+    trans.commit();
+  }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.torodb.kvdocument.values.KvArray;
+import com.torodb.kvdocument.values.KvBinary;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvDecimal128;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvDocument.DocEntry;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvMaxKey;
+import com.torodb.kvdocument.values.KvMinKey;
+import com.torodb.kvdocument.values.KvMongoJavascript;
+import com.torodb.kvdocument.values.KvMongoObjectId;
+import com.torodb.kvdocument.values.KvNull;
+import com.torodb.kvdocument.values.KvString;
+import com.torodb.kvdocument.values.KvUndefined;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.KvValueAdaptor;
+
+/**
+ * Estimates the number of bytes a value would use if it were stored as BSON.
+ *
+ * <p>The estimation counts characters instead of UTF-8 bytes, so it is exact only for ASCII
+ * strings and keys.
+ */
+final class KvValueSizeEstimator extends KvValueAdaptor<Long, Void> {
+
+  private static final KvValueSizeEstimator INSTANCE = new KvValueSizeEstimator();
+
+  private KvValueSizeEstimator() {
+  }
+
+  static long estimate(KvValue<?> value) {
+    return value.accept(INSTANCE, null);
+  }
+
+  @Override
+  public Long defaultCase(KvValue<?> value, Void arg) {
+    //most of the other types are stored on 8 bytes
+    return 8L;
+  }
+
+  @Override
+  public Long visit(KvBoolean value, Void arg) {
+    return 1L;
+  }
+
+  @Override
+  public Long visit(KvNull value, Void arg) {
+    return 0L;
+  }
+
+  @Override
+  public Long visit(KvMinKey value, Void arg) {
+    return 0L;
+  }
+
+  @Override
+  public Long visit(KvMaxKey value, Void arg) {
+    return 0L;
+  }
+
+  @Override
+  public Long visit(KvUndefined value, Void arg) {
+    return 0L;
+  }
+
+  @Override
+  public Long visit(KvInteger value, Void arg) {
+    return 4L;
+  }
+
+  @Override
+  public Long visit(KvMongoObjectId value, Void arg) {
+    return 12L;
+  }
+
+  @Override
+  public Long visit(KvDecimal128 value, Void arg) {
+    return 16L;
+  }
+
+  @Override
+  public Long visit(KvString value, Void arg) {
+    return stringSize(value.getValue());
+  }
+
+  @Override
+  public Long visit(KvMongoJavascript value, Void arg) {
+    return stringSize(value.getValue());
+  }
+
+  @Override
+  public Long visit(KvBinary value, Void arg) {
+    //length and subtype
+    return 5 + value.size();
+  }
+
+  @Override
+  public Long visit(KvDocument value, Void arg) {
+    //length and trailing 0
+    long size = 5;
+    for (DocEntry<?> entry : value) {
+      size += elementSize(entry.getKey(), entry.getValue());
+    }
+    return size;
+  }
+
+  @Override
+  public Long visit(KvArray value, Void arg) {
+    long size = 5;
+    int index = 0;
+    for (KvValue<?> element : value) {
+      size += elementSize(Integer.toString(index++), element);
+    }
+    return size;
+  }
+
+  private long elementSize(String key, KvValue<?> value) {
+    //type, key and the key trailing 0
+    return 1 + key.length() + 1 + value.accept(this, null);
+  }
+
+  private static long stringSize(String value) {
+    //length and trailing 0
+    return 4 + value.length() + 1;
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.google.common.collect.ImmutableList;
+import com.torodb.core.exceptions.user.UniqueIndexViolationException;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.util.AttributeRefKvDocResolver;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.torod.IndexFieldInfo;
+import com.torodb.torod.IndexInfo;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A hash index on the values of the fields of an {@link IndexInfo}.
+ *
+ * <p>Like the SQL backends do, a document is only indexed when all fields of the index are
+ * present on it, so documents that lack some of them never violate a unique index.
+ */
+@Immutable
+final class MemoryIndex {
+
+  /**
+   * The bytes used to store a did on an index entry.
+   */
+  static final long DID_SIZE = 4;
+
+  private final IndexInfo info;
+  private final PersistentHashMap<List<KvValue<?>>, PersistentHashMap<Integer, Boolean>> entries;
+
+  private MemoryIndex(IndexInfo info,
+      PersistentHashMap<List<KvValue<?>>, PersistentHashMap<Integer, Boolean>> entries) {
+    this.info = info;
+    this.entries = entries;
+  }
+
+  static MemoryIndex empty(IndexInfo info) {
+    return new MemoryIndex(info, PersistentHashMap.empty());
+  }
+
+  String getName() {
+    return info.getName();
+  }
+
+  IndexInfo getInfo() {
+    return info;
+  }
+
+  /**
+   * Returns true iff this index can be used to look for documents whose value on the given
+   * attribute is equal to a given value.
+   */
+  boolean isOn(AttributeReference attRef) {
+    ImmutableList<IndexFieldInfo> fields = info.getFields();
+    return fields.size() == 1 && fields.get(0).getAttributeReference().equals(attRef);
+  }
+
+  Stream<Integer> lookup(KvValue<?> value) {
+    return entries.getOrDefault(ImmutableList.of(value), PersistentHashMap.empty()).keys();
+  }
+
+  /**
+   * Returns an estimation of the bytes used by the entries of this index.
+   */
+  long estimateSize() {
+    return entries.stream()
+        .mapToLong(entry -> entry.getKey().stream()
+            .mapToLong(KvValueSizeEstimator::estimate)
+            .sum() + DID_SIZE * entry.getValue().size())
+        .sum();
+  }
+
+  MemoryIndex clear() {
+    return empty(info);
+  }
+
+  MemoryIndex add(int did, KvDocument doc) throws UniqueIndexViolationException {
+    Optional<List<KvValue<?>>> key = extractKey(doc);
+    if (!key.isPresent()) {
+      return this;
+    }
+    PersistentHashMap<Integer, Boolean> dids = entries.getOrDefault(key.get(),
+        PersistentHashMap.empty());
+    if (info.isUnique() && !dids.isEmpty()) {
+      throw new UniqueIndexViolationException(info.getName(), doc);
+    }
+    return new MemoryIndex(info, entries.plus(key.get(), dids.plus(did, Boolean.TRUE)));
+  }
+
+  MemoryIndex remove(int did, KvDocument doc) {
+    Optional<List<KvValue<?>>> key = extractKey(doc);
+    if (!key.isPresent()) {
+      return this;
+    }
+    PersistentHashMap<Integer, Boolean> dids = entries.get(key.get());
+    if (dids == null) {
+      return this;
+    }
+    PersistentHashMap<Integer, Boolean> newDids = dids.minus(did);
+    if (newDids.isEmpty()) {
+      return new MemoryIndex(info, entries.minus(key.get()));
+    }
+    return new MemoryIndex(info, entries.plus(key.get(), newDids));
+  }
+
+  private Optional<List<KvValue<?>>> extractKey(KvDocument doc) {
+    ImmutableList.Builder<KvValue<?>> keyBuilder = ImmutableList.builder();
+    for (IndexFieldInfo field : info.getFields()) {
+      Optional<KvValue<?>> value = AttributeRefKvDocResolver.resolve(
+          field.getAttributeReference(), doc);
+      if (!value.isPresent()) {
+        return Optional.empty();
+      }
+      keyBuilder.add(value.get());
+    }
+    return Optional.of(keyBuilder.build());
+  }
+
+}
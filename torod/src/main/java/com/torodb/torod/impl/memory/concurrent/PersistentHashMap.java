@@ -0,0 +1,391 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * An immutable hash map that shares most of its structure with the map it was derived from.
+ *
+ * <p>It is implemented as a hash array mapped trie. Each level of the trie is indexed by the next
+ * five bits of the key hash, starting with the most significant ones. Adding or removing a key
+ * copies only the nodes on the path to that key, so both operations take O(log32 n) time and
+ * allocation, and older versions of the map stay valid. Entries are iterated in unsigned hash
+ * order, which means that integer keys are iterated in ascending order.
+ *
+ * <p>Neither keys nor values can be null.
+ */
+@Immutable
+public final class PersistentHashMap<K, V> {
+
+  @SuppressWarnings("rawtypes")
+  private static final PersistentHashMap EMPTY = new PersistentHashMap<Object, Object>(
+      new BitmapNode<Object, Object>(0, new Object[0]), 0);
+  /**
+   * The level at which all hash bits have been consumed. Keys that reach it have the same hash.
+   */
+  private static final int COLLISION_LEVEL = 7;
+
+  private final Node<K, V> root;
+  private final int size;
+
+  private PersistentHashMap(Node<K, V> root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return EMPTY;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Nullable
+  public V get(Object key) {
+    return root.get(key, key.hashCode(), 0);
+  }
+
+  public V getOrDefault(Object key, V defaultValue) {
+    V value = get(key);
+    return value != null ? value : defaultValue;
+  }
+
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Returns a map that contains the same entries as this one, except that the given key is
+   * associated with the given value.
+   */
+  public PersistentHashMap<K, V> plus(K key, V value) {
+    Preconditions.checkArgument(key != null, "Keys cannot be null");
+    Preconditions.checkArgument(value != null, "Values cannot be null");
+    boolean[] added = new boolean[1];
+    Node<K, V> newRoot = root.plus(new Entry<>(key.hashCode(), key, value), 0, added);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map that contains the same entries as this one, except the one with the given key.
+   */
+  public PersistentHashMap<K, V> minus(Object key) {
+    Node<K, V> newRoot = root.minus(key, key.hashCode(), 0);
+    if (newRoot == root) {
+      return this;
+    }
+    if (newRoot == null) {
+      return empty();
+    }
+    return new PersistentHashMap<>(newRoot, size - 1);
+  }
+
+  public Stream<Map.Entry<K, V>> stream() {
+    return root.stream();
+  }
+
+  public Stream<K> keys() {
+    return stream().map(Map.Entry::getKey);
+  }
+
+  public Stream<V> values() {
+    return stream().map(Map.Entry::getValue);
+  }
+
+  @Override
+  public String toString() {
+    return "PersistentHashMap{size=" + size + '}';
+  }
+
+  private static int index(int hash, int level) {
+    //The first level uses the two most significant bits, the following ones use five bits each
+    int shift = level == 0 ? 30 : 30 - 5 * level;
+    return (hash >>> shift) & 0x1F;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> Node<K, V> createNode(Entry<K, V> e1, Entry<K, V> e2, int level) {
+    if (level >= COLLISION_LEVEL) {
+      assert e1.hash == e2.hash;
+      return new CollisionNode<>(e1.hash, new Entry[]{e1, e2});
+    }
+    int index1 = index(e1.hash, level);
+    int index2 = index(e2.hash, level);
+    if (index1 == index2) {
+      return new BitmapNode<>(1 << index1, new Object[]{createNode(e1, e2, level + 1)});
+    }
+    Object[] slots = index1 < index2 ? new Object[]{e1, e2} : new Object[]{e2, e1};
+    return new BitmapNode<>((1 << index1) | (1 << index2), slots);
+  }
+
+  private static final class Entry<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int hash;
+
+    private Entry(int hash, K key, V value) {
+      super(key, value);
+      this.hash = hash;
+    }
+
+    private boolean hasKey(Object key, int hash) {
+      return this.hash == hash && getKey().equals(key);
+    }
+  }
+
+  private abstract static class Node<K, V> {
+
+    abstract V get(Object key, int hash, int level);
+
+    /**
+     * Returns a node that contains the given entry, or this same node if it already contained it.
+     */
+    abstract Node<K, V> plus(Entry<K, V> entry, int level, boolean[] added);
+
+    /**
+     * Returns a node that does not contain the given key, this same node if it did not contain it
+     * or null if the resulting node would be empty.
+     */
+    abstract Node<K, V> minus(Object key, int hash, int level);
+
+    abstract Stream<Map.Entry<K, V>> stream();
+
+    /**
+     * Returns the only entry this node contains or null if it contains several.
+     */
+    abstract Entry<K, V> getSingleEntry();
+  }
+
+  private static final class BitmapNode<K, V> extends Node<K, V> {
+
+    private final int bitmap;
+    /**
+     * Each slot is either an {@link Entry} or a {@link Node}, sorted by their index.
+     */
+    private final Object[] slots;
+
+    private BitmapNode(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    private int position(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V get(Object key, int hash, int level) {
+      int bit = 1 << index(hash, level);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = slots[position(bit)];
+      if (slot instanceof Entry) {
+        Entry<K, V> entry = (Entry<K, V>) slot;
+        return entry.hasKey(key, hash) ? entry.getValue() : null;
+      }
+      return ((Node<K, V>) slot).get(key, hash, level + 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> plus(Entry<K, V> entry, int level, boolean[] added) {
+      int bit = 1 << index(entry.hash, level);
+      int position = position(bit);
+      if ((bitmap & bit) == 0) {
+        added[0] = true;
+        Object[] newSlots = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, newSlots, 0, position);
+        newSlots[position] = entry;
+        System.arraycopy(slots, position, newSlots, position + 1, slots.length - position);
+        return new BitmapNode<>(bitmap | bit, newSlots);
+      }
+      Object slot = slots[position];
+      Object newSlot;
+      if (slot instanceof Entry) {
+        Entry<K, V> oldEntry = (Entry<K, V>) slot;
+        if (oldEntry.hasKey(entry.getKey(), entry.hash)) {
+          if (oldEntry.getValue() == entry.getValue()) {
+            return this;
+          }
+          newSlot = entry;
+        } else {
+          added[0] = true;
+          newSlot = createNode(oldEntry, entry, level + 1);
+        }
+      } else {
+        Node<K, V> oldNode = (Node<K, V>) slot;
+        newSlot = oldNode.plus(entry, level + 1, added);
+        if (newSlot == oldNode) {
+          return this;
+        }
+      }
+      return new BitmapNode<>(bitmap, replace(position, newSlot));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> minus(Object key, int hash, int level) {
+      int bit = 1 << index(hash, level);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int position = position(bit);
+      Object slot = slots[position];
+      if (slot instanceof Entry) {
+        if (!((Entry<K, V>) slot).hasKey(key, hash)) {
+          return this;
+        }
+        if (slots.length == 1) {
+          return null;
+        }
+        Object[] newSlots = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, newSlots, 0, position);
+        System.arraycopy(slots, position + 1, newSlots, position, slots.length - position - 1);
+        return new BitmapNode<>(bitmap & ~bit, newSlots);
+      }
+      Node<K, V> oldNode = (Node<K, V>) slot;
+      Node<K, V> newNode = oldNode.minus(key, hash, level + 1);
+      if (newNode == oldNode) {
+        return this;
+      }
+      assert newNode != null : "Inner nodes always contain at least two entries";
+      //Inner nodes with a single entry are collapsed to keep the trie as shallow as possible
+      Entry<K, V> singleEntry = newNode.getSingleEntry();
+      return new BitmapNode<>(bitmap, replace(position, singleEntry != null ? singleEntry
+          : newNode));
+    }
+
+    private Object[] replace(int position, Object newSlot) {
+      Object[] newSlots = slots.clone();
+      newSlots[position] = newSlot;
+      return newSlots;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Stream<Map.Entry<K, V>> stream() {
+      return Arrays.stream(slots)
+          .flatMap(slot -> slot instanceof Entry ? Stream.<Map.Entry<K, V>>of((Entry<K, V>) slot)
+              : ((Node<K, V>) slot).stream());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Entry<K, V> getSingleEntry() {
+      if (slots.length == 1 && slots[0] instanceof Entry) {
+        return (Entry<K, V>) slots[0];
+      }
+      return null;
+    }
+  }
+
+  private static final class CollisionNode<K, V> extends Node<K, V> {
+
+    private final int hash;
+    private final Entry<K, V>[] entries;
+
+    private CollisionNode(int hash, Entry<K, V>[] entries) {
+      this.hash = hash;
+      this.entries = entries;
+    }
+
+    private int find(Object key) {
+      for (int i = 0; i < entries.length; i++) {
+        if (entries[i].getKey().equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    V get(Object key, int hash, int level) {
+      int position = find(key);
+      return position < 0 ? null : entries[position].getValue();
+    }
+
+    @Override
+    Node<K, V> plus(Entry<K, V> entry, int level, boolean[] added) {
+      assert entry.hash == hash;
+      int position = find(entry.getKey());
+      Entry<K, V>[] newEntries;
+      if (position < 0) {
+        added[0] = true;
+        newEntries = Arrays.copyOf(entries, entries.length + 1);
+        newEntries[entries.length] = entry;
+      } else {
+        if (entries[position].getValue() == entry.getValue()) {
+          return this;
+        }
+        newEntries = entries.clone();
+        newEntries[position] = entry;
+      }
+      return new CollisionNode<>(hash, newEntries);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Node<K, V> minus(Object key, int hash, int level) {
+      int position = find(key);
+      if (position < 0) {
+        return this;
+      }
+      if (entries.length == 1) {
+        return null;
+      }
+      Entry<K, V>[] newEntries = new Entry[entries.length - 1];
+      System.arraycopy(entries, 0, newEntries, 0, position);
+      System.arraycopy(entries, position + 1, newEntries, position,
+          entries.length - position - 1);
+      return new CollisionNode<>(hash, newEntries);
+    }
+
+    @Override
+    Stream<Map.Entry<K, V>> stream() {
+      return Arrays.<Map.Entry<K, V>>stream(entries);
+    }
+
+    @Override
+    Entry<K, V> getSingleEntry() {
+      return entries.length == 1 ? entries[0] : null;
+    }
+  }
+
+}
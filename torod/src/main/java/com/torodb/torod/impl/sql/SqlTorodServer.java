@@ -25,6 +25,7 @@ import com.torodb.common.util.Empty;
 import com.torodb.core.TableRefFactory;
 import com.torodb.core.annotations.TorodbIdleService;
 import com.torodb.core.backend.BackendService;
+import com.torodb.core.backend.ConnectionPoolStats;
 import com.torodb.core.d2r.D2RTranslatorFactory;
 import com.torodb.core.d2r.IdentifierFactory;
 import com.torodb.core.d2r.R2DTranslator;
@@ -35,6 +36,8 @@ import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
 import com.torodb.torod.TorodServer;
 import com.torodb.torod.pipeline.InsertPipelineFactory;
 
+import java.util.List;
+import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -125,6 +128,26 @@ public class SqlTorodServer extends IdleTorodbService implements TorodServer {
     return backend.disableDataImportMode(metaDb);
   }
 
+  @Override
+  public boolean isImportedDataLossPossible() {
+    return backend.isImportedDataLossPossible();
+  }
+
+  @Override
+  public boolean isDataImportModeDurable() {
+    return backend.isDataImportModeDurable();
+  }
+
+  @Override
+  public OptionalInt getMaxReadOnlyTransactions() {
+    return backend.getMaxReadOnlyConnections();
+  }
+
+  @Override
+  public List<ConnectionPoolStats> getConnectionPoolStats() {
+    return backend.getConnectionPoolStats();
+  }
+
   D2RTranslatorFactory getD2RTranslatorFactory() {
     return d2RTranslatorFactory;
   }
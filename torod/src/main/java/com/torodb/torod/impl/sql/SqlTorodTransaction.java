@@ -31,6 +31,8 @@ import com.torodb.core.exceptions.user.IndexNotFoundException;
 import com.torodb.core.language.AttributeReference;
 import com.torodb.core.language.AttributeReference.Key;
 import com.torodb.core.language.AttributeReference.ObjectKey;
+import com.torodb.core.language.querycriteria.QueryCriteria;
+import com.torodb.core.language.querycriteria.TrueQueryCriteria;
 import com.torodb.core.transaction.InternalTransaction;
 import com.torodb.core.transaction.metainf.FieldType;
 import com.torodb.core.transaction.metainf.MetaCollection;
@@ -210,6 +212,32 @@ public abstract class SqlTorodTransaction<T extends InternalTransaction>
     );
   }
 
+  @Override
+  public TorodCursor findByCriteria(String dbName, String colName, QueryCriteria criteria) {
+    MetaDatabase db = getInternalTransaction().getMetaSnapshot().getMetaDatabaseByName(dbName);
+    if (db == null) {
+      LOGGER.trace("Db with name " + dbName + " does not exist. An empty cursor is returned");
+      return new EmptyTorodCursor();
+    }
+    MetaCollection col = db.getMetaCollectionByName(colName);
+    if (col == null) {
+      LOGGER.trace("Collection " + dbName + '.' + colName
+          + " does not exist. An empty cursor is returned");
+      return new EmptyTorodCursor();
+    }
+    if (criteria instanceof TrueQueryCriteria) {
+      return toToroCursor(getInternalTransaction()
+          .getBackendTransaction()
+          .findAll(db, col)
+      );
+    }
+
+    return toToroCursor(getInternalTransaction()
+        .getBackendTransaction()
+        .findByCriteria(db, col, criteria)
+    );
+  }
+
   @Override
   public TorodCursor findByAttRefIn(String dbName, String colName, AttributeReference attRef,
       Collection<KvValue<?>> values) {
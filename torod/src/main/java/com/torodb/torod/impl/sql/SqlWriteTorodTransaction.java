@@ -21,12 +21,16 @@ package com.torodb.torod.impl.sql;
 import com.google.common.base.Preconditions;
 import com.torodb.core.TableRef;
 import com.torodb.core.cursors.Cursor;
+import com.torodb.core.document.ToroDocument;
 import com.torodb.core.exceptions.user.CollectionNotFoundException;
 import com.torodb.core.exceptions.user.DatabaseNotFoundException;
-import com.torodb.core.exceptions.user.UnsupportedCompoundIndexException;
 import com.torodb.core.exceptions.user.UnsupportedUniqueIndexException;
 import com.torodb.core.exceptions.user.UserException;
 import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.AttributeReference.Key;
+import com.torodb.core.language.AttributeReference.ObjectKey;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteria;
 import com.torodb.core.transaction.RollbackException;
 import com.torodb.core.transaction.WriteInternalTransaction;
 import com.torodb.core.transaction.metainf.FieldIndexOrdering;
@@ -38,8 +42,10 @@ import com.torodb.core.transaction.metainf.MetaField;
 import com.torodb.core.transaction.metainf.MetaIndex;
 import com.torodb.core.transaction.metainf.MutableMetaCollection;
 import com.torodb.core.transaction.metainf.MutableMetaDatabase;
+import com.torodb.core.transaction.metainf.MutableMetaDocPart;
 import com.torodb.core.transaction.metainf.MutableMetaIndex;
 import com.torodb.core.transaction.metainf.MutableMetaSnapshot;
+import com.torodb.kvdocument.values.KvArray;
 import com.torodb.kvdocument.values.KvDocument;
 import com.torodb.kvdocument.values.KvValue;
 import com.torodb.torod.IndexFieldInfo;
@@ -51,10 +57,14 @@ import org.jooq.lambda.tuple.Tuple3;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  *
@@ -105,6 +115,122 @@ public abstract class SqlWriteTorodTransaction<T extends WriteInternalTransactio
     getInternalTransaction().getBackendTransaction().deleteDids(db, col, cursor.getRemaining());
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>When all modified attributes are scalar values (or missing values) stored on doc parts that
+   * have a single row per document (the root one and the ones that are only reached through
+   * object keys), the affected rows are updated in place. Columns of other types that store the
+   * same attribute are set to null and new columns are added when the new value has a type that
+   * was not stored before. In any other case the document is deleted and inserted again.
+   */
+  @Override
+  public void update(String dbName, String colName, ToroDocument oldDoc, KvDocument newDoc,
+      Collection<AttributeReference> modifiedAttributes) throws RollbackException,
+      UserException {
+    MutableMetaDatabase db = getInternalTransaction().getMetaSnapshot()
+        .getMetaDatabaseByName(dbName);
+    MutableMetaCollection col = db == null ? null : db.getMetaCollectionByName(colName);
+    Map<TableRef, Map<String, KvValue<?>>> changes = col == null ? null :
+        extractInPlaceChanges(col, oldDoc.getRoot(), newDoc, modifiedAttributes);
+    if (changes == null) {
+      SharedWriteTorodTransaction.super.update(dbName, colName, oldDoc, newDoc,
+          modifiedAttributes);
+      return;
+    }
+
+    for (Map.Entry<TableRef, Map<String, KvValue<?>>> entry : changes.entrySet()) {
+      MutableMetaDocPart docPart = col.getMetaDocPartByTableRef(entry.getKey());
+      assert docPart != null;
+
+      Map<MetaField, KvValue<?>> newValues = new HashMap<>();
+      for (Map.Entry<String, KvValue<?>> change : entry.getValue().entrySet()) {
+        docPart.streamMetaFieldByName(change.getKey())
+            .forEach(field -> newValues.put(field, null));
+        KvValue<?> newValue = change.getValue();
+        if (newValue != null) {
+          newValues.put(getOrCreateMetaField(db, col, docPart, change.getKey(),
+              FieldType.from(newValue.getType())), newValue);
+        }
+      }
+      if (newValues.isEmpty()) {
+        continue;
+      }
+      int updated = getInternalTransaction().getBackendTransaction()
+          .updateDocPartRow(db, col, docPart, oldDoc.getId(), newValues);
+      if (updated != 1) {
+        SharedWriteTorodTransaction.super.update(dbName, colName, oldDoc, newDoc,
+            modifiedAttributes);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the new value of each modified attribute, grouped by the doc part where it is stored
+   * and indexed by its field name, or null if the document cannot be updated in place.
+   *
+   * <p>Attributes removed by the update are associated with a null value.
+   */
+  @Nullable
+  private Map<TableRef, Map<String, KvValue<?>>> extractInPlaceChanges(MetaCollection col,
+      KvDocument oldRoot, KvDocument newRoot, Collection<AttributeReference> modifiedAttributes) {
+    Map<TableRef, Map<String, KvValue<?>>> changes = new LinkedHashMap<>();
+    for (AttributeReference attRef : modifiedAttributes) {
+      List<Key<?>> keys = attRef.getKeys();
+      if (keys.isEmpty() || !keys.stream().allMatch(key -> key instanceof ObjectKey)) {
+        return null;
+      }
+      KvDocument oldParent = resolveParentDocument(oldRoot, keys);
+      KvDocument newParent = resolveParentDocument(newRoot, keys);
+      if (oldParent == null || newParent == null) {
+        return null;
+      }
+      String fieldName = extractKeyName(keys.get(keys.size() - 1));
+      KvValue<?> oldValue = oldParent.get(fieldName);
+      KvValue<?> newValue = newParent.get(fieldName);
+      if (!isScalarOrMissing(oldValue) || !isScalarOrMissing(newValue)) {
+        return null;
+      }
+      TableRef tableRef = extractTableRef(attRef);
+      if (col.getMetaDocPartByTableRef(tableRef) == null) {
+        return null;
+      }
+      changes.computeIfAbsent(tableRef, ref -> new LinkedHashMap<>())
+          .put(fieldName, newValue);
+    }
+    return changes;
+  }
+
+  @Nullable
+  private KvDocument resolveParentDocument(KvDocument root, List<Key<?>> keys) {
+    KvDocument parent = root;
+    for (Key<?> key : keys.subList(0, keys.size() - 1)) {
+      KvValue<?> child = parent.get(extractKeyName(key));
+      if (!(child instanceof KvDocument)) {
+        return null;
+      }
+      parent = (KvDocument) child;
+    }
+    return parent;
+  }
+
+  private boolean isScalarOrMissing(@Nullable KvValue<?> value) {
+    return !(value instanceof KvDocument) && !(value instanceof KvArray);
+  }
+
+  private MetaField getOrCreateMetaField(MetaDatabase db, MetaCollection col,
+      MutableMetaDocPart docPart, String fieldName, FieldType type) throws UserException {
+    MetaField field = docPart.getMetaFieldByNameAndType(fieldName, type);
+    if (field == null) {
+      String identifier = getConnection().getServer().getIdentifierFactory()
+          .toFieldIdentifier(docPart, fieldName, type);
+      field = docPart.addMetaField(fieldName, identifier, type);
+      getInternalTransaction().getBackendTransaction().addField(db, col, docPart, field);
+    }
+    return field;
+  }
+
   @Override
   public long deleteAll(String dbName, String colName) {
     MetaDatabase db = getInternalTransaction().getMetaSnapshot().getMetaDatabaseByName(dbName);
@@ -116,13 +242,7 @@ public abstract class SqlWriteTorodTransaction<T extends WriteInternalTransactio
       return 0;
     }
 
-    Collection<Integer> dids = getInternalTransaction().getBackendTransaction()
-        .findAll(db, col)
-        .asDidCursor()
-        .getRemaining();
-    getInternalTransaction().getBackendTransaction().deleteDids(db, col, dids);
-
-    return dids.size();
+    return getInternalTransaction().getBackendTransaction().deleteAll(db, col);
   }
 
   @Override
@@ -138,25 +258,28 @@ public abstract class SqlWriteTorodTransaction<T extends WriteInternalTransactio
     }
 
     TableRef tableRef = extractTableRef(attRef);
-    String lastKey = extractKeyName(attRef.getKeys().get(attRef.getKeys().size() - 1));
 
     MetaDocPart docPart = col.getMetaDocPartByTableRef(tableRef);
     if (docPart == null) {
       return 0;
     }
 
-    MetaField field = docPart.getMetaFieldByNameAndType(lastKey, FieldType.from(value.getType()));
-    if (field == null) {
+    return getInternalTransaction().getBackendTransaction().deleteByCriteria(db, col,
+        new ComparisonQueryCriteria(attRef, ComparisonQueryCriteria.Operator.EQ, value));
+  }
+
+  @Override
+  public long deleteByCriteria(String dbName, String colName, QueryCriteria criteria) {
+    MetaDatabase db = getInternalTransaction().getMetaSnapshot().getMetaDatabaseByName(dbName);
+    if (db == null) {
+      return 0;
+    }
+    MetaCollection col = db.getMetaCollectionByName(colName);
+    if (col == null) {
       return 0;
     }
 
-    Collection<Integer> dids = getInternalTransaction().getBackendTransaction()
-        .findByField(db, col, docPart, field, value)
-        .asDidCursor()
-        .getRemaining();
-    getInternalTransaction().getBackendTransaction().deleteDids(db, col, dids);
-
-    return dids.size();
+    return getInternalTransaction().getBackendTransaction().deleteByCriteria(db, col, criteria);
   }
 
   @Override
@@ -185,13 +308,22 @@ public abstract class SqlWriteTorodTransaction<T extends WriteInternalTransactio
     getInternalTransaction().getMetaSnapshot().removeMetaDatabaseByName(db);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Fields stored on the same doc part are indexed together with a multi-column index whose
+   * columns follow the order of the given fields, so compound indexes are translated into real
+   * compound SQL indexes. As an attribute can be stored on several columns (one per type), one
+   * SQL index is created for each combination of typed columns.
+   *
+   * <p>Non unique indexes whose fields are stored on different doc parts fall back to one
+   * multi-column index per doc part, each one with the fields stored on it. Unique indexes whose
+   * fields are stored on different doc parts cannot be enforced and are rejected with an
+   * {@link UnsupportedUniqueIndexException}.
+   */
   @Override
   public boolean createIndex(String dbName, String colName, String indexName,
       List<IndexFieldInfo> fields, boolean unique) throws UserException {
-    if (fields.size() > 1) {
-      throw new UnsupportedCompoundIndexException(dbName, colName, indexName);
-    }
-      
     MutableMetaDatabase metaDb = getOrCreateMetaDatabase(dbName);
     MutableMetaCollection metaColl = getOrCreateMetaCollection(metaDb, colName);
 
@@ -0,0 +1,161 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.language.querycriteria.AndQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria;
+import com.torodb.core.language.querycriteria.ComparisonQueryCriteria.Operator;
+import com.torodb.core.language.querycriteria.ExistsQueryCriteria;
+import com.torodb.core.language.querycriteria.InQueryCriteria;
+import com.torodb.core.language.querycriteria.OrQueryCriteria;
+import com.torodb.core.language.querycriteria.QueryCriteria;
+import com.torodb.core.language.querycriteria.TrueQueryCriteria;
+import com.torodb.kvdocument.values.KvBoolean;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvDouble;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvLong;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MemoryQueryCriteriaEvaluatorTest {
+
+  private final KvDocument doc = new KvDocument.Builder()
+      .putValue("i", KvInteger.of(5))
+      .putValue("d", KvDouble.of(2.5))
+      .putValue("s", new StringKvString("b"))
+      .putValue("sub", new KvDocument.Builder()
+          .putValue("l", KvLong.of(10))
+          .build())
+      .build();
+
+  @Test
+  public void trueMatchesEverything() {
+    assertTrue(matches(TrueQueryCriteria.getInstance()));
+  }
+
+  @Test
+  public void numbersAreComparedWhateverTheirType() {
+    assertTrue(matches(comparison("i", Operator.EQ, KvDouble.of(5.0))));
+    assertTrue(matches(comparison("i", Operator.EQ, KvLong.of(5))));
+    assertTrue(matches(comparison("d", Operator.GT, KvInteger.of(2))));
+    assertFalse(matches(comparison("d", Operator.GTE, KvInteger.of(3))));
+    assertTrue(matches(comparison("sub.l", Operator.LTE, KvInteger.of(10))));
+  }
+
+  @Test
+  public void ranges() {
+    assertTrue(matches(and(
+        comparison("i", Operator.GTE, KvInteger.of(5)),
+        comparison("i", Operator.LT, KvInteger.of(6)))));
+    assertFalse(matches(and(
+        comparison("i", Operator.GT, KvInteger.of(5)),
+        comparison("i", Operator.LT, KvInteger.of(6)))));
+    assertTrue(matches(and(
+        comparison("s", Operator.GT, new StringKvString("a")),
+        comparison("s", Operator.LTE, new StringKvString("b")))));
+  }
+
+  @Test
+  public void stringsAreComparedByCodePoint() {
+    assertTrue(matches(comparison("s", Operator.LT, new StringKvString("c"))));
+    assertTrue(matches(comparison("s", Operator.LT, new StringKvString("ba"))));
+    assertFalse(matches(comparison("s", Operator.LT, new StringKvString("B"))));
+    //U+1F600 is encoded with a surrogate pair whose first char is lower than U+FF21
+    KvDocument emoji = new KvDocument.Builder()
+        .putValue("s", new StringKvString("\uD83D\uDE00"))
+        .build();
+    assertTrue(comparison("s", Operator.GT, new StringKvString("\uFF21"))
+        .accept(MemoryQueryCriteriaEvaluator.INSTANCE, emoji));
+  }
+
+  @Test
+  public void andOr() {
+    QueryCriteria matching = comparison("i", Operator.EQ, KvInteger.of(5));
+    QueryCriteria notMatching = comparison("i", Operator.EQ, KvInteger.of(6));
+
+    assertTrue(matches(and(matching, matching)));
+    assertFalse(matches(and(matching, notMatching)));
+    assertTrue(matches(or(notMatching, matching)));
+    assertFalse(matches(or(notMatching, notMatching)));
+    assertTrue(matches(or(notMatching, and(matching, or(notMatching, matching)))));
+  }
+
+  @Test
+  public void in() {
+    assertTrue(matches(in("i", KvInteger.of(1), KvLong.of(5))));
+    assertTrue(matches(in("s", KvInteger.of(1), new StringKvString("b"))));
+    assertFalse(matches(in("s", new StringKvString("a"), new StringKvString("c"))));
+    assertFalse(matches(in("missing", KvInteger.of(5))));
+  }
+
+  @Test
+  public void mixedTypesAreNotComparable() {
+    assertFalse(matches(comparison("s", Operator.EQ, KvInteger.of(5))));
+    assertFalse(matches(comparison("i", Operator.LT, new StringKvString("z"))));
+    assertFalse(matches(comparison("i", Operator.GT, new StringKvString("0"))));
+    assertFalse(matches(comparison("i", Operator.EQ, KvBoolean.TRUE)));
+    assertFalse(matches(in("i", new StringKvString("5"), KvBoolean.TRUE)));
+  }
+
+  @Test
+  public void exists() {
+    assertTrue(matches(new ExistsQueryCriteria(attRef("sub.l"), true)));
+    assertFalse(matches(new ExistsQueryCriteria(attRef("sub.l"), false)));
+    assertTrue(matches(new ExistsQueryCriteria(attRef("missing"), false)));
+    assertFalse(matches(comparison("missing", Operator.LT, KvInteger.of(1))));
+  }
+
+  private boolean matches(QueryCriteria criteria) {
+    return criteria.accept(MemoryQueryCriteriaEvaluator.INSTANCE, doc);
+  }
+
+  private static QueryCriteria and(QueryCriteria... subCriteria) {
+    return new AndQueryCriteria(ImmutableList.copyOf(subCriteria));
+  }
+
+  private static QueryCriteria or(QueryCriteria... subCriteria) {
+    return new OrQueryCriteria(ImmutableList.copyOf(subCriteria));
+  }
+
+  private static QueryCriteria in(String path, KvValue<?>... values) {
+    return new InQueryCriteria(attRef(path), Arrays.asList(values));
+  }
+
+  private static ComparisonQueryCriteria comparison(String path, Operator operator,
+      KvValue<?> value) {
+    return new ComparisonQueryCriteria(attRef(path), operator, value);
+  }
+
+  private static AttributeReference attRef(String path) {
+    AttributeReference.Builder builder = new AttributeReference.Builder();
+    for (String key : path.split("\\.")) {
+      builder.addObjectKey(key);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.exceptions.user.UniqueIndexViolationException;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.transaction.RollbackException;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.KvValue;
+import com.torodb.kvdocument.values.heap.ListKvArray;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import com.torodb.torod.IndexInfo;
+import com.torodb.torod.impl.memory.concurrent.ConcurrentMemoryData.MdReadTransaction;
+import com.torodb.torod.impl.memory.concurrent.ConcurrentMemoryData.MdTransaction;
+import com.torodb.torod.impl.memory.concurrent.ConcurrentMemoryData.MdWriteTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ConcurrentMemoryDataTest {
+
+  private static final String DB = "db";
+  private static final String COL1 = "col1";
+  private static final String COL2 = "col2";
+
+  private ConcurrentMemoryData data;
+
+  @Before
+  public void setUp() {
+    data = new ConcurrentMemoryData();
+  }
+
+  @Test
+  public void testReadersDoNotSeeUncommittedChanges() throws Exception {
+    try (MdWriteTransaction writeTrans = data.openWriteTransaction()) {
+      writeTrans.insert(DB, COL1, Stream.of(createDoc(1, 1)));
+
+      try (MdReadTransaction readTrans = data.openReadTransaction()) {
+        assertFalse(readTrans.existsCollection(DB, COL1));
+      }
+      assertEquals(1, writeTrans.streamCollection(DB, COL1).count());
+
+      writeTrans.commit();
+    }
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      assertEquals(1, readTrans.streamCollection(DB, COL1).count());
+    }
+  }
+
+  @Test
+  public void testReadersKeepTheirSnapshot() throws Exception {
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      try (MdWriteTransaction writeTrans = data.openWriteTransaction()) {
+        writeTrans.insert(DB, COL1, Stream.of(createDoc(1, 1)));
+        writeTrans.commit();
+      }
+      assertFalse(readTrans.existsCollection(DB, COL1));
+    }
+  }
+
+  @Test
+  public void testWritersOnDifferentCollections() throws Exception {
+    try (MdWriteTransaction trans1 = data.openWriteTransaction();
+        MdWriteTransaction trans2 = data.openWriteTransaction()) {
+      trans1.insert(DB, COL1, Stream.of(createDoc(1, 1)));
+      trans2.insert(DB, COL2, Stream.of(createDoc(2, 2)));
+      trans2.commit();
+      trans1.commit();
+    }
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      assertEquals(1, readTrans.streamCollection(DB, COL1).count());
+      assertEquals(1, readTrans.streamCollection(DB, COL2).count());
+    }
+  }
+
+  @Test
+  public void testWritersOnTheSameCollectionAreSerialized() throws Exception {
+    int threads = 4;
+    int docsPerThread = 100;
+    List<Thread> writers = Stream.iterate(0, i -> i + 1)
+        .limit(threads)
+        .map(thread -> new Thread(() -> {
+          for (int i = 0; i < docsPerThread; i++) {
+            try (MdWriteTransaction trans = data.openWriteTransaction()) {
+              trans.insert(DB, COL1, Stream.of(createDoc(thread * docsPerThread + i, i)));
+              trans.commit();
+            } catch (UniqueIndexViolationException ex) {
+              throw new AssertionError(ex);
+            }
+          }
+        }))
+        .collect(Collectors.toList());
+    for (Thread writer : writers) {
+      writer.start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      assertEquals(threads * docsPerThread, readTrans.streamCollection(DB, COL1).count());
+    }
+  }
+
+  @Test
+  public void testWriterRollsBackWhenWhatItReadIsModified() throws Exception {
+    try (MdWriteTransaction writeTrans = data.openWriteTransaction()) {
+      writeTrans.insert(DB, COL1, Stream.of(createDoc(1, 1)));
+      writeTrans.commit();
+    }
+    try (MdWriteTransaction trans1 = data.openWriteTransaction()) {
+      assertEquals(1, readValue(trans1));
+
+      try (MdWriteTransaction trans2 = data.openWriteTransaction()) {
+        trans2.deleteAll(DB, COL1);
+        trans2.insert(DB, COL1, Stream.of(createDoc(1, 2)));
+        trans2.commit();
+      }
+
+      try {
+        trans1.deleteAll(DB, COL1);
+        fail("A rollback was expected, as the read value has been modified");
+      } catch (RollbackException ex) {
+        //expected
+      }
+    }
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      assertEquals(2, readValue(readTrans));
+    }
+  }
+
+  @Test
+  public void testConcurrentUpdatesAreNotLost() throws Exception {
+    try (MdWriteTransaction writeTrans = data.openWriteTransaction()) {
+      writeTrans.insert(DB, COL1, Stream.of(createDoc(1, 0)));
+      writeTrans.commit();
+    }
+    int threads = 4;
+    int updatesPerThread = 100;
+    List<Thread> writers = Stream.iterate(0, i -> i + 1)
+        .limit(threads)
+        .map(thread -> new Thread(() -> {
+          for (int i = 0; i < updatesPerThread; i++) {
+            incrementWithRetries();
+          }
+        }))
+        .collect(Collectors.toList());
+    for (Thread writer : writers) {
+      writer.start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      assertEquals(threads * updatesPerThread, readValue(readTrans));
+    }
+  }
+
+  @Test
+  public void testRollback() throws Exception {
+    try (MdWriteTransaction trans = data.openWriteTransaction()) {
+      trans.insert(DB, COL1, Stream.of(createDoc(1, 1)));
+      trans.rollback();
+      assertFalse(trans.existsCollection(DB, COL1));
+      trans.commit();
+    }
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      assertFalse(readTrans.existsCollection(DB, COL1));
+    }
+  }
+
+  @Test
+  public void testIndexLookup() throws Exception {
+    AttributeReference attRef = new AttributeReference.Builder().addObjectKey("a").build();
+    try (MdWriteTransaction trans = data.openWriteTransaction()) {
+      trans.insert(DB, COL1, Stream.of(createDoc(1, 10), createDoc(2, 20), createDoc(3, 10)));
+      assertTrue(trans.createIndex(DB, COL1, new IndexInfo.Builder("a_1", false)
+          .addField(attRef, true)
+          .build()));
+      trans.commit();
+    }
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      List<Integer> ids = readTrans.getCollection(DB, COL1)
+          .streamByAttRef(attRef, KvInteger.of(10))
+          .map(ToroDocument::getRoot)
+          .map(doc -> ((KvInteger) doc.get("_id")).intValue())
+          .sorted()
+          .collect(Collectors.toList());
+      assertEquals(2, ids.size());
+      assertEquals(Integer.valueOf(1), ids.get(0));
+      assertEquals(Integer.valueOf(3), ids.get(1));
+    }
+  }
+
+  @Test
+  public void testUniqueIndexViolation() throws Exception {
+    try (MdWriteTransaction trans = data.openWriteTransaction()) {
+      trans.insert(DB, COL1, Stream.of(createDoc(1, 1)));
+      try {
+        trans.insert(DB, COL1, Stream.of(createDoc(2, 2), createDoc(1, 3)));
+        fail("A unique index violation was expected");
+      } catch (UniqueIndexViolationException ex) {
+        //expected
+      }
+      assertEquals(1, trans.streamCollection(DB, COL1).count());
+    }
+  }
+
+  @Test
+  public void testSizesAreEstimatedAsBson() throws Exception {
+    AttributeReference attRef = new AttributeReference.Builder().addObjectKey("a").build();
+    try (MdWriteTransaction trans = data.openWriteTransaction()) {
+      trans.insert(DB, COL1, Stream.of(createDoc(1, 10), createDoc(2, 20), createDoc(3, 10)));
+      assertTrue(trans.createIndex(DB, COL1, new IndexInfo.Builder("a_1", false)
+          .addField(attRef, true)
+          .build()));
+      trans.commit();
+    }
+    try (MdReadTransaction readTrans = data.openReadTransaction()) {
+      CollectionData colData = readTrans.getCollection(DB, COL1);
+      //{_id: int, a: int} uses 4 + (1 + 4 + 4) + (1 + 2 + 4) + 1 bytes as BSON
+      assertEquals(3 * 21, colData.estimateDocumentsSize());
+      //each _id index entry has a key of 4 bytes and a did, two docs share the a_1 key 10
+      assertEquals(3 * (4 + 4) + (4 + 2 * 4) + (4 + 4), colData.estimateIndexesSize());
+    }
+  }
+
+  @Test
+  public void testSizeOfNestedValues() {
+    KvDocument doc = new KvDocument.Builder()
+        .putValue("s", new StringKvString("abc"))
+        .putValue("arr", new ListKvArray(
+            Arrays.<KvValue<?>>asList(KvInteger.of(1), KvInteger.of(2))))
+        .build();
+    //string: 4 + 3 + 1, array: 4 + 2 * (1 + 2 + 4) + 1
+    long expected = 4 + (1 + 2 + 8) + (1 + 4 + 19) + 1;
+    assertEquals(expected, KvValueSizeEstimator.estimate(doc));
+  }
+
+  private void incrementWithRetries() {
+    while (true) {
+      try (MdWriteTransaction trans = data.openWriteTransaction()) {
+        int value = readValue(trans);
+        trans.deleteAll(DB, COL1);
+        trans.insert(DB, COL1, Stream.of(createDoc(1, value + 1)));
+        trans.commit();
+        return;
+      } catch (RollbackException ex) {
+        //the read value is stale, so the update is retried
+      } catch (UniqueIndexViolationException ex) {
+        throw new AssertionError(ex);
+      }
+    }
+  }
+
+  private static int readValue(MdTransaction trans) {
+    return trans.streamCollection(DB, COL1)
+        .map(ToroDocument::getRoot)
+        .map(doc -> ((KvInteger) doc.get("a")).intValue())
+        .findAny()
+        .get();
+  }
+
+  private static KvDocument createDoc(int id, int value) {
+    return new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(id))
+        .putValue("a", KvInteger.of(value))
+        .build();
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.memory.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class PersistentHashMapTest {
+
+  @Test
+  public void testEmpty() {
+    PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+
+    assertTrue(map.isEmpty());
+    assertEquals(0, map.size());
+    assertNull(map.get("a"));
+    assertEquals(0, map.stream().count());
+  }
+
+  @Test
+  public void testPlusDoesNotModifyPreviousVersion() {
+    PersistentHashMap<String, Integer> v1 = PersistentHashMap.<String, Integer>empty()
+        .plus("a", 1);
+    PersistentHashMap<String, Integer> v2 = v1.plus("a", 2).plus("b", 3);
+
+    assertEquals(1, v1.size());
+    assertEquals(Integer.valueOf(1), v1.get("a"));
+    assertFalse(v1.containsKey("b"));
+    assertEquals(2, v2.size());
+    assertEquals(Integer.valueOf(2), v2.get("a"));
+    assertEquals(Integer.valueOf(3), v2.get("b"));
+  }
+
+  @Test
+  public void testMinusDoesNotModifyPreviousVersion() {
+    PersistentHashMap<String, Integer> v1 = PersistentHashMap.<String, Integer>empty()
+        .plus("a", 1)
+        .plus("b", 2);
+    PersistentHashMap<String, Integer> v2 = v1.minus("a");
+
+    assertEquals(2, v1.size());
+    assertEquals(Integer.valueOf(1), v1.get("a"));
+    assertEquals(1, v2.size());
+    assertFalse(v2.containsKey("a"));
+    assertTrue(v2.minus("a") == v2);
+  }
+
+  @Test
+  public void testCollisions() {
+    PersistentHashMap<CollidingKey, Integer> map = PersistentHashMap.empty();
+    for (int i = 0; i < 100; i++) {
+      map = map.plus(new CollidingKey(i), i);
+    }
+    for (int i = 0; i < 100; i += 2) {
+      map = map.minus(new CollidingKey(i));
+    }
+
+    assertEquals(50, map.size());
+    assertEquals(50, map.stream().count());
+    assertNull(map.get(new CollidingKey(2)));
+    assertEquals(Integer.valueOf(3), map.get(new CollidingKey(3)));
+  }
+
+  @Test
+  public void testRandomOperations() {
+    Random random = new Random(1);
+    PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+    Map<Integer, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20_000; i++) {
+      int key = random.nextInt(5_000) - 2_500;
+      if (random.nextInt(3) == 0) {
+        map = map.minus(key);
+        expected.remove(key);
+      } else {
+        map = map.plus(key, i);
+        expected.put(key, i);
+      }
+    }
+
+    assertEquals(expected.size(), map.size());
+    assertEquals(expected, map.stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+  }
+
+  private static class CollidingKey {
+
+    private final int value;
+
+    CollidingKey(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+      return value % 3;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof CollidingKey && ((CollidingKey) obj).value == value;
+    }
+
+  }
+
+}
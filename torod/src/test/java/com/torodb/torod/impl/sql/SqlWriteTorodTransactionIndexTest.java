@@ -0,0 +1,332 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.torodb.backend.derby.DerbyDbBackendBundle;
+import com.torodb.backend.derby.driver.DerbyDbBackendConfigBuilder;
+import com.torodb.core.backend.BackendBundle;
+import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.bundle.BundleConfigImpl;
+import com.torodb.core.exceptions.user.UnsupportedUniqueIndexException;
+import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.guice.EssentialModule;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.core.supervision.Supervisor;
+import com.torodb.core.supervision.SupervisorDecision;
+import com.torodb.core.transaction.metainf.FieldIndexOrdering;
+import com.torodb.core.transaction.metainf.FieldType;
+import com.torodb.core.transaction.metainf.ImmutableMetaSnapshot;
+import com.torodb.core.transaction.metainf.MetaCollection;
+import com.torodb.core.transaction.metainf.MetaDatabase;
+import com.torodb.core.transaction.metainf.MetaDocPart;
+import com.torodb.core.transaction.metainf.MetaDocPartIndex;
+import com.torodb.core.transaction.metainf.MetaDocPartIndexColumn;
+import com.torodb.core.transaction.metainf.MetaSnapshot;
+import com.torodb.core.transaction.metainf.MetainfoRepository;
+import com.torodb.core.transaction.metainf.MetainfoRepository.SnapshotStage;
+import com.torodb.core.transaction.metainf.impl.metainfo.mvcc.LockFreeMetainfoRepository;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import com.torodb.torod.IndexFieldInfo;
+import com.torodb.torod.SharedWriteTorodTransaction;
+import com.torodb.torod.SqlTorodBundle;
+import com.torodb.torod.SqlTorodConfig;
+import com.torodb.torod.TorodConnection;
+import com.torodb.torod.TorodServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks that compound indexes are stored as multi-column doc part indexes, both on the snapshot
+ * committed by the transaction and on the snapshot loaded from the backend.
+ */
+public class SqlWriteTorodTransactionIndexTest {
+
+  private static final String DB = "test";
+  private static final String COL = "col";
+  private static final String INDEX = "compound";
+
+  private BackendBundle backendBundle;
+  private SqlTorodBundle torodBundle;
+  private TorodServer server;
+
+  @Before
+  public void setUp() {
+    Supervisor supervisor = new Supervisor() {
+      @Override
+      public SupervisorDecision onError(Object supervised, Throwable error) {
+        throw new AssertionError("error on " + supervised, error);
+      }
+    };
+    Injector essentialInjector = Guice.createInjector(
+        new EssentialModule(
+            DefaultLoggerFactory.getInstance(),
+            () -> true,
+            Clock.systemUTC()
+        )
+    );
+
+    BundleConfig generalConfig = new BundleConfigImpl(essentialInjector, supervisor);
+    backendBundle = new DerbyDbBackendBundle(
+        new DerbyDbBackendConfigBuilder(generalConfig)
+        .setInMemory(true)
+        .setEmbedded(true)
+        .build()
+    );
+    backendBundle.startAsync();
+    backendBundle.awaitRunning();
+
+    torodBundle = new SqlTorodBundle(new SqlTorodConfig(
+        backendBundle,
+        essentialInjector,
+        supervisor)
+    );
+    torodBundle.startAsync();
+    torodBundle.awaitRunning();
+    server = torodBundle.getExternalInterface().getTorodServer();
+  }
+
+  @After
+  public void tearDown() throws UserException {
+    if (server != null) {
+      //the in memory database may be shared by several tests
+      try (TorodConnection conn = server.openConnection();
+          SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+        trans.dropDatabase(DB);
+        trans.commit();
+      }
+    }
+    if (torodBundle != null) {
+      torodBundle.stopAsync();
+      torodBundle.awaitTerminated();
+    }
+    if (backendBundle != null) {
+      backendBundle.stopAsync();
+    }
+  }
+
+  @Test
+  public void testCompoundIndexOnOneDocPart() throws UserException {
+    insert(new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(1))
+        .putValue("a", KvInteger.of(1))
+        .putValue("b", new StringKvString("x"))
+        .build());
+    createIndex(false, field("a", true), field("b", false));
+
+    for (MetaSnapshot snapshot : Arrays.asList(committedSnapshot(), backendSnapshot())) {
+      MetaDocPart root = getDocPart(snapshot, "");
+      assertEquals(Collections.singletonList(Arrays.asList(
+          column(root, "a", FieldType.INTEGER, FieldIndexOrdering.ASC),
+          column(root, "b", FieldType.STRING, FieldIndexOrdering.DESC))),
+          getIndexes(root));
+    }
+  }
+
+  @Test
+  public void testCompoundIndexCreatedBeforeItsFields() throws UserException {
+    createIndex(false, field("a", true), field("b", true));
+    insert(new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(1))
+        .putValue("a", KvInteger.of(1))
+        .build());
+    insert(new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(2))
+        .putValue("a", KvInteger.of(2))
+        .putValue("b", KvInteger.of(2))
+        .build());
+
+    for (MetaSnapshot snapshot : Arrays.asList(committedSnapshot(), backendSnapshot())) {
+      MetaDocPart root = getDocPart(snapshot, "");
+      assertEquals(Collections.singletonList(Arrays.asList(
+          column(root, "a", FieldType.INTEGER, FieldIndexOrdering.ASC),
+          column(root, "b", FieldType.INTEGER, FieldIndexOrdering.ASC))),
+          getIndexes(root));
+    }
+  }
+
+  @Test
+  public void testCompoundIndexSurvivesLaterCommits() throws UserException {
+    insert(new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(1))
+        .putValue("a", KvInteger.of(1))
+        .putValue("b", KvInteger.of(1))
+        .build());
+    createIndex(false, field("a", true), field("b", true));
+    //adds new fields to the indexed doc part on a transaction that does not touch the index
+    insert(new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(2))
+        .putValue("a", new StringKvString("2"))
+        .putValue("c", KvInteger.of(2))
+        .build());
+
+    for (MetaSnapshot snapshot : Arrays.asList(committedSnapshot(), backendSnapshot())) {
+      MetaDocPart root = getDocPart(snapshot, "");
+      assertNotNull(getCollection(snapshot).getMetaIndexByName(INDEX));
+      assertEquals(Arrays.asList(
+          Arrays.asList(
+              column(root, "a", FieldType.INTEGER, FieldIndexOrdering.ASC),
+              column(root, "b", FieldType.INTEGER, FieldIndexOrdering.ASC)),
+          Arrays.asList(
+              column(root, "a", FieldType.STRING, FieldIndexOrdering.ASC),
+              column(root, "b", FieldType.INTEGER, FieldIndexOrdering.ASC))),
+          getIndexes(root));
+    }
+  }
+
+  @Test
+  public void testCompoundIndexSpanningDocParts() throws UserException {
+    insert(new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(1))
+        .putValue("a", KvInteger.of(1))
+        .putValue("sub", new KvDocument.Builder()
+            .putValue("b", KvInteger.of(1))
+            .putValue("c", new StringKvString("x"))
+            .build())
+        .build());
+    createIndex(false, field("a", true), field("sub.b", true), field("sub.c", false));
+
+    for (MetaSnapshot snapshot : Arrays.asList(committedSnapshot(), backendSnapshot())) {
+      MetaDocPart root = getDocPart(snapshot, "");
+      MetaDocPart sub = getDocPart(snapshot, "sub");
+      assertEquals(Collections.singletonList(Collections.singletonList(
+          column(root, "a", FieldType.INTEGER, FieldIndexOrdering.ASC))),
+          getIndexes(root));
+      assertEquals(Collections.singletonList(Arrays.asList(
+          column(sub, "b", FieldType.INTEGER, FieldIndexOrdering.ASC),
+          column(sub, "c", FieldType.STRING, FieldIndexOrdering.DESC))),
+          getIndexes(sub));
+    }
+  }
+
+  @Test(expected = UnsupportedUniqueIndexException.class)
+  public void testUniqueCompoundIndexSpanningDocParts() throws UserException {
+    insert(new KvDocument.Builder()
+        .putValue("_id", KvInteger.of(1))
+        .putValue("a", KvInteger.of(1))
+        .putValue("sub", new KvDocument.Builder()
+            .putValue("b", KvInteger.of(1))
+            .build())
+        .build());
+    createIndex(true, field("a", true), field("sub.b", true));
+  }
+
+  private IndexFieldInfo field(String path, boolean ascending) {
+    AttributeReference.Builder attRef = new AttributeReference.Builder();
+    for (String key : path.split("\\.")) {
+      attRef.addObjectKey(key);
+    }
+    return new IndexFieldInfo(attRef.build(), ascending);
+  }
+
+  private void insert(KvDocument doc) throws UserException {
+    try (TorodConnection conn = server.openConnection();
+        SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+      trans.insert(DB, COL, Stream.of(doc));
+      trans.commit();
+    }
+  }
+
+  private void createIndex(boolean unique, IndexFieldInfo... fields) throws UserException {
+    try (TorodConnection conn = server.openConnection();
+        SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+      trans.createIndex(DB, COL, INDEX, Arrays.asList(fields), unique);
+      trans.commit();
+    }
+  }
+
+  /**
+   * Returns the snapshot the transactions committed so far have been merged into.
+   */
+  private ImmutableMetaSnapshot committedSnapshot() {
+    try (TorodConnection conn = server.openConnection();
+        SqlReadOnlyTorodTransaction trans =
+            (SqlReadOnlyTorodTransaction) conn.openReadOnlyTransaction()) {
+      return trans.getInternalTransaction().getMetaSnapshot();
+    }
+  }
+
+  /**
+   * Returns a snapshot loaded from the backend, which also checks that the SQL indexes and their
+   * columns exist on the database schema.
+   */
+  private ImmutableMetaSnapshot backendSnapshot() {
+    MetainfoRepository repository = new LockFreeMetainfoRepository();
+    backendBundle.getExternalInterface().getSnapshotUpdater().updateSnapshot(repository);
+    try (SnapshotStage stage = repository.startSnapshotStage()) {
+      return stage.createImmutableSnapshot();
+    }
+  }
+
+  private MetaCollection getCollection(MetaSnapshot snapshot) {
+    MetaDatabase db = snapshot.getMetaDatabaseByName(DB);
+    assertNotNull(db);
+    MetaCollection col = db.getMetaCollectionByName(COL);
+    assertNotNull(col);
+    return col;
+  }
+
+  private MetaDocPart getDocPart(MetaSnapshot snapshot, String name) {
+    return getCollection(snapshot).streamContainedMetaDocParts()
+        .filter(docPart -> name.isEmpty() ? docPart.getTableRef().isRoot()
+            : !docPart.getTableRef().isRoot() && docPart.getTableRef().getName().equals(name))
+        .findAny()
+        .orElseThrow(() -> new AssertionError("There is no doc part " + name));
+  }
+
+  /**
+   * Returns the columns of each doc part index on the given doc part, sorted by the identifier of
+   * their first column to make the result independent of the creation order.
+   */
+  private List<List<String>> getIndexes(MetaDocPart docPart) {
+    return docPart.streamIndexes()
+        .map(this::getColumns)
+        .sorted(Comparator.comparing((List<String> columns) -> columns.get(0)))
+        .collect(Collectors.toList());
+  }
+
+  private List<String> getColumns(MetaDocPartIndex index) {
+    return index.streamColumns()
+        .sorted(Comparator.comparingInt(MetaDocPartIndexColumn::getPosition))
+        .map(column -> column.getIdentifier() + " " + column.getOrdering())
+        .collect(Collectors.toList());
+  }
+
+  private String column(MetaDocPart docPart, String fieldName, FieldType type,
+      FieldIndexOrdering ordering) {
+    return docPart.getMetaFieldByNameAndType(fieldName, type).getIdentifier() + " " + ordering;
+  }
+
+}
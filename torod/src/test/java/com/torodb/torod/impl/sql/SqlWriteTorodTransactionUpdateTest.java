@@ -0,0 +1,208 @@
+/*
+ * ToroDB
+ * Copyright © 2014 8Kdata Technology (www.8kdata.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.torodb.torod.impl.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.torodb.backend.derby.DerbyDbBackendBundle;
+import com.torodb.backend.derby.driver.DerbyDbBackendConfigBuilder;
+import com.torodb.core.backend.BackendBundle;
+import com.torodb.core.bundle.BundleConfig;
+import com.torodb.core.bundle.BundleConfigImpl;
+import com.torodb.core.document.ToroDocument;
+import com.torodb.core.exceptions.user.UserException;
+import com.torodb.core.guice.EssentialModule;
+import com.torodb.core.language.AttributeReference;
+import com.torodb.core.logging.DefaultLoggerFactory;
+import com.torodb.core.supervision.Supervisor;
+import com.torodb.core.supervision.SupervisorDecision;
+import com.torodb.kvdocument.values.KvDocument;
+import com.torodb.kvdocument.values.KvInteger;
+import com.torodb.kvdocument.values.heap.StringKvString;
+import com.torodb.torod.SharedWriteTorodTransaction;
+import com.torodb.torod.SqlTorodBundle;
+import com.torodb.torod.SqlTorodConfig;
+import com.torodb.torod.TorodConnection;
+import com.torodb.torod.TorodServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class SqlWriteTorodTransactionUpdateTest {
+
+  private static final String DB = "test";
+  private static final String COL = "col";
+
+  private final AttributeReference valueAtt = new AttributeReference.Builder()
+      .addObjectKey("value")
+      .build();
+
+  private BackendBundle backendBundle;
+  private SqlTorodBundle torodBundle;
+  private TorodServer server;
+
+  @Before
+  public void setUp() {
+    Supervisor supervisor = new Supervisor() {
+      @Override
+      public SupervisorDecision onError(Object supervised, Throwable error) {
+        throw new AssertionError("error on " + supervised, error);
+      }
+    };
+    Injector essentialInjector = Guice.createInjector(
+        new EssentialModule(
+            DefaultLoggerFactory.getInstance(),
+            () -> true,
+            Clock.systemUTC()
+        )
+    );
+
+    BundleConfig generalConfig = new BundleConfigImpl(essentialInjector, supervisor);
+    backendBundle = new DerbyDbBackendBundle(
+        new DerbyDbBackendConfigBuilder(generalConfig)
+        .setInMemory(true)
+        .setEmbedded(true)
+        .build()
+    );
+    backendBundle.startAsync();
+    backendBundle.awaitRunning();
+
+    torodBundle = new SqlTorodBundle(new SqlTorodConfig(
+        backendBundle,
+        essentialInjector,
+        supervisor)
+    );
+    torodBundle.startAsync();
+    torodBundle.awaitRunning();
+    server = torodBundle.getExternalInterface().getTorodServer();
+  }
+
+  @After
+  public void tearDown() throws UserException {
+    if (server != null) {
+      //the in memory database may be shared by several tests
+      try (TorodConnection conn = server.openConnection();
+          SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+        trans.dropDatabase(DB);
+        trans.commit();
+      }
+    }
+    if (torodBundle != null) {
+      torodBundle.stopAsync();
+      torodBundle.awaitTerminated();
+    }
+    if (backendBundle != null) {
+      backendBundle.stopAsync();
+    }
+  }
+
+  private KvDocument createDoc(int id, KvDocument.Builder extra) {
+    return extra.putValue("_id", KvInteger.of(id))
+        .build();
+  }
+
+  private ToroDocument insertAndFetch(KvDocument doc) throws UserException {
+    try (TorodConnection conn = server.openConnection();
+        SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+      trans.insert(DB, COL, Stream.of(doc));
+      trans.commit();
+    }
+    List<ToroDocument> docs = findAll();
+    assertEquals(1, docs.size());
+    return docs.get(0);
+  }
+
+  private void update(ToroDocument oldDoc, KvDocument newDoc) throws UserException {
+    try (TorodConnection conn = server.openConnection();
+        SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+      trans.update(DB, COL, oldDoc, newDoc, Collections.singleton(valueAtt));
+      trans.commit();
+    }
+  }
+
+  private List<ToroDocument> findAll() {
+    try (TorodConnection conn = server.openConnection();
+        SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+      return trans.findAll(DB, COL).asDocCursor().getRemaining();
+    }
+  }
+
+  @Test
+  public void testUpdateInPlace() throws UserException {
+    ToroDocument oldDoc = insertAndFetch(createDoc(1, new KvDocument.Builder()
+        .putValue("value", KvInteger.of(1))
+        .putValue("other", new StringKvString("unchanged"))));
+    KvDocument newDoc = createDoc(1, new KvDocument.Builder()
+        .putValue("value", KvInteger.of(2))
+        .putValue("other", new StringKvString("unchanged")));
+
+    update(oldDoc, newDoc);
+
+    List<ToroDocument> docs = findAll();
+    assertEquals(1, docs.size());
+    assertEquals("the document should keep its did", oldDoc.getId(), docs.get(0).getId());
+    assertEquals(newDoc, docs.get(0).getRoot());
+  }
+
+  @Test
+  public void testUpdateInPlaceWithTypeChange() throws UserException {
+    ToroDocument oldDoc = insertAndFetch(createDoc(1, new KvDocument.Builder()
+        .putValue("value", KvInteger.of(1))));
+    KvDocument newDoc = createDoc(1, new KvDocument.Builder()
+        .putValue("value", new StringKvString("a string")));
+
+    update(oldDoc, newDoc);
+
+    List<ToroDocument> docs = findAll();
+    assertEquals(1, docs.size());
+    assertEquals("the document should keep its did", oldDoc.getId(), docs.get(0).getId());
+    //the integer column must have been set to null, otherwise the value would be ambiguous
+    assertEquals(newDoc, docs.get(0).getRoot());
+  }
+
+  @Test
+  public void testUpdateFallsBackWhenTheRowIsNotFound() throws UserException {
+    ToroDocument oldDoc = insertAndFetch(createDoc(1, new KvDocument.Builder()
+        .putValue("value", KvInteger.of(1))));
+    try (TorodConnection conn = server.openConnection();
+        SharedWriteTorodTransaction trans = conn.openWriteTransaction(false)) {
+      trans.deleteAll(DB, COL);
+      trans.commit();
+    }
+    KvDocument newDoc = createDoc(1, new KvDocument.Builder()
+        .putValue("value", KvInteger.of(2)));
+
+    update(oldDoc, newDoc);
+
+    List<ToroDocument> docs = findAll();
+    assertEquals(1, docs.size());
+    assertNotEquals("the document should have been inserted again", oldDoc.getId(),
+        docs.get(0).getId());
+    assertEquals(newDoc, docs.get(0).getRoot());
+  }
+
+}